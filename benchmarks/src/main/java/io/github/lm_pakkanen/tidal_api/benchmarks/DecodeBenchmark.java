@@ -0,0 +1,52 @@
+package io.github.lm_pakkanen.tidal_api.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.TrackResponse;
+
+/**
+ * Measures {@code JSON.std.beanFrom} on track list responses of 1, 100 and
+ * 10,000 tracks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+  /**
+   * Number of tracks in the response body.
+   */
+  @Param({ "1", "100", "10000" })
+  public int trackCount;
+
+  private byte[] body;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.body = Fixtures.trackList(this.trackCount);
+  }
+
+  @Benchmark
+  public TrackResponse.ListResponse beanFrom() throws IOException {
+    return JSON.std.beanFrom(TrackResponse.ListResponse.class, this.body);
+  }
+}
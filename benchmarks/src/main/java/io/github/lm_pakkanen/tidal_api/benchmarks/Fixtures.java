@@ -0,0 +1,89 @@
+package io.github.lm_pakkanen.tidal_api.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic Tidal API response bodies for benchmarks. The bodies are
+ * deterministic, so results are comparable between runs.
+ */
+final class Fixtures {
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private Fixtures() {
+  }
+
+  /**
+   * Builds a track list response body with the given number of tracks, shaped
+   * like the responses of the tracks endpoints.
+   *
+   * @param trackCount the number of tracks.
+   *
+   * @return the UTF-8 encoded response body.
+   */
+  static byte[] trackList(int trackCount) {
+    final StringBuilder body = new StringBuilder(trackCount * 1024 + 32);
+    body.append("{\"data\":[");
+
+    for (int i = 0; i < trackCount; i++) {
+      if (i > 0) {
+        body.append(',');
+      }
+
+      Fixtures.appendTrack(body, String.valueOf(100_000_000 + i));
+    }
+
+    body.append("],\"metadata\":{\"requested\":").append(trackCount)
+        .append(",\"success\":").append(trackCount)
+        .append(",\"failure\":0}}");
+
+    return body.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Builds the IDs of the tracks of {@link #trackList(int)}.
+   *
+   * @param trackCount the number of tracks.
+   *
+   * @return the track IDs.
+   */
+  static String[] trackIds(int trackCount) {
+    final String[] trackIds = new String[trackCount];
+
+    for (int i = 0; i < trackCount; i++) {
+      trackIds[i] = String.valueOf(100_000_000 + i);
+    }
+
+    return trackIds;
+  }
+
+  /**
+   * Appends a single track resource to the given body.
+   *
+   * @param body    the body to append to.
+   * @param trackId the ID of the track.
+   */
+  private static void appendTrack(StringBuilder body, String trackId) {
+    body.append("{\"resource\":{")
+        .append("\"artifactType\":\"track\",")
+        .append("\"id\":\"").append(trackId).append("\",")
+        .append("\"title\":\"Benchmark Track ").append(trackId).append("\",")
+        .append("\"artists\":[")
+        .append("{\"id\":\"1566\",\"name\":\"Benchmark Artist\",\"main\":true,\"picture\":[")
+        .append("{\"url\":\"https://resources.tidal.com/images/a/750x750.jpg\",\"width\":750,\"height\":750},")
+        .append("{\"url\":\"https://resources.tidal.com/images/a/160x160.jpg\",\"width\":160,\"height\":160}]},")
+        .append("{\"id\":\"7804\",\"name\":\"Featured Artist\",\"main\":false,\"picture\":[]}],")
+        .append("\"album\":{\"id\":\"345485957\",\"title\":\"Benchmark Album\",\"imageCover\":[")
+        .append("{\"url\":\"https://resources.tidal.com/images/b/1280x1280.jpg\",\"width\":1280,\"height\":1280},")
+        .append("{\"url\":\"https://resources.tidal.com/images/b/640x640.jpg\",\"width\":640,\"height\":640}],")
+        .append("\"videoCover\":[]},")
+        .append("\"duration\":215,\"trackNumber\":3,\"volumeNumber\":1,")
+        .append("\"isrc\":\"USSM12209515\",")
+        .append("\"copyright\":\"(P) 2024 Benchmark Records\",")
+        .append("\"mediaMetadata\":{\"tags\":[\"LOSSLESS\",\"HIRES_LOSSLESS\"]},")
+        .append("\"properties\":{\"content\":[\"explicit\"]},")
+        .append("\"tidalUrl\":\"https://tidal.com/browse/track/").append(trackId).append("\"")
+        .append("},\"id\":\"").append(trackId).append("\",\"status\":200,\"message\":\"success\"}");
+  }
+}
@@ -0,0 +1,125 @@
+package io.github.lm_pakkanen.tidal_api.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.lm_pakkanen.tidal_api.TidalApi;
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalTrack;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.InvalidCredentialsException;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.UnauthorizedException;
+
+/**
+ * Measures a whole {@code tracks.list} call against an in-process HTTP server
+ * that the client is pointed at with its base URL: argument validation, URL
+ * build, the query pipeline, the HTTP exchange over a pooled connection, body
+ * decoding and entity mapping.
+ *
+ * The 'metrics' parameter compares the default in-memory metrics sink with
+ * metrics disabled, to show what recording costs per call.
+ *
+ * The server is run with TCP_NODELAY. Without it, the JDK server writes the
+ * headers and body separately and Nagle's algorithm adds about 40 ms to every
+ * exchange, which would hide the client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class ListEndToEndBenchmark {
+
+  /**
+   * Number of tracks per response.
+   */
+  @Param({ "1", "20" })
+  public int trackCount;
+
+  /**
+   * Whether the queries are reported to the default metrics sink.
+   */
+  @Param({ "true", "false" })
+  public boolean metrics;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private TidalApi api;
+  private String[] trackIds;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, InvalidCredentialsException, UnauthorizedException {
+    final byte[] body = Fixtures.trackList(this.trackCount);
+    final byte[] token = "{\"access_token\":\"benchmark\",\"expires_in\":86400}"
+        .getBytes(StandardCharsets.UTF_8);
+
+    this.serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(this.serverExecutor);
+    this.server.createContext("/tracks", exchange -> {
+      try (exchange; OutputStream responseBody = exchange.getResponseBody()) {
+        exchange.getResponseHeaders().add("Content-Type", "application/vnd.tidal.v1+json");
+        exchange.sendResponseHeaders(200, body.length);
+        responseBody.write(body);
+      }
+    });
+    this.server.createContext("/v1/oauth2/token", exchange -> {
+      try (exchange; OutputStream responseBody = exchange.getResponseBody()) {
+        exchange.sendResponseHeaders(200, token.length);
+        responseBody.write(token);
+      }
+    });
+    this.server.start();
+
+    final String baseUrl = "http://127.0.0.1:" + this.server.getAddress().getPort();
+
+    this.api = new TidalApi(new ClientSettings()
+        .baseUrl(baseUrl)
+        .authorizationUrl(baseUrl + "/v1/oauth2/token")
+        .rateLimitPermitsPerSecond(0)
+        .circuitBreaker(false)
+        .maxRetries(0)
+        .coalescing(false));
+    this.api.authorize("benchmark", "benchmark");
+
+    if (!this.metrics) {
+      this.api.setMetricsSink(null);
+    }
+
+    this.trackIds = Fixtures.trackIds(this.trackCount);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.api.close();
+    this.server.stop(0);
+    this.serverExecutor.close();
+  }
+
+  @Benchmark
+  public TidalTrack[] list() throws QueryException {
+    return this.api.tracks.list(this.trackIds, "US");
+  }
+}
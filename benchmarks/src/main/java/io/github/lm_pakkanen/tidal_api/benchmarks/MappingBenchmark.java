@@ -0,0 +1,61 @@
+package io.github.lm_pakkanen.tidal_api.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalTrack;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.TrackResponse;
+
+/**
+ * Measures the mapping of decoded track responses to {@link TidalTrack}
+ * entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+  /**
+   * Number of tracks mapped per invocation.
+   */
+  @Param({ "1", "100" })
+  public int trackCount;
+
+  private List<TrackResponse> trackResponses;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    this.trackResponses = JSON.std.beanFrom(TrackResponse.ListResponse.class, Fixtures.trackList(this.trackCount))
+        .getData();
+  }
+
+  @Benchmark
+  public TidalTrack[] map() {
+    final TidalTrack[] tracks = new TidalTrack[this.trackResponses.size()];
+
+    for (int i = 0; i < tracks.length; i++) {
+      tracks[i] = new TidalTrack(this.trackResponses.get(i));
+    }
+
+    return tracks;
+  }
+}
@@ -0,0 +1,58 @@
+package io.github.lm_pakkanen.tidal_api.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.lm_pakkanen.tidal_api.models.metrics.InMemoryMetricsSink;
+
+/**
+ * Measures what the default metrics sink adds to a query: one response and one
+ * body record, with varying latencies, from one thread and from several
+ * threads recording to the same endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+  private InMemoryMetricsSink sink;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.sink = new InMemoryMetricsSink();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void recordSingleThreaded() {
+    this.record();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void recordContended() {
+    this.record();
+  }
+
+  private void record() {
+    final long nanos = ThreadLocalRandom.current().nextLong(100_000, 50_000_000);
+
+    this.sink.recordResponse("tracks", 200, nanos);
+    this.sink.recordBody("tracks", 4_096, nanos >>> 4);
+  }
+}
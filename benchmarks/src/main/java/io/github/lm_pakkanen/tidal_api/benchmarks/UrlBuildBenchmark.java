@@ -0,0 +1,95 @@
+package io.github.lm_pakkanen.tidal_api.benchmarks;
+
+import java.net.http.HttpRequest;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.queries.BaseQuery;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+
+/**
+ * Measures {@code BaseQuery.build}: query parameter encoding, URL assembly and
+ * request header setup for a list-by-IDs query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlBuildBenchmark {
+  private static final String TRACKS_URL = "https://openapi.tidal.com/tracks";
+
+  /**
+   * Number of track IDs in the 'ids' parameter.
+   */
+  @Param({ "1", "20" })
+  public int idCount;
+
+  private QueryClient client;
+  private String trackIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.client = new QueryClient(new ClientSettings());
+    this.trackIds = String.join(",", Fixtures.trackIds(this.idCount));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.client.close();
+  }
+
+  @Benchmark
+  public HttpRequest build() throws QueryException {
+    return new BuildableQuery(this.client, UrlBuildBenchmark.TRACKS_URL)
+        .contentType(BaseQuery.ContentType.TIDAL_JSON)
+        .parameter("countryCode", "US")
+        .parameter("ids", this.trackIds)
+        .build();
+  }
+
+  /**
+   * Query that exposes its protected build step.
+   */
+  private static final class BuildableQuery extends Query {
+    private final String url;
+
+    BuildableQuery(QueryClient client, String url) {
+      super(client, url);
+      this.url = url;
+    }
+
+    @Override
+    public BuildableQuery contentType(BaseQuery.ContentType contentType) throws QueryException {
+      super.contentType(contentType);
+      return this;
+    }
+
+    @Override
+    public BuildableQuery parameter(String key, String value) throws QueryException {
+      super.parameter(key, value);
+      return this;
+    }
+
+    HttpRequest build() throws QueryException {
+      return super.build(this.url);
+    }
+  }
+}
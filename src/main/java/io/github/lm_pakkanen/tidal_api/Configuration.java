@@ -10,7 +10,7 @@ import java.util.Properties;
  */
 public final class Configuration {
 
-  private static Configuration INSTANCE;
+  private static volatile Configuration INSTANCE;
   private final Properties properties;
 
   /**
@@ -36,11 +36,20 @@ public final class Configuration {
    */
   public static Configuration getInstance() {
     try {
-      if (Configuration.INSTANCE == null) {
-        Configuration.INSTANCE = new Configuration();
+      Configuration instance = Configuration.INSTANCE;
+
+      if (instance == null) {
+        synchronized (Configuration.class) {
+          instance = Configuration.INSTANCE;
+
+          if (instance == null) {
+            instance = new Configuration();
+            Configuration.INSTANCE = instance;
+          }
+        }
       }
 
-      return Configuration.INSTANCE;
+      return instance;
     } catch (IOException | IllegalArgumentException | NullPointerException e) {
       throw new RuntimeException(e);
     }
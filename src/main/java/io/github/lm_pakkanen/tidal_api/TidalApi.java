@@ -1,19 +1,27 @@
 package io.github.lm_pakkanen.tidal_api;
 
+import io.github.lm_pakkanen.tidal_api.controllers.BulkController;
+import io.github.lm_pakkanen.tidal_api.controllers.TokenRefresher;
 import io.github.lm_pakkanen.tidal_api.controllers.endpoints.AuthorizationController;
 import io.github.lm_pakkanen.tidal_api.controllers.endpoints.TracksController;
+import io.github.lm_pakkanen.tidal_api.interfaces.MetricsSink;
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
 import io.github.lm_pakkanen.tidal_api.models.CredentialsStore;
 import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
 import io.github.lm_pakkanen.tidal_api.models.exceptions.InvalidCredentialsException;
 import io.github.lm_pakkanen.tidal_api.models.exceptions.UnauthorizedException;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
 
 /**
  * Main class for the Tidal API.
  */
-public final class TidalApi {
+public final class TidalApi implements AutoCloseable {
 
   private final CredentialsStore credentialsStore;
+  private final QueryClient client;
+  private final boolean ownsClient;
   private final AuthorizationController authorizationController;
+  private volatile TokenRefresher tokenRefresher; // Nullable
 
   /**
    * Controller for the tracks endpoint.
@@ -21,12 +29,62 @@ public final class TidalApi {
   public final TracksController tracks;
 
   /**
-   * Constructor for the Tidal API.
+   * Controller for running large numbers of lookups concurrently on virtual
+   * threads.
+   */
+  public final BulkController bulk;
+
+  /**
+   * Constructor for the Tidal API. Queries are sent over the connection pool of
+   * the default query client, which is shared by all instances created with
+   * this constructor. Each instance has its own credentials, rate limit and
+   * statistics.
    */
   public TidalApi() {
-    this.credentialsStore = CredentialsStore.getInstance();
-    this.authorizationController = new AuthorizationController();
-    this.tracks = new TracksController();
+    this(QueryClient.getDefault().forTenant("default"), true);
+  }
+
+  /**
+   * Constructor for the Tidal API. Queries are sent through a dedicated query
+   * client created with the given settings. The client is closed when this
+   * instance is closed.
+   * 
+   * @param settings the transport settings.
+   *
+   * @throws IllegalArgumentException if the connection pool settings differ
+   *                                  from the JVM's.
+   */
+  public TidalApi(ClientSettings settings) throws IllegalArgumentException {
+    this(new QueryClient(settings), true);
+  }
+
+  /**
+   * Constructor for the Tidal API. Queries are sent through the given query
+   * client, which is not closed when this instance is closed. To serve many
+   * tenants from one connection pool, pass a tenant of a shared client.
+   * 
+   * @see QueryClient#forTenant(String, ClientSettings)
+   * 
+   * @param client the query client to send queries with.
+   */
+  public TidalApi(QueryClient client) {
+    this(client, false);
+  }
+
+  /**
+   * Constructor for the Tidal API.
+   * 
+   * @param client     the query client to send queries with.
+   * @param ownsClient whether the client is closed when this instance is
+   *                   closed.
+   */
+  private TidalApi(QueryClient client, boolean ownsClient) {
+    this.credentialsStore = client.getCredentialsStore();
+    this.client = client;
+    this.ownsClient = ownsClient;
+    this.authorizationController = new AuthorizationController(client);
+    this.tracks = new TracksController(client);
+    this.bulk = new BulkController(client.getSettings().getBulkConcurrency());
   }
 
   /**
@@ -65,10 +123,11 @@ public final class TidalApi {
    */
   public void authorize(String clientId, String clientSecret, boolean force)
       throws InvalidCredentialsException, UnauthorizedException {
-    final TidalCredentials currentCredentials = AuthorizationController.getCredentialsOrNull();
+    final TidalCredentials currentCredentials = this.credentialsStore.getCredentials();
 
     if (currentCredentials == null || force) {
       credentialsStore.setCredentials(this.authorizationController.authorize(clientId, clientSecret));
+      this.registerReauthorization(clientId, clientSecret);
       return;
     }
 
@@ -79,16 +138,139 @@ public final class TidalApi {
       // Credentials expire within 1 hour, refresh
       credentialsStore.setCredentials(this.authorizationController.authorize(clientId, clientSecret));
     }
+
+    this.registerReauthorization(clientId, clientSecret);
   }
 
   /**
-   * Forgets the current credentials. This does not need to be called to refresh
-   * credentials.
+   * Lets queries that are rejected with 401 Unauthorized re-authorize with the
+   * given client ID and secret, unless managed refreshing is active.
+   * 
+   * @param clientId     client id.
+   * @param clientSecret client secret.
+   */
+  private synchronized void registerReauthorization(String clientId, String clientSecret) {
+    if (this.tokenRefresher != null) {
+      return;
+    }
+
+    this.client.setTokenRefresher(this.createTokenRefresher(clientId, clientSecret));
+  }
+
+  /**
+   * Creates a token refresher that authorizes with the given client ID and
+   * secret.
+   * 
+   * @param clientId     client id.
+   * @param clientSecret client secret.
+   * 
+   * @return the token refresher.
+   */
+  private TokenRefresher createTokenRefresher(String clientId, String clientSecret) {
+    return new TokenRefresher(
+        () -> this.authorizationController.authorize(clientId, clientSecret),
+        this.credentialsStore,
+        this.client.getSettings().getTokenRefreshThreshold());
+  }
+
+  /**
+   * Authorizes the client with the Tidal API and keeps the credentials fresh in
+   * the background, so that {@link #authorize(String, String)} never needs to
+   * be called again. The credentials are refreshed once they come within the
+   * token refresh threshold of the client settings of expiring. Failed refreshes
+   * are retried with backoff while queries keep using the old credentials.
+   * 
+   * Calling this method again replaces the previous client ID and secret.
+   * 
+   * @param clientId     client id.
+   * @param clientSecret client secret.
+   * 
+   * @throws InvalidCredentialsException if provided credentials are null or
+   *                                     empty.
+   * @throws UnauthorizedException       if the first authorization fails.
+   */
+  public synchronized void authorizeManaged(String clientId, String clientSecret)
+      throws InvalidCredentialsException, UnauthorizedException {
+    final TokenRefresher refresher = this.createTokenRefresher(clientId, clientSecret);
+
+    this.stopTokenRefresh();
+
+    try {
+      refresher.start();
+    } catch (InvalidCredentialsException | UnauthorizedException exception) {
+      refresher.close();
+      throw exception;
+    }
+
+    this.tokenRefresher = refresher;
+    this.client.setTokenRefresher(refresher);
+  }
+
+  /**
+   * Forgets the current credentials and stops refreshing them in the
+   * background. This does not need to be called to refresh credentials.
    */
   public void forgetCredentials() {
+    this.stopTokenRefresh();
+    this.client.setTokenRefresher(null);
     this.credentialsStore.setCredentials(null);
   }
 
+  /**
+   * Stops refreshing the credentials in the background.
+   */
+  private synchronized void stopTokenRefresh() {
+    final TokenRefresher refresher = this.tokenRefresher;
+
+    if (refresher != null) {
+      refresher.close();
+      this.tokenRefresher = null;
+    }
+  }
+
+  /**
+   * Stops refreshing the credentials in the background and closes the query
+   * client of this instance if it was created by this instance. The connection
+   * pool of the default shared client is never closed.
+   */
+  @Override
+  public void close() {
+    this.stopTokenRefresh();
+
+    if (this.ownsClient) {
+      this.client.close();
+    }
+  }
+
+  /**
+   * Gets the query client of this instance, e.g. to read its statistics.
+   * 
+   * @return the query client.
+   */
+  public QueryClient getClient() {
+    return this.client;
+  }
+
+  /**
+   * Gets the sink the metrics of this instance's queries are reported to.
+   * 
+   * @return the metrics sink, or null if metrics are disabled.
+   */
+  public MetricsSink getMetricsSink() {
+    return this.client.getMetricsSink();
+  }
+
+  /**
+   * Sets the sink the metrics of this instance's queries are reported to.
+   * The metrics sink belongs to the query client, so instances sharing a client
+   * share the sink.
+   * 
+   * @param metricsSink the metrics sink, or null to disable metrics.
+   */
+  public void setMetricsSink(MetricsSink metricsSink) {
+    this.client.setMetricsSink(metricsSink);
+  }
+
   /**
    * Gets the version of the Tidal API package.
    * 
@@ -0,0 +1,128 @@
+package io.github.lm_pakkanen.tidal_api.controllers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import io.github.lm_pakkanen.tidal_api.interfaces.BulkLookup;
+import io.github.lm_pakkanen.tidal_api.models.BulkResult;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+
+/**
+ * Controller for executing large numbers of lookups concurrently.
+ * 
+ * Each lookup runs on its own virtual thread. The number of lookups in flight
+ * is capped: a new lookup is started only after a running one finishes, so
+ * memory use stays flat regardless of the number of keys.
+ */
+public final class BulkController {
+  private final int defaultConcurrency;
+
+  /**
+   * Constructs a new bulk controller.
+   * 
+   * @param defaultConcurrency the maximum number of concurrent lookups used
+   *                           when none is given explicitly.
+   */
+  public BulkController(int defaultConcurrency) {
+    this.defaultConcurrency = defaultConcurrency;
+  }
+
+  /**
+   * Runs the lookup for every key using the default concurrency.
+   * 
+   * @see BulkController#execute(List, BulkLookup, int)
+   * 
+   * @param <K>    the type of the lookup keys.
+   * @param <R>    the type of the lookup results.
+   * @param keys   the keys to look up.
+   * @param lookup the lookup to run for each key.
+   * 
+   * @return the results, in input order.
+   */
+  public <K, R> BulkResult<K, R> execute(List<K> keys, BulkLookup<K, R> lookup) {
+    return this.execute(keys, lookup, this.defaultConcurrency);
+  }
+
+  /**
+   * Runs the lookup for every key, each on its own virtual thread, with at most
+   * 'maxConcurrency' lookups in flight at a time. A failed lookup doesn't stop
+   * the others; its exception is reported on its result item.
+   * 
+   * If the calling thread is interrupted, no further lookups are started and
+   * the remaining items are reported as failed.
+   * 
+   * @param <K>            the type of the lookup keys.
+   * @param <R>            the type of the lookup results.
+   * @param keys           the keys to look up.
+   * @param lookup         the lookup to run for each key.
+   * @param maxConcurrency the maximum number of concurrent lookups.
+   * 
+   * @return the results, in input order.
+   * 
+   * @throws IllegalArgumentException if maxConcurrency is not positive.
+   */
+  public <K, R> BulkResult<K, R> execute(List<K> keys, BulkLookup<K, R> lookup, int maxConcurrency)
+      throws IllegalArgumentException {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be positive.");
+    }
+
+    final int size = keys.size();
+
+    final Object[] values = new Object[size];
+    final QueryException[] exceptions = new QueryException[size];
+
+    final Semaphore permits = new Semaphore(maxConcurrency);
+    final Iterator<K> keyIterator = keys.iterator();
+
+    int submitted = 0;
+
+    // Closing the executor waits for all started lookups to finish
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      while (keyIterator.hasNext()) {
+        permits.acquire();
+
+        final int index = submitted;
+        final K key = keyIterator.next();
+
+        executor.execute(() -> {
+          try {
+            values[index] = lookup.lookup(key);
+          } catch (QueryException exception) {
+            exceptions[index] = exception;
+          } catch (RuntimeException exception) {
+            exceptions[index] = new QueryException(exception);
+          } finally {
+            permits.release();
+          }
+        });
+
+        submitted++;
+      }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+
+    final List<BulkResult.Item<K, R>> items = new ArrayList<>(size);
+    final Iterator<K> resultKeyIterator = keys.iterator();
+
+    for (int i = 0; i < size; i++) {
+      final K key = resultKeyIterator.next();
+
+      if (i >= submitted) {
+        items.add(new BulkResult.Item<>(key, null, new QueryException("Bulk execution was interrupted.")));
+        continue;
+      }
+
+      @SuppressWarnings("unchecked")
+      final R value = (R) values[i];
+      items.add(new BulkResult.Item<>(key, value, exceptions[i]));
+    }
+
+    return new BulkResult<>(items);
+  }
+}
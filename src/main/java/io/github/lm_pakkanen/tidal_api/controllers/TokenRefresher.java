@@ -0,0 +1,264 @@
+package io.github.lm_pakkanen.tidal_api.controllers;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.lm_pakkanen.tidal_api.interfaces.CredentialsProvider;
+import io.github.lm_pakkanen.tidal_api.models.CredentialsStore;
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.InvalidCredentialsException;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.UnauthorizedException;
+
+/**
+ * Keeps the credentials of a credentials store fresh.
+ * 
+ * Refreshes are single-flight: while a refresh is running, every caller that
+ * asks for one joins it instead of starting another authorization. Once
+ * started, the refresher schedules the next refresh before the current
+ * credentials come within the refresh threshold of expiring. A failed refresh
+ * is retried with exponential backoff while the old credentials stay in the
+ * store, so queries keep using them as long as they are valid.
+ * 
+ * Refreshes run on virtual threads; queries never wait for them unless they
+ * ask to.
+ */
+public final class TokenRefresher implements AutoCloseable {
+  private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+  private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+  private static final Executor EXECUTOR = task -> Thread.ofVirtual().name("tidal-token-refresh").start(task);
+
+  private final CredentialsProvider credentialsProvider;
+  private final CredentialsStore credentialsStore;
+  private final Duration refreshThreshold;
+  private final AtomicReference<CompletableFuture<TidalCredentials>> inFlight;
+  private final AtomicLong scheduleGeneration;
+  private final AtomicInteger failures;
+  private final AtomicLong refreshCount;
+  private volatile boolean running;
+
+  /**
+   * Constructs a new token refresher. No refresh is scheduled until
+   * {@link #start()} is called.
+   * 
+   * @param credentialsProvider the provider of new credentials.
+   * @param credentialsStore    the store the new credentials are written to.
+   * @param refreshThreshold    how long before expiry the credentials are
+   *                            refreshed.
+   */
+  public TokenRefresher(CredentialsProvider credentialsProvider, CredentialsStore credentialsStore,
+      Duration refreshThreshold) {
+    this.credentialsProvider = credentialsProvider;
+    this.credentialsStore = credentialsStore;
+    this.refreshThreshold = refreshThreshold;
+    this.inFlight = new AtomicReference<>();
+    this.scheduleGeneration = new AtomicLong();
+    this.failures = new AtomicInteger();
+    this.refreshCount = new AtomicLong();
+    this.running = false;
+  }
+
+  /**
+   * Starts refreshing the credentials in the background. If the store holds no
+   * credentials, or credentials within the refresh threshold of expiring, they
+   * are refreshed before this method returns.
+   * 
+   * @throws InvalidCredentialsException if the client credentials are invalid.
+   * @throws UnauthorizedException       if the authorization is rejected.
+   */
+  public void start() throws InvalidCredentialsException, UnauthorizedException {
+    this.running = true;
+
+    final TidalCredentials credentials = this.credentialsStore.getCredentials();
+
+    if (credentials == null || this.getRefreshDelayMillis(credentials) == 0) {
+      TokenRefresher.await(this.refreshAsync());
+      return;
+    }
+
+    this.scheduleRefresh(this.getRefreshDelayMillis(credentials));
+  }
+
+  /**
+   * Refreshes the credentials now. If a refresh is already running, the
+   * returned future is that of the running refresh.
+   * 
+   * @return a future of the new credentials. Fails with an
+   *         InvalidCredentialsException or an UnauthorizedException if the
+   *         refresh fails.
+   */
+  public CompletableFuture<TidalCredentials> refreshAsync() {
+    while (true) {
+      final CompletableFuture<TidalCredentials> running = this.inFlight.get();
+
+      if (running != null) {
+        return running;
+      }
+
+      final CompletableFuture<TidalCredentials> refresh = new CompletableFuture<>();
+
+      if (this.inFlight.compareAndSet(null, refresh)) {
+        TokenRefresher.EXECUTOR.execute(() -> this.runRefresh(refresh));
+        return refresh;
+      }
+    }
+  }
+
+  /**
+   * Gets the store the refreshed credentials are written to.
+   * 
+   * @return the credentials store.
+   */
+  public CredentialsStore getCredentialsStore() {
+    return this.credentialsStore;
+  }
+
+  /**
+   * Gets the number of successful refreshes.
+   * 
+   * @return the number of successful refreshes.
+   */
+  public long getRefreshCount() {
+    return this.refreshCount.get();
+  }
+
+  /**
+   * Stops scheduling refreshes. A refresh that is already running completes,
+   * and its credentials are still stored.
+   */
+  @Override
+  public void close() {
+    this.running = false;
+    this.scheduleGeneration.incrementAndGet();
+  }
+
+  /**
+   * Runs a refresh and schedules the next one.
+   * 
+   * @param refresh the future of the refresh.
+   */
+  private void runRefresh(CompletableFuture<TidalCredentials> refresh) {
+    TidalCredentials credentials = null;
+    Exception failure = null;
+
+    try {
+      credentials = this.credentialsProvider.authorize();
+
+      this.credentialsStore.setCredentials(credentials);
+      this.refreshCount.incrementAndGet();
+      this.failures.set(0);
+    } catch (InvalidCredentialsException | UnauthorizedException | RuntimeException exception) {
+      failure = exception;
+    }
+
+    this.inFlight.compareAndSet(refresh, null);
+
+    if (this.running) {
+      this.scheduleRefresh(failure == null
+          ? this.getRefreshDelayMillis(credentials)
+          : this.getBackoffMillis(this.failures.incrementAndGet()));
+    }
+
+    if (failure == null) {
+      refresh.complete(credentials);
+    } else {
+      refresh.completeExceptionally(failure);
+    }
+  }
+
+  /**
+   * Schedules a refresh, replacing any refresh scheduled earlier.
+   * 
+   * @param delayMillis the delay before the refresh.
+   */
+  private void scheduleRefresh(long delayMillis) {
+    final long generation = this.scheduleGeneration.incrementAndGet();
+    final Executor delayed = CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS,
+        TokenRefresher.EXECUTOR);
+
+    delayed.execute(() -> {
+      if (this.running && this.scheduleGeneration.get() == generation) {
+        this.refreshAsync();
+      }
+    });
+  }
+
+  /**
+   * Gets the time until the given credentials should be refreshed. Credentials
+   * with a lifetime shorter than twice the threshold are refreshed halfway
+   * through their remaining lifetime instead.
+   * 
+   * @param credentials the current credentials.
+   * 
+   * @return the delay in milliseconds, 0 if the credentials should be
+   *         refreshed now.
+   */
+  private long getRefreshDelayMillis(TidalCredentials credentials) {
+    final long expiresInMillis = credentials.getExpiresInMillis();
+    final long thresholdMillis = Math.min(this.refreshThreshold.toMillis(), expiresInMillis / 2);
+    return Math.max(expiresInMillis - thresholdMillis, 0L);
+  }
+
+  /**
+   * Gets the delay before retrying a failed refresh. The delay doubles with
+   * each failure up to a maximum, and is shortened so that at least one more
+   * attempt fits in the lifetime of the current credentials.
+   * 
+   * @param failures the number of consecutive failures.
+   * 
+   * @return the delay in milliseconds.
+   */
+  private long getBackoffMillis(int failures) {
+    final long exponential = TokenRefresher.INITIAL_BACKOFF.toMillis() << Math.min(failures - 1, 20);
+    long backoff = Math.min(exponential, TokenRefresher.MAX_BACKOFF.toMillis());
+
+    final TidalCredentials credentials = this.credentialsStore.getCredentials();
+
+    if (credentials != null && credentials.getExpiresInMillis() > 0) {
+      backoff = Math.min(backoff, Math.max(credentials.getExpiresInMillis() / 2, 1L));
+    }
+
+    // Spread the retries of many clients
+    return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+  }
+
+  /**
+   * Waits for a refresh and rethrows its failure.
+   * 
+   * @param refresh the future of the refresh.
+   * 
+   * @return the new credentials.
+   * 
+   * @throws InvalidCredentialsException if the client credentials are invalid.
+   * @throws UnauthorizedException       if the authorization is rejected or the
+   *                                     waiting thread is interrupted.
+   */
+  private static TidalCredentials await(CompletableFuture<TidalCredentials> refresh)
+      throws InvalidCredentialsException, UnauthorizedException {
+    try {
+      return refresh.get();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new UnauthorizedException();
+    } catch (ExecutionException exception) {
+      Throwable cause = exception.getCause();
+
+      while (cause instanceof CompletionException && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+
+      if (cause instanceof InvalidCredentialsException invalidCredentialsException) {
+        throw invalidCredentialsException;
+      }
+
+      throw new UnauthorizedException();
+    }
+  }
+}
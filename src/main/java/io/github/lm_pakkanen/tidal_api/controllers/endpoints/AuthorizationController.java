@@ -10,6 +10,7 @@ import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
 import io.github.lm_pakkanen.tidal_api.models.exceptions.UnauthorizedException;
 import io.github.lm_pakkanen.tidal_api.models.queries.BaseQuery;
 import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
 
 /**
  * Controller for the Tidal authorization endpoint.
@@ -20,21 +21,51 @@ public final class AuthorizationController extends BaseEndpointController {
    * Default constructor.
    */
   public AuthorizationController() {
+    super();
   }
 
   /**
-   * Tries to get the credentials from the store. If the credentials don't exist
-   * or are invalid/expired, throws an exception.
+   * Constructs a controller that sends its queries through the given client.
+   * 
+   * @param client the query client.
+   */
+  public AuthorizationController(QueryClient client) {
+    super(client);
+  }
+
+  /**
+   * Tries to get the credentials from the shared store. If the credentials
+   * don't exist or are invalid/expired, throws an exception.
+   * 
+   * @deprecated the shared store is only written by the default query client,
+   *             not by instances created with {@code new TidalApi()}. Use
+   *             {@link #tryGetCredentials(CredentialsStore)} with the store of
+   *             the instance's client instead.
    * 
    * @return credentials.
    * 
    * @throws InvalidCredentialsException if the credentials are invalid.
    * @throws UnauthorizedException       if the credentials are expired.
    */
+  @Deprecated
   public static TidalCredentials tryGetCredentials()
       throws InvalidCredentialsException, UnauthorizedException {
+    return AuthorizationController.tryGetCredentials(CredentialsStore.getInstance());
+  }
 
-    final CredentialsStore credentialsStore = CredentialsStore.getInstance();
+  /**
+   * Tries to get the credentials from the given store. If the credentials don't
+   * exist or are invalid/expired, throws an exception.
+   * 
+   * @param credentialsStore the credentials store.
+   * 
+   * @return credentials.
+   * 
+   * @throws InvalidCredentialsException if the credentials are invalid.
+   * @throws UnauthorizedException       if the credentials are expired.
+   */
+  public static TidalCredentials tryGetCredentials(CredentialsStore credentialsStore)
+      throws InvalidCredentialsException, UnauthorizedException {
     final TidalCredentials credentials = credentialsStore.getCredentials();
 
     if (credentials == null) {
@@ -55,13 +86,30 @@ public final class AuthorizationController extends BaseEndpointController {
   }
 
   /**
-   * Tries to get the credentials from the store. If the credentials don't exist,
-   * returns null.
+   * Tries to get the credentials from the shared store. If the credentials
+   * don't exist, returns null.
+   * 
+   * @deprecated the shared store is only written by the default query client,
+   *             not by instances created with {@code new TidalApi()}. Use
+   *             {@link #getCredentialsOrNull(CredentialsStore)} with the store
+   *             of the instance's client instead.
    * 
    * @return credentials or null.
    */
+  @Deprecated
   public static TidalCredentials getCredentialsOrNull() {
-    final CredentialsStore credentialsStore = CredentialsStore.getInstance();
+    return AuthorizationController.getCredentialsOrNull(CredentialsStore.getInstance());
+  }
+
+  /**
+   * Tries to get the credentials from the given store. If the credentials
+   * don't exist, returns null.
+   * 
+   * @param credentialsStore the credentials store.
+   * 
+   * @return credentials or null.
+   */
+  public static TidalCredentials getCredentialsOrNull(CredentialsStore credentialsStore) {
     return credentialsStore.getCredentials();
   }
 
@@ -82,12 +130,13 @@ public final class AuthorizationController extends BaseEndpointController {
     AuthorizationController.validateCredentials(clientId, clientSecret);
 
     try {
-      final Query query = new Query(BaseEndpointController.AUTHORIZATION_URL);
+      final Query query = new Query(this.client, this.getAuthorizationUrl());
       final String credentialsBase64 = AuthorizationController.getCredentialsBase64(clientId, clientSecret);
 
       query.auth(credentialsBase64);
 
       query.method(BaseQuery.HttpMethod.POST);
+      query.contentType(BaseQuery.ContentType.FORM_URLENCODED);
       query.body("grant_type=client_credentials");
 
       final AuthorizationResponse tidalAuthorizationResponse = query.execute(AuthorizationResponse.class);
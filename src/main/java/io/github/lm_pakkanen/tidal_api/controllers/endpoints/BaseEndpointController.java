@@ -1,6 +1,8 @@
 package io.github.lm_pakkanen.tidal_api.controllers.endpoints;
 
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
 import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
 
 /**
  * Base class for all endpoint controllers.
@@ -10,24 +12,76 @@ public class BaseEndpointController {
   private static final String BASE_URL = "https://openapi.tidal.com";
 
   /**
-   * Tidal API auhtorization URL.
+   * Default Tidal API auhtorization URL.
    */
   protected static final String AUTHORIZATION_URL = "https://auth.tidal.com/v1/oauth2/token";
 
   /**
-   * Tidal API artists URL.
+   * Default Tidal API artists URL.
    */
   protected static final String ARTISTS_URL = BaseEndpointController.BASE_URL + "/artists";
 
   /**
-   * Tidal API tracks URL.
+   * Default Tidal API tracks URL.
    */
   protected static final String TRACKS_URL = BaseEndpointController.BASE_URL + "/tracks";
 
   /**
-   * Default constructor.
+   * Query client used to send the queries of this controller.
+   */
+  protected final QueryClient client;
+
+  private final String authorizationUrl;
+  private final String artistsUrl;
+  private final String tracksUrl;
+
+  /**
+   * Default constructor. Queries are sent through the default query client.
    */
   public BaseEndpointController() {
+    this(QueryClient.getDefault());
+  }
+
+  /**
+   * Constructs a controller that sends its queries through the given client.
+   * 
+   * @param client the query client.
+   */
+  public BaseEndpointController(QueryClient client) {
+    this.client = client;
+
+    final ClientSettings settings = client.getSettings();
+
+    this.authorizationUrl = settings.getAuthorizationUrl();
+    this.artistsUrl = settings.getBaseUrl() + "/artists";
+    this.tracksUrl = settings.getBaseUrl() + "/tracks";
+  }
+
+  /**
+   * Gets the authorization URL from the settings of the query client.
+   * 
+   * @return the authorization URL.
+   */
+  protected String getAuthorizationUrl() {
+    return this.authorizationUrl;
+  }
+
+  /**
+   * Gets the artists URL under the base URL of the query client.
+   * 
+   * @return the artists URL.
+   */
+  protected String getArtistsUrl() {
+    return this.artistsUrl;
+  }
+
+  /**
+   * Gets the tracks URL under the base URL of the query client.
+   * 
+   * @return the tracks URL.
+   */
+  protected String getTracksUrl() {
+    return this.tracksUrl;
   }
 
   /**
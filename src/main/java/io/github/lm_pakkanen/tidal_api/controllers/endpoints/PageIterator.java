@@ -0,0 +1,205 @@
+package io.github.lm_pakkanen.tidal_api.controllers.endpoints;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.UncheckedQueryException;
+import io.github.lm_pakkanen.tidal_api.models.queries.BaseQuery;
+
+/**
+ * Iterator over the items of an offset-paginated endpoint. Pages are fetched
+ * lazily: the first page is requested on the first call to
+ * {@link #hasNext()}, and while the caller consumes a page, up to 'prefetch'
+ * following pages are requested in the background. At most 'prefetch' + 1
+ * pages are held at any time, regardless of the total number of items.
+ *
+ * Iteration ends at the first page the loader marks as the last one. Failed
+ * pages are thrown as {@link UncheckedQueryException}s.
+ *
+ * @param <T> the type of the items.
+ */
+final class PageIterator<T> implements Iterator<T>, AutoCloseable {
+  private final IntFunction<CompletableFuture<Page<T>>> pageLoader;
+  private final int pageSize;
+  private final int prefetch;
+  private final ArrayDeque<CompletableFuture<Page<T>>> pendingPages;
+
+  private Iterator<T> currentPage;
+  private int nextOffset;
+  private boolean lastPageRequested;
+  private boolean closed;
+
+  /**
+   * Constructs a new page iterator.
+   *
+   * @param pageLoader the function that requests the page at an offset.
+   * @param pageSize   the number of items per page.
+   * @param prefetch   the number of pages to fetch ahead.
+   */
+  PageIterator(IntFunction<CompletableFuture<Page<T>>> pageLoader, int pageSize, int prefetch) {
+    this.pageLoader = pageLoader;
+    this.pageSize = pageSize;
+    this.prefetch = prefetch;
+    this.pendingPages = new ArrayDeque<>(Math.max(prefetch, 1));
+    this.currentPage = Collections.emptyIterator();
+  }
+
+  /**
+   * Returns whether there are more items, fetching the next page if the
+   * current one is used up.
+   *
+   * @return true if there are more items.
+   *
+   * @throws UncheckedQueryException if a page fails.
+   */
+  @Override
+  public boolean hasNext() throws UncheckedQueryException {
+    while (!this.currentPage.hasNext()) {
+      if (this.closed) {
+        return false;
+      }
+
+      this.requestPages(1);
+
+      final CompletableFuture<Page<T>> pageFuture = this.pendingPages.poll();
+
+      if (pageFuture == null) {
+        return false;
+      }
+
+      this.requestPages(this.prefetch);
+
+      final Page<T> page;
+
+      try {
+        page = BaseQuery.await(pageFuture);
+      } catch (QueryException exception) {
+        this.close();
+        throw new UncheckedQueryException(exception);
+      }
+
+      if (page.isLast()) {
+        this.lastPageRequested = true;
+        this.cancelPending();
+      }
+
+      this.currentPage = page.getItems().iterator();
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the next item.
+   *
+   * @return the next item.
+   *
+   * @throws NoSuchElementException  if there are no more items.
+   * @throws UncheckedQueryException if a page fails.
+   */
+  @Override
+  public T next() throws NoSuchElementException, UncheckedQueryException {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    return this.currentPage.next();
+  }
+
+  /**
+   * Cancels the pages that are being fetched ahead and ends the iteration.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.currentPage = Collections.emptyIterator();
+    this.cancelPending();
+  }
+
+  /**
+   * Returns a sequential stream over the items of this iterator. Closing the
+   * stream closes this iterator.
+   *
+   * @return the stream.
+   */
+  Stream<T> stream() {
+    final Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this,
+        Spliterator.ORDERED | Spliterator.NONNULL);
+
+    return StreamSupport.stream(spliterator, false).onClose(this::close);
+  }
+
+  /**
+   * Requests pages until the given number of pages are in flight or ready,
+   * unless the last page has been seen.
+   *
+   * @param count the number of pages to keep pending.
+   */
+  private void requestPages(int count) {
+    while (!this.lastPageRequested && this.pendingPages.size() < count) {
+      final int offset = this.nextOffset;
+      this.nextOffset += this.pageSize;
+      this.pendingPages.add(this.pageLoader.apply(offset));
+    }
+  }
+
+  /**
+   * Cancels all pages that are being fetched ahead.
+   */
+  private void cancelPending() {
+    CompletableFuture<Page<T>> pageFuture;
+
+    while ((pageFuture = this.pendingPages.poll()) != null) {
+      pageFuture.cancel(true);
+    }
+  }
+
+  /**
+   * A page of items.
+   *
+   * @param <T> the type of the items.
+   */
+  static final class Page<T> {
+    private final List<T> items;
+    private final boolean last;
+
+    /**
+     * Constructs a new page.
+     *
+     * @param items the items of the page.
+     * @param last  whether no pages follow this one.
+     */
+    Page(List<T> items, boolean last) {
+      this.items = items;
+      this.last = last;
+    }
+
+    /**
+     * Gets the items of the page.
+     *
+     * @return the items.
+     */
+    List<T> getItems() {
+      return this.items;
+    }
+
+    /**
+     * Gets whether no pages follow this one.
+     *
+     * @return true if this is the last page.
+     */
+    boolean isLast() {
+      return this.last;
+    }
+  }
+}
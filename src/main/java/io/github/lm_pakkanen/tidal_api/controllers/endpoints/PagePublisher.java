@@ -0,0 +1,293 @@
+package io.github.lm_pakkanen.tidal_api.controllers.endpoints;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.queries.BaseQuery;
+
+/**
+ * Publisher of the items of an offset-paginated endpoint. Items are emitted
+ * one at a time as the page source parses them, and a page is only requested
+ * once the subscriber has signalled demand for at least one of its items.
+ * While the subscriber has no outstanding demand, the page source is held
+ * inside its consumer, which stops reading the response body.
+ *
+ * Each subscription fetches the pages on its own virtual thread, started by
+ * the first request. Iteration ends at the first page with fewer items than
+ * the page size. Failures are signalled as {@link QueryException}s.
+ *
+ * @param <T> the type of the items.
+ */
+final class PagePublisher<T> implements Flow.Publisher<T> {
+  private final PageSource<T> pageSource;
+  private final int pageSize;
+
+  /**
+   * Constructs a new page publisher.
+   *
+   * @param pageSource the source of the pages.
+   * @param pageSize   the number of items per page.
+   */
+  PagePublisher(PageSource<T> pageSource, int pageSize) {
+    this.pageSource = pageSource;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Subscribes the given subscriber. No page is requested before the
+   * subscriber requests items.
+   *
+   * @param subscriber the subscriber.
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super T> subscriber) {
+    subscriber.onSubscribe(new PageSubscription<>(subscriber, this.pageSource, this.pageSize));
+  }
+
+  /**
+   * Source of the pages of a paginated endpoint.
+   *
+   * @param <T> the type of the items.
+   */
+  @FunctionalInterface
+  interface PageSource<T> {
+
+    /**
+     * Requests the page at the given offset and passes each of its items to
+     * the consumer as soon as it has been parsed.
+     *
+     * @param offset   the offset of the page.
+     * @param consumer the consumer of the items.
+     *
+     * @return a future of the number of items on the page.
+     */
+    CompletableFuture<Integer> stream(int offset, Consumer<? super T> consumer);
+  }
+
+  /**
+   * Subscription that fetches pages as demand arrives.
+   *
+   * @param <T> the type of the items.
+   */
+  private static final class PageSubscription<T> implements Flow.Subscription {
+    private final Flow.Subscriber<? super T> subscriber;
+    private final PageSource<T> pageSource;
+    private final int pageSize;
+    private final ReentrantLock lock;
+    private final Condition demandAvailable;
+
+    private long demand; // Guarded by lock
+    private boolean cancelled; // Guarded by lock
+    private boolean started; // Guarded by lock
+    private Throwable error; // Guarded by lock, nullable
+    private volatile CompletableFuture<Integer> currentPage; // Nullable
+
+    /**
+     * Constructs a new subscription.
+     *
+     * @param subscriber the subscriber.
+     * @param pageSource the source of the pages.
+     * @param pageSize   the number of items per page.
+     */
+    PageSubscription(Flow.Subscriber<? super T> subscriber, PageSource<T> pageSource, int pageSize) {
+      this.subscriber = subscriber;
+      this.pageSource = pageSource;
+      this.pageSize = pageSize;
+      this.lock = new ReentrantLock();
+      this.demandAvailable = this.lock.newCondition();
+    }
+
+    /**
+     * Adds demand for the given number of items, starting the fetching of
+     * pages on the first call.
+     *
+     * @param n the number of items.
+     */
+    @Override
+    public void request(long n) {
+      final boolean start;
+
+      this.lock.lock();
+
+      try {
+        if (this.cancelled) {
+          return;
+        }
+
+        if (n <= 0) {
+          this.error = new IllegalArgumentException("Requested item count must be positive, was " + n + ".");
+        } else {
+          this.demand = this.demand + n < 0 ? Long.MAX_VALUE : this.demand + n;
+        }
+
+        start = !this.started;
+        this.started = true;
+        this.demandAvailable.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+
+      if (start) {
+        Thread.ofVirtual().name("tidal-page-publisher").start(this::run);
+      }
+    }
+
+    /**
+     * Stops emitting items and cancels the page being fetched.
+     */
+    @Override
+    public void cancel() {
+      this.lock.lock();
+
+      try {
+        this.cancelled = true;
+        this.demandAvailable.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+
+      final CompletableFuture<Integer> page = this.currentPage;
+
+      if (page != null) {
+        page.cancel(true);
+      }
+    }
+
+    /**
+     * Fetches pages until the last one, the subscription is cancelled, or a
+     * page fails.
+     */
+    private void run() {
+      try {
+        int offset = 0;
+
+        while (true) {
+          this.awaitDemand(false);
+
+          final CompletableFuture<Integer> page = this.pageSource.stream(offset, this::emit);
+          this.currentPage = page;
+
+          if (this.isCancelled()) {
+            page.cancel(true);
+            return;
+          }
+
+          final int count = BaseQuery.await(page);
+
+          if (count < this.pageSize) {
+            break;
+          }
+
+          offset += this.pageSize;
+        }
+      } catch (CancellationException | QueryException | IllegalArgumentException exception) {
+        this.fail(exception);
+        return;
+      }
+
+      if (!this.isCancelled()) {
+        this.subscriber.onComplete();
+      }
+    }
+
+    /**
+     * Waits for demand and passes the item to the subscriber.
+     *
+     * @param item the item.
+     */
+    private void emit(T item) {
+      this.awaitDemand(true);
+      this.subscriber.onNext(item);
+    }
+
+    /**
+     * Waits until there is demand for at least one item.
+     *
+     * @param take whether to take one item of the demand.
+     *
+     * @throws CancellationException    if the subscription is cancelled.
+     * @throws IllegalArgumentException if a non-positive item count was
+     *                                  requested.
+     */
+    private void awaitDemand(boolean take) throws CancellationException, IllegalArgumentException {
+      this.lock.lock();
+
+      try {
+        while (this.demand == 0 && !this.cancelled && this.error == null) {
+          this.demandAvailable.await();
+        }
+
+        if (this.error instanceof IllegalArgumentException) {
+          throw (IllegalArgumentException) this.error;
+        }
+
+        if (this.cancelled) {
+          throw new CancellationException();
+        }
+
+        if (take && this.demand != Long.MAX_VALUE) {
+          this.demand--;
+        }
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        this.cancelled = true;
+        throw new CancellationException();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    /**
+     * Signals the failure to the subscriber unless the subscription was
+     * cancelled. A non-positive request is signalled as such even if it
+     * surfaced as a failed page.
+     *
+     * @param exception the failure.
+     */
+    private void fail(Exception exception) {
+      final Throwable requestError;
+
+      this.lock.lock();
+
+      try {
+        requestError = this.error;
+
+        if (this.cancelled && requestError == null) {
+          return;
+        }
+
+        this.cancelled = true;
+      } finally {
+        this.lock.unlock();
+      }
+
+      if (requestError != null) {
+        this.subscriber.onError(requestError);
+      } else if (exception instanceof CancellationException) {
+        return;
+      } else {
+        this.subscriber.onError(BaseQuery.toQueryException(exception));
+      }
+    }
+
+    /**
+     * Gets whether the subscription has been cancelled.
+     *
+     * @return true if the subscription has been cancelled.
+     */
+    private boolean isCancelled() {
+      this.lock.lock();
+
+      try {
+        return this.cancelled;
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+}
@@ -1,14 +1,29 @@
 package io.github.lm_pakkanen.tidal_api.controllers.endpoints;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
 import io.github.lm_pakkanen.tidal_api.models.ListQueryResult;
+import io.github.lm_pakkanen.tidal_api.models.cache.TrackCache;
 import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
 import io.github.lm_pakkanen.tidal_api.models.entities.TidalTrack;
+import io.github.lm_pakkanen.tidal_api.models.events.EntityMappingEvent;
 import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
 import io.github.lm_pakkanen.tidal_api.models.queries.BaseQuery;
 import io.github.lm_pakkanen.tidal_api.models.queries.ListQuery;
 import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
 import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
 import io.github.lm_pakkanen.tidal_api.models.tidal_responses.TrackResponse;
 
@@ -16,11 +31,33 @@ import io.github.lm_pakkanen.tidal_api.models.tidal_responses.TrackResponse;
  * Controller for the Tidal API tracks endpoint.
  */
 public final class TracksController extends BaseEndpointController {
+  private final TrackCache cache;
 
   /**
    * Default constructor.
    */
   public TracksController() {
+    super();
+    this.cache = TracksController.createCache(this.client.getSettings());
+  }
+
+  /**
+   * Constructs a controller that sends its queries through the given client.
+   * 
+   * @param client the query client.
+   */
+  public TracksController(QueryClient client) {
+    super(client);
+    this.cache = TracksController.createCache(client.getSettings());
+  }
+
+  /**
+   * Gets the in-memory track cache of this controller.
+   * 
+   * @return the track cache, or null if it is disabled in the client settings.
+   */
+  public TrackCache getCache() {
+    return this.cache;
   }
 
   /**
@@ -68,6 +105,13 @@ public final class TracksController extends BaseEndpointController {
    * offsetting the response.
    * 
    * https://developer.tidal.com/apiref?spec=catalogue&amp;ref=get-tracks-by-ids
+   * 
+   * Duplicate IDs are removed and the offset and limit are applied to the
+   * deduplicated ID list before sending, so only the selected IDs are fetched.
+   * If they do not fit in one request, they are split into chunks that are
+   * fetched concurrently. Tracks are returned in the order of the given IDs. If
+   * the track cache is enabled, only the tracks that are not cached are
+   * fetched.
    *
    * @param trackIds    the IDs of the tracks to retrieve.
    * @param countryCode the country code for the tracks.
@@ -79,43 +123,132 @@ public final class TracksController extends BaseEndpointController {
    * @throws QueryException if there is an error executing the query.
    */
   public TidalTrack[] list(String[] trackIds, String countryCode, Integer offset, Integer limit) throws QueryException {
-    if (trackIds.length == 0) {
-      throw new QueryException("trackIds is empty.");
+    return BaseQuery.await(this.listAsync(trackIds, countryCode, offset, limit));
+  }
+
+  /**
+   * Asynchronously gets a list of tracks by IDs from the Tidal API.
+   * 
+   * @see TracksController#list(String[], String)
+   *
+   * @param trackIds    the IDs of the tracks to retrieve.
+   * @param countryCode the country code for the tracks.
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listAsync(String[] trackIds, String countryCode) {
+    return this.listAsync(trackIds, countryCode, null, null);
+  }
+
+  /**
+   * Asynchronously gets a list of tracks by IDs from the Tidal API. Supports
+   * limiting the response.
+   * 
+   * @see TracksController#list(String[], String, Integer)
+   *
+   * @param trackIds    the IDs of the tracks to retrieve.
+   * @param countryCode the country code for the tracks.
+   * @param limit       The maximum number of tracks to retrieve. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listAsync(String[] trackIds, String countryCode, Integer limit) {
+    return this.listAsync(trackIds, countryCode, null, limit);
+  }
+
+  /**
+   * Asynchronously gets a list of tracks by IDs from the Tidal API. Supports
+   * limiting and offsetting the response.
+   * 
+   * Duplicate IDs are removed and the offset and limit are applied to the
+   * deduplicated ID list before sending, so only the selected IDs are fetched.
+   * If they do not fit in one request, they are split into chunks that are
+   * fetched concurrently. Tracks are returned in the order of the given IDs. If
+   * the track cache is enabled, only the tracks that are not cached are
+   * fetched.
+   * 
+   * @see TracksController#list(String[], String, Integer, Integer)
+   *
+   * @param trackIds    the IDs of the tracks to retrieve.
+   * @param countryCode the country code for the tracks.
+   * @param offset      The offset for pagination. (required)
+   * @param limit       The maximum number of tracks to retrieve. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listAsync(String[] trackIds, String countryCode, Integer offset,
+      Integer limit) {
+    if (trackIds == null || trackIds.length == 0) {
+      return CompletableFuture.failedFuture(new QueryException("trackIds is empty."));
     }
 
     if (countryCode == null || countryCode.isEmpty()) {
-      throw new QueryException("countryCode is required.");
+      return CompletableFuture.failedFuture(new QueryException("countryCode is required."));
     }
 
-    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException();
+    // The offset and limit always page the deduplicated ID list here rather
+    // than the server's response, so that a page does not depend on whether
+    // the IDs fit in one request or some of them are cached
+    final String[] uniqueTrackIds = Arrays.stream(trackIds).distinct().toArray(String[]::new);
+    final int chunkSize = this.client.getSettings().getListChunkSize();
+    final int fromIndex = offset == null ? 0 : Math.min(Math.max(offset, 0), uniqueTrackIds.length);
+    final int toIndex = limit == null
+        ? uniqueTrackIds.length
+        : Math.min(fromIndex + Math.max(limit, 0), uniqueTrackIds.length);
 
-    final String trackIdsAsString = String.join(",", trackIds);
+    final String[] requestedTrackIds = Arrays.copyOfRange(uniqueTrackIds, fromIndex, toIndex);
 
-    ListQuery query = new ListQuery(BaseEndpointController.TRACKS_URL)
-        .contentType(BaseQuery.ContentType.TIDAL_JSON)
-        .auth(credentials)
-        .parameter("countryCode", countryCode)
-        .parameter("ids", trackIdsAsString);
+    if (requestedTrackIds.length == 0) {
+      return CompletableFuture.completedFuture(new TidalTrack[0]);
+    }
 
-    if (offset != null) {
-      query = query.offset(offset);
+    final List<TidalTrack[]> cachedTracks = new ArrayList<>(1);
+    final String[] missingTrackIds = this.partitionCached(requestedTrackIds, countryCode, cachedTracks);
+
+    if (missingTrackIds.length == 0) {
+      return CompletableFuture.completedFuture(TracksController.orderByIds(requestedTrackIds, cachedTracks));
     }
 
-    if (limit != null) {
-      query = query.limit(limit);
+    final List<Supplier<CompletableFuture<TidalTrack[]>>> chunkRequests = new ArrayList<>();
+
+    for (int i = 0; i < missingTrackIds.length; i += chunkSize) {
+      final String[] chunk = Arrays.copyOfRange(missingTrackIds, i,
+          Math.min(i + chunkSize, missingTrackIds.length));
+
+      chunkRequests.add(() -> this.listChunkAsync(chunk, countryCode));
     }
 
-    final ListQueryResult<TrackResponse> listQueryResult = query.execute(TrackResponse.class,
-        TrackResponse.ListResponse.class, "data");
+    final int parallelism = this.client.getSettings().getListParallelism();
 
-    final List<TrackResponse> items = listQueryResult.getItems();
-    final TidalTrack[] tracks = new TidalTrack[items.size()];
+    return TracksController.dispatch(chunkRequests, parallelism).thenApply(chunkResults -> {
+      final List<TidalTrack[]> results = new ArrayList<>(chunkResults);
+      results.addAll(cachedTracks);
+      return TracksController.orderByIds(requestedTrackIds, results);
+    });
+  }
 
-    for (int i = 0; i < items.size(); i++) {
-      tracks[i] = new TidalTrack(items.get(i));
+  /**
+   * Sends a single list-by-IDs request.
+   *
+   * @param trackIds    the IDs of the tracks to retrieve.
+   * @param countryCode the country code for the tracks.
+   *
+   * @return a future of the list of retrieved tracks.
+   */
+  private CompletableFuture<TidalTrack[]> listChunkAsync(String[] trackIds, String countryCode) {
+    final ListQuery query;
+
+    try {
+      query = this.buildListQuery(trackIds, countryCode);
+    } catch (QueryException exception) {
+      return CompletableFuture.failedFuture(exception);
     }
 
-    return tracks;
+    return query.executeAsync(TrackResponse.class, TrackResponse.ListResponse.class, "data")
+        .thenApply(listQueryResult -> this.cacheTracks(TracksController.toTracks(listQueryResult), countryCode));
   }
 
   /**
@@ -175,48 +308,72 @@ public final class TracksController extends BaseEndpointController {
    */
   public TidalTrack[] listByArtist(String artistId, String countryCode, Integer offset, Integer limit)
       throws QueryException {
-    if (artistId == null || artistId.isEmpty()) {
-      throw new QueryException("artistId is required.");
-    }
-
-    if (countryCode == null || countryCode.isEmpty()) {
-      throw new QueryException("countryCode is required.");
-    }
-
-    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException();
-
-    final StringBuilder tracksByArtistUrlBuilder = new StringBuilder();
-    tracksByArtistUrlBuilder.append(BaseEndpointController.ARTISTS_URL);
-    tracksByArtistUrlBuilder.append("/");
-    tracksByArtistUrlBuilder.append(artistId);
-    tracksByArtistUrlBuilder.append("/tracks");
-
-    final String tracksByArtistUrl = tracksByArtistUrlBuilder.toString();
-
-    ListQuery query = new ListQuery(tracksByArtistUrl)
-        .contentType(BaseQuery.ContentType.TIDAL_JSON)
-        .auth(credentials)
-        .parameter("countryCode", countryCode);
-
-    if (offset != null) {
-      query = query.offset(offset);
-    }
-
-    if (limit != null) {
-      query = query.limit(limit);
-    }
+    final ListQuery query = this.buildListByArtistQuery(artistId, countryCode, offset, limit);
 
     final ListQueryResult<TrackResponse> listQueryResult = query.execute(TrackResponse.class,
         TrackResponse.ListResponse.class, "data");
 
-    final List<TrackResponse> items = listQueryResult.getItems();
-    final TidalTrack[] tracks = new TidalTrack[items.size()];
+    return this.cacheTracks(TracksController.toTracks(listQueryResult), countryCode);
+  }
 
-    for (int i = 0; i < items.size(); i++) {
-      tracks[i] = new TidalTrack(items.get(i));
+  /**
+   * Asynchronously gets a list of tracks by artist ID from the Tidal API.
+   * 
+   * @see TracksController#listByArtist(String, String)
+   *
+   * @param artistId    The ID of the artist to retrieve tracks for. (required)
+   * @param countryCode The country code for the tracks. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listByArtistAsync(String artistId, String countryCode) {
+    return this.listByArtistAsync(artistId, countryCode, null, null);
+  }
+
+  /**
+   * Asynchronously gets a list of tracks by artist ID from the Tidal API.
+   * Supports limiting the response.
+   * 
+   * @see TracksController#listByArtist(String, String, Integer)
+   *
+   * @param artistId    The ID of the artist to retrieve tracks for. (required)
+   * @param countryCode The country code for the tracks. (required)
+   * @param limit       The maximum number of tracks to retrieve. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listByArtistAsync(String artistId, String countryCode, Integer limit) {
+    return this.listByArtistAsync(artistId, countryCode, null, limit);
+  }
+
+  /**
+   * Asynchronously gets a list of tracks by artist ID from the Tidal API.
+   * Supports limiting and offsetting the response.
+   * 
+   * @see TracksController#listByArtist(String, String, Integer, Integer)
+   *
+   * @param artistId    The ID of the artist to retrieve tracks for. (required)
+   * @param countryCode The country code for the tracks. (required)
+   * @param offset      The offset for pagination. (required)
+   * @param limit       The maximum number of tracks to retrieve. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listByArtistAsync(String artistId, String countryCode, Integer offset,
+      Integer limit) {
+    final ListQuery query;
+
+    try {
+      query = this.buildListByArtistQuery(artistId, countryCode, offset, limit);
+    } catch (QueryException exception) {
+      return CompletableFuture.failedFuture(exception);
     }
 
-    return tracks;
+    return query.executeAsync(TrackResponse.class, TrackResponse.ListResponse.class, "data")
+        .thenApply(listQueryResult -> this.cacheTracks(TracksController.toTracks(listQueryResult), countryCode));
   }
 
   /**
@@ -276,47 +433,72 @@ public final class TracksController extends BaseEndpointController {
    */
   public TidalTrack[] listByIsrc(String isrc, String countryCode, Integer offset, Integer limit)
       throws QueryException {
-    if (isrc == null || isrc.isEmpty()) {
-      throw new QueryException("ISRC is required.");
-    }
-
-    if (countryCode == null || countryCode.isEmpty()) {
-      throw new QueryException("countryCode is required.");
-    }
-
-    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException();
-
-    final StringBuilder tracksByIsrcUrlBuilder = new StringBuilder();
-    tracksByIsrcUrlBuilder.append(BaseEndpointController.TRACKS_URL);
-    tracksByIsrcUrlBuilder.append("/byIsrc");
-
-    final String tracksByIsrcUrl = tracksByIsrcUrlBuilder.toString();
-
-    ListQuery query = new ListQuery(tracksByIsrcUrl)
-        .contentType(BaseQuery.ContentType.TIDAL_JSON)
-        .auth(credentials)
-        .parameter("isrc", isrc)
-        .parameter("countryCode", countryCode);
-
-    if (offset != null) {
-      query = query.offset(offset);
-    }
-
-    if (limit != null) {
-      query = query.limit(limit);
-    }
+    final ListQuery query = this.buildListByIsrcQuery(isrc, countryCode, offset, limit);
 
     final ListQueryResult<TrackResponse> listQueryResult = query.execute(TrackResponse.class,
         TrackResponse.ListResponse.class, "data");
 
-    final List<TrackResponse> items = listQueryResult.getItems();
-    final TidalTrack[] tracks = new TidalTrack[items.size()];
+    return this.cacheTracks(TracksController.toTracks(listQueryResult), countryCode);
+  }
 
-    for (int i = 0; i < items.size(); i++) {
-      tracks[i] = new TidalTrack(items.get(i));
+  /**
+   * Asynchronously gets a list of tracks by ISRC ID from the Tidal API.
+   * 
+   * @see TracksController#listByIsrc(String, String)
+   *
+   * @param isrc        The ISRC code of the track to retrieve. (required)
+   * @param countryCode The country code for the tracks. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listByIsrcAsync(String isrc, String countryCode) {
+    return this.listByIsrcAsync(isrc, countryCode, null, null);
+  }
+
+  /**
+   * Asynchronously gets a list of tracks by ISRC ID from the Tidal API.
+   * Supports limiting the response.
+   * 
+   * @see TracksController#listByIsrc(String, String, Integer)
+   *
+   * @param isrc        The ISRC code of the track to retrieve. (required)
+   * @param countryCode The country code for the tracks. (required)
+   * @param limit       The maximum number of tracks to retrieve. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listByIsrcAsync(String isrc, String countryCode, Integer limit) {
+    return this.listByIsrcAsync(isrc, countryCode, null, limit);
+  }
+
+  /**
+   * Asynchronously gets a list of tracks by ISRC ID from the Tidal API.
+   * Supports limiting and offsetting the response.
+   * 
+   * @see TracksController#listByIsrc(String, String, Integer, Integer)
+   *
+   * @param isrc        The ISRC code of the track to retrieve. (required)
+   * @param countryCode The country code for the tracks. (required)
+   * @param offset      The offset for pagination. (required)
+   * @param limit       The maximum number of tracks to retrieve. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listByIsrcAsync(String isrc, String countryCode, Integer offset,
+      Integer limit) {
+    final ListQuery query;
+
+    try {
+      query = this.buildListByIsrcQuery(isrc, countryCode, offset, limit);
+    } catch (QueryException exception) {
+      return CompletableFuture.failedFuture(exception);
     }
 
-    return tracks;
+    return query.executeAsync(TrackResponse.class, TrackResponse.ListResponse.class, "data")
+        .thenApply(listQueryResult -> this.cacheTracks(TracksController.toTracks(listQueryResult), countryCode));
   }
 
   /**
@@ -366,6 +548,11 @@ public final class TracksController extends BaseEndpointController {
    * offsetting the response.
    * 
    * https://developer.tidal.com/apiref?spec=catalogue&amp;ref=get-similar-tracks
+   * 
+   * The similar tracks are requested with their tracks included, so a call
+   * normally makes a single request. Only tracks that the response lists but
+   * does not include are fetched afterwards, from the track cache where
+   * possible and otherwise with one list-by-IDs request per list chunk.
    *
    * @param trackId     The ID of the track to retrieve similar tracks for.
    *                    (required)
@@ -379,59 +566,567 @@ public final class TracksController extends BaseEndpointController {
    */
   public TidalTrack[] listSimilar(String trackId, String countryCode, Integer offset, Integer limit)
       throws QueryException {
-    if (trackId == null || trackId.isEmpty()) {
-      throw new QueryException("trackId is required.");
-    }
-
-    if (countryCode == null || countryCode.isEmpty()) {
-      throw new QueryException("countryCode is required.");
-    }
-
-    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException();
-
-    final StringBuilder similarTracksUrlBuilder = new StringBuilder();
-    similarTracksUrlBuilder.append(BaseEndpointController.TRACKS_URL);
-    similarTracksUrlBuilder.append("/");
-    similarTracksUrlBuilder.append(trackId);
-    similarTracksUrlBuilder.append("/similar");
+    final ListQuery query = this.buildListSimilarQuery(trackId, countryCode, offset, limit);
 
-    final String similarTracksUrl = similarTracksUrlBuilder.toString();
+    return BaseQuery.await(query.executeResponseAsync(ResourceResponse.IncludedTracksListResponse.class)
+        .thenCompose(listResponse -> this.resolveIncludedAsync(listResponse, countryCode)));
+  }
 
-    ListQuery query = new ListQuery(similarTracksUrl)
-        .contentType(BaseQuery.ContentType.TIDAL_JSON)
-        .auth(credentials)
-        .parameter("countryCode", countryCode);
+  /**
+   * Asynchronously gets a list of similar tracks to ID from the Tidal API.
+   * 
+   * @see TracksController#listSimilar(String, String)
+   *
+   * @param trackId     The ID of the track to retrieve similar tracks for.
+   *                    (required)
+   * @param countryCode The country code for the tracks. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listSimilarAsync(String trackId, String countryCode) {
+    return this.listSimilarAsync(trackId, countryCode, null, null);
+  }
 
-    if (offset != null) {
-      query = query.offset(offset);
-    }
+  /**
+   * Asynchronously gets a list of similar tracks to ID from the Tidal API.
+   * Supports limiting the response.
+   * 
+   * @see TracksController#listSimilar(String, String, Integer)
+   *
+   * @param trackId     The ID of the track to retrieve similar tracks for.
+   *                    (required)
+   * @param countryCode The country code for the tracks. (required)
+   * @param limit       The maximum number of tracks to retrieve. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listSimilarAsync(String trackId, String countryCode, Integer limit) {
+    return this.listSimilarAsync(trackId, countryCode, null, limit);
+  }
 
-    if (limit != null) {
-      query = query.limit(limit);
+  /**
+   * Asynchronously gets a list of similar tracks to ID from the Tidal API.
+   * Supports limiting and offsetting the response.
+   * 
+   * @see TracksController#listSimilar(String, String, Integer, Integer)
+   *
+   * @param trackId     The ID of the track to retrieve similar tracks for.
+   *                    (required)
+   * @param countryCode The country code for the tracks. (required)
+   * @param offset      The offset for pagination. (required)
+   * @param limit       The maximum number of tracks to retrieve. (required)
+   *
+   * @return a future of the list of retrieved tracks. Fails with a
+   *         QueryException if there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack[]> listSimilarAsync(String trackId, String countryCode, Integer offset,
+      Integer limit) {
+    final ListQuery query;
+
+    try {
+      query = this.buildListSimilarQuery(trackId, countryCode, offset, limit);
+    } catch (QueryException exception) {
+      return CompletableFuture.failedFuture(exception);
     }
 
-    final ListQueryResult<ResourceResponse> listQueryResult = query.execute(ResourceResponse.class,
-        ResourceResponse.ListResponse.class, "data");
-
-    final List<String> similarTrackIds = listQueryResult.getItems().stream().map(n -> n.resource.id).toList();
-    final String[] similarTrackIdsArray = similarTrackIds.toArray(new String[similarTrackIds.size()]);
-
-    return this.list(similarTrackIdsArray, countryCode, offset, limit);
+    return query.executeResponseAsync(ResourceResponse.IncludedTracksListResponse.class)
+        .thenCompose(listResponse -> this.resolveIncludedAsync(listResponse, countryCode));
   }
 
   /**
-   * Gets a specific track by ID from the Tidal API.
-   * 
-   * https://developer.tidal.com/apiref?spec=catalogue&amp;ref=get-track
+   * Lazily streams all tracks by artist ID from the Tidal API.
    * 
-   * @param trackId     The ID of the track to retrieve.
-   * @param countryCode The country code for the track.
+   * Pages of the client's stream page size are requested as the stream is
+   * consumed, and the client's stream prefetch number of pages are fetched
+   * ahead in the background, so memory use does not grow with the size of the
+   * discography. The stream should be closed if it is not consumed to the end.
    * 
-   * @return the retrieved track.
+   * @see TracksController#listByArtist(String, String)
+   *
+   * @param artistId    The ID of the artist to retrieve tracks for. (required)
+   * @param countryCode The country code for the tracks. (required)
+   *
+   * @return a lazy stream of the tracks. Consuming it throws an
+   *         UncheckedQueryException if a page cannot be fetched.
+   *
+   * @throws QueryException if the arguments are invalid or the client is not
+   *                        authorized.
+   */
+  public Stream<TidalTrack> streamByArtist(String artistId, String countryCode) throws QueryException {
+    final int pageSize = this.client.getSettings().getStreamPageSize();
+    final ListQuery firstQuery = this.buildListByArtistQuery(artistId, countryCode, 0, pageSize);
+
+    return this.streamTracks(offset -> offset == 0
+        ? firstQuery
+        : this.buildListByArtistQuery(artistId, countryCode, offset, pageSize), countryCode);
+  }
+
+  /**
+   * Lazily streams all tracks by ISRC code from the Tidal API.
+   * 
+   * @see TracksController#streamByArtist(String, String)
+   *
+   * @param isrc        The ISRC code of the track to retrieve. (required)
+   * @param countryCode The country code for the tracks. (required)
+   *
+   * @return a lazy stream of the tracks. Consuming it throws an
+   *         UncheckedQueryException if a page cannot be fetched.
+   *
+   * @throws QueryException if the arguments are invalid or the client is not
+   *                        authorized.
+   */
+  public Stream<TidalTrack> streamByIsrc(String isrc, String countryCode) throws QueryException {
+    final int pageSize = this.client.getSettings().getStreamPageSize();
+    final ListQuery firstQuery = this.buildListByIsrcQuery(isrc, countryCode, 0, pageSize);
+
+    return this.streamTracks(offset -> offset == 0
+        ? firstQuery
+        : this.buildListByIsrcQuery(isrc, countryCode, offset, pageSize), countryCode);
+  }
+
+  /**
+   * Lazily streams all tracks similar to a track from the Tidal API. Each page
+   * is requested with its tracks included, and any tracks the page does not
+   * include are fetched before it is emitted.
+   * 
+   * @see TracksController#streamByArtist(String, String)
+   *
+   * @param trackId     The ID of the track to retrieve similar tracks for.
+   *                    (required)
+   * @param countryCode The country code for the tracks. (required)
+   *
+   * @return a lazy stream of the tracks. Consuming it throws an
+   *         UncheckedQueryException if a page cannot be fetched.
+   *
+   * @throws QueryException if the arguments are invalid or the client is not
+   *                        authorized.
+   */
+  public Stream<TidalTrack> streamSimilar(String trackId, String countryCode) throws QueryException {
+    final ClientSettings settings = this.client.getSettings();
+    final int pageSize = settings.getStreamPageSize();
+    final ListQuery firstQuery = this.buildListSimilarQuery(trackId, countryCode, 0, pageSize);
+
+    final PageIterator<TidalTrack> iterator = new PageIterator<>(offset -> {
+      final ListQuery query;
+
+      try {
+        query = offset == 0 ? firstQuery : this.buildListSimilarQuery(trackId, countryCode, offset, pageSize);
+      } catch (QueryException exception) {
+        return CompletableFuture.failedFuture(exception);
+      }
+
+      return query.executeResponseAsync(ResourceResponse.IncludedTracksListResponse.class)
+          .thenCompose(listResponse -> {
+            final boolean last = listResponse.getData() == null || listResponse.getData().size() < pageSize;
+
+            return this.resolveIncludedAsync(listResponse, countryCode)
+                .thenApply(tracks -> new PageIterator.Page<>(Arrays.asList(tracks), last));
+          });
+    }, pageSize, settings.getStreamPrefetch());
+
+    return iterator.stream();
+  }
+
+  /**
+   * Publishes all tracks by artist ID from the Tidal API with backpressure.
+   * 
+   * Each track is emitted as soon as its element of the response has been
+   * parsed, before the rest of the page has arrived. Pages of the client's
+   * stream page size are only requested once the subscriber has demand, and
+   * while it has none, reading of the current page pauses. Failures are
+   * signalled as QueryExceptions.
+   * 
+   * @see TracksController#streamByArtist(String, String)
+   *
+   * @param artistId    The ID of the artist to retrieve tracks for. (required)
+   * @param countryCode The country code for the tracks. (required)
+   *
+   * @return a publisher of the tracks.
+   *
+   * @throws QueryException if the arguments are invalid or the client is not
+   *                        authorized.
+   */
+  public Flow.Publisher<TidalTrack> publishByArtist(String artistId, String countryCode) throws QueryException {
+    final int pageSize = this.client.getSettings().getStreamPageSize();
+
+    // Fails before subscription if the arguments or credentials are invalid
+    this.buildListByArtistQuery(artistId, countryCode, 0, pageSize);
+
+    return this.publishTracks(offset -> this.buildListByArtistQuery(artistId, countryCode, offset, pageSize),
+        countryCode);
+  }
+
+  /**
+   * Publishes all tracks by ISRC code from the Tidal API with backpressure.
+   * 
+   * @see TracksController#publishByArtist(String, String)
+   *
+   * @param isrc        The ISRC code of the track to retrieve. (required)
+   * @param countryCode The country code for the tracks. (required)
+   *
+   * @return a publisher of the tracks.
+   *
+   * @throws QueryException if the arguments are invalid or the client is not
+   *                        authorized.
+   */
+  public Flow.Publisher<TidalTrack> publishByIsrc(String isrc, String countryCode) throws QueryException {
+    final int pageSize = this.client.getSettings().getStreamPageSize();
+
+    // Fails before subscription if the arguments or credentials are invalid
+    this.buildListByIsrcQuery(isrc, countryCode, 0, pageSize);
+
+    return this.publishTracks(offset -> this.buildListByIsrcQuery(isrc, countryCode, offset, pageSize),
+        countryCode);
+  }
+
+  /**
+   * Gets a specific track by ID from the Tidal API.
+   * 
+   * https://developer.tidal.com/apiref?spec=catalogue&amp;ref=get-track
+   * 
+   * If the track cache is enabled and holds the track, no query is sent. If
+   * the cached track has expired, it is revalidated with a conditional query
+   * and reused without decoding if the server answers 304 Not Modified.
+   * 
+   * @param trackId     The ID of the track to retrieve.
+   * @param countryCode The country code for the track.
+   * 
+   * @return the retrieved track.
    * 
    * @throws QueryException if there is an error executing the query.
    */
   public TidalTrack get(String trackId, String countryCode) throws QueryException {
+    return BaseQuery.await(this.getAsync(trackId, countryCode));
+  }
+
+  /**
+   * Asynchronously gets a specific track by ID from the Tidal API.
+   * 
+   * @see TracksController#get(String, String)
+   * 
+   * @param trackId     The ID of the track to retrieve.
+   * @param countryCode The country code for the track.
+   * 
+   * @return a future of the retrieved track. Fails with a QueryException if
+   *         there is an error executing the query.
+   */
+  public CompletableFuture<TidalTrack> getAsync(String trackId, String countryCode) {
+    final TidalTrack cachedTrack = this.getCached(trackId, countryCode);
+
+    if (cachedTrack != null) {
+      return CompletableFuture.completedFuture(cachedTrack);
+    }
+
+    final Query query;
+
+    try {
+      query = this.buildGetQuery(trackId, countryCode);
+    } catch (QueryException exception) {
+      return CompletableFuture.failedFuture(exception);
+    }
+
+    if (this.cache == null) {
+      return query.executeAsync(TrackResponse.class).thenApply(TracksController::toTrack);
+    }
+
+    final TrackCache.Entry staleEntry = this.cache.getStale(trackId, countryCode);
+
+    if (staleEntry != null && staleEntry.hasValidators()) {
+      try {
+        query.validators(staleEntry.getETag(), staleEntry.getLastModified());
+      } catch (QueryException exception) {
+        return CompletableFuture.failedFuture(exception);
+      }
+    }
+
+    return query.executeConditionalAsync(TrackResponse.class).thenApply(result -> {
+      if (result.isNotModified()) {
+        final String eTag = result.getETag() != null ? result.getETag() : staleEntry.getETag();
+        final String lastModified = result.getLastModified() != null
+            ? result.getLastModified()
+            : staleEntry.getLastModified();
+
+        this.cache.put(staleEntry.getTrack(), countryCode, eTag, lastModified);
+        return staleEntry.getTrack();
+      }
+
+      final TidalTrack track = TracksController.toTrack(result.getValue());
+      this.cache.put(track, countryCode, result.getETag(), result.getLastModified());
+      return track;
+    });
+  }
+
+  /**
+   * Gets a track from the cache.
+   *
+   * @param trackId     the ID of the track.
+   * @param countryCode the country code of the track.
+   *
+   * @return the cached track, or null if the cache is disabled or does not hold
+   *         the track.
+   */
+  private TidalTrack getCached(String trackId, String countryCode) {
+    if (this.cache == null || trackId == null || countryCode == null) {
+      return null;
+    }
+
+    return this.cache.get(trackId, countryCode);
+  }
+
+  /**
+   * Caches the given tracks if the cache is enabled.
+   *
+   * @param tracks      the tracks.
+   * @param countryCode the country code the tracks were fetched for.
+   *
+   * @return the given tracks.
+   */
+  private TidalTrack[] cacheTracks(TidalTrack[] tracks, String countryCode) {
+    if (this.cache != null) {
+      for (TidalTrack track : tracks) {
+        this.cache.put(track, countryCode);
+      }
+    }
+
+    return tracks;
+  }
+
+  /**
+   * Splits the given IDs into those whose tracks are cached and those that have
+   * to be fetched.
+   *
+   * @param trackIds     the IDs of the tracks.
+   * @param countryCode  the country code of the tracks.
+   * @param cachedTracks receives the cached tracks, as one array.
+   *
+   * @return the IDs of the tracks that are not cached.
+   */
+  private String[] partitionCached(String[] trackIds, String countryCode, List<TidalTrack[]> cachedTracks) {
+    if (this.cache == null) {
+      return trackIds;
+    }
+
+    final List<TidalTrack> hits = new ArrayList<>();
+    final List<String> missingTrackIds = new ArrayList<>(trackIds.length);
+
+    for (String trackId : trackIds) {
+      final TidalTrack track = this.cache.get(trackId, countryCode);
+
+      if (track != null) {
+        hits.add(track);
+      } else {
+        missingTrackIds.add(trackId);
+      }
+    }
+
+    cachedTracks.add(hits.toArray(new TidalTrack[hits.size()]));
+
+    return missingTrackIds.toArray(new String[missingTrackIds.size()]);
+  }
+
+  /**
+   * Creates the track cache described by the given settings.
+   *
+   * @param settings the client settings.
+   *
+   * @return the track cache, or null if it is disabled.
+   */
+  private static TrackCache createCache(ClientSettings settings) {
+    if (settings.getTrackCacheMaximumWeight() == 0) {
+      return null;
+    }
+
+    return new TrackCache(settings.getTrackCacheMaximumWeight(), settings.getTrackCacheTtl());
+  }
+
+  /**
+   * Builds the query for listing tracks by IDs.
+   *
+   * @param trackIds    the IDs of the tracks to retrieve.
+   * @param countryCode the country code for the tracks.
+   *
+   * @return the built query.
+   *
+   * @throws QueryException if the arguments are invalid.
+   */
+  private ListQuery buildListQuery(String[] trackIds, String countryCode) throws QueryException {
+    if (trackIds.length == 0) {
+      throw new QueryException("trackIds is empty.");
+    }
+
+    if (countryCode == null || countryCode.isEmpty()) {
+      throw new QueryException("countryCode is required.");
+    }
+
+    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException(this.client.getCredentialsStore());
+
+    final String trackIdsAsString = String.join(",", trackIds);
+
+    return new ListQuery(this.client, this.getTracksUrl())
+        .contentType(BaseQuery.ContentType.TIDAL_JSON)
+        .auth(credentials)
+        .parameter("countryCode", countryCode)
+        .parameter("ids", trackIdsAsString);
+  }
+
+  /**
+   * Builds the query for listing tracks by artist ID.
+   *
+   * @param artistId    the ID of the artist to retrieve tracks for.
+   * @param countryCode the country code for the tracks.
+   * @param offset      the offset for pagination (nullable).
+   * @param limit       the maximum number of tracks to retrieve (nullable).
+   *
+   * @return the built query.
+   *
+   * @throws QueryException if the arguments are invalid.
+   */
+  private ListQuery buildListByArtistQuery(String artistId, String countryCode, Integer offset, Integer limit)
+      throws QueryException {
+    if (artistId == null || artistId.isEmpty()) {
+      throw new QueryException("artistId is required.");
+    }
+
+    if (countryCode == null || countryCode.isEmpty()) {
+      throw new QueryException("countryCode is required.");
+    }
+
+    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException(this.client.getCredentialsStore());
+
+    final StringBuilder tracksByArtistUrlBuilder = new StringBuilder();
+    tracksByArtistUrlBuilder.append(this.getArtistsUrl());
+    tracksByArtistUrlBuilder.append("/");
+    tracksByArtistUrlBuilder.append(artistId);
+    tracksByArtistUrlBuilder.append("/tracks");
+
+    final String tracksByArtistUrl = tracksByArtistUrlBuilder.toString();
+
+    ListQuery query = new ListQuery(this.client, tracksByArtistUrl)
+        .contentType(BaseQuery.ContentType.TIDAL_JSON)
+        .auth(credentials)
+        .parameter("countryCode", countryCode);
+
+    if (offset != null) {
+      query = query.offset(offset);
+    }
+
+    if (limit != null) {
+      query = query.limit(limit);
+    }
+
+    return query;
+  }
+
+  /**
+   * Builds the query for listing tracks by ISRC code.
+   *
+   * @param isrc        the ISRC code of the track to retrieve.
+   * @param countryCode the country code for the tracks.
+   * @param offset      the offset for pagination (nullable).
+   * @param limit       the maximum number of tracks to retrieve (nullable).
+   *
+   * @return the built query.
+   *
+   * @throws QueryException if the arguments are invalid.
+   */
+  private ListQuery buildListByIsrcQuery(String isrc, String countryCode, Integer offset, Integer limit)
+      throws QueryException {
+    if (isrc == null || isrc.isEmpty()) {
+      throw new QueryException("ISRC is required.");
+    }
+
+    if (countryCode == null || countryCode.isEmpty()) {
+      throw new QueryException("countryCode is required.");
+    }
+
+    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException(this.client.getCredentialsStore());
+
+    final StringBuilder tracksByIsrcUrlBuilder = new StringBuilder();
+    tracksByIsrcUrlBuilder.append(this.getTracksUrl());
+    tracksByIsrcUrlBuilder.append("/byIsrc");
+
+    final String tracksByIsrcUrl = tracksByIsrcUrlBuilder.toString();
+
+    ListQuery query = new ListQuery(this.client, tracksByIsrcUrl)
+        .contentType(BaseQuery.ContentType.TIDAL_JSON)
+        .auth(credentials)
+        .parameter("isrc", isrc)
+        .parameter("countryCode", countryCode);
+
+    if (offset != null) {
+      query = query.offset(offset);
+    }
+
+    if (limit != null) {
+      query = query.limit(limit);
+    }
+
+    return query;
+  }
+
+  /**
+   * Builds the query for listing the tracks similar to a track, with the
+   * tracks included in the response.
+   *
+   * @param trackId     the ID of the track to retrieve similar tracks for.
+   * @param countryCode the country code for the tracks.
+   * @param offset      the offset for pagination (nullable).
+   * @param limit       the maximum number of tracks to retrieve (nullable).
+   *
+   * @return the built query.
+   *
+   * @throws QueryException if the arguments are invalid.
+   */
+  private ListQuery buildListSimilarQuery(String trackId, String countryCode, Integer offset, Integer limit)
+      throws QueryException {
+    if (trackId == null || trackId.isEmpty()) {
+      throw new QueryException("trackId is required.");
+    }
+
+    if (countryCode == null || countryCode.isEmpty()) {
+      throw new QueryException("countryCode is required.");
+    }
+
+    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException(this.client.getCredentialsStore());
+
+    final StringBuilder similarTracksUrlBuilder = new StringBuilder();
+    similarTracksUrlBuilder.append(this.getTracksUrl());
+    similarTracksUrlBuilder.append("/");
+    similarTracksUrlBuilder.append(trackId);
+    similarTracksUrlBuilder.append("/similar");
+
+    final String similarTracksUrl = similarTracksUrlBuilder.toString();
+
+    ListQuery query = new ListQuery(this.client, similarTracksUrl)
+        .contentType(BaseQuery.ContentType.TIDAL_JSON)
+        .auth(credentials)
+        .parameter("countryCode", countryCode)
+        .parameter("include", "tracks");
+
+    if (offset != null) {
+      query = query.offset(offset);
+    }
+
+    if (limit != null) {
+      query = query.limit(limit);
+    }
+
+    return query;
+  }
+
+  /**
+   * Builds the query for getting a track by ID.
+   *
+   * @param trackId     the ID of the track to retrieve.
+   * @param countryCode the country code for the track.
+   *
+   * @return the built query.
+   *
+   * @throws QueryException if the arguments are invalid.
+   */
+  private Query buildGetQuery(String trackId, String countryCode) throws QueryException {
     if (trackId == null || trackId.isEmpty()) {
       throw new QueryException("trackId is required.");
     }
@@ -440,21 +1135,338 @@ public final class TracksController extends BaseEndpointController {
       throw new QueryException("countryCode is required.");
     }
 
-    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException();
+    final TidalCredentials credentials = BaseQuery.tryGetCredentialsOrQueryException(this.client.getCredentialsStore());
 
     final StringBuilder trackUrlBuilder = new StringBuilder();
-    trackUrlBuilder.append(BaseEndpointController.TRACKS_URL);
+    trackUrlBuilder.append(this.getTracksUrl());
     trackUrlBuilder.append("/");
     trackUrlBuilder.append(trackId);
 
     final String trackUrl = trackUrlBuilder.toString();
 
-    final Query query = new Query(trackUrl)
+    final Query query = new Query(this.client, trackUrl)
         .contentType(BaseQuery.ContentType.TIDAL_JSON)
         .auth(credentials)
-        .parameter("countryCode", countryCode);
+        .parameter("countryCode", countryCode)
+        .hedged(true);
+
+    return query;
+  }
+
+  /**
+   * Streams the tracks of the pages built by the given page query builder.
+   *
+   * @param pageQueryBuilder the builder of the query for the page at an offset.
+   * @param countryCode      the country code for the tracks.
+   *
+   * @return a lazy stream of the tracks.
+   */
+  private Stream<TidalTrack> streamTracks(PageQueryBuilder pageQueryBuilder, String countryCode) {
+    final ClientSettings settings = this.client.getSettings();
+    final int pageSize = settings.getStreamPageSize();
+
+    final PageIterator<TidalTrack> iterator = new PageIterator<>(offset -> {
+      final ListQuery query;
+
+      try {
+        query = pageQueryBuilder.build(offset);
+      } catch (QueryException exception) {
+        return CompletableFuture.failedFuture(exception);
+      }
+
+      return query.executeAsync(TrackResponse.class, TrackResponse.ListResponse.class, "data")
+          .thenApply(listQueryResult -> {
+            final TidalTrack[] tracks = TracksController.toTracks(TracksController.requireSuccess(listQueryResult));
+            return new PageIterator.Page<>(Arrays.asList(this.cacheTracks(tracks, countryCode)),
+                tracks.length < pageSize);
+          });
+    }, pageSize, settings.getStreamPrefetch());
+
+    return iterator.stream();
+  }
+
+  /**
+   * Publishes the tracks of the pages built by the given page query builder,
+   * parsing each page one track at a time. Every page of every subscription
+   * is sent with a new query.
+   *
+   * @param pageQueryBuilder the builder of the query for the page at an offset.
+   * @param countryCode      the country code for the tracks.
+   *
+   * @return a publisher of the tracks.
+   */
+  private Flow.Publisher<TidalTrack> publishTracks(PageQueryBuilder pageQueryBuilder, String countryCode) {
+    final int pageSize = this.client.getSettings().getStreamPageSize();
+    return new PagePublisher<TidalTrack>((offset, consumer) -> {
+      final ListQuery query;
+
+      try {
+        query = pageQueryBuilder.build(offset);
+      } catch (QueryException exception) {
+        return CompletableFuture.failedFuture(exception);
+      }
+
+      return query.executeEachAsync(TrackResponse.class, "data", trackResponse -> {
+        final TidalTrack track = TracksController.toTrack(trackResponse);
+
+        if (this.cache != null) {
+          this.cache.put(track, countryCode);
+        }
+
+        consumer.accept(track);
+      });
+    }, pageSize);
+  }
+
+  /**
+   * Fails with the message of the given list query result if the query
+   * failed.
+   *
+   * @param <T>             the type of the items.
+   * @param listQueryResult the list query result.
+   *
+   * @return the list query result.
+   *
+   * @throws CompletionException wrapping a QueryException if the query failed.
+   */
+  private static <T> ListQueryResult<T> requireSuccess(ListQueryResult<T> listQueryResult)
+      throws CompletionException {
+    if (listQueryResult.getStatus() == ListQueryResult.Status.FAILURE) {
+      throw new CompletionException(new QueryException("List query failed. " + listQueryResult.getMessage()));
+    }
 
-    final TrackResponse tidalTrack = query.execute(TrackResponse.class);
-    return new TidalTrack(tidalTrack);
+    return listQueryResult;
+  }
+
+  /**
+   * Resolves the resources of a list response to tracks in the same order.
+   * Tracks included in the response are mapped and cached, and only the
+   * tracks it lists but does not include are fetched, with
+   * {@link #hydrateAsync(String[], String)}. Resources whose tracks cannot be
+   * found are left out.
+   *
+   * @param listResponse the list response.
+   * @param countryCode  the country code for the tracks.
+   *
+   * @return a future of the tracks.
+   */
+  private CompletableFuture<TidalTrack[]> resolveIncludedAsync(
+      ResourceResponse.IncludedTracksListResponse listResponse, String countryCode) {
+    final List<ResourceResponse> resources = listResponse.getData() == null ? List.of() : listResponse.getData();
+    final List<TrackResponse> included = listResponse.getIncluded() == null ? List.of()
+        : listResponse.getIncluded();
+
+    final EntityMappingEvent event = new EntityMappingEvent();
+    event.begin();
+
+    final Map<String, TidalTrack> tracksById = new HashMap<>();
+
+    for (TrackResponse trackResponse : included) {
+      final TidalTrack track = new TidalTrack(trackResponse);
+      tracksById.put(track.getId(), track);
+    }
+
+    TracksController.commit(event, tracksById.size());
+    this.cacheTracks(tracksById.values().toArray(new TidalTrack[0]), countryCode);
+
+    final String[] resourceIds = resources.stream().map(n -> n.resource.id).toArray(String[]::new);
+    final String[] missingIds = Arrays.stream(resourceIds).filter(id -> !tracksById.containsKey(id)).distinct()
+        .toArray(String[]::new);
+
+    return this.hydrateAsync(missingIds, countryCode).thenApply(fetchedTracks -> {
+      for (TidalTrack track : fetchedTracks) {
+        tracksById.put(track.getId(), track);
+      }
+
+      return Arrays.stream(resourceIds).map(tracksById::get).filter(track -> track != null)
+          .toArray(TidalTrack[]::new);
+    });
+  }
+
+  /**
+   * Resolves the given track IDs, e.g. those a similar tracks page did not
+   * include, to tracks in the same order. The offset and limit of the page have already
+   * been applied to the IDs, so they are not applied again. Tracks in the track
+   * cache are used as is, and only the missing tracks are fetched, in a single
+   * list-by-IDs request unless they exceed the list chunk size.
+   *
+   * @param trackIds    the IDs of the tracks.
+   * @param countryCode the country code for the tracks.
+   *
+   * @return a future of the tracks.
+   */
+  private CompletableFuture<TidalTrack[]> hydrateAsync(String[] trackIds, String countryCode) {
+    if (trackIds.length == 0) {
+      return CompletableFuture.completedFuture(new TidalTrack[0]);
+    }
+
+    return this.listAsync(trackIds, countryCode);
+  }
+
+  /**
+   * Converts the items of a track list query result to track entities.
+   *
+   * @param listQueryResult the list query result.
+   *
+   * @return the track entities.
+   */
+  private static TidalTrack[] toTracks(ListQueryResult<TrackResponse> listQueryResult) {
+    final List<TrackResponse> items = listQueryResult.getItems();
+
+    if (items == null) {
+      return new TidalTrack[0];
+    }
+
+    final EntityMappingEvent event = new EntityMappingEvent();
+    event.begin();
+
+    final TidalTrack[] tracks = new TidalTrack[items.size()];
+
+    for (int i = 0; i < items.size(); i++) {
+      tracks[i] = new TidalTrack(items.get(i));
+    }
+
+    TracksController.commit(event, tracks.length);
+    return tracks;
+  }
+
+  /**
+   * Converts a track response to a track entity.
+   *
+   * @param trackResponse the track response.
+   *
+   * @return the track entity.
+   */
+  private static TidalTrack toTrack(TrackResponse trackResponse) {
+    final EntityMappingEvent event = new EntityMappingEvent();
+    event.begin();
+
+    final TidalTrack track = new TidalTrack(trackResponse);
+
+    TracksController.commit(event, 1);
+    return track;
+  }
+
+  /**
+   * Commits a track mapping event if it is enabled.
+   *
+   * @param event the event.
+   * @param count the number of mapped tracks.
+   */
+  private static void commit(EntityMappingEvent event, int count) {
+    event.end();
+
+    if (event.shouldCommit()) {
+      event.setEntityType(TidalTrack.class);
+      event.setCount(count);
+      event.commit();
+    }
+  }
+
+  /**
+   * Runs the given requests with at most 'parallelism' of them in flight at a
+   * time. A new request is started as soon as a running one completes.
+   *
+   * @param <T>         the result type of the requests.
+   * @param requests    the requests to run.
+   * @param parallelism the maximum number of requests in flight.
+   *
+   * @return a future of the results, in the order of the requests. Fails if
+   *         any of the requests fails.
+   */
+  private static <T> CompletableFuture<List<T>> dispatch(List<Supplier<CompletableFuture<T>>> requests,
+      int parallelism) {
+    final AtomicReferenceArray<T> results = new AtomicReferenceArray<>(requests.size());
+    final AtomicInteger nextIndex = new AtomicInteger();
+
+    final int laneCount = Math.min(parallelism, requests.size());
+    final CompletableFuture<?>[] lanes = new CompletableFuture<?>[laneCount];
+
+    for (int i = 0; i < laneCount; i++) {
+      lanes[i] = TracksController.runLane(requests, results, nextIndex);
+    }
+
+    return CompletableFuture.allOf(lanes).thenApply(ignored -> {
+      final List<T> resultList = new ArrayList<>(requests.size());
+
+      for (int i = 0; i < requests.size(); i++) {
+        resultList.add(results.get(i));
+      }
+
+      return resultList;
+    });
+  }
+
+  /**
+   * Runs requests one after another until none are left.
+   *
+   * @param <T>       the result type of the requests.
+   * @param requests  the requests to run.
+   * @param results   the results, by request index.
+   * @param nextIndex the index of the next request to run.
+   *
+   * @return a future that completes when no requests are left.
+   */
+  private static <T> CompletableFuture<Void> runLane(List<Supplier<CompletableFuture<T>>> requests,
+      AtomicReferenceArray<T> results, AtomicInteger nextIndex) {
+    final int index = nextIndex.getAndIncrement();
+
+    if (index >= requests.size()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return requests.get(index).get().thenCompose(result -> {
+      results.set(index, result);
+      return TracksController.runLane(requests, results, nextIndex);
+    });
+  }
+
+  /**
+   * Orders the tracks of several chunk results by the given IDs. IDs without a
+   * matching track are skipped.
+   *
+   * @param trackIds     the IDs in the desired order.
+   * @param chunkResults the tracks of each chunk.
+   *
+   * @return the tracks in the order of the IDs.
+   */
+  private static TidalTrack[] orderByIds(String[] trackIds, List<TidalTrack[]> chunkResults) {
+    final Map<String, TidalTrack> tracksById = new HashMap<>();
+
+    for (TidalTrack[] chunkResult : chunkResults) {
+      for (TidalTrack track : chunkResult) {
+        tracksById.put(track.getId(), track);
+      }
+    }
+
+    final List<TidalTrack> tracks = new ArrayList<>(trackIds.length);
+
+    for (String trackId : trackIds) {
+      final TidalTrack track = tracksById.get(trackId);
+
+      if (track != null) {
+        tracks.add(track);
+      }
+    }
+
+    return tracks.toArray(new TidalTrack[tracks.size()]);
+  }
+
+  /**
+   * Builds the query for the page of a paginated endpoint at an offset.
+   */
+  @FunctionalInterface
+  private interface PageQueryBuilder {
+
+    /**
+     * Builds the query for the page at the given offset.
+     *
+     * @param offset the offset of the page.
+     *
+     * @return the built query.
+     *
+     * @throws QueryException if the arguments are invalid.
+     */
+    ListQuery build(int offset) throws QueryException;
   }
 }
@@ -0,0 +1,23 @@
+package io.github.lm_pakkanen.tidal_api.interfaces;
+
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+
+/**
+ * Represents a single lookup of a bulk execution, e.g. fetching a track by ID.
+ * 
+ * @param <K> the type of the lookup keys.
+ * @param <R> the type of the lookup results.
+ */
+@FunctionalInterface
+public interface BulkLookup<K, R> {
+  /**
+   * Looks up the result for the given key.
+   * 
+   * @param key the key to look up.
+   * 
+   * @return the result for the key.
+   * 
+   * @throws QueryException if the lookup fails.
+   */
+  public R lookup(K key) throws QueryException;
+}
@@ -0,0 +1,22 @@
+package io.github.lm_pakkanen.tidal_api.interfaces;
+
+import io.github.lm_pakkanen.tidal_api.models.queries.CircuitBreaker;
+
+/**
+ * Receives the state changes of the circuit breakers of a query client, e.g.
+ * to log outages or to report them to a monitoring system.
+ * 
+ * Listeners are called on the thread that caused the change and should return
+ * quickly.
+ */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+  /**
+   * Called when a circuit breaker changes state.
+   * 
+   * @param circuitBreaker the circuit breaker.
+   * @param from           the previous state.
+   * @param to             the new state.
+   */
+  public void onStateChange(CircuitBreaker circuitBreaker, CircuitBreaker.State from, CircuitBreaker.State to);
+}
@@ -0,0 +1,21 @@
+package io.github.lm_pakkanen.tidal_api.interfaces;
+
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.InvalidCredentialsException;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.UnauthorizedException;
+
+/**
+ * Obtains new credentials, e.g. by authorizing with a client ID and secret.
+ */
+@FunctionalInterface
+public interface CredentialsProvider {
+  /**
+   * Obtains new credentials.
+   * 
+   * @return the new credentials.
+   * 
+   * @throws InvalidCredentialsException if the client credentials are invalid.
+   * @throws UnauthorizedException       if the authorization is rejected.
+   */
+  public TidalCredentials authorize() throws InvalidCredentialsException, UnauthorizedException;
+}
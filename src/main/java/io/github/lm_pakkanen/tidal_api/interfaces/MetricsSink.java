@@ -0,0 +1,49 @@
+package io.github.lm_pakkanen.tidal_api.interfaces;
+
+/**
+ * Receives measurements of the queries of a query client, e.g. to export them
+ * to a monitoring system.
+ *
+ * Measurements are labelled with the endpoint of the request: "tracks",
+ * "tracks/byIsrc", "similar", "artists/tracks", "auth", or the first path
+ * segment for other endpoints. Sinks are called on the threads that send and
+ * decode the queries, so they must be thread-safe and should return quickly.
+ * Exceptions thrown by a sink are ignored.
+ */
+public interface MetricsSink {
+  /**
+   * Called when the response headers of a request arrive. Retries and replays
+   * of a request are reported separately.
+   *
+   * @param endpoint           the endpoint of the request.
+   * @param statusCode         the status code of the response.
+   * @param timeToHeadersNanos the time from sending the request to receiving
+   *                           the response headers, including connecting.
+   */
+  public void recordResponse(String endpoint, int statusCode, long timeToHeadersNanos);
+
+  /**
+   * Called when a request fails without a response, e.g. because the
+   * connection fails or the circuit breaker of the endpoint is open.
+   *
+   * @param endpoint the endpoint of the request.
+   */
+  public void recordFailure(String endpoint);
+
+  /**
+   * Called when a response body has been read and decoded.
+   *
+   * @param endpoint      the endpoint of the request.
+   * @param bytesReceived the number of body bytes received over the wire, 0 if
+   *                      the response was served from the response cache.
+   * @param decodeNanos   the time spent reading and decoding the body.
+   */
+  public void recordBody(String endpoint, long bytesReceived, long decodeNanos);
+
+  /**
+   * Called when a request is retried after a transient failure.
+   *
+   * @param endpoint the endpoint of the request.
+   */
+  public void recordRetry(String endpoint);
+}
@@ -0,0 +1,158 @@
+package io.github.lm_pakkanen.tidal_api.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+
+/**
+ * Represents the result of a bulk execution. Contains one item per input key,
+ * in input order.
+ *
+ * @param <K> the type of the lookup keys.
+ * @param <R> the type of the lookup results.
+ */
+public final class BulkResult<K, R> {
+  private final List<Item<K, R>> items;
+  private final int failureCount;
+
+  /**
+   * Constructs a new BulkResult object.
+   *
+   * @param items the items of the result, in input order.
+   */
+  public BulkResult(List<Item<K, R>> items) {
+    this.items = Collections.unmodifiableList(items);
+
+    int failureCount = 0;
+
+    for (Item<K, R> item : items) {
+      if (item.getStatus() == Status.FAILURE) {
+        failureCount++;
+      }
+    }
+
+    this.failureCount = failureCount;
+  }
+
+  /**
+   * Returns the items of the result, in input order.
+   *
+   * @return the items of the result.
+   */
+  public List<Item<K, R>> getItems() {
+    return this.items;
+  }
+
+  /**
+   * Returns the values of the result, in input order. Failed items have a null
+   * value.
+   *
+   * @return the values of the result.
+   */
+  public List<R> getValues() {
+    final List<R> values = new ArrayList<>(this.items.size());
+
+    for (Item<K, R> item : this.items) {
+      values.add(item.getValue());
+    }
+
+    return values;
+  }
+
+  /**
+   * Returns the failed items of the result, in input order.
+   *
+   * @return the failed items of the result.
+   */
+  public List<Item<K, R>> getFailures() {
+    return this.items.stream().filter(item -> item.getStatus() == Status.FAILURE).toList();
+  }
+
+  /**
+   * Returns the number of failed items.
+   *
+   * @return the number of failed items.
+   */
+  public int getFailureCount() {
+    return this.failureCount;
+  }
+
+  /**
+   * Represents the outcome of a single lookup.
+   *
+   * @param <K> the type of the lookup key.
+   * @param <R> the type of the lookup result.
+   */
+  public static final class Item<K, R> {
+    private final K key;
+    private final R value; // Nullable
+    private final QueryException exception; // Nullable
+
+    /**
+     * Constructs a new Item object.
+     *
+     * @param key       the key of the lookup.
+     * @param value     the value of the lookup (nullable).
+     * @param exception the exception of the lookup if it failed (nullable).
+     */
+    public Item(K key, R value, QueryException exception) {
+      this.key = key;
+      this.value = value;
+      this.exception = exception;
+    }
+
+    /**
+     * Returns the key of the lookup.
+     *
+     * @return the key of the lookup.
+     */
+    public K getKey() {
+      return this.key;
+    }
+
+    /**
+     * Returns the value of the lookup.
+     *
+     * @return the value of the lookup, or null if the lookup failed.
+     */
+    public R getValue() {
+      return this.value;
+    }
+
+    /**
+     * Returns the exception of the lookup.
+     *
+     * @return the exception of the lookup, or null if the lookup succeeded.
+     */
+    public QueryException getException() {
+      return this.exception;
+    }
+
+    /**
+     * Returns the status of the lookup.
+     *
+     * @return the status of the lookup.
+     */
+    public Status getStatus() {
+      return this.exception == null ? Status.SUCCESS : Status.FAILURE;
+    }
+  }
+
+  /**
+   * Represents the status of a single lookup.
+   */
+  public enum Status {
+
+    /**
+     * Represents a successful lookup.
+     */
+    SUCCESS,
+
+    /**
+     * Represents a failed lookup.
+     */
+    FAILURE
+  }
+}
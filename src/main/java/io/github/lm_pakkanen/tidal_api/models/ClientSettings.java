@@ -0,0 +1,1148 @@
+package io.github.lm_pakkanen.tidal_api.models;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the HTTP transport used by the Tidal API client.
+ *
+ * All setters return this instance so that settings can be chained.
+ */
+public final class ClientSettings {
+  private Integer connectionPoolSize; // Nullable
+  private Duration idleConnectionTimeout; // Nullable
+  private Duration connectTimeout;
+  private Duration requestTimeout;
+  private int bulkConcurrency;
+  private long maxResponseBytes;
+  private boolean compressionEnabled;
+  private int listChunkSize;
+  private int listParallelism;
+  private int streamPageSize;
+  private int streamPrefetch;
+  private boolean coalescingEnabled;
+  private long trackCacheMaximumWeight;
+  private Duration trackCacheTtl;
+  private Path responseCacheDirectory;
+  private long responseCacheMaxBytes;
+  private Duration responseCacheTtl;
+  private double rateLimitPermitsPerSecond;
+  private int rateLimitBurst;
+  private int rateLimitReplays;
+  private int maxRetries;
+  private Duration retryBaseDelay;
+  private Duration retryMaxDelay;
+  private Duration retryDeadline;
+  private int retryBudgetMaxTokens;
+  private double retryBudgetTokenRatio;
+  private boolean circuitBreakerEnabled;
+  private double circuitBreakerFailureRateThreshold;
+  private int circuitBreakerMinimumRequests;
+  private Duration circuitBreakerWindow;
+  private Duration circuitBreakerOpenDuration;
+  private int circuitBreakerHalfOpenProbes;
+  private boolean hedgingEnabled;
+  private double hedgingPercentile;
+  private int hedgingMaxInFlight;
+  private Duration tokenRefreshThreshold;
+  private String baseUrl;
+  private String authorizationUrl;
+
+  /**
+   * Constructs new settings with the default values.
+   */
+  public ClientSettings() {
+    this.connectionPoolSize = null;
+    this.idleConnectionTimeout = null;
+    this.connectTimeout = Duration.ofSeconds(10);
+    this.requestTimeout = Duration.ofSeconds(30);
+    this.bulkConcurrency = 64;
+    this.maxResponseBytes = 16L * 1024 * 1024;
+    this.compressionEnabled = true;
+    this.listChunkSize = 20;
+    this.listParallelism = 4;
+    this.streamPageSize = 100;
+    this.streamPrefetch = 1;
+    this.coalescingEnabled = true;
+    this.trackCacheMaximumWeight = 0;
+    this.trackCacheTtl = Duration.ofHours(1);
+    this.responseCacheDirectory = null;
+    this.responseCacheMaxBytes = 256L * 1024 * 1024;
+    this.responseCacheTtl = Duration.ofHours(1);
+    this.rateLimitPermitsPerSecond = 0;
+    this.rateLimitBurst = 20;
+    this.rateLimitReplays = 3;
+    this.maxRetries = 2;
+    this.retryBaseDelay = Duration.ofMillis(100);
+    this.retryMaxDelay = Duration.ofSeconds(5);
+    this.retryDeadline = Duration.ofSeconds(30);
+    this.retryBudgetMaxTokens = 10;
+    this.retryBudgetTokenRatio = 0.1;
+    this.circuitBreakerEnabled = true;
+    this.circuitBreakerFailureRateThreshold = 0.5;
+    this.circuitBreakerMinimumRequests = 20;
+    this.circuitBreakerWindow = Duration.ofSeconds(10);
+    this.circuitBreakerOpenDuration = Duration.ofSeconds(30);
+    this.circuitBreakerHalfOpenProbes = 3;
+    this.hedgingEnabled = false;
+    this.hedgingPercentile = 0.95;
+    this.hedgingMaxInFlight = 8;
+    this.tokenRefreshThreshold = Duration.ofHours(1);
+    this.baseUrl = "https://openapi.tidal.com";
+    this.authorizationUrl = "https://auth.tidal.com/v1/oauth2/token";
+  }
+
+  /**
+   * Sets the maximum number of idle connections kept in the pool per host. 0
+   * means unlimited.
+   *
+   * The JDK HTTP client reads this value once per JVM from the
+   * jdk.httpclient.connectionPoolSize system property, which the application
+   * must set before the first HTTP client is created. This setting only
+   * declares the value the application expects: creating a client whose
+   * setting differs from the system property fails.
+   *
+   * @param connectionPoolSize the maximum number of pooled connections.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the pool size is negative.
+   */
+  public ClientSettings connectionPoolSize(int connectionPoolSize) throws IllegalArgumentException {
+    if (connectionPoolSize < 0) {
+      throw new IllegalArgumentException("connectionPoolSize cannot be negative.");
+    }
+
+    this.connectionPoolSize = connectionPoolSize;
+    return this;
+  }
+
+  /**
+   * Sets how long an idle connection is kept in the pool before it is evicted.
+   *
+   * The JDK HTTP client reads this value once per JVM, in whole seconds, from
+   * the jdk.httpclient.keepalive.timeout system property, which the
+   * application must set before the first HTTP client is created. This setting
+   * only declares the value the application expects: creating a client whose
+   * setting differs from the system property fails.
+   *
+   * @param idleConnectionTimeout the idle eviction timeout.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the timeout is null or not positive.
+   */
+  public ClientSettings idleConnectionTimeout(Duration idleConnectionTimeout) throws IllegalArgumentException {
+    ClientSettings.requirePositive(idleConnectionTimeout, "idleConnectionTimeout");
+    this.idleConnectionTimeout = idleConnectionTimeout;
+    return this;
+  }
+
+  /**
+   * Sets the timeout for establishing a new connection.
+   *
+   * @param connectTimeout the connect timeout.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the timeout is null or not positive.
+   */
+  public ClientSettings connectTimeout(Duration connectTimeout) throws IllegalArgumentException {
+    ClientSettings.requirePositive(connectTimeout, "connectTimeout");
+    this.connectTimeout = connectTimeout;
+    return this;
+  }
+
+  /**
+   * Sets the timeout for a single request, measured until the response headers
+   * are received.
+   *
+   * @param requestTimeout the request timeout.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the timeout is null or not positive.
+   */
+  public ClientSettings requestTimeout(Duration requestTimeout) throws IllegalArgumentException {
+    ClientSettings.requirePositive(requestTimeout, "requestTimeout");
+    this.requestTimeout = requestTimeout;
+    return this;
+  }
+
+  /**
+   * Sets the default maximum number of lookups a bulk execution runs
+   * concurrently.
+   *
+   * @param bulkConcurrency the maximum number of concurrent bulk lookups.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the concurrency is not positive.
+   */
+  public ClientSettings bulkConcurrency(int bulkConcurrency) throws IllegalArgumentException {
+    if (bulkConcurrency < 1) {
+      throw new IllegalArgumentException("bulkConcurrency must be positive.");
+    }
+
+    this.bulkConcurrency = bulkConcurrency;
+    return this;
+  }
+
+  /**
+   * Sets the maximum size of a response body. Queries whose response is larger
+   * fail instead of being decoded.
+   *
+   * @param maxResponseBytes the maximum response body size in bytes.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the size is not positive.
+   */
+  public ClientSettings maxResponseBytes(long maxResponseBytes) throws IllegalArgumentException {
+    if (maxResponseBytes < 1) {
+      throw new IllegalArgumentException("maxResponseBytes must be positive.");
+    }
+
+    this.maxResponseBytes = maxResponseBytes;
+    return this;
+  }
+
+  /**
+   * Sets whether compressed (gzip or deflate) responses are requested from the
+   * server. Compressed responses are decompressed transparently.
+   *
+   * @param compressionEnabled whether to request compressed responses.
+   *
+   * @return this instance.
+   */
+  public ClientSettings compression(boolean compressionEnabled) {
+    this.compressionEnabled = compressionEnabled;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of IDs sent in a single list-by-IDs request. Larger
+   * ID lists are split into chunks of this size.
+   *
+   * @param listChunkSize the maximum number of IDs per request.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the chunk size is not positive.
+   */
+  public ClientSettings listChunkSize(int listChunkSize) throws IllegalArgumentException {
+    if (listChunkSize < 1) {
+      throw new IllegalArgumentException("listChunkSize must be positive.");
+    }
+
+    this.listChunkSize = listChunkSize;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of chunk requests of a single list-by-IDs call that
+   * are in flight at the same time.
+   *
+   * @param listParallelism the maximum number of concurrent chunk requests.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the parallelism is not positive.
+   */
+  public ClientSettings listParallelism(int listParallelism) throws IllegalArgumentException {
+    if (listParallelism < 1) {
+      throw new IllegalArgumentException("listParallelism must be positive.");
+    }
+
+    this.listParallelism = listParallelism;
+    return this;
+  }
+
+  /**
+   * Sets the number of items requested per page by the stream methods of the
+   * endpoint controllers.
+   *
+   * @param streamPageSize the number of items per page.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the page size is not positive.
+   */
+  public ClientSettings streamPageSize(int streamPageSize) throws IllegalArgumentException {
+    if (streamPageSize < 1) {
+      throw new IllegalArgumentException("streamPageSize must be positive.");
+    }
+
+    this.streamPageSize = streamPageSize;
+    return this;
+  }
+
+  /**
+   * Sets the number of pages a stream fetches ahead of the page being consumed.
+   * At most this many pages plus the current one are held in memory per
+   * stream. 0 fetches each page only once the previous one is used up.
+   *
+   * @param streamPrefetch the number of pages to fetch ahead.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the number of pages is negative.
+   */
+  public ClientSettings streamPrefetch(int streamPrefetch) throws IllegalArgumentException {
+    if (streamPrefetch < 0) {
+      throw new IllegalArgumentException("streamPrefetch must not be negative.");
+    }
+
+    this.streamPrefetch = streamPrefetch;
+    return this;
+  }
+
+  /**
+   * Sets whether concurrent identical GET queries share one in-flight request.
+   *
+   * @param coalescingEnabled whether to coalesce identical GET queries.
+   *
+   * @return this instance.
+   */
+  public ClientSettings coalescing(boolean coalescingEnabled) {
+    this.coalescingEnabled = coalescingEnabled;
+    return this;
+  }
+
+  /**
+   * Sets the maximum total weight of the in-memory track cache. A track weighs
+   * one unit plus one per artist and album cover. 0 disables the cache.
+   *
+   * @param trackCacheMaximumWeight the maximum weight of the track cache.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the weight is negative.
+   */
+  public ClientSettings trackCacheMaximumWeight(long trackCacheMaximumWeight) throws IllegalArgumentException {
+    if (trackCacheMaximumWeight < 0) {
+      throw new IllegalArgumentException("trackCacheMaximumWeight cannot be negative.");
+    }
+
+    this.trackCacheMaximumWeight = trackCacheMaximumWeight;
+    return this;
+  }
+
+  /**
+   * Sets how long a cached track is served before it is fetched again.
+   *
+   * @param trackCacheTtl the time to live of cached tracks.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the TTL is null or not positive.
+   */
+  public ClientSettings trackCacheTtl(Duration trackCacheTtl) throws IllegalArgumentException {
+    ClientSettings.requirePositive(trackCacheTtl, "trackCacheTtl");
+    this.trackCacheTtl = trackCacheTtl;
+    return this;
+  }
+
+  /**
+   * Sets the directory of the persistent response cache. Successful GET
+   * responses are stored there and served from disk, also after a restart,
+   * until they expire. null disables the cache.
+   *
+   * @param responseCacheDirectory the cache directory (nullable).
+   *
+   * @return this instance.
+   */
+  public ClientSettings responseCacheDirectory(Path responseCacheDirectory) {
+    this.responseCacheDirectory = responseCacheDirectory;
+    return this;
+  }
+
+  /**
+   * Sets the approximate maximum size of the persistent response cache on
+   * disk.
+   *
+   * @param responseCacheMaxBytes the maximum cache size in bytes.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the size is less than 1 MiB.
+   */
+  public ClientSettings responseCacheMaxBytes(long responseCacheMaxBytes) throws IllegalArgumentException {
+    if (responseCacheMaxBytes < 1024L * 1024) {
+      throw new IllegalArgumentException("responseCacheMaxBytes must be at least 1 MiB.");
+    }
+
+    this.responseCacheMaxBytes = responseCacheMaxBytes;
+    return this;
+  }
+
+  /**
+   * Sets how long a stored response is served before it is fetched again.
+   *
+   * @param responseCacheTtl the time to live of stored responses.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the TTL is null or not positive.
+   */
+  public ClientSettings responseCacheTtl(Duration responseCacheTtl) throws IllegalArgumentException {
+    ClientSettings.requirePositive(responseCacheTtl, "responseCacheTtl");
+    this.responseCacheTtl = responseCacheTtl;
+    return this;
+  }
+
+  /**
+   * Sets the sustained number of requests per second the client sends. Callers
+   * above the rate are queued, not rejected. The default of 0 sets no rate of
+   * the client's own.
+   *
+   * Once received, the server's X-RateLimit headers lower this rate and the
+   * burst size if they advertise lower ones, but never raise them. A
+   * Retry-After or an exhausted quota pauses requests whatever the rate.
+   *
+   * @param rateLimitPermitsPerSecond the number of requests per second.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the rate is negative or not a number.
+   */
+  public ClientSettings rateLimitPermitsPerSecond(double rateLimitPermitsPerSecond) throws IllegalArgumentException {
+    if (!(rateLimitPermitsPerSecond >= 0) || Double.isInfinite(rateLimitPermitsPerSecond)) {
+      throw new IllegalArgumentException("rateLimitPermitsPerSecond must be a non-negative number.");
+    }
+
+    this.rateLimitPermitsPerSecond = rateLimitPermitsPerSecond;
+    return this;
+  }
+
+  /**
+   * Sets the number of requests that may be sent at once after the client has
+   * been idle.
+   *
+   * @param rateLimitBurst the burst size.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the burst size is less than 1.
+   */
+  public ClientSettings rateLimitBurst(int rateLimitBurst) throws IllegalArgumentException {
+    if (rateLimitBurst < 1) {
+      throw new IllegalArgumentException("rateLimitBurst must be at least 1.");
+    }
+
+    this.rateLimitBurst = rateLimitBurst;
+    return this;
+  }
+
+  /**
+   * Sets how many times a request rejected with 429 Too Many Requests is sent
+   * again after waiting for the time given in its Retry-After header.
+   *
+   * @param rateLimitReplays the maximum number of replays per request.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the number is negative.
+   */
+  public ClientSettings rateLimitReplays(int rateLimitReplays) throws IllegalArgumentException {
+    if (rateLimitReplays < 0) {
+      throw new IllegalArgumentException("rateLimitReplays must not be negative.");
+    }
+
+    this.rateLimitReplays = rateLimitReplays;
+    return this;
+  }
+
+  /**
+   * Sets how many times a GET request is sent again after a transient failure:
+   * an I/O error, a timeout, or a 408, 500, 502, 503 or 504 response. 0
+   * disables retries.
+   *
+   * @param maxRetries the maximum number of retries per request.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the number is negative.
+   */
+  public ClientSettings maxRetries(int maxRetries) throws IllegalArgumentException {
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("maxRetries must not be negative.");
+    }
+
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  /**
+   * Sets the shortest delay before a retry. Delays grow at random from this
+   * value up to the maximum retry delay.
+   *
+   * @param retryBaseDelay the base retry delay.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the delay is null or not positive.
+   */
+  public ClientSettings retryBaseDelay(Duration retryBaseDelay) throws IllegalArgumentException {
+    ClientSettings.requirePositive(retryBaseDelay, "retryBaseDelay");
+    this.retryBaseDelay = retryBaseDelay;
+    return this;
+  }
+
+  /**
+   * Sets the longest delay before a retry.
+   *
+   * @param retryMaxDelay the maximum retry delay.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the delay is null or not positive.
+   */
+  public ClientSettings retryMaxDelay(Duration retryMaxDelay) throws IllegalArgumentException {
+    ClientSettings.requirePositive(retryMaxDelay, "retryMaxDelay");
+    this.retryMaxDelay = retryMaxDelay;
+    return this;
+  }
+
+  /**
+   * Sets the time after the first attempt of a request past which it is no
+   * longer retried. Retries are also given a timeout that ends at the deadline.
+   *
+   * @param retryDeadline the retry deadline.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the deadline is null or not positive.
+   */
+  public ClientSettings retryDeadline(Duration retryDeadline) throws IllegalArgumentException {
+    ClientSettings.requirePositive(retryDeadline, "retryDeadline");
+    this.retryDeadline = retryDeadline;
+    return this;
+  }
+
+  /**
+   * Sets the size of the retry budget shared by all requests of a client. Each
+   * retry takes one token, and retries stop while fewer than half of the tokens
+   * are left.
+   *
+   * @param retryBudgetMaxTokens the number of tokens in a full budget.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the number is less than 2.
+   */
+  public ClientSettings retryBudgetMaxTokens(int retryBudgetMaxTokens) throws IllegalArgumentException {
+    if (retryBudgetMaxTokens < 2) {
+      throw new IllegalArgumentException("retryBudgetMaxTokens must be at least 2.");
+    }
+
+    this.retryBudgetMaxTokens = retryBudgetMaxTokens;
+    return this;
+  }
+
+  /**
+   * Sets the fraction of a token each successful response returns to the retry
+   * budget. With the default of 0.1, at most about one request in ten is
+   * retried while the server keeps failing.
+   *
+   * @param retryBudgetTokenRatio the tokens returned per successful response.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the ratio is not between 0 and 1.
+   */
+  public ClientSettings retryBudgetTokenRatio(double retryBudgetTokenRatio) throws IllegalArgumentException {
+    if (!(retryBudgetTokenRatio > 0 && retryBudgetTokenRatio <= 1)) {
+      throw new IllegalArgumentException("retryBudgetTokenRatio must be greater than 0 and at most 1.");
+    }
+
+    this.retryBudgetTokenRatio = retryBudgetTokenRatio;
+    return this;
+  }
+
+  /**
+   * Sets whether requests to a failing endpoint family fail fast once its
+   * circuit breaker opens.
+   *
+   * @param circuitBreakerEnabled whether circuit breaking is enabled.
+   *
+   * @return this instance.
+   */
+  public ClientSettings circuitBreaker(boolean circuitBreakerEnabled) {
+    this.circuitBreakerEnabled = circuitBreakerEnabled;
+    return this;
+  }
+
+  /**
+   * Sets the share of failed requests in the rolling window at which a circuit
+   * breaker opens. Failures are I/O errors and 5xx responses.
+   *
+   * @param circuitBreakerFailureRateThreshold the failure rate between 0 and 1.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the rate is not between 0 and 1.
+   */
+  public ClientSettings circuitBreakerFailureRateThreshold(double circuitBreakerFailureRateThreshold)
+      throws IllegalArgumentException {
+    if (!(circuitBreakerFailureRateThreshold > 0 && circuitBreakerFailureRateThreshold <= 1)) {
+      throw new IllegalArgumentException("circuitBreakerFailureRateThreshold must be greater than 0 and at most 1.");
+    }
+
+    this.circuitBreakerFailureRateThreshold = circuitBreakerFailureRateThreshold;
+    return this;
+  }
+
+  /**
+   * Sets the number of requests the rolling window must hold before a circuit
+   * breaker may open.
+   *
+   * @param circuitBreakerMinimumRequests the minimum number of requests.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the number is less than 1.
+   */
+  public ClientSettings circuitBreakerMinimumRequests(int circuitBreakerMinimumRequests)
+      throws IllegalArgumentException {
+    if (circuitBreakerMinimumRequests < 1) {
+      throw new IllegalArgumentException("circuitBreakerMinimumRequests must be at least 1.");
+    }
+
+    this.circuitBreakerMinimumRequests = circuitBreakerMinimumRequests;
+    return this;
+  }
+
+  /**
+   * Sets the length of the rolling window over which a circuit breaker counts
+   * failures.
+   *
+   * @param circuitBreakerWindow the rolling window.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the window is null or not positive.
+   */
+  public ClientSettings circuitBreakerWindow(Duration circuitBreakerWindow) throws IllegalArgumentException {
+    ClientSettings.requirePositive(circuitBreakerWindow, "circuitBreakerWindow");
+    this.circuitBreakerWindow = circuitBreakerWindow;
+    return this;
+  }
+
+  /**
+   * Sets how long an open circuit breaker rejects requests before it lets probe
+   * requests through.
+   *
+   * @param circuitBreakerOpenDuration the open duration.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the duration is null or not positive.
+   */
+  public ClientSettings circuitBreakerOpenDuration(Duration circuitBreakerOpenDuration)
+      throws IllegalArgumentException {
+    ClientSettings.requirePositive(circuitBreakerOpenDuration, "circuitBreakerOpenDuration");
+    this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+    return this;
+  }
+
+  /**
+   * Sets the number of probe requests that must succeed before a half-open
+   * circuit breaker closes.
+   *
+   * @param circuitBreakerHalfOpenProbes the number of probe requests.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the number is less than 1.
+   */
+  public ClientSettings circuitBreakerHalfOpenProbes(int circuitBreakerHalfOpenProbes)
+      throws IllegalArgumentException {
+    if (circuitBreakerHalfOpenProbes < 1) {
+      throw new IllegalArgumentException("circuitBreakerHalfOpenProbes must be at least 1.");
+    }
+
+    this.circuitBreakerHalfOpenProbes = circuitBreakerHalfOpenProbes;
+    return this;
+  }
+
+  /**
+   * Sets whether single-track lookups are hedged: if a lookup has not been
+   * answered within the hedging percentile of recent latencies, a duplicate
+   * request is sent and the first response wins.
+   *
+   * @param hedgingEnabled whether hedging is enabled.
+   *
+   * @return this instance.
+   */
+  public ClientSettings hedging(boolean hedgingEnabled) {
+    this.hedgingEnabled = hedgingEnabled;
+    return this;
+  }
+
+  /**
+   * Sets the percentile of recent latencies after which a hedged request is
+   * duplicated. 0.95 sends a duplicate for about one request in twenty.
+   *
+   * @param hedgingPercentile the percentile between 0 and 1.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the percentile is not between 0 and 1.
+   */
+  public ClientSettings hedgingPercentile(double hedgingPercentile) throws IllegalArgumentException {
+    if (!(hedgingPercentile > 0 && hedgingPercentile < 1)) {
+      throw new IllegalArgumentException("hedgingPercentile must be between 0 and 1.");
+    }
+
+    this.hedgingPercentile = hedgingPercentile;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of duplicate requests in flight at once.
+   *
+   * @param hedgingMaxInFlight the hedge budget.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the budget is less than 1.
+   */
+  public ClientSettings hedgingMaxInFlight(int hedgingMaxInFlight) throws IllegalArgumentException {
+    if (hedgingMaxInFlight < 1) {
+      throw new IllegalArgumentException("hedgingMaxInFlight must be at least 1.");
+    }
+
+    this.hedgingMaxInFlight = hedgingMaxInFlight;
+    return this;
+  }
+
+  /**
+   * Sets how long before expiry managed credentials are refreshed. Credentials
+   * that live for less than twice the threshold are refreshed halfway through
+   * their lifetime instead.
+   *
+   * @param tokenRefreshThreshold the refresh threshold.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the threshold is null or not positive.
+   */
+  public ClientSettings tokenRefreshThreshold(Duration tokenRefreshThreshold) throws IllegalArgumentException {
+    ClientSettings.requirePositive(tokenRefreshThreshold, "tokenRefreshThreshold");
+    this.tokenRefreshThreshold = tokenRefreshThreshold;
+    return this;
+  }
+
+  /**
+   * Sets the base URL of the Tidal catalogue API, e.g. to point the client at a
+   * local stub server or a proxy. Endpoint paths such as '/tracks' are appended
+   * to it.
+   *
+   * @param baseUrl the base URL, with or without a trailing slash.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the URL is not an absolute HTTP(S) URL.
+   */
+  public ClientSettings baseUrl(String baseUrl) throws IllegalArgumentException {
+    this.baseUrl = ClientSettings.requireHttpUrl(baseUrl, "baseUrl");
+    return this;
+  }
+
+  /**
+   * Sets the URL of the OAuth 2 token endpoint used for authorization.
+   *
+   * @param authorizationUrl the token endpoint URL.
+   *
+   * @return this instance.
+   *
+   * @throws IllegalArgumentException if the URL is not an absolute HTTP(S) URL.
+   */
+  public ClientSettings authorizationUrl(String authorizationUrl) throws IllegalArgumentException {
+    this.authorizationUrl = ClientSettings.requireHttpUrl(authorizationUrl, "authorizationUrl");
+    return this;
+  }
+
+  /**
+   * Gets the expected maximum number of pooled connections per host.
+   *
+   * @return the maximum number of pooled connections, 0 if unlimited, null if
+   *         the JVM's setting is used as is.
+   */
+  public Integer getConnectionPoolSize() {
+    return this.connectionPoolSize;
+  }
+
+  /**
+   * Gets the expected idle connection eviction timeout.
+   *
+   * @return the idle connection eviction timeout, null if the JVM's setting is
+   *         used as is.
+   */
+  public Duration getIdleConnectionTimeout() {
+    return this.idleConnectionTimeout;
+  }
+
+  /**
+   * Gets the connect timeout.
+   *
+   * @return the connect timeout.
+   */
+  public Duration getConnectTimeout() {
+    return this.connectTimeout;
+  }
+
+  /**
+   * Gets the request timeout.
+   *
+   * @return the request timeout.
+   */
+  public Duration getRequestTimeout() {
+    return this.requestTimeout;
+  }
+
+  /**
+   * Gets the default maximum number of concurrent bulk lookups.
+   *
+   * @return the default maximum number of concurrent bulk lookups.
+   */
+  public int getBulkConcurrency() {
+    return this.bulkConcurrency;
+  }
+
+  /**
+   * Gets the maximum response body size.
+   *
+   * @return the maximum response body size in bytes.
+   */
+  public long getMaxResponseBytes() {
+    return this.maxResponseBytes;
+  }
+
+  /**
+   * Gets whether compressed responses are requested from the server.
+   *
+   * @return true if compressed responses are requested.
+   */
+  public boolean isCompressionEnabled() {
+    return this.compressionEnabled;
+  }
+
+  /**
+   * Gets the maximum number of IDs per list-by-IDs request.
+   *
+   * @return the maximum number of IDs per request.
+   */
+  public int getListChunkSize() {
+    return this.listChunkSize;
+  }
+
+  /**
+   * Gets the maximum number of concurrent chunk requests per list-by-IDs call.
+   *
+   * @return the maximum number of concurrent chunk requests.
+   */
+  public int getListParallelism() {
+    return this.listParallelism;
+  }
+
+  /**
+   * Gets the number of items requested per page by stream methods.
+   *
+   * @return the number of items per page.
+   */
+  public int getStreamPageSize() {
+    return this.streamPageSize;
+  }
+
+  /**
+   * Gets the number of pages a stream fetches ahead of the page being consumed.
+   *
+   * @return the number of pages to fetch ahead.
+   */
+  public int getStreamPrefetch() {
+    return this.streamPrefetch;
+  }
+
+  /**
+   * Gets whether concurrent identical GET queries share one in-flight request.
+   *
+   * @return true if identical GET queries are coalesced.
+   */
+  public boolean isCoalescingEnabled() {
+    return this.coalescingEnabled;
+  }
+
+  /**
+   * Gets the maximum total weight of the track cache.
+   *
+   * @return the maximum weight of the track cache, 0 if the cache is disabled.
+   */
+  public long getTrackCacheMaximumWeight() {
+    return this.trackCacheMaximumWeight;
+  }
+
+  /**
+   * Gets the time to live of cached tracks.
+   *
+   * @return the time to live of cached tracks.
+   */
+  public Duration getTrackCacheTtl() {
+    return this.trackCacheTtl;
+  }
+
+  /**
+   * Gets the directory of the persistent response cache.
+   *
+   * @return the cache directory, null if the cache is disabled.
+   */
+  public Path getResponseCacheDirectory() {
+    return this.responseCacheDirectory;
+  }
+
+  /**
+   * Gets the approximate maximum size of the persistent response cache.
+   *
+   * @return the maximum cache size in bytes.
+   */
+  public long getResponseCacheMaxBytes() {
+    return this.responseCacheMaxBytes;
+  }
+
+  /**
+   * Gets the time to live of stored responses.
+   *
+   * @return the time to live of stored responses.
+   */
+  public Duration getResponseCacheTtl() {
+    return this.responseCacheTtl;
+  }
+
+  /**
+   * Gets the sustained number of requests per second.
+   *
+   * @return the number of requests per second, 0 if rate limiting is
+   *         disabled.
+   */
+  public double getRateLimitPermitsPerSecond() {
+    return this.rateLimitPermitsPerSecond;
+  }
+
+  /**
+   * Gets the rate limiter burst size.
+   *
+   * @return the burst size.
+   */
+  public int getRateLimitBurst() {
+    return this.rateLimitBurst;
+  }
+
+  /**
+   * Gets the maximum number of replays of a rate limited request.
+   *
+   * @return the maximum number of replays per request.
+   */
+  public int getRateLimitReplays() {
+    return this.rateLimitReplays;
+  }
+
+  /**
+   * Gets the maximum number of retries per request.
+   *
+   * @return the maximum number of retries, 0 if retries are disabled.
+   */
+  public int getMaxRetries() {
+    return this.maxRetries;
+  }
+
+  /**
+   * Gets the shortest delay before a retry.
+   *
+   * @return the base retry delay.
+   */
+  public Duration getRetryBaseDelay() {
+    return this.retryBaseDelay;
+  }
+
+  /**
+   * Gets the longest delay before a retry.
+   *
+   * @return the maximum retry delay.
+   */
+  public Duration getRetryMaxDelay() {
+    return this.retryMaxDelay;
+  }
+
+  /**
+   * Gets the time after the first attempt past which a request is not retried.
+   *
+   * @return the retry deadline.
+   */
+  public Duration getRetryDeadline() {
+    return this.retryDeadline;
+  }
+
+  /**
+   * Gets the number of tokens in a full retry budget.
+   *
+   * @return the size of the retry budget.
+   */
+  public int getRetryBudgetMaxTokens() {
+    return this.retryBudgetMaxTokens;
+  }
+
+  /**
+   * Gets the fraction of a token each successful response returns to the retry
+   * budget.
+   *
+   * @return the tokens returned per successful response.
+   */
+  public double getRetryBudgetTokenRatio() {
+    return this.retryBudgetTokenRatio;
+  }
+
+  /**
+   * Gets whether circuit breaking is enabled.
+   *
+   * @return true if circuit breaking is enabled.
+   */
+  public boolean isCircuitBreakerEnabled() {
+    return this.circuitBreakerEnabled;
+  }
+
+  /**
+   * Gets the failure rate at which a circuit breaker opens.
+   *
+   * @return the failure rate threshold.
+   */
+  public double getCircuitBreakerFailureRateThreshold() {
+    return this.circuitBreakerFailureRateThreshold;
+  }
+
+  /**
+   * Gets the number of requests needed in the rolling window before a circuit
+   * breaker may open.
+   *
+   * @return the minimum number of requests.
+   */
+  public int getCircuitBreakerMinimumRequests() {
+    return this.circuitBreakerMinimumRequests;
+  }
+
+  /**
+   * Gets the rolling window over which a circuit breaker counts failures.
+   *
+   * @return the rolling window.
+   */
+  public Duration getCircuitBreakerWindow() {
+    return this.circuitBreakerWindow;
+  }
+
+  /**
+   * Gets how long an open circuit breaker rejects requests.
+   *
+   * @return the open duration.
+   */
+  public Duration getCircuitBreakerOpenDuration() {
+    return this.circuitBreakerOpenDuration;
+  }
+
+  /**
+   * Gets the number of probe requests that close a half-open circuit breaker.
+   *
+   * @return the number of probe requests.
+   */
+  public int getCircuitBreakerHalfOpenProbes() {
+    return this.circuitBreakerHalfOpenProbes;
+  }
+
+  /**
+   * Gets whether single-track lookups are hedged.
+   *
+   * @return true if hedging is enabled.
+   */
+  public boolean isHedgingEnabled() {
+    return this.hedgingEnabled;
+  }
+
+  /**
+   * Gets the percentile of recent latencies after which a request is hedged.
+   *
+   * @return the hedging percentile.
+   */
+  public double getHedgingPercentile() {
+    return this.hedgingPercentile;
+  }
+
+  /**
+   * Gets the maximum number of duplicate requests in flight at once.
+   *
+   * @return the hedge budget.
+   */
+  public int getHedgingMaxInFlight() {
+    return this.hedgingMaxInFlight;
+  }
+
+  /**
+   * Gets how long before expiry managed credentials are refreshed.
+   *
+   * @return the refresh threshold.
+   */
+  public Duration getTokenRefreshThreshold() {
+    return this.tokenRefreshThreshold;
+  }
+
+  /**
+   * Gets the base URL of the Tidal catalogue API.
+   *
+   * @return the base URL, without a trailing slash.
+   */
+  public String getBaseUrl() {
+    return this.baseUrl;
+  }
+
+  /**
+   * Gets the URL of the OAuth 2 token endpoint.
+   *
+   * @return the token endpoint URL.
+   */
+  public String getAuthorizationUrl() {
+    return this.authorizationUrl;
+  }
+
+  /**
+   * Validates that the given URL is an absolute HTTP or HTTPS URL.
+   *
+   * @param url  the URL.
+   * @param name the name of the setting, for the error message.
+   *
+   * @return the URL without a trailing slash.
+   *
+   * @throws IllegalArgumentException if the URL is invalid.
+   */
+  private static String requireHttpUrl(String url, String name) throws IllegalArgumentException {
+    if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+      throw new IllegalArgumentException(name + " must be an absolute HTTP or HTTPS URL.");
+    }
+
+    URI.create(url);
+
+    return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+  }
+
+  /**
+   * Validates that the given duration is not null and is positive.
+   *
+   * @param duration the duration to validate.
+   * @param name     the name of the setting, used in the error message.
+   *
+   * @throws IllegalArgumentException if the duration is null or not positive.
+   */
+  private static void requirePositive(Duration duration, String name) throws IllegalArgumentException {
+    if (duration == null || duration.isZero() || duration.isNegative()) {
+      throw new IllegalArgumentException(name + " must be positive.");
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package io.github.lm_pakkanen.tidal_api.models;
+
+/**
+ * Represents the result of a conditional query: either a new response, or a
+ * confirmation that the previously received response is still current.
+ *
+ * @param <T> the type of the response.
+ */
+public final class ConditionalResult<T> {
+  private final boolean notModified;
+  private final T value; // Nullable
+  private final String eTag; // Nullable
+  private final String lastModified; // Nullable
+
+  /**
+   * Constructs a new ConditionalResult object.
+   *
+   * @param notModified  whether the server answered 304 Not Modified.
+   * @param value        the new response, null if not modified.
+   * @param eTag         the ETag sent by the server (nullable).
+   * @param lastModified the Last-Modified time sent by the server (nullable).
+   */
+  public ConditionalResult(boolean notModified, T value, String eTag, String lastModified) {
+    this.notModified = notModified;
+    this.value = value;
+    this.eTag = eTag;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * Returns whether the previously received response is still current.
+   *
+   * @return true if the server answered 304 Not Modified.
+   */
+  public boolean isNotModified() {
+    return this.notModified;
+  }
+
+  /**
+   * Returns the new response.
+   *
+   * @return the new response, or null if the server answered 304 Not Modified.
+   */
+  public T getValue() {
+    return this.value;
+  }
+
+  /**
+   * Returns the ETag sent by the server, to be used in the next conditional
+   * query.
+   *
+   * @return the ETag, or null if the server sent none.
+   */
+  public String getETag() {
+    return this.eTag;
+  }
+
+  /**
+   * Returns the Last-Modified time sent by the server, to be used in the next
+   * conditional query.
+   *
+   * @return the Last-Modified header value, or null if the server sent none.
+   */
+  public String getLastModified() {
+    return this.lastModified;
+  }
+}
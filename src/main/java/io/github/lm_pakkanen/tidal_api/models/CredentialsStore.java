@@ -3,37 +3,46 @@ package io.github.lm_pakkanen.tidal_api.models;
 import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
 
 /**
- * Singleton class for storing Tidal API credentials.
+ * Store of the Tidal API credentials of a query client.
+ * 
+ * Every query client, and thus every TidalApi instance, has its own store, so
+ * that clients authorized with different client IDs do not overwrite each
+ * other's tokens. The shared instance returned by {@link #getInstance()} is the
+ * store of the default query client itself. Instances created with
+ * {@code new TidalApi()} run on tenants of the default client and do not write
+ * to it; {@code new TidalApi(QueryClient.getDefault())} does.
+ * 
+ * The store is safe to use from multiple threads: credentials written by one
+ * thread are immediately visible to queries running on other threads.
  */
 public final class CredentialsStore {
-  private static CredentialsStore INSTANCE;
+  private static final CredentialsStore INSTANCE = new CredentialsStore();
 
-  private TidalCredentials credentials;
+  private volatile TidalCredentials credentials;
 
   /**
-   * Private constructor to prevent instantiation.
+   * Constructs a new empty credentials store.
    */
-  private CredentialsStore() {
+  public CredentialsStore() {
   }
 
   /**
-   * Get the singleton instance of the CredentialsStore.
+   * Get the shared instance of the CredentialsStore, used by the default query
+   * client.
    * 
-   * @return the singleton instance of the CredentialsStore.
+   * @return the shared instance of the CredentialsStore.
    */
   public static CredentialsStore getInstance() {
-    if (CredentialsStore.INSTANCE == null) {
-      CredentialsStore.INSTANCE = new CredentialsStore();
-    }
-
     return CredentialsStore.INSTANCE;
   }
 
   /**
-   * Destroy the singleton instance of the CredentialsStore.
+   * Clears the credentials of the shared instance of the CredentialsStore. The
+   * instance itself is kept, so that it stays the store of the default query
+   * client.
    */
   public static void destroyInstance() {
-    CredentialsStore.INSTANCE = null;
+    CredentialsStore.INSTANCE.setCredentials(null);
   }
 
   /**
@@ -13,6 +13,7 @@ public final class ListQueryResult<T> {
   private final List<T> items;
   private final Integer offset; // Nullable
   private final Integer limit; // Nullable
+  private final int retries;
 
   /**
    * Constructs a new ListQueryResult object.
@@ -28,11 +29,31 @@ public final class ListQueryResult<T> {
       List<T> items,
       Integer offset,
       Integer limit) {
+    this(status, message, items, offset, limit, 0);
+  }
+
+  /**
+   * Constructs a new ListQueryResult object.
+   *
+   * @param status  the status of the query result.
+   * @param message the message associated with the query result (nullable).
+   * @param items   the list of items returned by the query.
+   * @param offset  the offset of the query result (nullable).
+   * @param limit   the limit of the query result (nullable).
+   * @param retries the number of times the request was retried.
+   */
+  public ListQueryResult(Status status,
+      String message,
+      List<T> items,
+      Integer offset,
+      Integer limit,
+      int retries) {
     this.status = status;
     this.message = message;
     this.items = items;
     this.offset = offset;
     this.limit = limit;
+    this.retries = retries;
   }
 
   /**
@@ -81,6 +102,16 @@ public final class ListQueryResult<T> {
     return limit;
   }
 
+  /**
+   * Returns the number of times the request was sent again after a transient
+   * failure.
+   *
+   * @return the number of retries.
+   */
+  public int getRetries() {
+    return retries;
+  }
+
   /**
    * Represents the status of a list query result.
    */
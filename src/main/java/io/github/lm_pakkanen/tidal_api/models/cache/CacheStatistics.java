@@ -0,0 +1,86 @@
+package io.github.lm_pakkanen.tidal_api.models.cache;
+
+/**
+ * Point-in-time snapshot of the statistics of a cache.
+ */
+public final class CacheStatistics {
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long estimatedSize;
+  private final long weightedSize;
+
+  /**
+   * Constructs a new statistics snapshot.
+   * 
+   * @param hitCount      the number of lookups that found a live entry.
+   * @param missCount     the number of lookups that found no live entry.
+   * @param evictionCount the number of entries evicted to stay within the
+   *                      maximum weight.
+   * @param estimatedSize the approximate number of entries.
+   * @param weightedSize  the total weight of the entries.
+   */
+  CacheStatistics(long hitCount, long missCount, long evictionCount, long estimatedSize, long weightedSize) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.estimatedSize = estimatedSize;
+    this.weightedSize = weightedSize;
+  }
+
+  /**
+   * Gets the number of lookups that found a live entry.
+   * 
+   * @return the number of cache hits.
+   */
+  public long getHitCount() {
+    return this.hitCount;
+  }
+
+  /**
+   * Gets the number of lookups that found no entry or an expired one.
+   * 
+   * @return the number of cache misses.
+   */
+  public long getMissCount() {
+    return this.missCount;
+  }
+
+  /**
+   * Gets the ratio of hits to all lookups.
+   * 
+   * @return the hit rate, 0 if there have been no lookups.
+   */
+  public double getHitRate() {
+    final long lookups = this.hitCount + this.missCount;
+    return lookups == 0 ? 0.0 : (double) this.hitCount / lookups;
+  }
+
+  /**
+   * Gets the number of entries evicted to stay within the maximum weight.
+   * 
+   * @return the number of evictions.
+   */
+  public long getEvictionCount() {
+    return this.evictionCount;
+  }
+
+  /**
+   * Gets the approximate number of entries, including expired entries that
+   * have not been evicted yet.
+   * 
+   * @return the approximate number of entries.
+   */
+  public long getEstimatedSize() {
+    return this.estimatedSize;
+  }
+
+  /**
+   * Gets the total weight of the entries.
+   * 
+   * @return the total weight of the entries.
+   */
+  public long getWeightedSize() {
+    return this.weightedSize;
+  }
+}
@@ -0,0 +1,979 @@
+package io.github.lm_pakkanen.tidal_api.models.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent cache of response bodies, stored in memory-mapped files so that
+ * it survives restarts.
+ * 
+ * Bodies are appended as records to fixed-size segment files. Each record
+ * carries its key, its expiry time, the response validators (ETag and
+ * Last-Modified) and a CRC32C checksum. An open-addressing hash index, also
+ * memory-mapped, points keys to their latest record. The index is only a
+ * hint: every read checks the record's key and checksum, so a crash in the
+ * middle of a write shows up as a miss rather than a corrupt response.
+ * Invalidating a key appends a deletion record without a value, so that the
+ * key stays deleted when the index is rebuilt from the segments.
+ * 
+ * When the segments exceed the maximum size, the oldest segment is compacted
+ * in the background. If most of it is dead, its live records are copied to
+ * the newest segment. Otherwise it is evicted as a whole.
+ */
+public final class DiskResponseCache implements Closeable {
+  private static final long INDEX_MAGIC = 0x5449444C49445831L;
+  private static final int INDEX_VERSION = 1;
+  private static final int INDEX_HEADER_BYTES = 32;
+  private static final int SLOT_BYTES = 24;
+  private static final int RECORD_MAGIC = 0x54524543;
+  private static final int RECORD_HEADER_BYTES = 24;
+  private static final int EMPTY_SLOT = 0;
+  private static final int DELETED_SLOT = -1;
+  private static final byte[] DELETION_VALUE = new byte[0];
+  private static final String INDEX_FILE_NAME = "index.dat";
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".dat";
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final int maximumSegments;
+  private final int slotCount;
+  private final ReentrantReadWriteLock lock;
+  private final AtomicBoolean compactionScheduled;
+  private final LongAdder hitCount;
+  private final LongAdder missCount;
+  private final LongAdder evictionCount;
+
+  // Guarded by lock
+  private final TreeMap<Integer, Segment> segments;
+  private FileChannel indexChannel;
+  private MappedByteBuffer index;
+  private int usedSlots;
+  private int liveSlots;
+  private boolean closed;
+
+  /**
+   * Opens the cache stored in the given directory, creating it if needed.
+   * 
+   * @param directory    the directory of the cache files.
+   * @param maximumBytes the approximate maximum total size of the segment files,
+   *                     at least 1 MiB.
+   * 
+   * @throws IOException              if the cache files cannot be opened.
+   * @throws IllegalArgumentException if the maximum size is too small.
+   */
+  public DiskResponseCache(Path directory, long maximumBytes) throws IOException, IllegalArgumentException {
+    if (maximumBytes < 1024L * 1024) {
+      throw new IllegalArgumentException("maximumBytes must be at least 1 MiB.");
+    }
+
+    this.directory = directory;
+    this.segmentBytes = (int) Math.min(Math.max(maximumBytes / 8, 256L * 1024), 64L * 1024 * 1024);
+    this.maximumSegments = (int) Math.max(maximumBytes / this.segmentBytes, 2L);
+    this.slotCount = Integer.highestOneBit((int) Math.min(Math.max(maximumBytes / 512, 1024L), 1L << 24)) << 1;
+    this.lock = new ReentrantReadWriteLock();
+    this.compactionScheduled = new AtomicBoolean();
+    this.hitCount = new LongAdder();
+    this.missCount = new LongAdder();
+    this.evictionCount = new LongAdder();
+    this.segments = new TreeMap<>();
+
+    Files.createDirectories(directory);
+
+    this.openSegments();
+    this.openIndex();
+  }
+
+  /**
+   * Gets the live body cached for the given key.
+   * 
+   * @param key the key.
+   * 
+   * @return the cached body, or null if there is none, it has expired or it is
+   *         damaged.
+   */
+  public byte[] get(String key) {
+    final DiskResponseCache.Entry entry = this.getEntry(key);
+    return entry == null || entry.isExpired() ? null : entry.getBody();
+  }
+
+  /**
+   * Gets the entry cached for the given key, even if it has expired, so that it
+   * can be revalidated. Only live entries count as hits.
+   * 
+   * @param key the key.
+   * 
+   * @return the cached entry, or null if there is none or it is damaged.
+   */
+  public DiskResponseCache.Entry getEntry(String key) {
+    final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    final long hash = DiskResponseCache.hash(keyBytes);
+
+    this.lock.readLock().lock();
+
+    try {
+      if (this.closed) {
+        this.missCount.increment();
+        return null;
+      }
+
+      final int slot = this.findSlot(hash);
+
+      if (slot < 0) {
+        this.missCount.increment();
+        return null;
+      }
+
+      final int position = this.slotPosition(slot);
+      final long expiresAtMillis = this.index.getLong(position + 16);
+      final Segment segment = this.segments.get(this.index.getInt(position + 8));
+      final byte[] value = segment == null ? null : segment.read(this.index.getInt(position + 12), keyBytes);
+
+      if (value == null) {
+        this.missCount.increment();
+        return null;
+      }
+
+      final DiskResponseCache.Entry entry = DiskResponseCache.Entry.decode(value, expiresAtMillis);
+
+      if (entry.isExpired()) {
+        this.missCount.increment();
+      } else {
+        this.hitCount.increment();
+      }
+
+      return entry;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Caches the given body without validators.
+   * 
+   * @param key  the key.
+   * @param body the body.
+   * @param ttl  how long the body stays live.
+   * 
+   * @throws IOException if the body cannot be written.
+   */
+  public void put(String key, byte[] body, Duration ttl) throws IOException {
+    this.put(key, body, ttl, null, null);
+  }
+
+  /**
+   * Caches the given body together with the validators the server sent with
+   * it.
+   * 
+   * @param key          the key.
+   * @param body         the body.
+   * @param ttl          how long the body stays live.
+   * @param eTag         the ETag header value (nullable).
+   * @param lastModified the Last-Modified header value (nullable).
+   * 
+   * @throws IOException if the body cannot be written.
+   */
+  public void put(String key, byte[] body, Duration ttl, String eTag, String lastModified) throws IOException {
+    final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    final byte[] value = DiskResponseCache.Entry.encode(body, eTag, lastModified);
+
+    if (RECORD_HEADER_BYTES + keyBytes.length + value.length > this.segmentBytes) {
+      // Never fits in a segment
+      return;
+    }
+
+    final long expiresAtMillis = System.currentTimeMillis() + ttl.toMillis();
+
+    this.lock.writeLock().lock();
+
+    try {
+      if (this.closed) {
+        return;
+      }
+
+      this.append(keyBytes, value, expiresAtMillis);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+
+    this.scheduleCompactionIfNeeded();
+  }
+
+  /**
+   * Removes the body cached for the given key, if any.
+   * 
+   * @param key the key.
+   */
+  public void invalidate(String key) {
+    final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+    this.lock.writeLock().lock();
+
+    try {
+      if (this.closed || this.findSlot(DiskResponseCache.hash(keyBytes)) < 0) {
+        return;
+      }
+
+      this.appendDeletion(keyBytes);
+    } catch (IOException exception) {
+      // The cache is best effort; without its deletion record the key may
+      // come back if the index is rebuilt
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+
+    this.scheduleCompactionIfNeeded();
+  }
+
+  /**
+   * Gets a snapshot of the statistics of this cache. The weighted size is the
+   * total size of the segment files in bytes.
+   * 
+   * @return the cache statistics.
+   */
+  public CacheStatistics getStatistics() {
+    this.lock.readLock().lock();
+
+    try {
+      final long segmentsSize = (long) this.segments.size() * this.segmentBytes;
+      return new CacheStatistics(this.hitCount.sum(), this.missCount.sum(), this.evictionCount.sum(),
+          this.liveSlots, segmentsSize);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Flushes the cache files to disk and closes them.
+   * 
+   * @throws IOException if the files cannot be flushed or closed.
+   */
+  @Override
+  public void close() throws IOException {
+    this.lock.writeLock().lock();
+
+    try {
+      if (this.closed) {
+        return;
+      }
+
+      this.closed = true;
+      this.index.force();
+      this.indexChannel.close();
+
+      for (Segment segment : this.segments.values()) {
+        segment.close();
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Appends a record to the newest segment, starting a new segment if it is
+   * full, and points the index to it.
+   * 
+   * @param keyBytes        the key.
+   * @param value           the body.
+   * @param expiresAtMillis the expiry time in epoch milliseconds.
+   * 
+   * @throws IOException if a new segment cannot be created.
+   */
+  private void append(byte[] keyBytes, byte[] value, long expiresAtMillis) throws IOException {
+    Segment segment = this.segments.isEmpty() ? null : this.segments.lastEntry().getValue();
+
+    if (segment == null || !segment.hasRoomFor(keyBytes.length, value.length)) {
+      segment = this.createSegment(segment == null ? 1 : segment.id + 1);
+    }
+
+    final int offset = segment.append(keyBytes, value, expiresAtMillis);
+    this.putSlot(DiskResponseCache.hash(keyBytes), segment.id, offset, expiresAtMillis);
+  }
+
+  /**
+   * Removes the given key from the index and appends a deletion record for it,
+   * which {@link #rebuildIndex()} replays.
+   * 
+   * @param keyBytes the key.
+   * 
+   * @throws IOException if a new segment cannot be created.
+   */
+  private void appendDeletion(byte[] keyBytes) throws IOException {
+    this.removeSlot(DiskResponseCache.hash(keyBytes));
+
+    Segment segment = this.segments.isEmpty() ? null : this.segments.lastEntry().getValue();
+
+    if (segment == null || !segment.hasRoomFor(keyBytes.length, DELETION_VALUE.length)) {
+      segment = this.createSegment(segment == null ? 1 : segment.id + 1);
+    }
+
+    segment.append(keyBytes, DELETION_VALUE, 0);
+  }
+
+  /**
+   * Starts the background compaction if there are more segments than allowed
+   * or the index is getting full.
+   */
+  private void scheduleCompactionIfNeeded() {
+    final boolean isNeeded;
+
+    this.lock.readLock().lock();
+
+    try {
+      isNeeded = !this.closed
+          && (this.segments.size() > this.maximumSegments || this.usedSlots > this.slotCount * 3 / 4);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+
+    if (isNeeded && this.compactionScheduled.compareAndSet(false, true)) {
+      Thread.ofVirtual().name("tidal-api-cache-compaction").start(this::compact);
+    }
+  }
+
+  /**
+   * Compacts or evicts the oldest segments until the cache is within its
+   * limits, then rebuilds the index if it is clogged with deleted slots.
+   */
+  private void compact() {
+    try {
+      while (true) {
+        this.lock.writeLock().lock();
+
+        try {
+          if (this.closed || this.segments.size() <= this.maximumSegments) {
+            break;
+          }
+
+          this.compactOldestSegment();
+        } finally {
+          this.lock.writeLock().unlock();
+        }
+      }
+
+      this.lock.writeLock().lock();
+
+      try {
+        if (!this.closed && this.usedSlots > this.slotCount * 3 / 4) {
+          this.rebuildIndex();
+        }
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+    } catch (IOException exception) {
+      // The cache is best effort; the next write retries the compaction
+    } finally {
+      this.compactionScheduled.set(false);
+    }
+  }
+
+  /**
+   * Removes the oldest segment. Its live records are copied to the newest
+   * segment if they fill at most half of a segment, and dropped otherwise.
+   * 
+   * @throws IOException if a new segment cannot be created.
+   */
+  private void compactOldestSegment() throws IOException {
+    final Segment oldest = this.segments.firstEntry().getValue();
+    final long now = System.currentTimeMillis();
+    final List<Record> liveRecords = new ArrayList<>();
+    long liveBytes = 0;
+
+    for (Record record : oldest.scan()) {
+      if (record.expiresAtMillis <= now) {
+        continue;
+      }
+
+      final int slot = this.findSlot(DiskResponseCache.hash(record.key));
+
+      if (slot < 0) {
+        continue;
+      }
+
+      final int position = this.slotPosition(slot);
+
+      if (this.index.getInt(position + 8) == oldest.id && this.index.getInt(position + 12) == record.offset) {
+        liveRecords.add(record);
+        liveBytes += RECORD_HEADER_BYTES + record.key.length + record.value.length;
+      }
+    }
+
+    this.segments.remove(oldest.id);
+
+    if (liveBytes <= this.segmentBytes / 2) {
+      for (Record record : liveRecords) {
+        this.append(record.key, record.value, record.expiresAtMillis);
+      }
+    } else {
+      for (Record record : liveRecords) {
+        this.removeSlot(DiskResponseCache.hash(record.key));
+      }
+
+      this.evictionCount.add(liveRecords.size());
+    }
+
+    oldest.close();
+    Files.deleteIfExists(oldest.path);
+  }
+
+  /**
+   * Opens the existing segment files.
+   * 
+   * @throws IOException if a segment file cannot be opened.
+   */
+  private void openSegments() throws IOException {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory,
+        SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path path : stream) {
+        final String fileName = path.getFileName().toString();
+        final String idPart = fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length());
+
+        try {
+          final int id = Integer.parseInt(idPart);
+          this.segments.put(id, Segment.open(path, id, this.segmentBytes));
+        } catch (NumberFormatException exception) {
+          // Not one of ours
+        }
+      }
+    }
+  }
+
+  /**
+   * Opens the index file. It is rebuilt from the segments if it is missing or
+   * was written with a different layout.
+   * 
+   * @throws IOException if the index file cannot be opened.
+   */
+  private void openIndex() throws IOException {
+    final Path path = this.directory.resolve(INDEX_FILE_NAME);
+    final long size = INDEX_HEADER_BYTES + (long) this.slotCount * SLOT_BYTES;
+
+    this.indexChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+
+    final boolean isCompatible = this.indexChannel.size() == size;
+    this.index = this.indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+    if (!isCompatible || this.index.getLong(0) != INDEX_MAGIC || this.index.getInt(8) != INDEX_VERSION
+        || this.index.getInt(12) != this.slotCount) {
+      this.rebuildIndex();
+      return;
+    }
+
+    for (int slot = 0; slot < this.slotCount; slot++) {
+      final int segmentId = this.index.getInt(this.slotPosition(slot) + 8);
+
+      if (segmentId != EMPTY_SLOT) {
+        this.usedSlots++;
+      }
+
+      if (segmentId != EMPTY_SLOT && segmentId != DELETED_SLOT) {
+        this.liveSlots++;
+      }
+    }
+  }
+
+  /**
+   * Clears the index and fills it from the records of all segments, oldest
+   * first so that newer records win and deletion records remove the records
+   * before them. Expired records are kept so that they can be revalidated;
+   * compaction drops them.
+   * 
+   * Compaction drops deletion records too. That is safe because segments are
+   * compacted oldest first, so the records a deletion record removes are gone
+   * by the time its own segment is compacted.
+   */
+  private void rebuildIndex() {
+    this.index.putLong(0, INDEX_MAGIC);
+    this.index.putInt(8, INDEX_VERSION);
+    this.index.putInt(12, this.slotCount);
+
+    final byte[] zeros = new byte[SLOT_BYTES * 1024];
+
+    for (int position = INDEX_HEADER_BYTES; position < this.index.capacity(); position += zeros.length) {
+      this.index.put(position, zeros, 0, Math.min(zeros.length, this.index.capacity() - position));
+    }
+
+    this.usedSlots = 0;
+    this.liveSlots = 0;
+
+    for (Segment segment : this.segments.values()) {
+      for (Record record : segment.scan()) {
+        if (record.value.length == DELETION_VALUE.length) {
+          this.removeSlot(DiskResponseCache.hash(record.key));
+        } else {
+          this.putSlot(DiskResponseCache.hash(record.key), segment.id, record.offset, record.expiresAtMillis);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a new, empty segment.
+   * 
+   * @param id the ID of the segment.
+   * 
+   * @return the new segment.
+   * 
+   * @throws IOException if the segment file cannot be created.
+   */
+  private Segment createSegment(int id) throws IOException {
+    final Path path = this.directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    Files.deleteIfExists(path);
+
+    final Segment segment = Segment.open(path, id, this.segmentBytes);
+    this.segments.put(id, segment);
+    return segment;
+  }
+
+  /**
+   * Finds the live index slot of the given key hash.
+   * 
+   * @param hash the key hash.
+   * 
+   * @return the slot, or -1 if the key is not indexed.
+   */
+  private int findSlot(long hash) {
+    final int mask = this.slotCount - 1;
+
+    for (int i = 0, slot = (int) hash & mask; i < this.slotCount; i++, slot = (slot + 1) & mask) {
+      final int position = this.slotPosition(slot);
+      final int segmentId = this.index.getInt(position + 8);
+
+      if (segmentId == EMPTY_SLOT) {
+        return -1;
+      }
+
+      if (segmentId != DELETED_SLOT && this.index.getLong(position) == hash) {
+        return slot;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Points the index slot of the given key hash to a record.
+   * 
+   * @param hash            the key hash.
+   * @param segmentId       the ID of the segment of the record.
+   * @param offset          the offset of the record in its segment.
+   * @param expiresAtMillis the expiry time of the record.
+   */
+  private void putSlot(long hash, int segmentId, int offset, long expiresAtMillis) {
+    int slot = this.findSlot(hash);
+
+    if (slot < 0) {
+      slot = this.findFreeSlot(hash);
+
+      if (slot < 0) {
+        // Full; the record stays unreachable until the index is rebuilt
+        return;
+      }
+
+      if (this.index.getInt(this.slotPosition(slot) + 8) == EMPTY_SLOT) {
+        this.usedSlots++;
+      }
+
+      this.liveSlots++;
+    }
+
+    final int position = this.slotPosition(slot);
+
+    // The segment ID is written last; it marks the slot as taken
+    this.index.putLong(position, hash);
+    this.index.putInt(position + 12, offset);
+    this.index.putLong(position + 16, expiresAtMillis);
+    this.index.putInt(position + 8, segmentId);
+  }
+
+  /**
+   * Marks the index slot of the given key hash as deleted, if there is one.
+   * 
+   * @param hash the key hash.
+   */
+  private void removeSlot(long hash) {
+    final int slot = this.findSlot(hash);
+
+    if (slot >= 0) {
+      this.index.putInt(this.slotPosition(slot) + 8, DELETED_SLOT);
+      this.liveSlots--;
+    }
+  }
+
+  /**
+   * Finds the first empty or deleted slot for the given key hash.
+   * 
+   * @param hash the key hash.
+   * 
+   * @return the slot, or -1 if the index is full.
+   */
+  private int findFreeSlot(long hash) {
+    final int mask = this.slotCount - 1;
+
+    for (int i = 0, slot = (int) hash & mask; i < this.slotCount; i++, slot = (slot + 1) & mask) {
+      final int segmentId = this.index.getInt(this.slotPosition(slot) + 8);
+
+      if (segmentId == EMPTY_SLOT || segmentId == DELETED_SLOT) {
+        return slot;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Gets the position of an index slot in the index file.
+   * 
+   * @param slot the slot.
+   * 
+   * @return the position of the slot.
+   */
+  private int slotPosition(int slot) {
+    return INDEX_HEADER_BYTES + slot * SLOT_BYTES;
+  }
+
+  /**
+   * Computes the 64-bit FNV-1a hash of a key. Never returns 0.
+   * 
+   * @param keyBytes the key.
+   * 
+   * @return the hash of the key.
+   */
+  private static long hash(byte[] keyBytes) {
+    long hash = 0xcbf29ce484222325L;
+
+    for (byte b : keyBytes) {
+      hash ^= b & 0xFF;
+      hash *= 0x100000001b3L;
+    }
+
+    return hash == 0 ? 1 : hash;
+  }
+
+  /**
+   * Cached response body with the validators the server sent with it.
+   * 
+   * Stored in a record value as: ETag length (int, -1 if absent), ETag,
+   * Last-Modified length (int, -1 if absent), Last-Modified, body.
+   */
+  public static final class Entry {
+    private final byte[] body;
+    private final String eTag; // Nullable
+    private final String lastModified; // Nullable
+    private final long expiresAtMillis;
+
+    private Entry(byte[] body, String eTag, String lastModified, long expiresAtMillis) {
+      this.body = body;
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * Gets the cached body.
+     * 
+     * @return the cached body.
+     */
+    public byte[] getBody() {
+      return this.body;
+    }
+
+    /**
+     * Gets the ETag the server sent with the body.
+     * 
+     * @return the ETag, or null if there was none.
+     */
+    public String getETag() {
+      return this.eTag;
+    }
+
+    /**
+     * Gets the Last-Modified time the server sent with the body.
+     * 
+     * @return the Last-Modified header value, or null if there was none.
+     */
+    public String getLastModified() {
+      return this.lastModified;
+    }
+
+    /**
+     * Gets whether the entry can be revalidated with a conditional request.
+     * 
+     * @return true if the entry has an ETag or a Last-Modified time.
+     */
+    public boolean hasValidators() {
+      return this.eTag != null || this.lastModified != null;
+    }
+
+    /**
+     * Gets whether the entry has expired.
+     * 
+     * @return true if the entry has expired.
+     */
+    public boolean isExpired() {
+      return System.currentTimeMillis() >= this.expiresAtMillis;
+    }
+
+    private static byte[] encode(byte[] body, String eTag, String lastModified) {
+      final byte[] eTagBytes = eTag == null ? null : eTag.getBytes(StandardCharsets.UTF_8);
+      final byte[] lastModifiedBytes = lastModified == null ? null : lastModified.getBytes(StandardCharsets.UTF_8);
+      final int length = 8 + Entry.lengthOf(eTagBytes) + Entry.lengthOf(lastModifiedBytes) + body.length;
+
+      final ByteBuffer buffer = ByteBuffer.allocate(length);
+      Entry.putField(buffer, eTagBytes);
+      Entry.putField(buffer, lastModifiedBytes);
+      buffer.put(body);
+      return buffer.array();
+    }
+
+    private static Entry decode(byte[] value, long expiresAtMillis) {
+      final ByteBuffer buffer = ByteBuffer.wrap(value);
+      final String eTag = Entry.getField(buffer);
+      final String lastModified = Entry.getField(buffer);
+      final byte[] body = new byte[buffer.remaining()];
+      buffer.get(body);
+      return new Entry(body, eTag, lastModified, expiresAtMillis);
+    }
+
+    private static int lengthOf(byte[] field) {
+      return field == null ? 0 : field.length;
+    }
+
+    private static void putField(ByteBuffer buffer, byte[] field) {
+      if (field == null) {
+        buffer.putInt(-1);
+      } else {
+        buffer.putInt(field.length);
+        buffer.put(field);
+      }
+    }
+
+    private static String getField(ByteBuffer buffer) {
+      final int length = buffer.getInt();
+
+      if (length < 0) {
+        return null;
+      }
+
+      final byte[] field = new byte[length];
+      buffer.get(field);
+      return new String(field, StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Record read back from a segment.
+   */
+  private static final class Record {
+    private final int offset;
+    private final byte[] key;
+    private final byte[] value;
+    private final long expiresAtMillis;
+
+    private Record(int offset, byte[] key, byte[] value, long expiresAtMillis) {
+      this.offset = offset;
+      this.key = key;
+      this.value = value;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+
+  /**
+   * Memory-mapped, append-only segment file.
+   * 
+   * A record is laid out as: magic (int), key length (int), value length
+   * (int), expiry time in epoch milliseconds (long), CRC32C of the preceding
+   * three fields, the key and the value (int), the key and the value. A
+   * deletion record has an empty value.
+   */
+  private static final class Segment {
+    private final int id;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+
+    private Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+      this.id = id;
+      this.path = path;
+      this.channel = channel;
+      this.buffer = buffer;
+    }
+
+    /**
+     * Opens or creates a segment file and finds the end of its valid records.
+     * 
+     * @param path  the path of the segment file.
+     * @param id    the ID of the segment.
+     * @param bytes the size of the segment.
+     * 
+     * @return the opened segment.
+     * 
+     * @throws IOException if the file cannot be opened.
+     */
+    private static Segment open(Path path, int id, int bytes) throws IOException {
+      final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      final long size = Math.max(channel.size(), bytes);
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+      final Segment segment = new Segment(id, path, channel, buffer);
+      final List<Record> records = segment.scan();
+      segment.writePosition = records.isEmpty() ? 0 : Segment.endOf(records.get(records.size() - 1));
+
+      return segment;
+    }
+
+    private boolean hasRoomFor(int keyLength, int valueLength) {
+      return this.writePosition + RECORD_HEADER_BYTES + keyLength + valueLength <= this.buffer.capacity();
+    }
+
+    /**
+     * Appends a record.
+     * 
+     * @param keyBytes        the key.
+     * @param value           the body.
+     * @param expiresAtMillis the expiry time in epoch milliseconds.
+     * 
+     * @return the offset of the record.
+     */
+    private int append(byte[] keyBytes, byte[] value, long expiresAtMillis) {
+      final int offset = this.writePosition;
+
+      this.buffer.putInt(offset + 4, keyBytes.length);
+      this.buffer.putInt(offset + 8, value.length);
+      this.buffer.putLong(offset + 12, expiresAtMillis);
+      this.buffer.put(offset + RECORD_HEADER_BYTES, keyBytes);
+      this.buffer.put(offset + RECORD_HEADER_BYTES + keyBytes.length, value);
+      this.buffer.putInt(offset + 20, this.checksum(offset, keyBytes.length, value.length));
+
+      // The magic is written last; it marks the record as complete
+      this.buffer.putInt(offset, RECORD_MAGIC);
+
+      this.writePosition = offset + RECORD_HEADER_BYTES + keyBytes.length + value.length;
+      return offset;
+    }
+
+    /**
+     * Reads the body of the record at the given offset if it is intact and
+     * belongs to the given key.
+     * 
+     * @param offset   the offset of the record.
+     * @param keyBytes the expected key.
+     * 
+     * @return the body, or null if the record is damaged or has another key.
+     */
+    private byte[] read(int offset, byte[] keyBytes) {
+      if (!this.isValid(offset)) {
+        return null;
+      }
+
+      final int keyLength = this.buffer.getInt(offset + 4);
+      final int valueLength = this.buffer.getInt(offset + 8);
+      final byte[] storedKey = new byte[keyLength];
+      this.buffer.get(offset + RECORD_HEADER_BYTES, storedKey);
+
+      if (!Arrays.equals(storedKey, keyBytes)) {
+        return null;
+      }
+
+      final byte[] value = new byte[valueLength];
+      this.buffer.get(offset + RECORD_HEADER_BYTES + keyLength, value);
+      return value;
+    }
+
+    /**
+     * Reads all intact records, stopping at the first damaged or unwritten one.
+     * 
+     * @return the records in append order.
+     */
+    private List<Record> scan() {
+      final List<Record> records = new ArrayList<>();
+      int offset = 0;
+
+      while (this.isValid(offset)) {
+        final int keyLength = this.buffer.getInt(offset + 4);
+        final int valueLength = this.buffer.getInt(offset + 8);
+        final byte[] key = new byte[keyLength];
+        final byte[] value = new byte[valueLength];
+
+        this.buffer.get(offset + RECORD_HEADER_BYTES, key);
+        this.buffer.get(offset + RECORD_HEADER_BYTES + keyLength, value);
+
+        final Record record = new Record(offset, key, value, this.buffer.getLong(offset + 12));
+        records.add(record);
+        offset = Segment.endOf(record);
+      }
+
+      return records;
+    }
+
+    /**
+     * Checks that a complete record with a matching checksum starts at the
+     * given offset.
+     * 
+     * @param offset the offset.
+     * 
+     * @return true if the record is intact.
+     */
+    private boolean isValid(int offset) {
+      if (offset < 0 || offset + RECORD_HEADER_BYTES > this.buffer.capacity()
+          || this.buffer.getInt(offset) != RECORD_MAGIC) {
+        return false;
+      }
+
+      final int keyLength = this.buffer.getInt(offset + 4);
+      final int valueLength = this.buffer.getInt(offset + 8);
+
+      if (keyLength < 0 || valueLength < 0
+          || (long) offset + RECORD_HEADER_BYTES + keyLength + valueLength > this.buffer.capacity()) {
+        return false;
+      }
+
+      return this.buffer.getInt(offset + 20) == this.checksum(offset, keyLength, valueLength);
+    }
+
+    /**
+     * Computes the checksum of the record at the given offset.
+     * 
+     * @param offset      the offset of the record.
+     * @param keyLength   the key length.
+     * @param valueLength the value length.
+     * 
+     * @return the checksum.
+     */
+    private int checksum(int offset, int keyLength, int valueLength) {
+      final CRC32C crc = new CRC32C();
+      crc.update(this.buffer.slice(offset + 4, 16));
+      crc.update(this.buffer.slice(offset + RECORD_HEADER_BYTES, keyLength + valueLength));
+      return (int) crc.getValue();
+    }
+
+    private void close() throws IOException {
+      this.buffer.force();
+      this.channel.close();
+    }
+
+    private static int endOf(Record record) {
+      return record.offset + RECORD_HEADER_BYTES + record.key.length + record.value.length;
+    }
+  }
+}
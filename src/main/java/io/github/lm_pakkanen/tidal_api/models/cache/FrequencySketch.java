@@ -0,0 +1,124 @@
+package io.github.lm_pakkanen.tidal_api.models.cache;
+
+/**
+ * Probabilistic estimate of how often keys have been accessed recently.
+ * 
+ * A count-min sketch of 4-bit counters, four per key. When the number of
+ * recorded accesses reaches the sample size, all counters are halved so that
+ * old popularity fades. Not thread-safe; guarded by the owning cache's lock.
+ */
+final class FrequencySketch {
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final int MAXIMUM_TABLE_SIZE = 1 << 22;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  /**
+   * Constructs a new sketch sized for the given number of entries.
+   * 
+   * @param expectedEntries the expected maximum number of cache entries.
+   */
+  FrequencySketch(long expectedEntries) {
+    final int capacity = (int) Math.min(Math.max(expectedEntries, 16L), MAXIMUM_TABLE_SIZE);
+    this.table = new long[Integer.highestOneBit(capacity - 1) << 1];
+    this.tableMask = this.table.length - 1;
+    this.sampleSize = 10 * capacity;
+  }
+
+  /**
+   * Gets the estimated access frequency of the given key, from 0 to 15.
+   * 
+   * @param key the key.
+   * 
+   * @return the estimated access frequency.
+   */
+  int frequency(Object key) {
+    final int hash = FrequencySketch.spread(key.hashCode());
+    final int start = (hash & 3) << 2;
+
+    int frequency = 15;
+
+    for (int i = 0; i < 4; i++) {
+      final int index = this.indexOf(hash, i);
+      final int offset = (start + i) << 2;
+      final int count = (int) ((this.table[index] >>> offset) & 0xFL);
+      frequency = Math.min(frequency, count);
+    }
+
+    return frequency;
+  }
+
+  /**
+   * Records an access of the given key.
+   * 
+   * @param key the key.
+   */
+  void increment(Object key) {
+    final int hash = FrequencySketch.spread(key.hashCode());
+    final int start = (hash & 3) << 2;
+
+    boolean added = false;
+
+    for (int i = 0; i < 4; i++) {
+      final int index = this.indexOf(hash, i);
+      final int offset = (start + i) << 2;
+      final long mask = 0xFL << offset;
+
+      if ((this.table[index] & mask) != mask) {
+        this.table[index] += 1L << offset;
+        added = true;
+      }
+    }
+
+    if (added && ++this.size == this.sampleSize) {
+      this.reset();
+    }
+  }
+
+  /**
+   * Halves all counters.
+   */
+  private void reset() {
+    int oddCount = 0;
+
+    for (int i = 0; i < this.table.length; i++) {
+      oddCount += Long.bitCount(this.table[i] & ONE_MASK);
+      this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+    }
+
+    this.size = (this.size - (oddCount >>> 2)) >>> 1;
+  }
+
+  /**
+   * Gets the table index of the counter for the given hash and depth.
+   * 
+   * @param hash  the spread hash of the key.
+   * @param depth the depth, from 0 to 3.
+   * 
+   * @return the table index.
+   */
+  private int indexOf(int hash, int depth) {
+    long index = (hash + SEEDS[depth]) * SEEDS[depth];
+    index += index >>> 32;
+    return ((int) index) & this.tableMask;
+  }
+
+  /**
+   * Spreads the bits of a hash code to protect against poor hash functions.
+   * 
+   * @param hashCode the hash code.
+   * 
+   * @return the spread hash.
+   */
+  private static int spread(int hashCode) {
+    int hash = ((hashCode >>> 16) ^ hashCode) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+}
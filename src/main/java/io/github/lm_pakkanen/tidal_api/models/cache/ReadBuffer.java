@@ -0,0 +1,123 @@
+package io.github.lm_pakkanen.tidal_api.models.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lossy, striped buffer of cache reads.
+ * 
+ * Readers record accesses here without taking a lock; the owning cache replays
+ * them into its eviction policy under its lock. Each thread writes to one of
+ * several small ring buffers. When a ring is full, or a write loses a race, the
+ * access is dropped, which only makes the policy slightly less precise.
+ *
+ * @param <E> the type of the recorded elements.
+ */
+final class ReadBuffer<E> {
+  private static final int STRIPE_SIZE = 16;
+  private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+  private final Stripe<E>[] stripes;
+  private final int stripeMask;
+
+  /**
+   * Constructs a new read buffer sized for the number of processors.
+   */
+  @SuppressWarnings("unchecked")
+  ReadBuffer() {
+    final int stripeCount = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors(), 1) * 4);
+
+    this.stripes = (Stripe<E>[]) new Stripe<?>[stripeCount];
+    this.stripeMask = stripeCount - 1;
+
+    for (int i = 0; i < stripeCount; i++) {
+      this.stripes[i] = new Stripe<>();
+    }
+  }
+
+  /**
+   * Records the given element.
+   * 
+   * @param element the element to record.
+   * 
+   * @return false if the stripe of the calling thread is full and should be
+   *         drained.
+   */
+  boolean offer(E element) {
+    final long probe = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+    final Stripe<E> stripe = this.stripes[(int) (probe >>> 32) & this.stripeMask];
+    return stripe.offer(element);
+  }
+
+  /**
+   * Removes all recorded elements and passes them to the given consumer. Must
+   * only be called by one thread at a time.
+   * 
+   * @param consumer the consumer of the elements.
+   */
+  void drainTo(Consumer<E> consumer) {
+    for (Stripe<E> stripe : this.stripes) {
+      stripe.drainTo(consumer);
+    }
+  }
+
+  /**
+   * Single ring buffer written by many threads and drained by one.
+   *
+   * @param <E> the type of the recorded elements.
+   */
+  private static final class Stripe<E> {
+    private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(STRIPE_SIZE);
+    private final AtomicLong writeCounter = new AtomicLong();
+    private volatile long readCounter;
+
+    /**
+     * Records the given element.
+     * 
+     * @param element the element to record.
+     * 
+     * @return false if the ring is full.
+     */
+    boolean offer(E element) {
+      final long head = this.readCounter;
+      final long tail = this.writeCounter.get();
+
+      if (tail - head >= STRIPE_SIZE) {
+        return false;
+      }
+
+      if (this.writeCounter.compareAndSet(tail, tail + 1)) {
+        this.buffer.lazySet((int) (tail & STRIPE_MASK), element);
+      }
+
+      return true;
+    }
+
+    /**
+     * Removes all published elements and passes them to the given consumer.
+     * 
+     * @param consumer the consumer of the elements.
+     */
+    void drainTo(Consumer<E> consumer) {
+      long head = this.readCounter;
+      final long tail = this.writeCounter.get();
+
+      while (head < tail) {
+        final int index = (int) (head & STRIPE_MASK);
+        final E element = this.buffer.get(index);
+
+        if (element == null) {
+          // The writer has claimed the slot but not yet published it
+          break;
+        }
+
+        this.buffer.lazySet(index, null);
+        consumer.accept(element);
+        head++;
+      }
+
+      this.readCounter = head;
+    }
+  }
+}
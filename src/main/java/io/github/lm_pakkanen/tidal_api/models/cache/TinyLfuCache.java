@@ -0,0 +1,539 @@
+package io.github.lm_pakkanen.tidal_api.models.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded in-memory cache with a W-TinyLFU eviction policy.
+ * 
+ * New entries enter a small LRU window. Entries pushed out of the window
+ * compete for a place in the main space, an SLRU split into probation and
+ * protected segments, and are only admitted if a frequency sketch estimates
+ * them to be more popular than the entry they would replace. This keeps
+ * one-off lookups from flushing frequently used entries.
+ * 
+ * Reads never take a lock: they look the entry up in a concurrent map and
+ * record the access in a lossy buffer that is replayed into the policy under
+ * the lock by the next writer, or by a reader that finds the buffer full.
+ * 
+ * Expired entries are not served, but stay in the cache until they are
+ * overwritten or evicted so that they can be revalidated.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public final class TinyLfuCache<K, V> {
+  private static final double WINDOW_RATIO = 0.01;
+  private static final double PROTECTED_RATIO = 0.8;
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final ConcurrentHashMap<K, Node<K, V>> data;
+  private final ToIntFunction<V> weigher;
+  private final long maximumWeight;
+  private final long windowMaximum;
+  private final long protectedMaximum;
+  private final long defaultTtlNanos;
+  private final ReadBuffer<Node<K, V>> readBuffer;
+  private final ReentrantLock evictionLock;
+  private final LongAdder hitCount;
+  private final LongAdder missCount;
+  private final LongAdder evictionCount;
+
+  // Guarded by evictionLock
+  private final FrequencySketch sketch;
+  private final AccessOrderDeque<K, V> window;
+  private final AccessOrderDeque<K, V> probation;
+  private final AccessOrderDeque<K, V> protectedSegment;
+  private long windowWeight;
+  private long protectedWeight;
+  private volatile long weightedSize;
+
+  /**
+   * Constructs a new cache.
+   * 
+   * @param maximumWeight the maximum total weight of the entries.
+   * @param defaultTtl    how long an entry stays live after it is written,
+   *                      unless a TTL is given when writing it.
+   * @param weigher       computes the weight of a value, at least 1.
+   * 
+   * @throws IllegalArgumentException if the maximum weight or the TTL is not
+   *                                  positive.
+   */
+  public TinyLfuCache(long maximumWeight, Duration defaultTtl, ToIntFunction<V> weigher)
+      throws IllegalArgumentException {
+    if (maximumWeight < 1) {
+      throw new IllegalArgumentException("maximumWeight must be positive.");
+    }
+
+    if (defaultTtl == null || defaultTtl.isZero() || defaultTtl.isNegative()) {
+      throw new IllegalArgumentException("defaultTtl must be positive.");
+    }
+
+    this.data = new ConcurrentHashMap<>();
+    this.weigher = weigher;
+    this.maximumWeight = maximumWeight;
+    this.windowMaximum = Math.max(1L, (long) (maximumWeight * WINDOW_RATIO));
+    this.protectedMaximum = (long) ((maximumWeight - this.windowMaximum) * PROTECTED_RATIO);
+    this.defaultTtlNanos = defaultTtl.toNanos();
+    this.readBuffer = new ReadBuffer<>();
+    this.evictionLock = new ReentrantLock();
+    this.hitCount = new LongAdder();
+    this.missCount = new LongAdder();
+    this.evictionCount = new LongAdder();
+    this.sketch = new FrequencySketch(maximumWeight);
+    this.window = new AccessOrderDeque<>();
+    this.probation = new AccessOrderDeque<>();
+    this.protectedSegment = new AccessOrderDeque<>();
+  }
+
+  /**
+   * Gets the live value cached for the given key.
+   * 
+   * @param key the key.
+   * 
+   * @return the cached value, or null if there is none or it has expired.
+   */
+  public V get(K key) {
+    final Node<K, V> node = this.data.get(key);
+
+    if (node == null) {
+      this.missCount.increment();
+      return null;
+    }
+
+    final V value = node.value;
+
+    if (System.nanoTime() - node.expiresAtNanos >= 0) {
+      this.missCount.increment();
+      return null;
+    }
+
+    this.hitCount.increment();
+    this.afterRead(node);
+
+    return value;
+  }
+
+  /**
+   * Gets the value cached for the given key even if it has expired, for
+   * example to revalidate it. Does not count as a hit or a miss and does not
+   * affect eviction.
+   * 
+   * @param key the key.
+   * 
+   * @return the cached value, or null if there is none.
+   */
+  public V getStale(K key) {
+    final Node<K, V> node = this.data.get(key);
+    return node == null ? null : node.value;
+  }
+
+  /**
+   * Caches the given value with the default TTL.
+   * 
+   * @param key   the key.
+   * @param value the value.
+   */
+  public void put(K key, V value) {
+    this.put(key, value, this.defaultTtlNanos);
+  }
+
+  /**
+   * Caches the given value with the given TTL.
+   * 
+   * @param key   the key.
+   * @param value the value.
+   * @param ttl   how long the entry stays live.
+   * 
+   * @throws IllegalArgumentException if the TTL is not positive.
+   */
+  public void put(K key, V value, Duration ttl) throws IllegalArgumentException {
+    if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+      throw new IllegalArgumentException("ttl must be positive.");
+    }
+
+    this.put(key, value, ttl.toNanos());
+  }
+
+  /**
+   * Removes the entry of the given key, if any.
+   * 
+   * @param key the key.
+   */
+  public void invalidate(K key) {
+    this.evictionLock.lock();
+
+    try {
+      final Node<K, V> node = this.data.remove(key);
+
+      if (node != null) {
+        this.unlink(node);
+      }
+    } finally {
+      this.evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void invalidateAll() {
+    this.evictionLock.lock();
+
+    try {
+      for (Node<K, V> node : this.data.values()) {
+        this.data.remove(node.key, node);
+        this.unlink(node);
+      }
+    } finally {
+      this.evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Gets a snapshot of the statistics of this cache.
+   * 
+   * @return the cache statistics.
+   */
+  public CacheStatistics getStatistics() {
+    return new CacheStatistics(this.hitCount.sum(), this.missCount.sum(), this.evictionCount.sum(),
+        this.data.size(), this.weightedSize);
+  }
+
+  /**
+   * Caches the given value.
+   * 
+   * @param key      the key.
+   * @param value    the value.
+   * @param ttlNanos how long the entry stays live, in nanoseconds.
+   */
+  private void put(K key, V value, long ttlNanos) {
+    final int weight = Math.max(this.weigher.applyAsInt(value), 1);
+    final long expiresAtNanos = System.nanoTime() + ttlNanos;
+
+    this.evictionLock.lock();
+
+    try {
+      this.drainReadBuffer();
+
+      final Node<K, V> existing = this.data.get(key);
+
+      if (weight > this.maximumWeight) {
+        // Never fits; drop any older value instead of serving it
+        if (existing != null) {
+          this.data.remove(key, existing);
+          this.unlink(existing);
+        }
+
+        return;
+      }
+
+      if (existing != null) {
+        this.setWeight(existing, weight);
+        existing.value = value;
+        existing.expiresAtNanos = expiresAtNanos;
+        this.onAccess(existing);
+      } else {
+        final Node<K, V> node = new Node<>(key, value, expiresAtNanos, weight);
+        this.data.put(key, node);
+        this.window.addLast(node);
+        this.windowWeight += weight;
+        this.weightedSize += weight;
+        this.sketch.increment(key);
+      }
+
+      this.evict();
+    } finally {
+      this.evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Records a read of the given node, draining the read buffer if it is full.
+   * 
+   * @param node the node that was read.
+   */
+  private void afterRead(Node<K, V> node) {
+    if (this.readBuffer.offer(node)) {
+      return;
+    }
+
+    if (this.evictionLock.tryLock()) {
+      try {
+        this.drainReadBuffer();
+      } finally {
+        this.evictionLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Replays the buffered reads into the eviction policy.
+   */
+  private void drainReadBuffer() {
+    this.readBuffer.drainTo(this::onAccess);
+  }
+
+  /**
+   * Updates the eviction policy after an access of the given node.
+   * 
+   * @param node the node that was accessed.
+   */
+  private void onAccess(Node<K, V> node) {
+    this.sketch.increment(node.key);
+
+    if (!node.alive) {
+      return;
+    }
+
+    switch (node.queue) {
+      case WINDOW -> this.window.moveToBack(node);
+      case PROTECTED -> this.protectedSegment.moveToBack(node);
+      default -> {
+        this.probation.remove(node);
+        this.protectedSegment.addLast(node);
+        node.queue = PROTECTED;
+        this.protectedWeight += node.weight;
+
+        // Demote the least recently used protected entries back to probation
+        while (this.protectedWeight > this.protectedMaximum) {
+          final Node<K, V> demoted = this.protectedSegment.pollFirst();
+          this.protectedWeight -= demoted.weight;
+          demoted.queue = PROBATION;
+          this.probation.addLast(demoted);
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves entries out of the window and evicts entries until the cache is
+   * within its maximum weight.
+   */
+  private void evict() {
+    while (this.windowWeight > this.windowMaximum) {
+      final Node<K, V> candidate = this.window.pollFirst();
+      this.windowWeight -= candidate.weight;
+      candidate.queue = PROBATION;
+      this.probation.addLast(candidate);
+    }
+
+    while (this.weightedSize > this.maximumWeight) {
+      final Node<K, V> victim = this.firstNonEmptyHead();
+      final Node<K, V> candidate = this.probation.peekLast();
+
+      if (victim.queue != PROBATION || victim == candidate) {
+        this.evictNode(victim);
+      } else if (this.admit(candidate, victim)) {
+        this.evictNode(victim);
+      } else {
+        this.evictNode(candidate);
+      }
+    }
+  }
+
+  /**
+   * Gets the least recently used entry of the first non-empty segment, in
+   * order of probation, protected and window.
+   * 
+   * @return the eviction victim.
+   */
+  private Node<K, V> firstNonEmptyHead() {
+    final Node<K, V> probationHead = this.probation.peekFirst();
+
+    if (probationHead != null) {
+      return probationHead;
+    }
+
+    final Node<K, V> protectedHead = this.protectedSegment.peekFirst();
+    return protectedHead != null ? protectedHead : this.window.peekFirst();
+  }
+
+  /**
+   * Decides whether the candidate should replace the victim in the main space.
+   * Expired entries always lose. Otherwise the more frequently used entry wins,
+   * with a small chance of admitting a warm candidate anyway so that an
+   * attacker cannot pin the victim by flooding its hash.
+   * 
+   * @param candidate the entry that left the window.
+   * @param victim    the least recently used probation entry.
+   * 
+   * @return true if the victim should be evicted, false if the candidate should.
+   */
+  private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+    final long now = System.nanoTime();
+
+    if (now - victim.expiresAtNanos >= 0) {
+      return true;
+    }
+
+    if (now - candidate.expiresAtNanos >= 0) {
+      return false;
+    }
+
+    final int candidateFrequency = this.sketch.frequency(candidate.key);
+    final int victimFrequency = this.sketch.frequency(victim.key);
+
+    if (candidateFrequency > victimFrequency) {
+      return true;
+    }
+
+    return candidateFrequency >= 6 && ThreadLocalRandom.current().nextInt(128) == 0;
+  }
+
+  /**
+   * Evicts the given node.
+   * 
+   * @param node the node to evict.
+   */
+  private void evictNode(Node<K, V> node) {
+    this.data.remove(node.key, node);
+    this.unlink(node);
+    this.evictionCount.increment();
+  }
+
+  /**
+   * Removes the given node from its segment and retires it.
+   * 
+   * @param node the node to remove.
+   */
+  private void unlink(Node<K, V> node) {
+    if (!node.alive) {
+      return;
+    }
+
+    switch (node.queue) {
+      case WINDOW -> {
+        this.window.remove(node);
+        this.windowWeight -= node.weight;
+      }
+      case PROTECTED -> {
+        this.protectedSegment.remove(node);
+        this.protectedWeight -= node.weight;
+      }
+      default -> this.probation.remove(node);
+    }
+
+    this.weightedSize -= node.weight;
+    node.alive = false;
+  }
+
+  /**
+   * Changes the weight of the given live node.
+   * 
+   * @param node   the node.
+   * @param weight the new weight.
+   */
+  private void setWeight(Node<K, V> node, int weight) {
+    final int delta = weight - node.weight;
+
+    if (node.queue == WINDOW) {
+      this.windowWeight += delta;
+    } else if (node.queue == PROTECTED) {
+      this.protectedWeight += delta;
+    }
+
+    this.weightedSize += delta;
+    node.weight = weight;
+  }
+
+  /**
+   * Cache entry, linked into the deque of its segment.
+   *
+   * @param <K> the type of the key.
+   * @param <V> the type of the value.
+   */
+  private static final class Node<K, V> {
+    private final K key;
+    private volatile V value;
+    private volatile long expiresAtNanos;
+
+    // Guarded by evictionLock
+    private int weight;
+    private int queue;
+    private boolean alive;
+    private Node<K, V> previous;
+    private Node<K, V> next;
+
+    private Node(K key, V value, long expiresAtNanos, int weight) {
+      this.key = key;
+      this.value = value;
+      this.expiresAtNanos = expiresAtNanos;
+      this.weight = weight;
+      this.queue = WINDOW;
+      this.alive = true;
+    }
+  }
+
+  /**
+   * Intrusive doubly linked deque of nodes, least recently used first.
+   *
+   * @param <K> the type of the keys.
+   * @param <V> the type of the values.
+   */
+  private static final class AccessOrderDeque<K, V> {
+    private Node<K, V> first;
+    private Node<K, V> last;
+
+    private Node<K, V> peekFirst() {
+      return this.first;
+    }
+
+    private Node<K, V> peekLast() {
+      return this.last;
+    }
+
+    private void addLast(Node<K, V> node) {
+      node.previous = this.last;
+      node.next = null;
+
+      if (this.last == null) {
+        this.first = node;
+      } else {
+        this.last.next = node;
+      }
+
+      this.last = node;
+    }
+
+    private Node<K, V> pollFirst() {
+      final Node<K, V> node = this.first;
+
+      if (node != null) {
+        this.remove(node);
+      }
+
+      return node;
+    }
+
+    private void moveToBack(Node<K, V> node) {
+      if (node != this.last) {
+        this.remove(node);
+        this.addLast(node);
+      }
+    }
+
+    private void remove(Node<K, V> node) {
+      if (node.previous == null) {
+        this.first = node.next;
+      } else {
+        node.previous.next = node.next;
+      }
+
+      if (node.next == null) {
+        this.last = node.previous;
+      } else {
+        node.next.previous = node.previous;
+      }
+
+      node.previous = null;
+      node.next = null;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package io.github.lm_pakkanen.tidal_api.models.cache;
+
+import java.time.Duration;
+
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalSimpleAlbum;
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalTrack;
+
+/**
+ * In-memory cache of tracks, keyed by track ID and country code.
+ * 
+ * Each track is stored with the validators (ETag and Last-Modified) of the
+ * response it came from, so that an expired track can be revalidated instead
+ * of fetched again. The weight of a track approximates its memory footprint:
+ * one unit for the track itself plus one for each artist and album cover.
+ */
+public final class TrackCache {
+  private final TinyLfuCache<String, TrackCache.Entry> cache;
+
+  /**
+   * Constructs a new track cache.
+   * 
+   * @param maximumWeight the maximum total weight of the cached tracks.
+   * @param ttl           how long a cached track is served before it is
+   *                      revalidated or fetched again.
+   * 
+   * @throws IllegalArgumentException if the maximum weight or the TTL is not
+   *                                  positive.
+   */
+  public TrackCache(long maximumWeight, Duration ttl) throws IllegalArgumentException {
+    this.cache = new TinyLfuCache<>(maximumWeight, ttl, entry -> TrackCache.weigh(entry.track));
+  }
+
+  /**
+   * Gets the cached track.
+   * 
+   * @param trackId     the ID of the track.
+   * @param countryCode the country code of the track.
+   * 
+   * @return the cached track, or null if it is not cached or has expired.
+   */
+  public TidalTrack get(String trackId, String countryCode) {
+    final TrackCache.Entry entry = this.cache.get(TrackCache.key(trackId, countryCode));
+    return entry == null ? null : entry.track;
+  }
+
+  /**
+   * Gets the cache entry of a track even if it has expired.
+   * 
+   * @see TinyLfuCache#getStale(Object)
+   * 
+   * @param trackId     the ID of the track.
+   * @param countryCode the country code of the track.
+   * 
+   * @return the cache entry, or null if the track is not cached.
+   */
+  public TrackCache.Entry getStale(String trackId, String countryCode) {
+    return this.cache.getStale(TrackCache.key(trackId, countryCode));
+  }
+
+  /**
+   * Caches the given track without validators.
+   * 
+   * @param track       the track.
+   * @param countryCode the country code the track was fetched for.
+   */
+  public void put(TidalTrack track, String countryCode) {
+    this.put(track, countryCode, null, null);
+  }
+
+  /**
+   * Caches the given track with the validators of the response it came from.
+   * 
+   * @param track        the track.
+   * @param countryCode  the country code the track was fetched for.
+   * @param eTag         the ETag of the response (nullable).
+   * @param lastModified the Last-Modified time of the response (nullable).
+   */
+  public void put(TidalTrack track, String countryCode, String eTag, String lastModified) {
+    this.cache.put(TrackCache.key(track.getId(), countryCode), new TrackCache.Entry(track, eTag, lastModified));
+  }
+
+  /**
+   * Removes the given track from the cache.
+   * 
+   * @param trackId     the ID of the track.
+   * @param countryCode the country code of the track.
+   */
+  public void invalidate(String trackId, String countryCode) {
+    this.cache.invalidate(TrackCache.key(trackId, countryCode));
+  }
+
+  /**
+   * Removes all tracks from the cache.
+   */
+  public void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * Gets a snapshot of the statistics of this cache.
+   * 
+   * @return the cache statistics.
+   */
+  public CacheStatistics getStatistics() {
+    return this.cache.getStatistics();
+  }
+
+  /**
+   * Builds the cache key of a track.
+   * 
+   * @param trackId     the ID of the track.
+   * @param countryCode the country code of the track.
+   * 
+   * @return the cache key.
+   */
+  private static String key(String trackId, String countryCode) {
+    return countryCode + "/" + trackId;
+  }
+
+  /**
+   * Computes the weight of a track.
+   * 
+   * @param track the track.
+   * 
+   * @return the weight of the track.
+   */
+  private static int weigh(TidalTrack track) {
+    int weight = 1;
+
+    if (track.getArtists() != null) {
+      weight += track.getArtists().length;
+    }
+
+    final TidalSimpleAlbum album = track.getAlbum();
+
+    if (album != null && album.imageCovers != null) {
+      weight += album.imageCovers.length;
+    }
+
+    return weight;
+  }
+
+  /**
+   * Cached track with the validators of the response it came from.
+   */
+  public static final class Entry {
+    private final TidalTrack track;
+    private final String eTag; // Nullable
+    private final String lastModified; // Nullable
+
+    private Entry(TidalTrack track, String eTag, String lastModified) {
+      this.track = track;
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+    }
+
+    /**
+     * Gets the cached track.
+     * 
+     * @return the cached track.
+     */
+    public TidalTrack getTrack() {
+      return this.track;
+    }
+
+    /**
+     * Gets the ETag of the response the track came from.
+     * 
+     * @return the ETag, or null if there was none.
+     */
+    public String getETag() {
+      return this.eTag;
+    }
+
+    /**
+     * Gets the Last-Modified time of the response the track came from.
+     * 
+     * @return the Last-Modified header value, or null if there was none.
+     */
+    public String getLastModified() {
+      return this.lastModified;
+    }
+
+    /**
+     * Gets whether the track can be revalidated with a conditional request.
+     * 
+     * @return true if there is an ETag or a Last-Modified time.
+     */
+    public boolean hasValidators() {
+      return this.eTag != null || this.lastModified != null;
+    }
+  }
+}
@@ -4,11 +4,13 @@ import io.github.lm_pakkanen.tidal_api.models.tidal_responses.AuthorizationRespo
 
 /**
  * Credentials for the Tidal API.
+ * 
+ * Instances are immutable, so they can be shared between threads without
+ * synchronization.
  */
 public final class TidalCredentials {
-  private String accessToken;
-  private int expirationTimeSeconds;
-  private long issuedAtUnix;
+  private final String accessToken;
+  private final long expiresAtMillis;
 
   /**
    * Constructor for the Credentials.
@@ -17,8 +19,7 @@ public final class TidalCredentials {
    */
   public TidalCredentials(AuthorizationResponse response) {
     this.accessToken = response.access_token;
-    this.expirationTimeSeconds = response.expires_in;
-    this.issuedAtUnix = System.currentTimeMillis();
+    this.expiresAtMillis = System.currentTimeMillis() + (response.expires_in * 1000L);
   }
 
   /**
@@ -36,8 +37,15 @@ public final class TidalCredentials {
    * @return the expiration time in seconds.
    */
   public long getExpiresInSeconds() {
-    final long expiresAtUnix = this.issuedAtUnix + (this.expirationTimeSeconds * 1000L);
-    final long expiresInMillis = expiresAtUnix - System.currentTimeMillis();
-    return Math.max(expiresInMillis / 1000L, 0L);
+    return Math.max(this.getExpiresInMillis() / 1000L, 0L);
+  }
+
+  /**
+   * Gets the time left until the credentials expire, in milliseconds.
+   * 
+   * @return the time left in milliseconds, 0 if the credentials have expired.
+   */
+  public long getExpiresInMillis() {
+    return Math.max(this.expiresAtMillis - System.currentTimeMillis(), 0L);
   }
 }
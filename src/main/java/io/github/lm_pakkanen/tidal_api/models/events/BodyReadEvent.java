@@ -0,0 +1,19 @@
+package io.github.lm_pakkanen.tidal_api.models.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for reading a whole response body into memory before
+ * it is decoded, e.g. to store it in the response cache. The byte count is the
+ * number of bytes received over the wire, before decompression.
+ *
+ * Bodies that are decoded while they are read are covered by
+ * {@link JsonDecodeEvent} instead.
+ */
+@Name("io.github.lm_pakkanen.tidal_api.BodyRead")
+@Label("Body Read")
+@Description("Reading and decompressing a response body into memory")
+public final class BodyReadEvent extends QueryEvent {
+}
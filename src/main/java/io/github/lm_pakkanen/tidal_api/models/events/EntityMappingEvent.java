@@ -0,0 +1,44 @@
+package io.github.lm_pakkanen.tidal_api.models.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for mapping decoded response models to the entities
+ * returned to callers, e.g. {@code TrackResponse} to {@code TidalTrack}.
+ *
+ * Mapping runs after the query has completed, so the event carries the entity
+ * type and count instead of the endpoint, status code and byte count.
+ */
+@Name("io.github.lm_pakkanen.tidal_api.EntityMapping")
+@Label("Entity Mapping")
+@Description("Mapping decoded response models to entities")
+@Category({ "Tidal API", "Query" })
+public final class EntityMappingEvent extends Event {
+  @Label("Entity Type")
+  Class<?> entityType;
+
+  @Label("Entities")
+  int count;
+
+  /**
+   * Sets the type of the mapped entities.
+   *
+   * @param entityType the entity class.
+   */
+  public void setEntityType(Class<?> entityType) {
+    this.entityType = entityType;
+  }
+
+  /**
+   * Sets the number of mapped entities.
+   *
+   * @param count the number of entities.
+   */
+  public void setCount(int count) {
+    this.count = count;
+  }
+}
@@ -0,0 +1,32 @@
+package io.github.lm_pakkanen.tidal_api.models.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for decoding a JSON response body into response
+ * models. Bodies are parsed as they arrive, so the event includes the time
+ * spent waiting for the rest of the body; the JDK's socket read events nest
+ * inside it. The byte count is the number of JSON bytes parsed, after
+ * decompression.
+ *
+ * When list items are decoded one at a time, the event also includes the time
+ * spent handing each item on, e.g. to a slow stream subscriber.
+ */
+@Name("io.github.lm_pakkanen.tidal_api.JsonDecode")
+@Label("JSON Decode")
+@Description("Parsing a JSON response body into response models")
+public final class JsonDecodeEvent extends QueryEvent {
+  @Label("Model Class")
+  Class<?> modelClass;
+
+  /**
+   * Sets the class decoded into.
+   *
+   * @param modelClass the model class.
+   */
+  public void setModelClass(Class<?> modelClass) {
+    this.modelClass = modelClass;
+  }
+}
@@ -0,0 +1,56 @@
+package io.github.lm_pakkanen.tidal_api.models.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of the JDK Flight Recorder events emitted for one stage of a query.
+ *
+ * Events are created, timed and committed on the stage's own thread. While no
+ * recording is running, or the event is disabled in the recording settings,
+ * they are neither filled in nor committed, and the JIT removes the allocation.
+ */
+@Category({ "Tidal API", "Query" })
+public abstract class QueryEvent extends Event {
+  @Label("Endpoint")
+  @Description("Endpoint of the request, e.g. tracks or artists/tracks")
+  String endpoint;
+
+  @Label("Status Code")
+  @Description("HTTP status code of the response, 0 if there is no response yet")
+  int statusCode;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  /**
+   * Sets the endpoint of the request.
+   *
+   * @param endpoint the endpoint, e.g. "tracks".
+   */
+  public void setEndpoint(String endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  /**
+   * Sets the status code of the response.
+   *
+   * @param statusCode the status code.
+   */
+  public void setStatusCode(int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * Sets the byte count of the stage.
+   *
+   * @param bytes the number of bytes.
+   */
+  public void setBytes(long bytes) {
+    this.bytes = bytes;
+  }
+}
@@ -0,0 +1,42 @@
+package io.github.lm_pakkanen.tidal_api.models.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one HTTP exchange, from handing the request to the
+ * HTTP client until the response headers arrive. The JDK HTTP client does not
+ * report when it has acquired a pooled connection or opened a new one, so the
+ * event covers connection acquisition as well as the server's processing time.
+ * The byte count is the declared Content-Length of the response.
+ *
+ * The event is committed on the thread that receives the response headers, so
+ * it carries no stack trace. Unlike the other query events it is begun on one
+ * thread and committed on another, so it is only allocated while it is enabled.
+ */
+@Name("io.github.lm_pakkanen.tidal_api.TimeToFirstByte")
+@Label("Connection Acquire And Time To First Byte")
+@Description("Time from sending a request, including acquiring a connection, to receiving the response headers")
+@StackTrace(false)
+public final class TimeToFirstByteEvent extends QueryEvent {
+  private static final TimeToFirstByteEvent PROBE = new TimeToFirstByteEvent();
+
+  /**
+   * Begins an event if it is enabled in a running recording.
+   *
+   * @return the begun event, or null if the event is disabled.
+   */
+  public static TimeToFirstByteEvent beginIfEnabled() {
+    // The probe is only asked whether the event type is enabled, which reads a
+    // flag of the class, so no event is allocated while recording is off
+    if (!TimeToFirstByteEvent.PROBE.isEnabled()) {
+      return null;
+    }
+
+    final TimeToFirstByteEvent event = new TimeToFirstByteEvent();
+    event.begin();
+    return event;
+  }
+}
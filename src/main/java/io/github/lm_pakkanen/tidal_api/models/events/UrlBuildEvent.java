@@ -0,0 +1,27 @@
+package io.github.lm_pakkanen.tidal_api.models.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for building the HTTP request of a query: encoding the
+ * query parameters, assembling the URL, setting the headers and serializing the
+ * request body. The byte count is the size of the request body.
+ */
+@Name("io.github.lm_pakkanen.tidal_api.UrlBuild")
+@Label("URL Build")
+@Description("Encoding of the query parameters and headers of a request")
+public final class UrlBuildEvent extends QueryEvent {
+  @Label("URL")
+  String url;
+
+  /**
+   * Sets the built URL.
+   *
+   * @param url the URL including the query parameters.
+   */
+  public void setUrl(String url) {
+    this.url = url;
+  }
+}
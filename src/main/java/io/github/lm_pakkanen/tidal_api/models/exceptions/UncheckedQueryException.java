@@ -0,0 +1,27 @@
+package io.github.lm_pakkanen.tidal_api.models.exceptions;
+
+/**
+ * Wraps a {@link QueryException} where a checked exception cannot be thrown,
+ * e.g. while consuming a lazily fetched stream.
+ */
+public final class UncheckedQueryException extends RuntimeException {
+
+  /**
+   * Constructs a new UncheckedQueryException.
+   *
+   * @param cause the query exception.
+   */
+  public UncheckedQueryException(QueryException cause) {
+    super(cause.getMessage(), cause);
+  }
+
+  /**
+   * Returns the wrapped query exception.
+   *
+   * @return the query exception.
+   */
+  @Override
+  public synchronized QueryException getCause() {
+    return (QueryException) super.getCause();
+  }
+}
@@ -0,0 +1,200 @@
+package io.github.lm_pakkanen.tidal_api.models.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative measurements of the requests to one endpoint.
+ *
+ * Counters and histograms are updated without locking and may be read at any
+ * time.
+ */
+public final class EndpointMetrics {
+  private static final int MIN_STATUS_CODE = 100;
+  private static final int MAX_STATUS_CODE = 599;
+
+  private final String endpoint;
+  private final LongAdder responses = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder bodies = new LongAdder();
+  private final LongAdder bytesReceived = new LongAdder();
+  private final LongAdder[] statusCodes;
+  private final LogHistogram timeToHeaders = new LogHistogram();
+  private final LogHistogram decodeTime = new LogHistogram();
+
+  /**
+   * Constructs new metrics with all counters at zero.
+   *
+   * @param endpoint the endpoint.
+   */
+  EndpointMetrics(String endpoint) {
+    this.endpoint = endpoint;
+    this.statusCodes = new LongAdder[EndpointMetrics.MAX_STATUS_CODE - EndpointMetrics.MIN_STATUS_CODE + 2];
+
+    for (int i = 0; i < this.statusCodes.length; i++) {
+      this.statusCodes[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a response.
+   *
+   * @param statusCode         the status code of the response.
+   * @param timeToHeadersNanos the time to the response headers.
+   */
+  void recordResponse(int statusCode, long timeToHeadersNanos) {
+    this.responses.increment();
+    this.statusCodes[EndpointMetrics.indexOf(statusCode)].increment();
+    this.timeToHeaders.record(timeToHeadersNanos);
+  }
+
+  /**
+   * Records a request that failed without a response.
+   */
+  void recordFailure() {
+    this.failures.increment();
+  }
+
+  /**
+   * Records a decoded response body.
+   *
+   * @param bytesReceived the number of body bytes received over the wire.
+   * @param decodeNanos   the time spent reading and decoding the body.
+   */
+  void recordBody(long bytesReceived, long decodeNanos) {
+    this.bodies.increment();
+    this.bytesReceived.add(bytesReceived);
+    this.decodeTime.record(decodeNanos);
+  }
+
+  /**
+   * Records a retry.
+   */
+  void recordRetry() {
+    this.retries.increment();
+  }
+
+  /**
+   * Gets the endpoint these metrics belong to.
+   *
+   * @return the endpoint.
+   */
+  public String getEndpoint() {
+    return this.endpoint;
+  }
+
+  /**
+   * Gets the number of responses received, including error responses and the
+   * responses to retried requests.
+   *
+   * @return the number of responses.
+   */
+  public long getResponses() {
+    return this.responses.sum();
+  }
+
+  /**
+   * Gets the number of responses with the given status code.
+   *
+   * @param statusCode the status code.
+   *
+   * @return the number of responses.
+   */
+  public long getResponses(int statusCode) {
+    return this.statusCodes[EndpointMetrics.indexOf(statusCode)].sum();
+  }
+
+  /**
+   * Gets the number of responses per status code, for the status codes seen
+   * so far. Status codes outside 100-599 are counted under 0.
+   *
+   * @return the number of responses by status code, in ascending order.
+   */
+  public Map<Integer, Long> getStatusCodes() {
+    final TreeMap<Integer, Long> statusCodes = new TreeMap<>();
+
+    for (int i = 0; i < this.statusCodes.length; i++) {
+      final long count = this.statusCodes[i].sum();
+
+      if (count > 0) {
+        statusCodes.put(i == this.statusCodes.length - 1 ? 0 : i + EndpointMetrics.MIN_STATUS_CODE, count);
+      }
+    }
+
+    return Collections.unmodifiableMap(statusCodes);
+  }
+
+  /**
+   * Gets the number of requests that failed without a response.
+   *
+   * @return the number of failed requests.
+   */
+  public long getFailures() {
+    return this.failures.sum();
+  }
+
+  /**
+   * Gets the number of retries.
+   *
+   * @return the number of retries.
+   */
+  public long getRetries() {
+    return this.retries.sum();
+  }
+
+  /**
+   * Gets the number of decoded response bodies.
+   *
+   * @return the number of decoded bodies.
+   */
+  public long getBodies() {
+    return this.bodies.sum();
+  }
+
+  /**
+   * Gets the total number of body bytes received over the wire.
+   *
+   * @return the number of received body bytes.
+   */
+  public long getBytesReceived() {
+    return this.bytesReceived.sum();
+  }
+
+  /**
+   * Gets the distribution of the time from sending a request to receiving the
+   * response headers, which covers connecting and the server's processing.
+   *
+   * @return the time to headers histogram.
+   */
+  public LogHistogram getTimeToHeaders() {
+    return this.timeToHeaders;
+  }
+
+  /**
+   * Gets the distribution of the time spent reading and decoding response
+   * bodies.
+   *
+   * @return the decode time histogram.
+   */
+  public LogHistogram getDecodeTime() {
+    return this.decodeTime;
+  }
+
+  /**
+   * Gets the counter index of a status code.
+   *
+   * @param statusCode the status code.
+   *
+   * @return the counter index; the last one for unexpected status codes.
+   */
+  private static int indexOf(int statusCode) {
+    if (statusCode < EndpointMetrics.MIN_STATUS_CODE || statusCode > EndpointMetrics.MAX_STATUS_CODE) {
+      return EndpointMetrics.MAX_STATUS_CODE - EndpointMetrics.MIN_STATUS_CODE + 1;
+    }
+
+    return statusCode - EndpointMetrics.MIN_STATUS_CODE;
+  }
+}
@@ -0,0 +1,83 @@
+package io.github.lm_pakkanen.tidal_api.models.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.lm_pakkanen.tidal_api.interfaces.MetricsSink;
+
+/**
+ * Metrics sink that keeps cumulative per-endpoint counters and latency
+ * histograms in memory. This is the sink query clients use by default.
+ *
+ * Recording takes a map lookup and a few striped counter increments, and does
+ * not lock or allocate once an endpoint has been seen.
+ */
+public final class InMemoryMetricsSink implements MetricsSink {
+  private final ConcurrentHashMap<String, EndpointMetrics> endpoints;
+
+  /**
+   * Constructs a new sink without measurements.
+   */
+  public InMemoryMetricsSink() {
+    this.endpoints = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public void recordResponse(String endpoint, int statusCode, long timeToHeadersNanos) {
+    this.forEndpoint(endpoint).recordResponse(statusCode, timeToHeadersNanos);
+  }
+
+  @Override
+  public void recordFailure(String endpoint) {
+    this.forEndpoint(endpoint).recordFailure();
+  }
+
+  @Override
+  public void recordBody(String endpoint, long bytesReceived, long decodeNanos) {
+    this.forEndpoint(endpoint).recordBody(bytesReceived, decodeNanos);
+  }
+
+  @Override
+  public void recordRetry(String endpoint) {
+    this.forEndpoint(endpoint).recordRetry();
+  }
+
+  /**
+   * Gets the metrics of an endpoint.
+   *
+   * @param endpoint the endpoint, e.g. "tracks".
+   *
+   * @return the metrics, or null if nothing has been recorded for the endpoint.
+   */
+  public EndpointMetrics getEndpointMetrics(String endpoint) {
+    return this.endpoints.get(endpoint);
+  }
+
+  /**
+   * Gets the metrics of all endpoints seen so far.
+   *
+   * @return the metrics by endpoint, in alphabetical order.
+   */
+  public Map<String, EndpointMetrics> getEndpointMetrics() {
+    return Collections.unmodifiableMap(new TreeMap<>(this.endpoints));
+  }
+
+  /**
+   * Gets the metrics of an endpoint, creating them on first use.
+   *
+   * @param endpoint the endpoint.
+   *
+   * @return the metrics.
+   */
+  private EndpointMetrics forEndpoint(String endpoint) {
+    final EndpointMetrics metrics = this.endpoints.get(endpoint);
+
+    if (metrics != null) {
+      return metrics;
+    }
+
+    return this.endpoints.computeIfAbsent(endpoint, EndpointMetrics::new);
+  }
+}
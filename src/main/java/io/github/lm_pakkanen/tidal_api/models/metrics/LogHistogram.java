@@ -0,0 +1,158 @@
+package io.github.lm_pakkanen.tidal_api.models.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations with logarithmic buckets.
+ *
+ * Each power of two is split into 8 buckets, so percentiles are accurate to
+ * within 12.5 %, from 1 microsecond up to about 18 minutes. Every bucket is a
+ * striped counter, so concurrent recording neither locks nor contends on a
+ * single memory location. Recording does not allocate.
+ */
+public final class LogHistogram {
+  private static final int UNIT_BITS = 10; // Buckets count in units of 1024 ns
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << LogHistogram.SUB_BUCKET_BITS;
+  private static final int MAX_VALUE_BITS = 30;
+  private static final long MAX_VALUE = (1L << LogHistogram.MAX_VALUE_BITS) - 1;
+
+  private final LongAdder[] buckets;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Constructs a new, empty histogram.
+   */
+  public LogHistogram() {
+    this.buckets = new LongAdder[(LogHistogram.MAX_VALUE_BITS - LogHistogram.SUB_BUCKET_BITS + 1)
+        * LogHistogram.SUB_BUCKET_COUNT];
+
+    for (int i = 0; i < this.buckets.length; i++) {
+      this.buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos the duration in nanoseconds. Negative durations are recorded
+   *              as zero.
+   */
+  public void record(long nanos) {
+    final long value = Math.max(nanos, 0);
+
+    this.buckets[LogHistogram.indexOf(Math.min(value >>> LogHistogram.UNIT_BITS, LogHistogram.MAX_VALUE))]
+        .increment();
+    this.count.increment();
+    this.totalNanos.add(value);
+    this.maxNanos.accumulate(value);
+  }
+
+  /**
+   * Gets the number of recorded durations.
+   *
+   * @return the number of recorded durations.
+   */
+  public long getCount() {
+    return this.count.sum();
+  }
+
+  /**
+   * Gets the sum of the recorded durations.
+   *
+   * @return the total duration.
+   */
+  public Duration getTotal() {
+    return Duration.ofNanos(this.totalNanos.sum());
+  }
+
+  /**
+   * Gets the longest recorded duration.
+   *
+   * @return the longest duration, zero if nothing was recorded.
+   */
+  public Duration getMax() {
+    return Duration.ofNanos(this.maxNanos.get());
+  }
+
+  /**
+   * Gets the duration below which the given percentage of the recorded
+   * durations fall. The upper bound of the bucket is returned, so the result
+   * never understates the duration by more than the bucket width.
+   *
+   * Concurrent recording may make the result slightly inconsistent with the
+   * count.
+   *
+   * @param percentile the percentile, from 0 to 100.
+   *
+   * @return the duration at the percentile, zero if nothing was recorded.
+   */
+  public Duration getValueAtPercentile(double percentile) {
+    long total = 0;
+    final long[] counts = new long[this.buckets.length];
+
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = this.buckets[i].sum();
+      total += counts[i];
+    }
+
+    if (total == 0) {
+      return Duration.ZERO;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * total));
+    final long maxNanos = this.maxNanos.get();
+    long seen = 0;
+
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+
+      if (seen >= rank) {
+        final long upperNanos = (LogHistogram.highestEquivalentValue(i) + 1) << LogHistogram.UNIT_BITS;
+        return Duration.ofNanos(Math.min(upperNanos, maxNanos));
+      }
+    }
+
+    return Duration.ofNanos(maxNanos);
+  }
+
+  /**
+   * Gets the bucket index of a value.
+   *
+   * @param value the value in units.
+   *
+   * @return the bucket index.
+   */
+  private static int indexOf(long value) {
+    if (value < 2 * LogHistogram.SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - LogHistogram.SUB_BUCKET_BITS;
+
+    return (shift + 1) * LogHistogram.SUB_BUCKET_COUNT
+        + (int) (value >>> shift) - LogHistogram.SUB_BUCKET_COUNT;
+  }
+
+  /**
+   * Gets the largest value that falls into a bucket.
+   *
+   * @param index the bucket index.
+   *
+   * @return the largest value of the bucket in units.
+   */
+  private static long highestEquivalentValue(int index) {
+    if (index < 2 * LogHistogram.SUB_BUCKET_COUNT) {
+      return index;
+    }
+
+    final int shift = index / LogHistogram.SUB_BUCKET_COUNT - 1;
+    final long subBucket = index % LogHistogram.SUB_BUCKET_COUNT + LogHistogram.SUB_BUCKET_COUNT;
+
+    return (subBucket << shift) + (1L << shift) - 1;
+  }
+}
@@ -1,19 +1,35 @@
 package io.github.lm_pakkanen.tidal_api.models.queries;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.jr.ob.JSON;
 
+import io.github.lm_pakkanen.tidal_api.controllers.TokenRefresher;
 import io.github.lm_pakkanen.tidal_api.controllers.endpoints.AuthorizationController;
+import io.github.lm_pakkanen.tidal_api.models.CredentialsStore;
+import io.github.lm_pakkanen.tidal_api.models.cache.DiskResponseCache;
 import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
+import io.github.lm_pakkanen.tidal_api.models.events.BodyReadEvent;
+import io.github.lm_pakkanen.tidal_api.models.events.JsonDecodeEvent;
+import io.github.lm_pakkanen.tidal_api.models.events.UrlBuildEvent;
 import io.github.lm_pakkanen.tidal_api.models.exceptions.InvalidCredentialsException;
 import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
 import io.github.lm_pakkanen.tidal_api.models.exceptions.UnauthorizedException;
@@ -24,13 +40,18 @@ import io.github.lm_pakkanen.tidal_api.models.exceptions.UnauthorizedException;
  * It provides methods for setting various parameters such as HTTP method,
  * content type, authentication, body, limit, skip, and country code.
  * The 'BaseQuery' class also includes a method for building the query and
- * returning the 'HttpURLConnection' object.
+ * sending it through the shared {@link QueryClient} transport.
  */
 public class BaseQuery {
   /**
-   * Represents the HTTP connection.
+   * Represents the transport used to send the query.
+   */
+  protected final QueryClient client;
+
+  /**
+   * Represents the built HTTP request.
    */
-  protected HttpURLConnection connection;
+  protected HttpRequest request;
 
   /**
    * Represents the HTTP method.
@@ -57,11 +78,43 @@ public class BaseQuery {
    */
   protected Object body;
 
+  /**
+   * Represents the ETag sent in the If-None-Match header.
+   */
+  protected String eTag;
+
+  /**
+   * Represents the time sent in the If-Modified-Since header.
+   */
+  protected String lastModified;
+
+  /**
+   * Represents whether a duplicate request may be sent if the first one is
+   * slow.
+   */
+  protected boolean hedged;
+
   /**
    * Represents the query parameters of the query.
    */
   protected final HashMap<String, Object> queryParameters;
 
+  /**
+   * Represents the number of response body bytes received over the wire.
+   */
+  private volatile long bytesReceived;
+
+  /**
+   * Represents the number of response body bytes after decompression.
+   */
+  private volatile long bytesDecoded;
+
+  /**
+   * Represents the number of times the request of this query was retried. The
+   * primary and the hedge of a hedged query retry concurrently.
+   */
+  private final AtomicInteger retries = new AtomicInteger();
+
   /**
    * Represents an HTTP method.
    */
@@ -102,7 +155,12 @@ public class BaseQuery {
     /**
      * Represents the Tidal JSON content type.
      */
-    TIDAL_JSON("application/vnd.tidal.v1+json");
+    TIDAL_JSON("application/vnd.tidal.v1+json"),
+
+    /**
+     * Represents the URL-encoded form content type.
+     */
+    FORM_URLENCODED("application/x-www-form-urlencoded");
 
     /**
      * Represents the value of the content type.
@@ -121,9 +179,20 @@ public class BaseQuery {
 
   /**
    * Constructs a new 'BaseQuery' object with the default HTTP method set to
-   * 'GET'.
+   * 'GET' that is sent through the default query client.
    */
   public BaseQuery() {
+    this(QueryClient.getDefault());
+  }
+
+  /**
+   * Constructs a new 'BaseQuery' object with the default HTTP method set to
+   * 'GET' that is sent through the given query client.
+   * 
+   * @param client the query client to send the query with.
+   */
+  public BaseQuery(QueryClient client) {
+    this.client = client;
     this.httpMethod = BaseQuery.HttpMethod.GET;
     this.queryParameters = new HashMap<>();
   }
@@ -136,46 +205,287 @@ public class BaseQuery {
    * throws a QueryException instead of an InvalidCredentialsException or an
    * UnauthorizedException.
    * 
+   * @deprecated the shared store is only written by the default query client,
+   *             not by instances created with {@code new TidalApi()}. Use
+   *             {@link #tryGetCredentialsOrQueryException(CredentialsStore)}
+   *             with the store of the instance's client instead.
+   * 
    * @return credentials.
    * @throws QueryException if the credentials don't exist or are invalid/expired.
    */
+  @Deprecated
   public static TidalCredentials tryGetCredentialsOrQueryException() throws QueryException {
+    return BaseQuery.tryGetCredentialsOrQueryException(CredentialsStore.getInstance());
+  }
+
+  /**
+   * Tries to get the credentials from the given store. If the credentials don't
+   * exist or are invalid/expired, throws an exception.
+   * 
+   * This is a wrapper around AuthorizationController.tryGetCredentials() that
+   * throws a QueryException instead of an InvalidCredentialsException or an
+   * UnauthorizedException.
+   * 
+   * @param credentialsStore the credentials store.
+   * 
+   * @return credentials.
+   * @throws QueryException if the credentials don't exist or are invalid/expired.
+   */
+  public static TidalCredentials tryGetCredentialsOrQueryException(CredentialsStore credentialsStore)
+      throws QueryException {
     try {
-      return AuthorizationController.tryGetCredentials();
+      return AuthorizationController.tryGetCredentials(credentialsStore);
     } catch (InvalidCredentialsException | UnauthorizedException exception) {
       throw new QueryException(exception);
     }
   }
 
   /**
-   * Converts the response from the Tidal API to a string.
+   * Decodes the response body from the Tidal API to an instance of the given
+   * model class.
+   * 
+   * The body is decompressed if the server compressed it, and parsed as UTF-8
+   * directly from the response stream, without buffering it into an
+   * intermediate string. Bodies larger than the client's maximum response size
+   * after decompression are rejected. Responses replayed from the response
+   * cache are parsed from memory.
+   * 
+   * @param <T>      the model class.
+   * @param response HTTP response.
+   * @param toBean   the model class.
+   * 
+   * @return the response as an instance of the model class.
+   * 
+   * @throws IOException if the body cannot be read or decoded, or if it is too
+   *                     large.
+   */
+  protected <T> T decode(HttpResponse<InputStream> response, Class<T> toBean) throws IOException {
+    final JsonDecodeEvent event = new JsonDecodeEvent();
+    event.begin();
+
+    if (response instanceof StoredResponse) {
+      this.bytesDecoded = ((StoredResponse) response).getBodyLength();
+
+      try {
+        return JSON.std.beanFrom(toBean, response.body());
+      } finally {
+        BaseQuery.commit(event, response, toBean, this.bytesDecoded);
+      }
+    }
+
+    final ResponseBody body = this.openBody(response);
+
+    try (body) {
+      return JSON.std.beanFrom(toBean, body.stream());
+    } finally {
+      this.recordBody(body);
+      BaseQuery.commit(event, response, toBean, body.getDecodedBytes());
+    }
+  }
+
+  /**
+   * Decodes the elements of the array at the given top-level field of the
+   * response body one at a time, passing each to the consumer as soon as it
+   * has been parsed. Only the element being parsed is held in memory, so the
+   * consumer sees the first element before the rest of the body has arrived.
+   * Other fields of the body are skipped.
+   * 
+   * If the consumer blocks, reading of the body stops until it returns. If the
+   * consumer throws, decoding stops and the body is closed.
+   * 
+   * @param <T>            the model class of the elements.
+   * @param response       HTTP response.
+   * @param toBean         the model class of the elements.
+   * @param pathInResponse the name of the top-level field holding the array.
+   * @param consumer       the consumer of the decoded elements.
+   * 
+   * @return the number of decoded elements, 0 if the field is missing.
+   * 
+   * @throws IOException if the body cannot be read or decoded, or if it is too
+   *                     large.
+   */
+  protected <T> int decodeEach(HttpResponse<InputStream> response, Class<T> toBean, String pathInResponse,
+      Consumer<? super T> consumer) throws IOException {
+    final JsonDecodeEvent event = new JsonDecodeEvent();
+    event.begin();
+
+    if (response instanceof StoredResponse) {
+      this.bytesDecoded = ((StoredResponse) response).getBodyLength();
+
+      try {
+        return BaseQuery.decodeEach(response.body(), toBean, pathInResponse, consumer);
+      } finally {
+        BaseQuery.commit(event, response, toBean, this.bytesDecoded);
+      }
+    }
+
+    final ResponseBody body = this.openBody(response);
+
+    try (body) {
+      return BaseQuery.decodeEach(body.stream(), toBean, pathInResponse, consumer);
+    } finally {
+      this.recordBody(body);
+      BaseQuery.commit(event, response, toBean, body.getDecodedBytes());
+    }
+  }
+
+  /**
+   * Commits a JSON decode event if it is enabled.
+   * 
+   * @param event    the event.
+   * @param response the decoded response.
+   * @param toBean   the model class decoded into.
+   * @param bytes    the number of JSON bytes parsed.
+   */
+  private static void commit(JsonDecodeEvent event, HttpResponse<InputStream> response, Class<?> toBean,
+      long bytes) {
+    event.end();
+
+    if (event.shouldCommit()) {
+      event.setEndpoint(QueryClient.endpointOf(response.request().uri()));
+      event.setStatusCode(response.statusCode());
+      event.setBytes(bytes);
+      event.setModelClass(toBean);
+      event.commit();
+    }
+  }
+
+  /**
+   * Decodes the elements of the array at the given top-level field of a JSON
+   * document.
    * 
-   * Utilizes the input stream reader and buffer reader from the parent class.
+   * @see #decodeEach(HttpResponse, Class, String, Consumer)
    * 
-   * @param connection HTTP connection.
+   * @param <T>            the model class of the elements.
+   * @param stream         the JSON document.
+   * @param toBean         the model class of the elements.
+   * @param pathInResponse the name of the top-level field holding the array.
+   * @param consumer       the consumer of the decoded elements.
    * 
-   * @return response as a string.
+   * @return the number of decoded elements.
    * 
-   * @throws IOException if there is an error reading the response.
+   * @throws IOException if the document cannot be read or decoded.
    */
-  public static String responseToString(
-      HttpURLConnection connection) throws IOException {
-    final InputStreamReader inputStreamReader = new InputStreamReader(connection.getInputStream());
-    final BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
+  private static <T> int decodeEach(InputStream stream, Class<T> toBean, String pathInResponse,
+      Consumer<? super T> consumer) throws IOException {
+    int count = 0;
+
+    try (JsonParser parser = JSON.std.getStreamingFactory().createParser(stream)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Response body is not a JSON object.");
+      }
 
-    final StringBuilder responseBuilder = new StringBuilder();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String fieldName = parser.currentName();
+        final JsonToken valueToken = parser.nextToken();
 
-    String line;
+        if (!pathInResponse.equals(fieldName) || valueToken != JsonToken.START_ARRAY) {
+          parser.skipChildren();
+          continue;
+        }
 
-    while ((line = bufferedReader.readLine()) != null) {
-      responseBuilder.append(line);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          consumer.accept(JSON.std.beanFrom(toBean, parser));
+          count++;
+        }
+      }
     }
 
-    inputStreamReader.close();
-    bufferedReader.close();
+    return count;
+  }
+
+  /**
+   * Reads the whole response body into memory, decompressing it if needed.
+   * 
+   * @param response HTTP response.
+   * 
+   * @return the decompressed response body.
+   * 
+   * @throws IOException if the body cannot be read, or if it is too large.
+   */
+  private byte[] readBody(HttpResponse<InputStream> response) throws IOException {
+    final BodyReadEvent event = new BodyReadEvent();
+    event.begin();
+
+    final ResponseBody body = this.openBody(response);
+
+    try (body) {
+      return body.stream().readAllBytes();
+    } finally {
+      this.recordBody(body);
+      event.end();
+
+      if (event.shouldCommit()) {
+        event.setEndpoint(QueryClient.endpointOf(response.request().uri()));
+        event.setStatusCode(response.statusCode());
+        event.setBytes(body.getWireBytes());
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Opens the response body for reading, rejecting it early if the declared
+   * length exceeds the client's maximum response size.
+   * 
+   * @param response HTTP response.
+   * 
+   * @return the opened response body.
+   * 
+   * @throws IOException if the body is too large or has an unsupported
+   *                     encoding.
+   */
+  private ResponseBody openBody(HttpResponse<InputStream> response) throws IOException {
+    final long maxResponseBytes = this.client.getSettings().getMaxResponseBytes();
+    final long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1L);
+
+    if (contentLength > maxResponseBytes) {
+      throw new IOException("Response body exceeds the maximum size of " + maxResponseBytes + " bytes.");
+    }
+
+    return ResponseBody.open(response, maxResponseBytes);
+  }
+
+  /**
+   * Records the byte counts of a read response body.
+   * 
+   * @param body the response body.
+   */
+  private void recordBody(ResponseBody body) {
+    this.bytesReceived = body.getWireBytes();
+    this.bytesDecoded = body.getDecodedBytes();
+    this.client.getStatistics().recordResponseBody(body.isCompressed(), this.bytesReceived, this.bytesDecoded);
+  }
+
+  /**
+   * Gets the number of response body bytes received over the wire by this
+   * query, before decompression.
+   * 
+   * @return the number of received body bytes, 0 if the query has not been
+   *         executed.
+   */
+  public long getBytesReceived() {
+    return this.bytesReceived;
+  }
 
-    final String responseString = responseBuilder.toString();
-    return responseString;
+  /**
+   * Gets the number of response body bytes of this query after decompression.
+   * 
+   * @return the number of decompressed body bytes, 0 if the query has not been
+   *         executed.
+   */
+  public long getBytesDecoded() {
+    return this.bytesDecoded;
+  }
+
+  /**
+   * Gets the number of times the request of this query was sent again after a
+   * transient failure.
+   * 
+   * @return the number of retries, 0 if the query has not been executed.
+   */
+  public int getRetries() {
+    return this.retries.get();
   }
 
   /**
@@ -188,7 +498,7 @@ public class BaseQuery {
    * @throws QueryException if the query is already built.
    */
   protected BaseQuery method(BaseQuery.HttpMethod httpMethod) throws QueryException {
-    if (this.connection != null) {
+    if (this.request != null) {
       throw new QueryException("Query is already built.");
     }
 
@@ -221,7 +531,7 @@ public class BaseQuery {
    *                        are invalid.
    */
   protected BaseQuery auth(TidalCredentials credentials) throws QueryException {
-    if (this.connection != null) {
+    if (this.request != null) {
       throw new QueryException("Query is already built.");
     }
 
@@ -252,7 +562,7 @@ public class BaseQuery {
    * @throws QueryException if the query is already built.
    */
   protected BaseQuery auth(String basicCredentialsBase64) throws QueryException {
-    if (this.connection != null) {
+    if (this.request != null) {
       throw new QueryException("Query is already built.");
     }
 
@@ -270,7 +580,7 @@ public class BaseQuery {
    * @throws QueryException if the query is already built.
    */
   protected BaseQuery body(Object data) throws QueryException {
-    if (this.connection != null) {
+    if (this.request != null) {
       throw new QueryException("Query is already built.");
     }
 
@@ -278,6 +588,51 @@ public class BaseQuery {
     return this;
   }
 
+  /**
+   * Sets the validators of a previously received response, making the query
+   * conditional. The server answers 304 Not Modified instead of sending the
+   * body again if the resource has not changed.
+   *
+   * @param eTag         the ETag of the previous response, sent as
+   *                     If-None-Match (nullable).
+   * @param lastModified the Last-Modified time of the previous response, sent
+   *                     as If-Modified-Since (nullable).
+   * 
+   * @return the updated BaseQuery object.
+   * 
+   * @throws QueryException if the query is already built.
+   */
+  protected BaseQuery validators(String eTag, String lastModified) throws QueryException {
+    if (this.request != null) {
+      throw new QueryException("Query is already built.");
+    }
+
+    this.eTag = eTag;
+    this.lastModified = lastModified;
+    return this;
+  }
+
+  /**
+   * Sets whether the query is hedged. If hedging is enabled in the client
+   * settings and a hedged GET request has not been answered within the
+   * configured percentile of recent latencies, a duplicate request is sent. The
+   * first response wins and the other request is cancelled.
+   *
+   * @param hedged whether the query is hedged.
+   * 
+   * @return the updated BaseQuery object.
+   * 
+   * @throws QueryException if the query is already built.
+   */
+  protected BaseQuery hedged(boolean hedged) throws QueryException {
+    if (this.request != null) {
+      throw new QueryException("Query is already built.");
+    }
+
+    this.hedged = hedged;
+    return this;
+  }
+
   /**
    * Sets a query parameter for the query.
    * 
@@ -289,7 +644,7 @@ public class BaseQuery {
    * @throws QueryException if the query is already built.
    */
   protected BaseQuery parameter(String key, Object value) throws QueryException {
-    if (this.connection != null) {
+    if (this.request != null) {
       throw new QueryException("Query is already built.");
     }
 
@@ -298,56 +653,65 @@ public class BaseQuery {
   }
 
   /**
-   * Builds and returns an HttpURLConnection object based on the provided URL and
+   * Builds and returns an HttpRequest object based on the provided URL and
    * fields of this instance.
    *
-   * @param url the URL to build the connection with.
+   * @param url the URL to build the request with.
    * 
-   * @return the built HttpURLConnection object.
+   * @return the built HttpRequest object.
    * 
    * @throws QueryException if the query is already built or if there is an error
    *                        during the build process.
    */
-  protected HttpURLConnection build(String url) throws QueryException {
-    if (this.connection != null) {
+  protected HttpRequest build(String url) throws QueryException {
+    if (this.request != null) {
       throw new QueryException("Query is already built.");
     }
 
-    OutputStream outputStream = null;
-    OutputStreamWriter outputStreamWriter = null;
+    final UrlBuildEvent event = new UrlBuildEvent();
+    event.begin();
 
     try {
       final StringBuilder urlBuilder = new StringBuilder(url);
       this.queryParameters.forEach((key, value) -> BaseQuery.addQueryParameter(urlBuilder, key, value));
       final String finalUrl = urlBuilder.toString();
 
-      this.connection = (HttpURLConnection) new URI(finalUrl).toURL().openConnection();
+      final HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(new URI(finalUrl))
+          .timeout(this.client.getSettings().getRequestTimeout());
 
       if (this.contentType != null) {
-        this.connection.setRequestProperty("Content-Type", this.contentType.value);
+        requestBuilder.header("Content-Type", this.contentType.value);
       }
 
-      this.connection.setRequestProperty("Accept", "*");
+      requestBuilder.header("Accept", "*");
+
+      if (this.client.getSettings().isCompressionEnabled()) {
+        requestBuilder.header("Accept-Encoding", "gzip, deflate");
+      }
 
-      this.connection.setRequestMethod(this.httpMethod.toString());
+      if (this.eTag != null) {
+        requestBuilder.header("If-None-Match", this.eTag);
+      }
+
+      if (this.lastModified != null) {
+        requestBuilder.header("If-Modified-Since", this.lastModified);
+      }
 
       if (this.credentials != null) {
-        this.connection.setRequestProperty("Authorization", "Bearer " + credentials.getAccessToken());
+        requestBuilder.header("Authorization", "Bearer " + credentials.getAccessToken());
       } else if (this.basicCredentialsBase64 != null) {
-        this.connection.setRequestProperty("Authorization", "Basic " + this.basicCredentialsBase64);
+        requestBuilder.header("Authorization", "Basic " + this.basicCredentialsBase64);
       }
 
+      HttpRequest.BodyPublisher bodyPublisher = HttpRequest.BodyPublishers.noBody();
+      long bodyLength = 0;
+
       if (this.body != null) {
 
         if (this.httpMethod == BaseQuery.HttpMethod.GET) {
           throw new QueryException("GET requests cannot have a body.");
         }
 
-        this.connection.setDoOutput(true);
-
-        outputStream = connection.getOutputStream();
-        outputStreamWriter = new OutputStreamWriter(outputStream, "UTF-8");
-
         String bodyAsString;
 
         if (this.body instanceof String) {
@@ -356,35 +720,793 @@ public class BaseQuery {
           bodyAsString = JSON.std.asString(this.body);
         }
 
-        outputStreamWriter.write(bodyAsString);
-        outputStreamWriter.close();
-        outputStream.close();
+        bodyPublisher = HttpRequest.BodyPublishers.ofString(bodyAsString, StandardCharsets.UTF_8);
+        bodyLength = bodyPublisher.contentLength();
+      }
+
+      requestBuilder.method(this.httpMethod.toString(), bodyPublisher);
+
+      this.request = requestBuilder.build();
+
+      event.end();
+
+      if (event.shouldCommit()) {
+        event.setEndpoint(QueryClient.endpointOf(this.request.uri()));
+        event.setUrl(finalUrl);
+        event.setBytes(bodyLength);
+        event.commit();
+      }
+
+      return this.request;
+    } catch (URISyntaxException | IOException | IllegalArgumentException | QueryException exception) {
+      if (exception instanceof QueryException) {
+        throw new QueryException((QueryException) exception);
+      }
+
+      throw new QueryException(exception);
+    }
+  }
+
+  /**
+   * Builds the query for the provided URL and sends it asynchronously through
+   * the query client. Once the response headers arrive, the given handler is
+   * run on the client's decoding executor. The response body is closed after
+   * the handler returns.
+   *
+   * @param <R>     the result type of the handler.
+   * @param url     the URL to send the query to.
+   * @param handler the handler that converts the response to a result.
+   * 
+   * @return a future of the handler's result. Fails with a QueryException if
+   *         the query cannot be built or sent, or if the handler fails.
+   */
+  protected <R> CompletableFuture<R> sendAsync(String url, BaseQuery.ResponseHandler<R> handler) {
+    return this.sendAsync(url, null, handler);
+  }
+
+  /**
+   * Builds the query for the provided URL and sends it asynchronously through
+   * the query client. Once the response headers arrive, the given handler is
+   * run on the client's decoding executor. The response body is closed after
+   * the handler returns.
+   * 
+   * If a result type is given and this is a GET query, concurrent queries with
+   * the same final URL, authorization and result type share one in-flight
+   * request and all receive its result. If the client has a response cache,
+   * such queries are also answered from the cache when possible, and their
+   * successful responses are stored in it.
+   *
+   * @param <R>        the result type of the handler.
+   * @param url        the URL to send the query to.
+   * @param resultType the type the handler decodes the response to, or null to
+   *                   never share the request.
+   * @param handler    the handler that converts the response to a result.
+   * 
+   * @return a future of the handler's result. Fails with a QueryException if
+   *         the query cannot be built or sent, or if the handler fails.
+   */
+  protected <R> CompletableFuture<R> sendAsync(String url, Class<?> resultType,
+      BaseQuery.ResponseHandler<R> handler) {
+    return this.sendAsync(url, resultType, false, handler);
+  }
+
+  /**
+   * Like {@link #sendAsync(String, Class, ResponseHandler)}, but for handlers
+   * that accept 304 Not Modified responses to the validators of this query.
+   * Such queries are only shared with queries that send the same validators.
+   *
+   * @param <R>        the result type of the handler.
+   * @param url        the URL to send the query to.
+   * @param resultType the type the handler decodes the response to, or null to
+   *                   never share the request.
+   * @param handler    the handler that converts the response to a result.
+   * 
+   * @return a future of the handler's result. Fails with a QueryException if
+   *         the query cannot be built or sent, or if the handler fails.
+   */
+  protected <R> CompletableFuture<R> sendConditionalAsync(String url, Class<?> resultType,
+      BaseQuery.ResponseHandler<R> handler) {
+    return this.sendAsync(url, resultType, true, handler);
+  }
+
+  /**
+   * Builds and sends the query, answering it from the response cache and
+   * sharing it with identical in-flight queries where possible.
+   *
+   * @param <R>         the result type of the handler.
+   * @param url         the URL to send the query to.
+   * @param resultType  the type the handler decodes the response to, or null to
+   *                    never share the request.
+   * @param conditional whether the handler accepts 304 responses.
+   * @param handler     the handler that converts the response to a result.
+   * 
+   * @return a future of the handler's result.
+   */
+  private <R> CompletableFuture<R> sendAsync(String url, Class<?> resultType, boolean conditional,
+      BaseQuery.ResponseHandler<R> handler) {
+    HttpRequest request;
+
+    try {
+      request = this.build(url);
+    } catch (QueryException exception) {
+      return CompletableFuture.failedFuture(exception);
+    }
+
+    final boolean isShareable = resultType != null && this.httpMethod == BaseQuery.HttpMethod.GET;
+    final DiskResponseCache responseCache = isShareable ? this.client.getResponseCache() : null;
+    final BaseQuery.ResponseHandler<R> exchangeHandler;
+
+    if (responseCache != null) {
+      final DiskResponseCache.Entry entry = responseCache.getEntry(request.uri().toString());
+
+      if (entry != null && !entry.isExpired()) {
+        final HttpRequest storedRequest = request;
+
+        return CompletableFuture.supplyAsync(() -> {
+          try {
+            final long startNanos = System.nanoTime();
+            final R value = handler.handle(
+                new StoredResponse(storedRequest, entry.getBody(), entry.getETag(), entry.getLastModified()));
+
+            this.client.recordBody(storedRequest.uri(), 0, System.nanoTime() - startNanos);
+            return value;
+          } catch (IOException | QueryException exception) {
+            throw new CompletionException(BaseQuery.toQueryException(exception));
+          }
+        }, this.client.getExecutor());
+      }
+
+      if (entry != null && entry.hasValidators() && this.eTag == null && this.lastModified == null) {
+        request = BaseQuery.withValidators(request, entry.getETag(), entry.getLastModified());
+        exchangeHandler = this.revalidatingHandler(responseCache, entry, handler);
+      } else {
+        exchangeHandler = this.storingHandler(responseCache, handler);
+      }
+    } else {
+      exchangeHandler = handler;
+    }
+
+    final HttpRequest exchangeRequest = request;
+
+    if (!isShareable || !this.client.getSettings().isCoalescingEnabled()) {
+      return this.exchangeAsync(exchangeRequest, exchangeHandler);
+    }
+
+    final String validators = conditional
+        ? this.eTag + "\n" + this.lastModified
+        : null;
+
+    final RequestCoalescer.Key key = new RequestCoalescer.Key(
+        request.uri().toString(),
+        request.headers().firstValue("Authorization").orElse(null),
+        validators,
+        this.getClass(),
+        resultType);
+
+    return this.client.getCoalescer().coalesce(key, () -> this.exchangeAsync(exchangeRequest, exchangeHandler));
+  }
+
+  /**
+   * Wraps the given handler so that a 304 Not Modified answer to a
+   * revalidation of a stored response renews the stored response and replays
+   * it to the handler. Any other answer is stored and handled as usual.
+   *
+   * @param <R>           the result type of the handler.
+   * @param responseCache the response cache.
+   * @param entry         the expired entry being revalidated.
+   * @param handler       the handler that converts the response to a result.
+   * 
+   * @return the wrapped handler.
+   */
+  private <R> BaseQuery.ResponseHandler<R> revalidatingHandler(DiskResponseCache responseCache,
+      DiskResponseCache.Entry entry, BaseQuery.ResponseHandler<R> handler) {
+    final BaseQuery.ResponseHandler<R> storingHandler = this.storingHandler(responseCache, handler);
+
+    return response -> {
+      if (response.statusCode() != 304) {
+        this.client.getStatistics().recordRevalidation(false);
+        return storingHandler.handle(response);
+      }
+
+      this.client.getStatistics().recordRevalidation(true);
+
+      final String eTag = response.headers().firstValue("ETag").orElse(entry.getETag());
+      final String lastModified = response.headers().firstValue("Last-Modified").orElse(entry.getLastModified());
+
+      try {
+        responseCache.put(response.request().uri().toString(), entry.getBody(),
+            this.client.getSettings().getResponseCacheTtl(), eTag, lastModified);
+      } catch (IOException exception) {
+        // Serve the response anyway; it is revalidated again next time
+      }
+
+      return handler.handle(new StoredResponse(response.request(), entry.getBody(), eTag, lastModified));
+    };
+  }
+
+  /**
+   * Copies the given request with conditional headers for the given
+   * validators.
+   *
+   * @param request      the request to copy.
+   * @param eTag         the ETag to send as If-None-Match (nullable).
+   * @param lastModified the time to send as If-Modified-Since (nullable).
+   * 
+   * @return the conditional request.
+   */
+  private static HttpRequest withValidators(HttpRequest request, String eTag, String lastModified) {
+    final HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+
+    if (eTag != null) {
+      builder.header("If-None-Match", eTag);
+    }
+
+    if (lastModified != null) {
+      builder.header("If-Modified-Since", lastModified);
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Wraps the given handler so that successful responses are stored in the
+   * response cache, together with their validators, before they are handled.
+   * Storing is best effort; a failed write does not fail the query.
+   *
+   * @param <R>           the result type of the handler.
+   * @param responseCache the response cache.
+   * @param handler       the handler that converts the response to a result.
+   * 
+   * @return the wrapped handler.
+   */
+  private <R> BaseQuery.ResponseHandler<R> storingHandler(DiskResponseCache responseCache,
+      BaseQuery.ResponseHandler<R> handler) {
+    return response -> {
+      if (response.statusCode() != 200) {
+        return handler.handle(response);
       }
 
-      return this.connection;
-    } catch (URISyntaxException | IOException | QueryException exception) {
+      final byte[] body = this.readBody(response);
+      final String eTag = response.headers().firstValue("ETag").orElse(null);
+      final String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+
       try {
-        if (this.connection != null) {
-          this.connection.disconnect();
+        responseCache.put(response.request().uri().toString(), body, this.client.getSettings().getResponseCacheTtl(),
+            eTag, lastModified);
+      } catch (IOException exception) {
+        // Serve the response anyway; it is fetched again next time
+      }
+
+      return handler.handle(new StoredResponse(response.request(), body, eTag, lastModified));
+    };
+  }
+
+  /**
+   * Sends the given request and runs the handler on the response.
+   *
+   * @param <R>     the result type of the handler.
+   * @param request the request to send.
+   * @param handler the handler that converts the response to a result.
+   * 
+   * @return a future of the handler's result.
+   */
+  private <R> CompletableFuture<R> exchangeAsync(HttpRequest request, BaseQuery.ResponseHandler<R> handler) {
+    final CompletableFuture<HttpResponse<InputStream>> responseFuture = this.sendAuthorizedAsync(request);
+
+    final CompletableFuture<R> result = responseFuture
+        .handleAsync((response, throwable) -> {
+          if (throwable != null) {
+            throw new CompletionException(BaseQuery.toQueryException(throwable));
+          }
+
+          final InputStream body = response.body();
+
+          try (body) {
+            final long startNanos = System.nanoTime();
+            final R value = handler.handle(response);
+
+            this.client.recordBody(request.uri(), this.bytesReceived, System.nanoTime() - startNanos);
+            return value;
+          } catch (IOException | QueryException exception) {
+            throw new CompletionException(BaseQuery.toQueryException(exception));
+          }
+        }, this.client.getExecutor());
+
+    // Abort the exchange if the caller gives up on the result
+    result.whenComplete((value, throwable) -> {
+      if (result.isCancelled()) {
+        responseFuture.cancel(true);
+      }
+    });
+
+    return result;
+  }
+
+  /**
+   * Sends the given request and, if the server answers 401 Unauthorized to an
+   * idempotent request, replays it once with refreshed credentials.
+   *
+   * Concurrent queries that are rejected with the same token share a single
+   * refresh through the client's token refresher. A query rejected with a token
+   * that has already been replaced is replayed with the current credentials
+   * without another refresh.
+   *
+   * @param request the request to send.
+   * 
+   * @return a future of the final response.
+   */
+  private CompletableFuture<HttpResponse<InputStream>> sendAuthorizedAsync(HttpRequest request) {
+    final TokenRefresher tokenRefresher = this.client.getTokenRefresher();
+
+    if (tokenRefresher == null
+        || this.credentials == null
+        || !BaseQuery.HttpMethod.GET.name().equals(request.method())) {
+      return this.sendOnceAsync(request);
+    }
+
+    final CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+    final AtomicReference<CompletableFuture<?>> current = new AtomicReference<>();
+    final CompletableFuture<HttpResponse<InputStream>> first = this.sendOnceAsync(request);
+
+    current.set(first);
+
+    // Abort the running stage if the caller gives up on the result
+    result.whenComplete((response, throwable) -> {
+      if (result.isCancelled()) {
+        current.get().cancel(true);
+      }
+    });
+
+    first.whenComplete((response, throwable) -> {
+      if (throwable != null) {
+        result.completeExceptionally(throwable);
+        return;
+      }
+
+      if (response.statusCode() != 401) {
+        BaseQuery.completeOrClose(result, response);
+        return;
+      }
+
+      BaseQuery.closeQuietly(response.body());
+      this.client.getStatistics().recordUnauthorizedReplay();
+
+      final CompletableFuture<TidalCredentials> refresh = this.getReplayCredentialsAsync(tokenRefresher);
+      current.set(refresh);
+
+      refresh.whenComplete((credentials, refreshFailure) -> {
+        if (refreshFailure != null) {
+          result.completeExceptionally(new QueryException(new UnauthorizedException()));
+          return;
+        }
+
+        if (result.isDone()) {
+          return;
+        }
+
+        final CompletableFuture<HttpResponse<InputStream>> replay = this
+            .sendOnceAsync(BaseQuery.withAuthorization(request, credentials));
+        current.set(replay);
+
+        replay.whenComplete((replayResponse, replayFailure) -> {
+          if (replayFailure != null) {
+            result.completeExceptionally(replayFailure);
+          } else {
+            BaseQuery.completeOrClose(result, replayResponse);
+          }
+        });
+
+        if (result.isCancelled()) {
+          replay.cancel(true);
+        }
+      });
+    });
+
+    return result;
+  }
+
+  /**
+   * Gets the credentials to replay a rejected request with. If the stored
+   * credentials have already been replaced since this query was built, they
+   * are used as is; otherwise a refresh is started or joined.
+   *
+   * @param tokenRefresher the token refresher of the client.
+   * 
+   * @return a future of the credentials.
+   */
+  private CompletableFuture<TidalCredentials> getReplayCredentialsAsync(TokenRefresher tokenRefresher) {
+    final TidalCredentials stored = tokenRefresher.getCredentialsStore().getCredentials();
+
+    if (stored != null
+        && stored.getExpiresInMillis() > 0
+        && !stored.getAccessToken().equals(this.credentials.getAccessToken())) {
+      return CompletableFuture.completedFuture(stored);
+    }
+
+    return tokenRefresher.refreshAsync();
+  }
+
+  /**
+   * Sends the given request, hedging it if the query is hedged.
+   *
+   * @param request the request to send.
+   * 
+   * @return a future of the response.
+   */
+  private CompletableFuture<HttpResponse<InputStream>> sendOnceAsync(HttpRequest request) {
+    final boolean hedge = this.hedged
+        && this.client.getHedgingPolicy().isEnabled()
+        && BaseQuery.HttpMethod.GET.name().equals(request.method());
+
+    return hedge ? this.sendHedgedAsync(request) : this.sendWithRetriesAsync(request);
+  }
+
+  /**
+   * Copies the given request with the access token of the given credentials.
+   *
+   * @param request     the request to copy.
+   * @param credentials the new credentials.
+   * 
+   * @return the request to send.
+   */
+  private static HttpRequest withAuthorization(HttpRequest request, TidalCredentials credentials) {
+    return HttpRequest.newBuilder(request, (name, value) -> !name.equalsIgnoreCase("Authorization"))
+        .header("Authorization", "Bearer " + credentials.getAccessToken())
+        .build();
+  }
+
+  /**
+   * Completes the given future with a response, or closes the response body if
+   * the future has already completed.
+   *
+   * @param result   the future to complete.
+   * @param response the response.
+   */
+  private static void completeOrClose(CompletableFuture<HttpResponse<InputStream>> result,
+      HttpResponse<InputStream> response) {
+    if (!result.complete(response)) {
+      BaseQuery.closeQuietly(response.body());
+    }
+  }
+
+  /**
+   * Sends the given request, retrying transient failures of idempotent
+   * requests according to the retry policy of the client.
+   *
+   * @param request the request to send.
+   * 
+   * @return a future of the final response.
+   */
+  private CompletableFuture<HttpResponse<InputStream>> sendWithRetriesAsync(HttpRequest request) {
+    final RetryPolicy retryPolicy = this.client.getRetryPolicy();
+
+    if (!retryPolicy.isEnabled() || !BaseQuery.HttpMethod.GET.name().equals(request.method())) {
+      return this.client.sendAsync(request);
+    }
+
+    final CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+    this.attempt(request, request, retryPolicy.start(), result);
+    return result;
+  }
+
+  /**
+   * Sends one attempt of a retried request.
+   *
+   * @param original the request as built.
+   * @param request  the request of this attempt.
+   * @param attempts the retry state of the request.
+   * @param result   the future to complete with the final response.
+   */
+  private void attempt(HttpRequest original, HttpRequest request, RetryPolicy.Attempts attempts,
+      CompletableFuture<HttpResponse<InputStream>> result) {
+    if (result.isDone()) {
+      // Cancelled while waiting for the retry
+      return;
+    }
+
+    final RetryPolicy retryPolicy = this.client.getRetryPolicy();
+    final CompletableFuture<HttpResponse<InputStream>> exchange = this.client.sendAsync(request);
+
+    result.whenComplete((response, throwable) -> {
+      if (result.isCancelled()) {
+        exchange.cancel(true);
+      }
+    });
+
+    exchange.whenComplete((response, throwable) -> {
+      final boolean retryable = throwable != null
+          ? RetryPolicy.isRetryable(throwable)
+          : RetryPolicy.isRetryable(response.statusCode());
+
+      if (!retryable) {
+        if (throwable == null) {
+          retryPolicy.recordSuccess();
+        }
+      } else {
+        final Duration delay = attempts.next();
+
+        if (delay != null) {
+          if (response != null) {
+            BaseQuery.closeQuietly(response.body());
+          }
+
+          this.retries.incrementAndGet();
+          this.client.getStatistics().recordRetry();
+          this.client.recordRetry(original.uri());
+
+          CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, this.client.getExecutor())
+              .execute(() -> this.attempt(original, BaseQuery.withTimeout(original, attempts.remaining()), attempts,
+                  result));
+          return;
+        }
+      }
+
+      if (throwable != null) {
+        result.completeExceptionally(throwable);
+      } else if (!result.complete(response)) {
+        BaseQuery.closeQuietly(response.body());
+      }
+    });
+  }
+
+  /**
+   * Sends the given request and, if it is not answered within the hedging
+   * delay, a duplicate of it. The first response completes the returned future
+   * and the other request is cancelled. A retryable status, e.g. a fast 503
+   * from an overloaded backend, only completes the future if the other request
+   * fails too.
+   *
+   * The latency of a request that loses is recorded as the time until it was
+   * cancelled. That is a lower bound, but leaving it out would hide the slow
+   * responses the hedging delay is meant to measure.
+   *
+   * @param request the request to send.
+   * 
+   * @return a future of the first response.
+   */
+  private CompletableFuture<HttpResponse<InputStream>> sendHedgedAsync(HttpRequest request) {
+    final HedgingPolicy hedgingPolicy = this.client.getHedgingPolicy();
+    final CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+    final AtomicInteger pending = new AtomicInteger(1);
+    final AtomicBoolean decided = new AtomicBoolean();
+    final AtomicReference<HttpResponse<InputStream>> deferred = new AtomicReference<>();
+    final AtomicReference<CompletableFuture<HttpResponse<InputStream>>> hedge = new AtomicReference<>();
+
+    final long start = System.nanoTime();
+    final CompletableFuture<HttpResponse<InputStream>> primary = this.sendWithRetriesAsync(request);
+
+    primary.whenComplete((response, throwable) -> {
+      if (throwable == null || (primary.isCancelled() && !result.isCancelled())) {
+        hedgingPolicy.recordLatency(System.nanoTime() - start);
+      }
+
+      if (this.completeHedged(result, pending, decided, deferred, response, throwable, null)) {
+        final CompletableFuture<HttpResponse<InputStream>> loser = hedge.get();
+
+        if (loser != null) {
+          loser.cancel(true);
+        }
+      }
+    });
+
+    final long delayNanos = hedgingPolicy.getDelayNanos();
+
+    if (delayNanos >= 0) {
+      CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, this.client.getExecutor()).execute(() -> {
+        if (result.isDone() || !hedgingPolicy.tryAcquire()) {
+          return;
         }
 
-        if (outputStreamWriter != null) {
-          outputStreamWriter.close();
+        pending.incrementAndGet();
+        this.client.getStatistics().recordHedgeSent();
+
+        final long hedgeStart = System.nanoTime();
+        final CompletableFuture<HttpResponse<InputStream>> duplicate = this.sendWithRetriesAsync(request);
+        hedge.set(duplicate);
+
+        duplicate.whenComplete((response, throwable) -> {
+          hedgingPolicy.release();
+
+          if (throwable == null || (duplicate.isCancelled() && !result.isCancelled())) {
+            hedgingPolicy.recordLatency(System.nanoTime() - hedgeStart);
+          }
+
+          // A win is counted before the caller sees the response
+          if (this.completeHedged(result, pending, decided, deferred, response, throwable,
+              this.client.getStatistics()::recordHedgeWon)) {
+            primary.cancel(true);
+          }
+        });
+
+        if (result.isDone()) {
+          // The primary request completed while the hedge was being sent
+          duplicate.cancel(true);
         }
+      });
+    }
 
-        if (outputStream != null) {
-          outputStream.close();
+    // Abort both requests if the caller gives up on the result
+    result.whenComplete((response, throwable) -> {
+      if (result.isCancelled()) {
+        primary.cancel(true);
+
+        final CompletableFuture<HttpResponse<InputStream>> duplicate = hedge.get();
+
+        if (duplicate != null) {
+          duplicate.cancel(true);
         }
-      } catch (IOException cleanupException) {
-        // no-op
       }
+    });
 
-      if (exception instanceof QueryException) {
-        throw new QueryException((QueryException) exception);
+    return result;
+  }
+
+  /**
+   * Completes a hedged exchange with the outcome of one of its requests. A
+   * response with a status that is not retryable always wins. A retryable
+   * status or a failure only completes the exchange once no other request is
+   * pending; until then a retryable response is deferred, and it wins over a
+   * later failure.
+   *
+   * @param result    the future of the hedged exchange.
+   * @param pending   the number of requests still pending.
+   * @param decided   whether an outcome has already won the exchange.
+   * @param deferred  the retryable response waiting for the other request.
+   * @param response  the response of the request, or null if it failed.
+   * @param throwable the failure of the request, or null if it succeeded.
+   * @param onWin     run before the exchange is completed with this request's
+   *                  response (nullable).
+   * 
+   * @return true if this outcome completed the exchange.
+   */
+  private boolean completeHedged(CompletableFuture<HttpResponse<InputStream>> result, AtomicInteger pending,
+      AtomicBoolean decided, AtomicReference<HttpResponse<InputStream>> deferred, HttpResponse<InputStream> response,
+      Throwable throwable, Runnable onWin) {
+    final int remaining = pending.decrementAndGet();
+
+    if (remaining > 0 && (throwable != null || RetryPolicy.isRetryable(response.statusCode()))) {
+      if (response != null) {
+        final HttpResponse<InputStream> previous = deferred.getAndSet(response);
+
+        if (previous != null) {
+          BaseQuery.closeQuietly(previous.body());
+        }
+      }
+
+      return false;
+    }
+
+    final HttpResponse<InputStream> earlier = deferred.getAndSet(null);
+
+    if (response == null && earlier == null) {
+      return decided.compareAndSet(false, true) && result.completeExceptionally(throwable);
+    }
+
+    if (response != null && earlier != null) {
+      BaseQuery.closeQuietly(earlier.body());
+    }
+
+    final HttpResponse<InputStream> outcome = response != null ? response : earlier;
+
+    if (!result.isDone() && decided.compareAndSet(false, true)) {
+      if (onWin != null && outcome == response) {
+        onWin.run();
       }
 
+      if (result.complete(outcome)) {
+        return true;
+      }
+    }
+
+    BaseQuery.closeQuietly(outcome.body());
+    return false;
+  }
+
+  /**
+   * Copies the given request with its timeout shortened to the time left until
+   * the deadline, so that a retry does not outlive it.
+   *
+   * @param request   the request to copy.
+   * @param remaining the time left until the deadline.
+   * 
+   * @return the request to send.
+   */
+  private static HttpRequest withTimeout(HttpRequest request, Duration remaining) {
+    final Duration timeout = request.timeout()
+        .filter(requestTimeout -> requestTimeout.compareTo(remaining) <= 0)
+        .orElse(remaining);
+
+    if (timeout.isZero()) {
+      return request;
+    }
+
+    return HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+  }
+
+  /**
+   * Closes the given body stream, ignoring errors.
+   *
+   * @param body the body stream of a discarded response.
+   */
+  private static void closeQuietly(InputStream body) {
+    try {
+      body.close();
+    } catch (IOException exception) {
+      // The connection is dropped instead of returned to the pool
+    }
+  }
+
+  /**
+   * Waits for the given future to complete and returns its result. Used by the
+   * blocking variants of the execute and controller methods.
+   *
+   * @param <R>    the result type.
+   * @param future the future to wait for.
+   * 
+   * @return the result of the future.
+   * 
+   * @throws QueryException if the future fails or the waiting thread is
+   *                        interrupted.
+   */
+  public static <R> R await(CompletableFuture<R> future) throws QueryException {
+    try {
+      return future.get();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
       throw new QueryException(exception);
+    } catch (ExecutionException exception) {
+      throw new QueryException(BaseQuery.toQueryException(exception.getCause()));
+    }
+  }
+
+  /**
+   * Converts the given throwable to a QueryException, unwrapping completion
+   * wrappers.
+   *
+   * @param throwable the throwable to convert.
+   * 
+   * @return the throwable as a QueryException.
+   */
+  public static QueryException toQueryException(Throwable throwable) {
+    Throwable cause = throwable;
+
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
     }
+
+    if (cause instanceof QueryException) {
+      return (QueryException) cause;
+    }
+
+    if (cause instanceof Exception) {
+      return new QueryException((Exception) cause);
+    }
+
+    return new QueryException(String.valueOf(cause));
+  }
+
+  /**
+   * Converts an HTTP response to a result. Implementations may read the body
+   * stream; it is closed by the caller afterwards.
+   *
+   * @param <R> the result type.
+   */
+  @FunctionalInterface
+  protected static interface ResponseHandler<R> {
+
+    /**
+     * Converts the given response to a result.
+     * 
+     * @param response the response with an unread body stream.
+     * 
+     * @return the result.
+     * 
+     * @throws IOException    if the body cannot be read.
+     * @throws QueryException if the response is not acceptable.
+     */
+    R handle(HttpResponse<InputStream> response) throws IOException, QueryException;
   }
 
   /**
@@ -0,0 +1,323 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.lm_pakkanen.tidal_api.interfaces.CircuitBreakerListener;
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+
+/**
+ * Circuit breaker of one host and endpoint family, e.g. the tracks endpoints
+ * of openapi.tidal.com.
+ * 
+ * While closed, the breaker counts successful and failed requests over a
+ * rolling time window. Once enough requests have been sent and the share of
+ * failures reaches the threshold, the breaker opens and requests fail at once
+ * without being sent. After the open duration, the breaker lets a few probe
+ * requests through: if they all succeed it closes again, and if any fails it
+ * opens for another period.
+ * 
+ * The breaker does not lock; the state is changed with compare-and-set.
+ */
+public final class CircuitBreaker {
+  private static final int BUCKET_COUNT = 10;
+
+  private final String name;
+  private final double failureRateThreshold;
+  private final int minimumRequests;
+  private final long bucketNanos;
+  private final long openNanos;
+  private final int halfOpenProbes;
+  private final List<CircuitBreakerListener> listeners;
+
+  private final AtomicReference<CircuitBreaker.State> state;
+  private final AtomicReferenceArray<CircuitBreaker.Bucket> buckets;
+  private final AtomicInteger probePermits;
+  private final AtomicInteger probeSuccesses;
+  private volatile long openedAtNanos;
+
+  /**
+   * Represents the state of a circuit breaker.
+   */
+  public static enum State {
+
+    /**
+     * Requests are sent and their outcomes counted.
+     */
+    CLOSED,
+
+    /**
+     * Requests fail without being sent.
+     */
+    OPEN,
+
+    /**
+     * A limited number of probe requests are sent to test whether the endpoints
+     * have recovered.
+     */
+    HALF_OPEN
+  }
+
+  /**
+   * Request counts of one slice of the rolling window.
+   */
+  private static final class Bucket {
+    private final long index;
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Constructs a new empty bucket.
+     * 
+     * @param index the index of the time slice.
+     */
+    private Bucket(long index) {
+      this.index = index;
+    }
+  }
+
+  /**
+   * Constructs a new closed circuit breaker.
+   * 
+   * @param name      the name of the breaker, the host and endpoint family.
+   * @param settings  the transport settings.
+   * @param listeners the listeners notified of state changes.
+   */
+  CircuitBreaker(String name, ClientSettings settings, List<CircuitBreakerListener> listeners) {
+    this.name = name;
+    this.failureRateThreshold = settings.getCircuitBreakerFailureRateThreshold();
+    this.minimumRequests = settings.getCircuitBreakerMinimumRequests();
+    this.bucketNanos = Math.max(settings.getCircuitBreakerWindow().toNanos() / CircuitBreaker.BUCKET_COUNT, 1L);
+    this.openNanos = settings.getCircuitBreakerOpenDuration().toNanos();
+    this.halfOpenProbes = settings.getCircuitBreakerHalfOpenProbes();
+    this.listeners = listeners;
+
+    this.state = new AtomicReference<>(CircuitBreaker.State.CLOSED);
+    this.buckets = new AtomicReferenceArray<>(CircuitBreaker.BUCKET_COUNT);
+    this.probePermits = new AtomicInteger();
+    this.probeSuccesses = new AtomicInteger();
+  }
+
+  /**
+   * Gets the name of this breaker.
+   * 
+   * @return the host and endpoint family, e.g. "openapi.tidal.com/tracks".
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * Gets the current state of this breaker.
+   * 
+   * @return the current state.
+   */
+  public CircuitBreaker.State getState() {
+    return this.state.get();
+  }
+
+  /**
+   * Gets the share of failed requests in the rolling window.
+   * 
+   * @return the failure rate between 0 and 1, 0 if no requests were counted.
+   */
+  public double getFailureRate() {
+    final long[] counts = this.countWindow(this.currentBucketIndex());
+    final long total = counts[0] + counts[1];
+    return total == 0 ? 0 : (double) counts[1] / total;
+  }
+
+  /**
+   * Asks to send a request.
+   * 
+   * @return the state the request was admitted in, or null if the request must
+   *         not be sent.
+   */
+  CircuitBreaker.State tryAcquire() {
+    final CircuitBreaker.State current = this.state.get();
+
+    if (current == CircuitBreaker.State.CLOSED) {
+      return current;
+    }
+
+    if (current == CircuitBreaker.State.OPEN) {
+      if (System.nanoTime() - this.openedAtNanos < this.openNanos) {
+        return null;
+      }
+
+      if (this.state.compareAndSet(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN)) {
+        this.probeSuccesses.set(0);
+        this.probePermits.set(this.halfOpenProbes);
+        this.notifyListeners(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN);
+      }
+    }
+
+    if (this.state.get() == CircuitBreaker.State.HALF_OPEN && this.probePermits.getAndDecrement() > 0) {
+      return CircuitBreaker.State.HALF_OPEN;
+    }
+
+    return null;
+  }
+
+  /**
+   * Records the outcome of a request.
+   * 
+   * @param admittedIn the state the request was admitted in.
+   * @param success    whether the request succeeded.
+   */
+  void record(CircuitBreaker.State admittedIn, boolean success) {
+    if (admittedIn == CircuitBreaker.State.HALF_OPEN) {
+      this.recordProbe(success);
+      return;
+    }
+
+    final long index = this.currentBucketIndex();
+    final CircuitBreaker.Bucket bucket = this.bucketAt(index);
+
+    if (success) {
+      bucket.successes.increment();
+      return;
+    }
+
+    bucket.failures.increment();
+
+    final long[] counts = this.countWindow(index);
+    final long total = counts[0] + counts[1];
+
+    if (total >= this.minimumRequests && (double) counts[1] / total >= this.failureRateThreshold) {
+      this.open(CircuitBreaker.State.CLOSED);
+    }
+  }
+
+  /**
+   * Gives back the permit of a request that was cancelled before completing.
+   * 
+   * @param admittedIn the state the request was admitted in.
+   */
+  void release(CircuitBreaker.State admittedIn) {
+    if (admittedIn == CircuitBreaker.State.HALF_OPEN) {
+      this.probePermits.incrementAndGet();
+    }
+  }
+
+  /**
+   * Records the outcome of a probe request.
+   * 
+   * @param success whether the probe succeeded.
+   */
+  private void recordProbe(boolean success) {
+    if (!success) {
+      this.open(CircuitBreaker.State.HALF_OPEN);
+      return;
+    }
+
+    if (this.probeSuccesses.incrementAndGet() >= this.halfOpenProbes) {
+      for (int i = 0; i < CircuitBreaker.BUCKET_COUNT; i++) {
+        this.buckets.set(i, null);
+      }
+
+      this.transition(CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED);
+    }
+  }
+
+  /**
+   * Opens the breaker.
+   * 
+   * @param from the state the breaker is expected to be in.
+   */
+  private void open(CircuitBreaker.State from) {
+    if (this.state.get() != from) {
+      return;
+    }
+
+    this.openedAtNanos = System.nanoTime();
+    this.transition(from, CircuitBreaker.State.OPEN);
+  }
+
+  /**
+   * Changes the state if it still is the expected one.
+   * 
+   * @param from the expected state.
+   * @param to   the new state.
+   */
+  private void transition(CircuitBreaker.State from, CircuitBreaker.State to) {
+    if (this.state.compareAndSet(from, to)) {
+      this.notifyListeners(from, to);
+    }
+  }
+
+  /**
+   * Notifies the listeners of a state change.
+   * 
+   * @param from the previous state.
+   * @param to   the new state.
+   */
+  private void notifyListeners(CircuitBreaker.State from, CircuitBreaker.State to) {
+    for (CircuitBreakerListener listener : this.listeners) {
+      try {
+        listener.onStateChange(this, from, to);
+      } catch (RuntimeException exception) {
+        // A failing listener must not fail the request that caused the change
+      }
+    }
+  }
+
+  /**
+   * Gets the index of the current time slice.
+   * 
+   * @return the index of the current time slice.
+   */
+  private long currentBucketIndex() {
+    return System.nanoTime() / this.bucketNanos;
+  }
+
+  /**
+   * Gets the bucket of the given time slice, replacing an outdated one.
+   * 
+   * @param index the index of the time slice.
+   * 
+   * @return the bucket.
+   */
+  private CircuitBreaker.Bucket bucketAt(long index) {
+    final int slot = (int) Math.floorMod(index, (long) CircuitBreaker.BUCKET_COUNT);
+
+    while (true) {
+      final CircuitBreaker.Bucket bucket = this.buckets.get(slot);
+
+      if (bucket != null && bucket.index == index) {
+        return bucket;
+      }
+
+      final CircuitBreaker.Bucket fresh = new CircuitBreaker.Bucket(index);
+
+      if (this.buckets.compareAndSet(slot, bucket, fresh)) {
+        return fresh;
+      }
+    }
+  }
+
+  /**
+   * Sums the buckets of the rolling window.
+   * 
+   * @param index the index of the current time slice.
+   * 
+   * @return the number of successes and failures.
+   */
+  private long[] countWindow(long index) {
+    final long[] counts = new long[2];
+
+    for (int i = 0; i < CircuitBreaker.BUCKET_COUNT; i++) {
+      final CircuitBreaker.Bucket bucket = this.buckets.get(i);
+
+      if (bucket != null && index - bucket.index < CircuitBreaker.BUCKET_COUNT) {
+        counts[0] += bucket.successes.sum();
+        counts[1] += bucket.failures.sum();
+      }
+    }
+
+    return counts;
+  }
+}
@@ -0,0 +1,98 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.github.lm_pakkanen.tidal_api.interfaces.CircuitBreakerListener;
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+
+/**
+ * Circuit breakers of a {@link QueryClient}, one per host and endpoint family.
+ * 
+ * The family is the first segment of the request path, e.g. "tracks" or
+ * "artists". Requests to the OAuth 2 token endpoint share the family "auth".
+ */
+final class CircuitBreakerRegistry {
+  private final ClientSettings settings;
+  private final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers;
+  private final List<CircuitBreakerListener> listeners;
+
+  /**
+   * Constructs a new registry without breakers.
+   * 
+   * @param settings the transport settings.
+   */
+  CircuitBreakerRegistry(ClientSettings settings) {
+    this.settings = settings;
+    this.circuitBreakers = new ConcurrentHashMap<>();
+    this.listeners = new CopyOnWriteArrayList<>();
+  }
+
+  /**
+   * Gets the breaker of the given request URI, creating it on first use.
+   * 
+   * @param uri the request URI.
+   * 
+   * @return the circuit breaker.
+   */
+  CircuitBreaker forUri(URI uri) {
+    final String name = CircuitBreakerRegistry.nameOf(uri);
+    return this.circuitBreakers.computeIfAbsent(name,
+        key -> new CircuitBreaker(key, this.settings, this.listeners));
+  }
+
+  /**
+   * Gets the breakers created so far.
+   * 
+   * @return the circuit breakers.
+   */
+  Collection<CircuitBreaker> getCircuitBreakers() {
+    return this.circuitBreakers.values();
+  }
+
+  /**
+   * Adds a listener notified of the state changes of all breakers.
+   * 
+   * @param listener the listener to add.
+   */
+  void addListener(CircuitBreakerListener listener) {
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener.
+   * 
+   * @param listener the listener to remove.
+   */
+  void removeListener(CircuitBreakerListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Gets the breaker name of the given request URI.
+   * 
+   * @param uri the request URI.
+   * 
+   * @return the host and the endpoint family, e.g. "openapi.tidal.com/tracks".
+   */
+  static String nameOf(URI uri) {
+    final String host = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    final String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+
+    if (path.contains("/oauth2/")) {
+      return host + "/auth";
+    }
+
+    for (String segment : path.split("/")) {
+      // Skip version prefixes such as v1 and v2
+      if (!segment.isEmpty() && !segment.matches("v\\d+")) {
+        return host + "/" + segment;
+      }
+    }
+
+    return host + "/";
+  }
+}
@@ -0,0 +1,128 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+
+/**
+ * Decides when a hedged query sends a duplicate request.
+ * 
+ * The policy keeps the latencies of the most recent hedged requests in a ring
+ * and hedges a request once it has been outstanding for longer than the
+ * configured percentile of them. A budget caps the number of hedges in flight,
+ * so a slow server is not sent twice the load.
+ */
+final class HedgingPolicy {
+  private static final int SAMPLE_COUNT = 512;
+  private static final int MINIMUM_SAMPLES = 20;
+  private static final int RECOMPUTE_INTERVAL = 32;
+
+  private final boolean enabled;
+  private final double percentile;
+  private final int maxInFlight;
+  private final AtomicLongArray samples;
+  private final AtomicLong recorded;
+  private final AtomicInteger inFlight;
+  private volatile long delayNanos;
+
+  /**
+   * Constructs a new hedging policy from the given settings.
+   * 
+   * @param settings the transport settings.
+   */
+  HedgingPolicy(ClientSettings settings) {
+    this.enabled = settings.isHedgingEnabled();
+    this.percentile = settings.getHedgingPercentile();
+    this.maxInFlight = settings.getHedgingMaxInFlight();
+    this.samples = new AtomicLongArray(HedgingPolicy.SAMPLE_COUNT);
+    this.recorded = new AtomicLong();
+    this.inFlight = new AtomicInteger();
+    this.delayNanos = -1;
+  }
+
+  /**
+   * Gets whether hedging is enabled.
+   * 
+   * @return true if hedged queries may send duplicate requests.
+   */
+  boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Gets how long to wait for a response before hedging.
+   * 
+   * @return the delay in nanoseconds, or -1 if too few latencies have been
+   *         observed yet.
+   */
+  long getDelayNanos() {
+    return this.delayNanos;
+  }
+
+  /**
+   * Records the latency of a hedged request that received a response.
+   * 
+   * @param latencyNanos the time until the response headers arrived.
+   */
+  void recordLatency(long latencyNanos) {
+    final long count = this.recorded.getAndIncrement();
+    this.samples.set((int) (count % HedgingPolicy.SAMPLE_COUNT), latencyNanos);
+
+    final long total = count + 1;
+
+    if (total >= HedgingPolicy.MINIMUM_SAMPLES
+        && (total == HedgingPolicy.MINIMUM_SAMPLES || total % HedgingPolicy.RECOMPUTE_INTERVAL == 0)) {
+      this.delayNanos = this.computeDelay(total);
+    }
+  }
+
+  /**
+   * Takes a slot from the hedge budget.
+   * 
+   * @return true if a hedge may be sent.
+   */
+  boolean tryAcquire() {
+    while (true) {
+      final int current = this.inFlight.get();
+
+      if (current >= this.maxInFlight) {
+        return false;
+      }
+
+      if (this.inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns a slot to the hedge budget once a hedge completes.
+   */
+  void release() {
+    this.inFlight.decrementAndGet();
+  }
+
+  /**
+   * Computes the configured percentile of the recorded latencies.
+   * 
+   * @param total the number of latencies recorded so far.
+   * 
+   * @return the percentile in nanoseconds.
+   */
+  private long computeDelay(long total) {
+    final int size = (int) Math.min(total, HedgingPolicy.SAMPLE_COUNT);
+    final long[] sorted = new long[size];
+
+    for (int i = 0; i < size; i++) {
+      sorted[i] = this.samples.get(i);
+    }
+
+    Arrays.sort(sorted);
+
+    final int index = (int) Math.min(Math.ceil(this.percentile * size) - 1, size - 1);
+    return sorted[Math.max(index, 0)];
+  }
+}
@@ -0,0 +1,84 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that counts the bytes read from the wrapped stream and fails
+ * once more than a maximum number of bytes has been read. Protects the decoder
+ * from unbounded response bodies.
+ */
+final class LimitedInputStream extends FilterInputStream {
+  private final long maxBytes;
+  private long bytesRead;
+
+  /**
+   * Constructs a new limited input stream.
+   * 
+   * @param inputStream the stream to wrap.
+   * @param maxBytes    the maximum number of bytes that may be read.
+   */
+  LimitedInputStream(InputStream inputStream, long maxBytes) {
+    super(inputStream);
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Gets the number of bytes read so far.
+   * 
+   * @return the number of bytes read so far.
+   */
+  long getBytesRead() {
+    return this.bytesRead;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final int value = super.read();
+
+    if (value != -1) {
+      this.count(1);
+    }
+
+    return value;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    final int count = super.read(buffer, offset, length);
+
+    if (count > 0) {
+      this.count(count);
+    }
+
+    return count;
+  }
+
+  @Override
+  public long skip(long count) throws IOException {
+    final long skipped = super.skip(count);
+    this.count(skipped);
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  /**
+   * Adds to the number of bytes read and fails if the limit is exceeded.
+   * 
+   * @param count the number of bytes read.
+   * 
+   * @throws IOException if the limit is exceeded.
+   */
+  private void count(long count) throws IOException {
+    this.bytesRead += count;
+
+    if (this.bytesRead > this.maxBytes) {
+      throw new IOException("Response body exceeds the maximum size of " + this.maxBytes + " bytes.");
+    }
+  }
+}
@@ -1,8 +1,9 @@
 package io.github.lm_pakkanen.tidal_api.models.queries;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.jr.ob.JSON;
 
@@ -32,6 +33,18 @@ public class ListQuery extends BaseQuery {
     this.url = url;
   }
 
+  /**
+   * Constructs a new list query with the given URL that is sent through the
+   * given query client.
+   * 
+   * @param client the query client to send the query with.
+   * @param url    the URL to be called.
+   */
+  public ListQuery(QueryClient client, String url) {
+    super(client);
+    this.url = url;
+  }
+
   /**
    * Sets the HTTP method of the query.
    * 
@@ -201,14 +214,18 @@ public class ListQuery extends BaseQuery {
    * @throws QueryException if the query fails.
    */
   public int execute() throws QueryException {
-    final HttpURLConnection connection = super.build(url);
+    return BaseQuery.await(this.executeAsync());
+  }
 
-    try {
-      final int statusCode = connection.getResponseCode();
-      return statusCode;
-    } catch (IOException exception) {
-      throw new QueryException(exception);
-    }
+  /**
+   * Executes this instance query asynchronously and returns the HTTP status
+   * code.
+   * 
+   * @return a future of the HTTP status code. Fails with a QueryException if
+   *         the query fails.
+   */
+  public CompletableFuture<Integer> executeAsync() {
+    return super.sendAsync(url, response -> response.statusCode());
   }
 
   /**
@@ -229,9 +246,29 @@ public class ListQuery extends BaseQuery {
   public <T, TList extends TidalListResponse<?>> ListQueryResult<T> execute(Class<T> toBean, Class<TList> toListBean,
       String pathInResponse)
       throws QueryException {
+    return BaseQuery.await(this.executeAsync(toBean, toListBean, pathInResponse));
+  }
+
+  /**
+   * Executes this instance query asynchronously and returns the response as an
+   * instance of a provided model class.
+   * 
+   * @param <T>            the model class.
+   * @param <TList>        the list model class.
+   * @param toBean         the model class.
+   * @param toListBean     the list model class.
+   * @param pathInResponse the path in the response to the list of items.
+   * 
+   * @return a future of the response as an instance of ListQueryResult. The
+   *         query result status is set to FAILURE if the query fails or throws
+   *         an exception. The future fails with a QueryException only if the
+   *         query is executed with a null pathInResponse.
+   */
+  public <T, TList extends TidalListResponse<?>> CompletableFuture<ListQueryResult<T>> executeAsync(Class<T> toBean,
+      Class<TList> toListBean, String pathInResponse) {
 
     if (pathInResponse == null) {
-      throw new QueryException("pathInResponse cannot be null");
+      return CompletableFuture.failedFuture(new QueryException("pathInResponse cannot be null"));
     }
 
     Integer offset = null;
@@ -245,41 +282,89 @@ public class ListQuery extends BaseQuery {
       limit = (Integer) super.queryParameters.get(this.limitParamName);
     }
 
-    try {
-      final HttpURLConnection connection = super.build(url);
+    final Integer resultOffset = offset;
+    final Integer resultLimit = limit;
 
-      final int statusCode = connection.getResponseCode();
+    return this.executeResponseAsync(toListBean).handle((listResponse, throwable) -> {
+      if (throwable == null) {
+        final String message = null;
 
-      if (statusCode < 200 || statusCode >= 300) {
-        throw new QueryException("Request failed with status code " + statusCode);
+        @SuppressWarnings("unchecked")
+        final List<T> items = (List<T>) listResponse.getData();
+
+        return new ListQueryResult<T>(ListQueryResult.Status.SUCCESS, message, items, resultOffset, resultLimit,
+            super.getRetries());
       }
 
-      final String message = null;
+      final QueryException queryException = BaseQuery.toQueryException(throwable);
 
-      final String responseString = BaseQuery.responseToString(connection);
-      final TList listResponse = this.tryGetResponse(toListBean, responseString);
+      final String message = queryException.getMessage();
+      final TList emptyListResponse = this.tryGetResponse(toListBean, "{}");
 
       @SuppressWarnings("unchecked")
-      final List<T> items = (List<T>) listResponse.getData();
+      final List<T> items = (List<T>) emptyListResponse.getData();
 
-      return new ListQueryResult<T>(ListQueryResult.Status.SUCCESS, message, items, offset, limit);
-    } catch (IOException | QueryException exception) {
-      QueryException queryException = null;
+      return new ListQueryResult<>(ListQueryResult.Status.FAILURE, message, items, resultOffset, resultLimit,
+          super.getRetries());
+    });
+  }
 
-      if (exception instanceof QueryException) {
-        queryException = new QueryException((QueryException) exception);
-      } else {
-        queryException = new QueryException(exception);
-      }
+  /**
+   * Executes this instance query asynchronously and returns the whole decoded
+   * response, e.g. to read the resources included next to the list items.
+   * 
+   * @param <TList>    the list model class.
+   * @param toListBean the list model class.
+   * 
+   * @return a future of the decoded response. Fails with a QueryException if
+   *         the query fails.
+   */
+  public <TList extends TidalListResponse<?>> CompletableFuture<TList> executeResponseAsync(
+      Class<TList> toListBean) {
+    return super.sendAsync(url, toListBean, response -> {
+      final int statusCode = response.statusCode();
 
-      final String message = queryException.getMessage();
-      final TList listResponse = this.tryGetResponse(toListBean, "{}");
+      if (statusCode < 200 || statusCode >= 300) {
+        throw new QueryException("Request failed with status code " + statusCode);
+      }
 
-      @SuppressWarnings("unchecked")
-      final List<T> items = (List<T>) listResponse.getData();
+      return super.decode(response, toListBean);
+    });
+  }
 
-      return new ListQueryResult<>(ListQueryResult.Status.FAILURE, message, items, offset, limit);
+  /**
+   * Executes this instance query asynchronously and passes each item of the
+   * response to the given consumer as soon as it has been parsed, instead of
+   * decoding the whole list first. The consumer runs on the client's decoding
+   * executor; while it blocks, no more of the response body is read.
+   * 
+   * The query is never shared with identical queries or answered from the
+   * response cache.
+   * 
+   * @param <T>            the model class of the items.
+   * @param toBean         the model class of the items.
+   * @param pathInResponse the path in the response to the list of items.
+   * @param consumer       the consumer of the items.
+   * 
+   * @return a future of the number of items passed to the consumer. Fails with
+   *         a QueryException if the query fails, or with the exception thrown
+   *         by the consumer.
+   */
+  public <T> CompletableFuture<Integer> executeEachAsync(Class<T> toBean, String pathInResponse,
+      Consumer<? super T> consumer) {
+    if (pathInResponse == null) {
+      return CompletableFuture.failedFuture(new QueryException("pathInResponse cannot be null"));
     }
+
+    return super.sendAsync(url, response -> {
+      final int statusCode = response.statusCode();
+
+      if (statusCode < 200 || statusCode >= 300) {
+        throw new QueryException("Request failed with status code " + statusCode);
+      }
+
+      return super.decodeEach(response, toBean, pathInResponse, consumer);
+    });
   }
 
   /**
@@ -1,8 +1,8 @@
 package io.github.lm_pakkanen.tidal_api.models.queries;
 
-import java.io.IOException;
-import java.net.HttpURLConnection;
-import com.fasterxml.jackson.jr.ob.JSON;
+import java.util.concurrent.CompletableFuture;
+
+import io.github.lm_pakkanen.tidal_api.models.ConditionalResult;
 import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
 import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
 
@@ -24,6 +24,18 @@ public class Query extends BaseQuery {
     this.url = url;
   }
 
+  /**
+   * Constructs a new query with the given URL that is sent through the
+   * given query client.
+   * 
+   * @param client the query client to send the query with.
+   * @param url    the URL to be called.
+   */
+  public Query(QueryClient client, String url) {
+    super(client);
+    this.url = url;
+  }
+
   /**
    * Sets the HTTP method of the query.
    * 
@@ -88,6 +100,41 @@ public class Query extends BaseQuery {
     return this;
   }
 
+  /**
+   * Makes the query conditional on the validators of a previously received
+   * response.
+   * 
+   * @see BaseQuery#validators(String, String)
+   * 
+   * @param eTag         the ETag of the previous response (nullable).
+   * @param lastModified the Last-Modified time of the previous response
+   *                     (nullable).
+   * 
+   * @return this instance.
+   * 
+   * @throws QueryException if the query is already built.
+   */
+  public Query validators(String eTag, String lastModified) throws QueryException {
+    super.validators(eTag, lastModified);
+    return this;
+  }
+
+  /**
+   * Sets whether the query is hedged.
+   * 
+   * @see BaseQuery#hedged(boolean)
+   * 
+   * @param hedged whether the query is hedged.
+   * 
+   * @return this instance.
+   * 
+   * @throws QueryException if the query is already built.
+   */
+  public Query hedged(boolean hedged) throws QueryException {
+    super.hedged(hedged);
+    return this;
+  }
+
   /**
    * Adds a body to the query.
    * 
@@ -128,14 +175,18 @@ public class Query extends BaseQuery {
    * @throws QueryException if the query fails.
    */
   public int execute() throws QueryException {
-    final HttpURLConnection connection = super.build(url);
+    return BaseQuery.await(this.executeAsync());
+  }
 
-    try {
-      final int statusCode = connection.getResponseCode();
-      return statusCode;
-    } catch (IOException exception) {
-      throw new QueryException(exception);
-    }
+  /**
+   * Executes this instance query asynchronously and returns the HTTP status
+   * code.
+   * 
+   * @return a future of the HTTP status code. Fails with a QueryException if
+   *         the query fails.
+   */
+  public CompletableFuture<Integer> executeAsync() {
+    return super.sendAsync(url, response -> response.statusCode());
   }
 
   /**
@@ -150,25 +201,85 @@ public class Query extends BaseQuery {
    * @throws QueryException if the query fails.
    */
   public <T> T execute(Class<T> toBean) throws QueryException {
-    final HttpURLConnection connection = super.build(url);
+    return BaseQuery.await(this.executeAsync(toBean));
+  }
 
-    try {
-      int statusCode = connection.getResponseCode();
+  /**
+   * Executes this instance query asynchronously and returns the response as an
+   * instance of a provided model class.
+   * 
+   * @param <T>    the model class.
+   * @param toBean the model class.
+   * 
+   * @return a future of the response as an instance of the provided model
+   *         class. Fails with a QueryException if the query fails.
+   */
+  public <T> CompletableFuture<T> executeAsync(Class<T> toBean) {
+    return super.sendAsync(url, toBean, httpResponse -> {
+      final int statusCode = httpResponse.statusCode();
 
       if (statusCode != 200) {
         throw new QueryException("Request failed with status code " + statusCode);
       }
 
-      final String response = BaseQuery.responseToString(connection);
-      final T entity = JSON.std.beanFrom(toBean, response);
-
+      final T entity = super.decode(httpResponse, toBean);
       return entity;
-    } catch (IOException | QueryException exception) {
-      if (exception instanceof QueryException) {
-        throw new QueryException((QueryException) exception);
+    });
+  }
+
+  /**
+   * Executes this instance query conditionally and returns either the new
+   * response as an instance of a provided model class, or a confirmation that
+   * the response identified by the validators is still current.
+   * 
+   * @see Query#validators(String, String)
+   * 
+   * @param <T>    the model class.
+   * @param toBean the model class.
+   * 
+   * @return the conditional result.
+   * 
+   * @throws QueryException if the query fails.
+   */
+  public <T> ConditionalResult<T> executeConditional(Class<T> toBean) throws QueryException {
+    return BaseQuery.await(this.executeConditionalAsync(toBean));
+  }
+
+  /**
+   * Executes this instance query conditionally and asynchronously.
+   * 
+   * @see Query#executeConditional(Class)
+   * 
+   * @param <T>    the model class.
+   * @param toBean the model class.
+   * 
+   * @return a future of the conditional result. Fails with a QueryException if
+   *         the query fails.
+   */
+  public <T> CompletableFuture<ConditionalResult<T>> executeConditionalAsync(Class<T> toBean) {
+    final boolean hasValidators = super.eTag != null || super.lastModified != null;
+
+    return super.sendConditionalAsync(url, toBean, httpResponse -> {
+      final int statusCode = httpResponse.statusCode();
+      final String eTag = httpResponse.headers().firstValue("ETag").orElse(null);
+      final String lastModified = httpResponse.headers().firstValue("Last-Modified").orElse(null);
+      final boolean isNetworkResponse = !(httpResponse instanceof StoredResponse);
+
+      if (statusCode == 304 && hasValidators) {
+        super.client.getStatistics().recordRevalidation(true);
+        return new ConditionalResult<T>(true, null, eTag, lastModified);
+      }
+
+      if (statusCode != 200) {
+        throw new QueryException("Request failed with status code " + statusCode);
+      }
+
+      if (hasValidators && isNetworkResponse) {
+        super.client.getStatistics().recordRevalidation(false);
       }
 
-      throw new QueryException(exception);
-    }
+      final T entity = super.decode(httpResponse, toBean);
+      return new ConditionalResult<T>(false, entity, eTag, lastModified);
+    });
   }
 }
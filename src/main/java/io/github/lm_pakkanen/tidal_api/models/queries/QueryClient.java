@@ -0,0 +1,803 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.github.lm_pakkanen.tidal_api.controllers.TokenRefresher;
+import io.github.lm_pakkanen.tidal_api.interfaces.CircuitBreakerListener;
+import io.github.lm_pakkanen.tidal_api.interfaces.MetricsSink;
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.CredentialsStore;
+import io.github.lm_pakkanen.tidal_api.models.cache.DiskResponseCache;
+import io.github.lm_pakkanen.tidal_api.models.events.TimeToFirstByteEvent;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.metrics.InMemoryMetricsSink;
+
+/**
+ * Long-lived HTTP transport used to execute queries against the Tidal API.
+ *
+ * Wraps a single {@link HttpClient} that negotiates HTTP/2 and keeps
+ * connections to the Tidal hosts alive between queries, so that consecutive
+ * queries reuse pooled connections instead of opening new ones.
+ *
+ * Requests are sent asynchronously. No thread is held while a request is in
+ * flight; response bodies are read and decoded on virtual threads.
+ *
+ * All requests of a client share one rate limiter. Requests above the rate are
+ * delayed rather than rejected, and requests answered with 429 Too Many
+ * Requests are sent again once the server's Retry-After has passed.
+ *
+ * Each host and endpoint family has a circuit breaker. While a breaker is
+ * open, requests to its endpoints fail at once with a QueryException instead
+ * of waiting for a failing server.
+ *
+ * A client can be split into tenants with {@link #forTenant(String)}. Tenants
+ * share the connection pool, executor and response cache of the client they
+ * were created from, but have their own credentials, rate limit, retry budget,
+ * circuit breakers and statistics, so that hundreds of tenants can be served
+ * from one JVM without interfering with each other.
+ *
+ * Response status codes, time to headers, body sizes, decode times and
+ * retries are reported per endpoint to a {@link MetricsSink}, by default an
+ * {@link InMemoryMetricsSink} of the client's own.
+ */
+public final class QueryClient implements AutoCloseable {
+  private static final String POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+  private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+  private static final int DEFAULT_POOL_SIZE = 0;
+  private static final long DEFAULT_KEEP_ALIVE_SECONDS = 30;
+  private static final String DEFAULT_TENANT_ID = "default";
+
+  private final ClientSettings settings;
+  private final String tenantId;
+  private final boolean ownsTransport;
+  private final CredentialsStore credentialsStore;
+  private final HttpClient httpClient;
+  private final ExecutorService executor;
+  private final QueryStatistics statistics;
+  private final RequestCoalescer coalescer;
+  private final DiskResponseCache responseCache; // Nullable
+  private final RateLimiter rateLimiter;
+  private final RetryPolicy retryPolicy;
+  private final HedgingPolicy hedgingPolicy;
+  private volatile TokenRefresher tokenRefresher; // Nullable
+  private final CircuitBreakerRegistry circuitBreakers; // Nullable
+  private volatile MetricsSink metricsSink; // Nullable
+
+  /**
+   * Lazily initialized holder for the default client.
+   */
+  private static final class DefaultHolder {
+    private static final QueryClient INSTANCE = new QueryClient(new ClientSettings(), CredentialsStore.getInstance());
+  }
+
+  /**
+   * Constructs a new query client with the given settings.
+   *
+   * @param settings the transport settings.
+   *
+   * @throws IllegalArgumentException if the connection pool settings differ
+   *                                  from the JVM's.
+   * @throws UncheckedIOException     if the persistent response cache cannot be
+   *                                  opened.
+   */
+  public QueryClient(ClientSettings settings) throws IllegalArgumentException, UncheckedIOException {
+    this(settings, new CredentialsStore());
+  }
+
+  /**
+   * Constructs a new query client with the given settings and credentials
+   * store.
+   *
+   * @param settings         the transport settings.
+   * @param credentialsStore the store of the credentials queries are sent with.
+   *
+   * @throws IllegalArgumentException if the connection pool settings differ
+   *                                  from the JVM's.
+   * @throws UncheckedIOException     if the persistent response cache cannot be
+   *                                  opened.
+   */
+  private QueryClient(ClientSettings settings, CredentialsStore credentialsStore)
+      throws IllegalArgumentException, UncheckedIOException {
+    this(settings, QueryClient.DEFAULT_TENANT_ID, credentialsStore,
+        QueryClient.createHttpClient(settings),
+        Executors.newVirtualThreadPerTaskExecutor(),
+        QueryClient.openResponseCache(settings),
+        true);
+  }
+
+  /**
+   * Constructs a new query client on the given transport.
+   *
+   * @param settings         the settings of the client.
+   * @param tenantId         the tenant label of the client.
+   * @param credentialsStore the store of the credentials queries are sent with.
+   * @param httpClient       the HTTP client.
+   * @param executor         the executor used to read and decode responses.
+   * @param responseCache    the persistent response cache (nullable).
+   * @param ownsTransport    whether the transport is closed with this client.
+   */
+  private QueryClient(ClientSettings settings, String tenantId, CredentialsStore credentialsStore,
+      HttpClient httpClient, ExecutorService executor, DiskResponseCache responseCache, boolean ownsTransport) {
+    this.settings = settings;
+    this.tenantId = tenantId;
+    this.credentialsStore = credentialsStore;
+    this.ownsTransport = ownsTransport;
+    this.httpClient = httpClient;
+    this.responseCache = responseCache;
+    this.executor = executor;
+    this.statistics = new QueryStatistics(tenantId);
+    this.coalescer = new RequestCoalescer(this.statistics);
+    this.retryPolicy = new RetryPolicy(settings);
+    this.hedgingPolicy = new HedgingPolicy(settings);
+    this.circuitBreakers = settings.isCircuitBreakerEnabled() ? new CircuitBreakerRegistry(settings) : null;
+    this.rateLimiter = new RateLimiter(settings.getRateLimitPermitsPerSecond(), settings.getRateLimitBurst());
+    this.metricsSink = new InMemoryMetricsSink();
+  }
+
+  /**
+   * Creates a tenant of this client with the same settings.
+   *
+   * @see #forTenant(String, ClientSettings)
+   *
+   * @param tenantId the tenant label, e.g. a customer ID.
+   *
+   * @return the tenant client.
+   */
+  public QueryClient forTenant(String tenantId) {
+    return this.forTenant(tenantId, this.settings);
+  }
+
+  /**
+   * Creates a tenant of this client. The tenant sends its queries over the
+   * connection pool of this client, but has its own credentials store, rate
+   * limiter, retry budget, circuit breakers, token refresher, metrics sink and
+   * statistics labelled with the tenant ID.
+   *
+   * The connection pool, connect timeout and response cache settings of the
+   * given settings are ignored; those of this client apply. Closing the tenant
+   * does not close the shared transport.
+   *
+   * @param tenantId the tenant label, e.g. a customer ID.
+   * @param settings the settings of the tenant.
+   *
+   * @return the tenant client.
+   *
+   * @throws IllegalArgumentException if the tenant ID is null or empty.
+   */
+  public QueryClient forTenant(String tenantId, ClientSettings settings) throws IllegalArgumentException {
+    if (tenantId == null || tenantId.isEmpty()) {
+      throw new IllegalArgumentException("tenantId must not be empty.");
+    }
+
+    return new QueryClient(settings, tenantId, new CredentialsStore(), this.httpClient, this.executor,
+        this.responseCache, false);
+  }
+
+  /**
+   * Gets the tenant label of this client.
+   *
+   * @return the tenant ID, "default" for clients not created as tenants.
+   */
+  public String getTenantId() {
+    return this.tenantId;
+  }
+
+  /**
+   * Gets the store of the credentials queries of this client are sent with.
+   *
+   * @return the credentials store.
+   */
+  public CredentialsStore getCredentialsStore() {
+    return this.credentialsStore;
+  }
+
+  /**
+   * Gets the default query client shared by all queries that are not given a
+   * client explicitly.
+   *
+   * @return the default query client.
+   */
+  public static QueryClient getDefault() {
+    return QueryClient.DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Gets the settings of this client.
+   *
+   * @return the settings of this client.
+   */
+  public ClientSettings getSettings() {
+    return this.settings;
+  }
+
+  /**
+   * Gets the cumulative statistics of the queries sent through this client.
+   *
+   * @return the query statistics.
+   */
+  public QueryStatistics getStatistics() {
+    return this.statistics;
+  }
+
+  /**
+   * Gets the persistent response cache of this client.
+   *
+   * @return the response cache, or null if it is disabled in the settings.
+   */
+  public DiskResponseCache getResponseCache() {
+    return this.responseCache;
+  }
+
+  /**
+   * Gets the token refresher used to re-authorize after a 401 Unauthorized
+   * response.
+   *
+   * @return the token refresher, or null if none is set.
+   */
+  public TokenRefresher getTokenRefresher() {
+    return this.tokenRefresher;
+  }
+
+  /**
+   * Sets the token refresher used to re-authorize after a 401 Unauthorized
+   * response. Idempotent queries rejected with 401 wait for one shared refresh
+   * and are then replayed with the new token.
+   *
+   * @param tokenRefresher the token refresher, or null to fail such queries.
+   */
+  public void setTokenRefresher(TokenRefresher tokenRefresher) {
+    this.tokenRefresher = tokenRefresher;
+  }
+
+  /**
+   * Gets the circuit breakers of the endpoints this client has sent requests
+   * to.
+   *
+   * @return the circuit breakers, empty if circuit breaking is disabled in the
+   *         settings.
+   */
+  public Collection<CircuitBreaker> getCircuitBreakers() {
+    return this.circuitBreakers == null ? List.of() : this.circuitBreakers.getCircuitBreakers();
+  }
+
+  /**
+   * Adds a listener notified when a circuit breaker of this client changes
+   * state.
+   *
+   * @param listener the listener to add.
+   */
+  public void addCircuitBreakerListener(CircuitBreakerListener listener) {
+    if (this.circuitBreakers != null) {
+      this.circuitBreakers.addListener(listener);
+    }
+  }
+
+  /**
+   * Removes a circuit breaker listener.
+   *
+   * @param listener the listener to remove.
+   */
+  public void removeCircuitBreakerListener(CircuitBreakerListener listener) {
+    if (this.circuitBreakers != null) {
+      this.circuitBreakers.removeListener(listener);
+    }
+  }
+
+  /**
+   * Gets the sink the metrics of this client's queries are reported to.
+   *
+   * @return the metrics sink, or null if metrics are disabled.
+   */
+  public MetricsSink getMetricsSink() {
+    return this.metricsSink;
+  }
+
+  /**
+   * Sets the sink the metrics of this client's queries are reported to.
+   *
+   * @param metricsSink the metrics sink, or null to disable metrics.
+   */
+  public void setMetricsSink(MetricsSink metricsSink) {
+    this.metricsSink = metricsSink;
+  }
+
+  /**
+   * Gets the coalescer that shares identical in-flight requests.
+   *
+   * @return the request coalescer.
+   */
+  RequestCoalescer getCoalescer() {
+    return this.coalescer;
+  }
+
+  /**
+   * Gets the policy for retrying failed idempotent requests.
+   *
+   * @return the retry policy.
+   */
+  RetryPolicy getRetryPolicy() {
+    return this.retryPolicy;
+  }
+
+  /**
+   * Gets the policy for hedging slow requests.
+   *
+   * @return the hedging policy.
+   */
+  HedgingPolicy getHedgingPolicy() {
+    return this.hedgingPolicy;
+  }
+
+  /**
+   * Gets the executor used to read and decode response bodies.
+   *
+   * @return the executor used to read and decode response bodies.
+   */
+  ExecutorService getExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * Sends the given request asynchronously. The returned future completes once
+   * the response headers have been received; the body stream is left unread.
+   *
+   * The request waits for the rate limiter before it is sent, and is sent again
+   * if the server answers 429 Too Many Requests, up to the configured number of
+   * replays.
+   *
+   * If the circuit breaker of the request's endpoint is open, the request is
+   * not sent and the returned future fails with a QueryException.
+   *
+   * @param request the request to send.
+   *
+   * @return a future of the response.
+   */
+  CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request) {
+    final CircuitBreaker circuitBreaker = this.circuitBreakers == null
+        ? null
+        : this.circuitBreakers.forUri(request.uri());
+    final CircuitBreaker.State admittedIn = circuitBreaker == null ? null : circuitBreaker.tryAcquire();
+
+    if (circuitBreaker != null && admittedIn == null) {
+      this.statistics.recordCircuitBreakerRejection();
+      this.recordFailure(request.uri());
+      return CompletableFuture.failedFuture(
+          new QueryException("Circuit breaker " + circuitBreaker.getName() + " is open."));
+    }
+
+    final CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+
+    if (circuitBreaker == null) {
+      this.sendThrottled(request, result, 0);
+      return result;
+    }
+
+    // The outcome is recorded before the caller sees it, so a caller never
+    // observes a response the breaker has not counted yet
+    final CompletableFuture<HttpResponse<InputStream>> recorded = new CompletableFuture<>();
+
+    result.whenComplete((response, throwable) -> {
+      if (result.isCancelled()) {
+        circuitBreaker.release(admittedIn);
+      } else {
+        circuitBreaker.record(admittedIn, throwable == null && response.statusCode() < 500);
+      }
+
+      if (throwable == null) {
+        recorded.complete(response);
+      } else {
+        recorded.completeExceptionally(throwable);
+      }
+    });
+
+    recorded.whenComplete((response, throwable) -> {
+      if (recorded.isCancelled()) {
+        result.cancel(true);
+      }
+    });
+
+    this.sendThrottled(request, result, 0);
+    return recorded;
+  }
+
+  /**
+   * Reserves a slot from the rate limiter and sends the request once the slot
+   * is due.
+   *
+   * @param request the request to send.
+   * @param result  the future to complete with the response.
+   * @param replays the number of times the request has already been replayed.
+   */
+  private void sendThrottled(HttpRequest request, CompletableFuture<HttpResponse<InputStream>> result, int replays) {
+    final long waitNanos = this.rateLimiter.reserve();
+
+    if (waitNanos <= 0) {
+      this.send(request, result, replays);
+      return;
+    }
+
+    this.statistics.recordThrottled(waitNanos);
+    this.sendAfter(waitNanos, request, result, replays);
+  }
+
+  /**
+   * Sends the request once its reserved slot is due. If the rate limiter was
+   * paused in the meantime, e.g. by a 429 response to another request, a new
+   * slot is reserved behind the pause instead.
+   *
+   * @param waitNanos how long to wait for the slot, in nanoseconds.
+   * @param request   the request to send.
+   * @param result    the future to complete with the response.
+   * @param replays   the number of times the request has already been
+   *                  replayed.
+   */
+  private void sendAfter(long waitNanos, HttpRequest request, CompletableFuture<HttpResponse<InputStream>> result,
+      int replays) {
+    CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS, this.executor).execute(() -> {
+      if (!this.rateLimiter.isPaused()) {
+        this.send(request, result, replays);
+        return;
+      }
+
+      final long pauseNanos = this.rateLimiter.reserve();
+
+      if (pauseNanos <= 0) {
+        this.send(request, result, replays);
+      } else {
+        this.sendAfter(pauseNanos, request, result, replays);
+      }
+    });
+  }
+
+  /**
+   * Sends the request without waiting.
+   *
+   * @param request the request to send.
+   * @param result  the future to complete with the response.
+   * @param replays the number of times the request has already been replayed.
+   */
+  private void send(HttpRequest request, CompletableFuture<HttpResponse<InputStream>> result, int replays) {
+    if (result.isDone()) {
+      // Cancelled while waiting for the rate limiter
+      return;
+    }
+
+    final long sentNanos = System.nanoTime();
+    final TimeToFirstByteEvent event = TimeToFirstByteEvent.beginIfEnabled(); // Nullable
+    final CompletableFuture<HttpResponse<InputStream>> exchange = this.httpClient.sendAsync(request,
+        HttpResponse.BodyHandlers.ofInputStream());
+
+    result.whenComplete((response, throwable) -> {
+      if (result.isCancelled()) {
+        exchange.cancel(true);
+      }
+    });
+
+    exchange.whenComplete((response, throwable) -> {
+      if (event != null) {
+        QueryClient.commit(event, request, response);
+      }
+
+      if (throwable != null) {
+        if (!exchange.isCancelled()) {
+          this.recordFailure(request.uri());
+        }
+
+        result.completeExceptionally(throwable);
+        return;
+      }
+
+      this.recordResponse(request.uri(), response.statusCode(), System.nanoTime() - sentNanos);
+
+      final boolean rateLimited = response.statusCode() == 429;
+
+      if (rateLimited) {
+        this.statistics.recordRateLimited();
+      }
+
+      this.rateLimiter.update(response.statusCode(), response.headers());
+
+      if (rateLimited && replays < this.settings.getRateLimitReplays()) {
+        QueryClient.closeQuietly(response.body());
+        this.sendThrottled(request, result, replays + 1);
+        return;
+      }
+
+      if (!result.complete(response)) {
+        QueryClient.closeQuietly(response.body());
+      }
+    });
+  }
+
+  /**
+   * Commits a time to first byte event if it is enabled.
+   *
+   * @param event    the event.
+   * @param request  the sent request.
+   * @param response the response, or null if the exchange failed.
+   */
+  private static void commit(TimeToFirstByteEvent event, HttpRequest request, HttpResponse<InputStream> response) {
+    event.end();
+
+    if (event.shouldCommit()) {
+      event.setEndpoint(QueryClient.endpointOf(request.uri()));
+
+      if (response != null) {
+        event.setStatusCode(response.statusCode());
+        event.setBytes(response.headers().firstValueAsLong("Content-Length").orElse(0));
+      }
+
+      event.commit();
+    }
+  }
+
+  /**
+   * Reports a response to the metrics sink.
+   *
+   * @param uri                the request URI.
+   * @param statusCode         the status code of the response.
+   * @param timeToHeadersNanos the time from sending the request to receiving
+   *                           the response headers.
+   */
+  void recordResponse(URI uri, int statusCode, long timeToHeadersNanos) {
+    final MetricsSink sink = this.metricsSink;
+
+    if (sink == null) {
+      return;
+    }
+
+    try {
+      sink.recordResponse(QueryClient.endpointOf(uri), statusCode, timeToHeadersNanos);
+    } catch (RuntimeException exception) {
+      // A failing sink must not fail the query
+    }
+  }
+
+  /**
+   * Reports a request that failed without a response to the metrics sink.
+   *
+   * @param uri the request URI.
+   */
+  void recordFailure(URI uri) {
+    final MetricsSink sink = this.metricsSink;
+
+    if (sink == null) {
+      return;
+    }
+
+    try {
+      sink.recordFailure(QueryClient.endpointOf(uri));
+    } catch (RuntimeException exception) {
+      // A failing sink must not fail the query
+    }
+  }
+
+  /**
+   * Reports a decoded response body to the metrics sink.
+   *
+   * @param uri           the request URI.
+   * @param bytesReceived the number of body bytes received over the wire.
+   * @param decodeNanos   the time spent reading and decoding the body.
+   */
+  void recordBody(URI uri, long bytesReceived, long decodeNanos) {
+    final MetricsSink sink = this.metricsSink;
+
+    if (sink == null) {
+      return;
+    }
+
+    try {
+      sink.recordBody(QueryClient.endpointOf(uri), bytesReceived, decodeNanos);
+    } catch (RuntimeException exception) {
+      // A failing sink must not fail the query
+    }
+  }
+
+  /**
+   * Reports a retry to the metrics sink.
+   *
+   * @param uri the request URI.
+   */
+  void recordRetry(URI uri) {
+    final MetricsSink sink = this.metricsSink;
+
+    if (sink == null) {
+      return;
+    }
+
+    try {
+      sink.recordRetry(QueryClient.endpointOf(uri));
+    } catch (RuntimeException exception) {
+      // A failing sink must not fail the query
+    }
+  }
+
+  /**
+   * Gets the metrics endpoint of the given request URI.
+   *
+   * @param uri the request URI.
+   *
+   * @return the endpoint, e.g. "tracks" or "artists/tracks".
+   */
+  static String endpointOf(URI uri) {
+    final String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+
+    if (path.contains("/oauth2/")) {
+      return "auth";
+    }
+
+    final String[] segments = path.split("/");
+    int first = 0;
+
+    // Skip the leading slash and version prefixes such as v1 and v2
+    while (first < segments.length && (segments[first].isEmpty() || QueryClient.isVersion(segments[first]))) {
+      first++;
+    }
+
+    if (first == segments.length) {
+      return "other";
+    }
+
+    final String family = segments[first];
+    final int remaining = segments.length - first;
+
+    if ("tracks".equals(family)) {
+      if (remaining >= 2 && "byIsrc".equals(segments[first + 1])) {
+        return "tracks/byIsrc";
+      }
+
+      if (remaining >= 3 && "similar".equals(segments[first + 2])) {
+        return "similar";
+      }
+
+      return "tracks";
+    }
+
+    if ("artists".equals(family) && remaining >= 3 && "tracks".equals(segments[first + 2])) {
+      return "artists/tracks";
+    }
+
+    return family;
+  }
+
+  /**
+   * Checks whether a path segment is a version prefix such as v1.
+   *
+   * @param segment the path segment.
+   *
+   * @return true if the segment is a version prefix.
+   */
+  private static boolean isVersion(String segment) {
+    if (segment.length() < 2 || segment.charAt(0) != 'v') {
+      return false;
+    }
+
+    for (int i = 1; i < segment.length(); i++) {
+      if (!Character.isDigit(segment.charAt(i))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Closes the underlying HTTP client, its pooled connections, the body
+   * decoding executor and the response cache. Closing a tenant leaves the
+   * shared transport open.
+   */
+  @Override
+  public void close() {
+    if (!this.ownsTransport) {
+      return;
+    }
+
+    this.httpClient.close();
+    this.executor.close();
+
+    if (this.responseCache != null) {
+      try {
+        this.responseCache.close();
+      } catch (IOException exception) {
+        // Nothing left to do; the cache validates its files when reopened
+      }
+    }
+  }
+
+  /**
+   * Creates the HTTP client described by the given settings.
+   *
+   * @param settings the transport settings.
+   *
+   * @return the HTTP client.
+   *
+   * @throws IllegalArgumentException if the connection pool settings differ
+   *                                  from the JVM's.
+   */
+  private static HttpClient createHttpClient(ClientSettings settings) throws IllegalArgumentException {
+    QueryClient.checkPoolProperties(settings);
+
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(settings.getConnectTimeout())
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .build();
+  }
+
+  /**
+   * Opens the persistent response cache described by the given settings.
+   *
+   * @param settings the transport settings.
+   *
+   * @return the response cache, or null if it is disabled.
+   *
+   * @throws UncheckedIOException if the cache cannot be opened.
+   */
+  private static DiskResponseCache openResponseCache(ClientSettings settings) throws UncheckedIOException {
+    if (settings.getResponseCacheDirectory() == null) {
+      return null;
+    }
+
+    try {
+      return new DiskResponseCache(settings.getResponseCacheDirectory(), settings.getResponseCacheMaxBytes());
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  /**
+   * Closes the given body stream, ignoring errors.
+   *
+   * @param body the body stream of a discarded response.
+   */
+  private static void closeQuietly(InputStream body) {
+    try {
+      body.close();
+    } catch (IOException exception) {
+      // The connection is dropped instead of returned to the pool
+    }
+  }
+
+  /**
+   * Checks that the connection pool settings can take effect. The JDK HTTP
+   * client reads these from system properties once per JVM, and the system
+   * properties are shared with every other HTTP client of the application, so
+   * they are left for the application to set rather than changed here.
+   *
+   * @param settings the transport settings.
+   *
+   * @throws IllegalArgumentException if a setting differs from the JVM's.
+   */
+  private static void checkPoolProperties(ClientSettings settings) throws IllegalArgumentException {
+    final Integer poolSize = settings.getConnectionPoolSize();
+    final long jvmPoolSize = Long.getLong(QueryClient.POOL_SIZE_PROPERTY, QueryClient.DEFAULT_POOL_SIZE);
+
+    if (poolSize != null && poolSize != jvmPoolSize) {
+      throw new IllegalArgumentException(String.format(
+          "connectionPoolSize %d cannot take effect: the JVM uses %s=%d, which must be set at startup.",
+          poolSize, QueryClient.POOL_SIZE_PROPERTY, jvmPoolSize));
+    }
+
+    final Duration idleTimeout = settings.getIdleConnectionTimeout();
+    final long jvmIdleSeconds = Long.getLong(QueryClient.KEEP_ALIVE_PROPERTY, QueryClient.DEFAULT_KEEP_ALIVE_SECONDS);
+
+    if (idleTimeout != null && idleTimeout.toSeconds() != jvmIdleSeconds) {
+      throw new IllegalArgumentException(String.format(
+          "idleConnectionTimeout %s cannot take effect: the JVM uses %s=%d, which must be set at startup.",
+          idleTimeout, QueryClient.KEEP_ALIVE_PROPERTY, jvmIdleSeconds));
+    }
+  }
+}
@@ -0,0 +1,295 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative counters of the queries sent through a {@link QueryClient}.
+ * 
+ * Counters are updated without locking and may be read at any time.
+ */
+public final class QueryStatistics {
+  private final String tenantId;
+  private final LongAdder responses = new LongAdder();
+  private final LongAdder compressedResponses = new LongAdder();
+  private final LongAdder bytesReceived = new LongAdder();
+  private final LongAdder bytesDecoded = new LongAdder();
+  private final LongAdder coalescedRequests = new LongAdder();
+  private final LongAdder notModifiedRevalidations = new LongAdder();
+  private final LongAdder modifiedRevalidations = new LongAdder();
+  private final LongAdder throttledRequests = new LongAdder();
+  private final LongAdder throttleWaitNanos = new LongAdder();
+  private final LongAccumulator maxThrottleWaitNanos = new LongAccumulator(Math::max, 0);
+  private final LongAdder rateLimitedResponses = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder circuitBreakerRejections = new LongAdder();
+  private final LongAdder hedgesSent = new LongAdder();
+  private final LongAdder hedgesWon = new LongAdder();
+  private final LongAdder unauthorizedReplays = new LongAdder();
+
+  /**
+   * Constructs new statistics with all counters at zero.
+   * 
+   * @param tenantId the tenant label of the client.
+   */
+  QueryStatistics(String tenantId) {
+    this.tenantId = tenantId;
+  }
+
+  /**
+   * Gets the tenant label of the client these statistics belong to, for use as
+   * a metrics label.
+   * 
+   * @return the tenant ID.
+   */
+  public String getTenantId() {
+    return this.tenantId;
+  }
+
+  /**
+   * Records a decoded response body.
+   * 
+   * @param compressed    whether the body was compressed.
+   * @param bytesReceived the number of bytes received over the wire.
+   * @param bytesDecoded  the number of bytes after decompression.
+   */
+  void recordResponseBody(boolean compressed, long bytesReceived, long bytesDecoded) {
+    this.responses.increment();
+
+    if (compressed) {
+      this.compressedResponses.increment();
+    }
+
+    this.bytesReceived.add(bytesReceived);
+    this.bytesDecoded.add(bytesDecoded);
+  }
+
+  /**
+   * Records a request that joined an identical in-flight request instead of
+   * being sent.
+   */
+  void recordCoalesced() {
+    this.coalescedRequests.increment();
+  }
+
+  /**
+   * Records the outcome of a conditional request.
+   * 
+   * @param notModified whether the server answered 304 Not Modified.
+   */
+  void recordRevalidation(boolean notModified) {
+    if (notModified) {
+      this.notModifiedRevalidations.increment();
+    } else {
+      this.modifiedRevalidations.increment();
+    }
+  }
+
+  /**
+   * Records a request that was held back by the rate limiter.
+   * 
+   * @param waitNanos how long the request waited, in nanoseconds.
+   */
+  void recordThrottled(long waitNanos) {
+    this.throttledRequests.increment();
+    this.throttleWaitNanos.add(waitNanos);
+    this.maxThrottleWaitNanos.accumulate(waitNanos);
+  }
+
+  /**
+   * Records a 429 Too Many Requests response.
+   */
+  void recordRateLimited() {
+    this.rateLimitedResponses.increment();
+  }
+
+  /**
+   * Records a request that was sent again after a transient failure.
+   */
+  void recordRetry() {
+    this.retries.increment();
+  }
+
+  /**
+   * Records a request that was not sent because its circuit breaker was open.
+   */
+  void recordCircuitBreakerRejection() {
+    this.circuitBreakerRejections.increment();
+  }
+
+  /**
+   * Records a duplicate request sent for a slow hedged query.
+   */
+  void recordHedgeSent() {
+    this.hedgesSent.increment();
+  }
+
+  /**
+   * Records a duplicate request that answered before the original request.
+   */
+  void recordHedgeWon() {
+    this.hedgesWon.increment();
+  }
+
+  /**
+   * Records a request that was replayed with new credentials after a 401
+   * Unauthorized response.
+   */
+  void recordUnauthorizedReplay() {
+    this.unauthorizedReplays.increment();
+  }
+
+  /**
+   * Gets the number of decoded response bodies.
+   * 
+   * @return the number of decoded response bodies.
+   */
+  public long getResponses() {
+    return this.responses.sum();
+  }
+
+  /**
+   * Gets the number of decoded response bodies that were compressed.
+   * 
+   * @return the number of compressed response bodies.
+   */
+  public long getCompressedResponses() {
+    return this.compressedResponses.sum();
+  }
+
+  /**
+   * Gets the total number of body bytes received over the wire, before
+   * decompression.
+   * 
+   * @return the total number of received body bytes.
+   */
+  public long getBytesReceived() {
+    return this.bytesReceived.sum();
+  }
+
+  /**
+   * Gets the total number of body bytes after decompression.
+   * 
+   * @return the total number of decompressed body bytes.
+   */
+  public long getBytesDecoded() {
+    return this.bytesDecoded.sum();
+  }
+
+  /**
+   * Gets the number of requests that joined an identical in-flight request
+   * instead of being sent.
+   * 
+   * @return the number of coalesced requests.
+   */
+  public long getCoalescedRequests() {
+    return this.coalescedRequests.sum();
+  }
+
+  /**
+   * Gets the number of conditional requests the server answered with 304 Not
+   * Modified, so that the cached response was reused without decoding a body.
+   * 
+   * @return the number of revalidations that returned 304.
+   */
+  public long getNotModifiedRevalidations() {
+    return this.notModifiedRevalidations.sum();
+  }
+
+  /**
+   * Gets the number of conditional requests the server answered with a new
+   * 200 response.
+   * 
+   * @return the number of revalidations that returned 200.
+   */
+  public long getModifiedRevalidations() {
+    return this.modifiedRevalidations.sum();
+  }
+
+  /**
+   * Gets the number of requests the rate limiter held back before sending.
+   * 
+   * @return the number of throttled requests.
+   */
+  public long getThrottledRequests() {
+    return this.throttledRequests.sum();
+  }
+
+  /**
+   * Gets the total time requests have waited for the rate limiter.
+   * 
+   * @return the total wait time.
+   */
+  public Duration getThrottleWaitTime() {
+    return Duration.ofNanos(this.throttleWaitNanos.sum());
+  }
+
+  /**
+   * Gets the longest time a single request has waited for the rate limiter.
+   * 
+   * @return the longest wait time.
+   */
+  public Duration getMaxThrottleWaitTime() {
+    return Duration.ofNanos(this.maxThrottleWaitNanos.get());
+  }
+
+  /**
+   * Gets the number of 429 Too Many Requests responses received, including
+   * those that were replayed successfully.
+   * 
+   * @return the number of rate limited responses.
+   */
+  public long getRateLimitedResponses() {
+    return this.rateLimitedResponses.sum();
+  }
+
+  /**
+   * Gets the number of requests that were sent again after a transient
+   * failure.
+   * 
+   * @return the number of retries.
+   */
+  public long getRetries() {
+    return this.retries.sum();
+  }
+
+  /**
+   * Gets the number of requests that failed at once because the circuit
+   * breaker of their endpoint was open.
+   * 
+   * @return the number of rejected requests.
+   */
+  public long getCircuitBreakerRejections() {
+    return this.circuitBreakerRejections.sum();
+  }
+
+  /**
+   * Gets the number of duplicate requests sent for slow hedged queries.
+   * 
+   * @return the number of hedges sent.
+   */
+  public long getHedgesSent() {
+    return this.hedgesSent.sum();
+  }
+
+  /**
+   * Gets the number of duplicate requests that answered before the original
+   * request. A low share of wins suggests the hedging percentile is too low.
+   * 
+   * @return the number of hedges that won.
+   */
+  public long getHedgesWon() {
+    return this.hedgesWon.sum();
+  }
+
+  /**
+   * Gets the number of requests that were replayed with new credentials after
+   * a 401 Unauthorized response.
+   * 
+   * @return the number of replayed requests.
+   */
+  public long getUnauthorizedReplays() {
+    return this.unauthorizedReplays.sum();
+  }
+}
@@ -0,0 +1,239 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that spaces out the requests of a
+ * {@link QueryClient}.
+ * 
+ * Implemented as a generic cell rate algorithm: instead of counting tokens,
+ * the bucket tracks the time at which it would be empty again. A caller
+ * reserves a slot with a single compare-and-set and is told how long to wait
+ * for it, so callers queue up instead of being rejected.
+ * 
+ * The server's Retry-After and X-RateLimit headers adjust the bucket: a
+ * Retry-After or an exhausted quota pauses all callers, and the advertised
+ * replenish rate and burst capacity are adopted unless the configured ones are
+ * lower. A bucket without a rate only holds callers back while the server asks
+ * it to.
+ */
+final class RateLimiter {
+  private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+  private final AtomicLong theoreticalArrivalNanos;
+  private final AtomicLong pausedUntilNanos;
+  private final long configuredIntervalNanos;
+  private final int configuredBurst;
+  private volatile long intervalNanos;
+  private volatile long burstToleranceNanos;
+
+  /**
+   * Constructs a new rate limiter.
+   * 
+   * @param permitsPerSecond the sustained rate of requests, 0 for no rate
+   *                         until the server advertises one.
+   * @param burst            the number of requests that may be sent at once
+   *                         after an idle period.
+   */
+  RateLimiter(double permitsPerSecond, int burst) {
+    final long now = System.nanoTime();
+
+    this.theoreticalArrivalNanos = new AtomicLong(now);
+    this.pausedUntilNanos = new AtomicLong(now);
+    this.configuredIntervalNanos = RateLimiter.toIntervalNanos(permitsPerSecond);
+    this.configuredBurst = Math.max(burst, 1);
+    this.setRate(this.configuredIntervalNanos, this.configuredBurst);
+  }
+
+  /**
+   * Reserves a slot for one request.
+   * 
+   * @return how long the caller must wait before sending, in nanoseconds.
+   */
+  long reserve() {
+    final long now = System.nanoTime();
+
+    if (this.intervalNanos == 0 && this.pausedUntilNanos.get() - now <= 0) {
+      // No rate and no pause; skip the shared compare-and-set
+      return 0;
+    }
+
+    while (true) {
+      final long arrival = this.theoreticalArrivalNanos.get();
+      final long interval = this.intervalNanos;
+      final long earliest = Math.max(now, Math.max(arrival - this.burstToleranceNanos, this.pausedUntilNanos.get()));
+      final long nextArrival = Math.max(arrival, earliest) + interval;
+
+      if (this.theoreticalArrivalNanos.compareAndSet(arrival, nextArrival)) {
+        return earliest - now;
+      }
+    }
+  }
+
+  /**
+   * Checks whether callers are paused, e.g. after a Retry-After.
+   * 
+   * @return true if callers are paused.
+   */
+  boolean isPaused() {
+    return this.pausedUntilNanos.get() - System.nanoTime() > 0;
+  }
+
+  /**
+   * Adjusts the bucket to a response.
+   * 
+   * @param statusCode the status code of the response.
+   * @param headers    the headers of the response.
+   */
+  void update(int statusCode, HttpHeaders headers) {
+    final OptionalDouble replenishRate = RateLimiter.parseDouble(headers, "X-RateLimit-Replenish-Rate");
+    final OptionalDouble burstCapacity = RateLimiter.parseDouble(headers, "X-RateLimit-Burst-Capacity");
+
+    if (replenishRate.isPresent() && replenishRate.getAsDouble() > 0) {
+      final int burst = burstCapacity.isPresent()
+          ? (int) Math.max(burstCapacity.getAsDouble(), 1)
+          : this.getBurst();
+
+      this.setServerRate(replenishRate.getAsDouble(), burst);
+    }
+
+    if (statusCode == 429) {
+      this.pauseFor(RateLimiter.parseRetryAfter(headers));
+      return;
+    }
+
+    final OptionalDouble remaining = RateLimiter.parseDouble(headers, "X-RateLimit-Remaining");
+
+    if (remaining.isPresent() && remaining.getAsDouble() <= 0) {
+      // Wait for the server to replenish at least one token, or as long as a
+      // Retry-After would if the server has not said how fast it does
+      final long intervalNanos = this.intervalNanos;
+      this.pauseFor(intervalNanos > 0 ? Duration.ofNanos(intervalNanos) : RateLimiter.DEFAULT_RETRY_AFTER);
+    }
+  }
+
+  /**
+   * Pauses all callers for the given duration. Slots reserved from now on
+   * start after the pause. Slots that were already reserved are not moved, so
+   * their callers must check {@link #isPaused()} when the slot is due.
+   * 
+   * @param duration the pause.
+   */
+  void pauseFor(Duration duration) {
+    final long pausedUntil = System.nanoTime() + duration.toNanos();
+
+    this.pausedUntilNanos.accumulateAndGet(pausedUntil, Math::max);
+    this.theoreticalArrivalNanos.accumulateAndGet(pausedUntil, Math::max);
+  }
+
+  /**
+   * Sets the rate advertised by the server. A configured rate or burst that
+   * is lower than the server's stays in effect, so the server never raises
+   * the client's own ceiling.
+   * 
+   * @param permitsPerSecond the sustained rate of requests.
+   * @param burst            the burst size.
+   */
+  private void setServerRate(double permitsPerSecond, int burst) {
+    final long interval = RateLimiter.toIntervalNanos(permitsPerSecond);
+
+    if (this.configuredIntervalNanos == 0) {
+      this.setRate(interval, burst);
+      return;
+    }
+
+    this.setRate(Math.max(interval, this.configuredIntervalNanos), Math.min(burst, this.configuredBurst));
+  }
+
+  /**
+   * Sets the rate of the bucket.
+   * 
+   * @param intervalNanos the interval between requests, 0 for no rate.
+   * @param burst         the burst size.
+   */
+  private void setRate(long intervalNanos, int burst) {
+    this.intervalNanos = intervalNanos;
+    this.burstToleranceNanos = intervalNanos * (Math.max(burst, 1) - 1);
+  }
+
+  /**
+   * Converts a rate to the interval between requests.
+   * 
+   * @param permitsPerSecond the sustained rate of requests, 0 for no rate.
+   * 
+   * @return the interval in nanoseconds, 0 for no rate.
+   */
+  private static long toIntervalNanos(double permitsPerSecond) {
+    return permitsPerSecond > 0 ? Math.max((long) (1_000_000_000L / permitsPerSecond), 1L) : 0;
+  }
+
+  /**
+   * Gets the current burst size.
+   * 
+   * @return the burst size.
+   */
+  private int getBurst() {
+    if (this.intervalNanos == 0) {
+      return 1;
+    }
+
+    return (int) (this.burstToleranceNanos / this.intervalNanos) + 1;
+  }
+
+  /**
+   * Parses the Retry-After header, given either in seconds or as an HTTP date.
+   * 
+   * @param headers the response headers.
+   * 
+   * @return the time to wait, 1 second if the header is missing or invalid.
+   */
+  static Duration parseRetryAfter(HttpHeaders headers) {
+    final String retryAfter = headers.firstValue("Retry-After").orElse(null);
+
+    if (retryAfter == null) {
+      return RateLimiter.DEFAULT_RETRY_AFTER;
+    }
+
+    try {
+      return Duration.ofSeconds(Math.max(Long.parseLong(retryAfter.trim()), 0));
+    } catch (NumberFormatException exception) {
+      // Not in seconds; try a date
+    }
+
+    try {
+      final ZonedDateTime retryAt = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+      final Duration duration = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt);
+      return duration.isNegative() ? Duration.ZERO : duration;
+    } catch (DateTimeParseException exception) {
+      return RateLimiter.DEFAULT_RETRY_AFTER;
+    }
+  }
+
+  /**
+   * Parses a numeric header.
+   * 
+   * @param headers the response headers.
+   * @param name    the header name.
+   * 
+   * @return the header value, empty if it is missing or not a number.
+   */
+  private static OptionalDouble parseDouble(HttpHeaders headers, String name) {
+    final String value = headers.firstValue(name).orElse(null);
+
+    if (value == null) {
+      return OptionalDouble.empty();
+    }
+
+    try {
+      return OptionalDouble.of(Double.parseDouble(value.trim()));
+    } catch (NumberFormatException exception) {
+      return OptionalDouble.empty();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares one in-flight request between concurrent callers that send an
+ * identical request.
+ * 
+ * The first caller for a key sends the request; callers arriving while it is
+ * in flight receive the same decoded result instead of sending their own. Once
+ * the request completes, the key is released and the next caller sends a new
+ * request.
+ */
+final class RequestCoalescer {
+  private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight;
+  private final QueryStatistics statistics;
+
+  /**
+   * Constructs a new request coalescer.
+   * 
+   * @param statistics the statistics to record coalesced requests to.
+   */
+  RequestCoalescer(QueryStatistics statistics) {
+    this.inFlight = new ConcurrentHashMap<>();
+    this.statistics = statistics;
+  }
+
+  /**
+   * Returns the result of the in-flight request for the given key, or sends a
+   * new request with the given supplier if there is none.
+   * 
+   * Each caller receives its own copy of the shared future, so cancelling it
+   * doesn't affect the other callers.
+   * 
+   * @param <R>      the result type.
+   * @param key      the key identifying identical requests.
+   * @param resultOf the supplier that sends the request.
+   * 
+   * @return a future of the shared result.
+   */
+  @SuppressWarnings("unchecked")
+  <R> CompletableFuture<R> coalesce(Key key, Supplier<CompletableFuture<R>> resultOf) {
+    final CompletableFuture<Object> created = new CompletableFuture<>();
+    final CompletableFuture<Object> existing = this.inFlight.putIfAbsent(key, created);
+
+    if (existing != null) {
+      this.statistics.recordCoalesced();
+      return (CompletableFuture<R>) existing.copy();
+    }
+
+    CompletableFuture<R> result;
+
+    try {
+      result = resultOf.get();
+    } catch (RuntimeException exception) {
+      result = CompletableFuture.failedFuture(exception);
+    }
+
+    result.whenComplete((value, throwable) -> {
+      this.inFlight.remove(key, created);
+
+      if (throwable != null) {
+        created.completeExceptionally(throwable);
+      } else {
+        created.complete(value);
+      }
+    });
+
+    return (CompletableFuture<R>) created.copy();
+  }
+
+  /**
+   * Gets the number of requests currently in flight.
+   * 
+   * @return the number of requests currently in flight.
+   */
+  int getInFlightCount() {
+    return this.inFlight.size();
+  }
+
+  /**
+   * Identifies identical requests: the same final URL, authorization,
+   * validators, query type and result type.
+   */
+  static final class Key {
+    private final String url;
+    private final String authorization; // Nullable
+    private final String validators; // Nullable
+    private final Class<?> queryType;
+    private final Class<?> resultType;
+    private final int hashCode;
+
+    /**
+     * Constructs a new key.
+     * 
+     * @param url           the final request URL, including query parameters.
+     * @param authorization the authorization header value (nullable).
+     * @param validators    the conditional request headers if the caller handles
+     *                      304 responses itself, null otherwise.
+     * @param queryType     the type of the query, which determines how the
+     *                      response is handled.
+     * @param resultType    the type the response is decoded to.
+     */
+    Key(String url, String authorization, String validators, Class<?> queryType, Class<?> resultType) {
+      this.url = url;
+      this.authorization = authorization;
+      this.validators = validators;
+      this.queryType = queryType;
+      this.resultType = resultType;
+      this.hashCode = Objects.hash(url, authorization, validators, queryType, resultType);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+
+      if (!(other instanceof Key)) {
+        return false;
+      }
+
+      final Key key = (Key) other;
+
+      return this.url.equals(key.url)
+          && Objects.equals(this.authorization, key.authorization)
+          && Objects.equals(this.validators, key.validators)
+          && this.queryType.equals(key.queryType)
+          && this.resultType.equals(key.resultType);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hashCode;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.http.HttpResponse;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Readable view of a response body. Transparently decompresses gzip and deflate
+ * encoded bodies and counts both the bytes received over the wire and the bytes
+ * after decompression.
+ */
+final class ResponseBody implements Closeable {
+  private final LimitedInputStream wireStream;
+  private final LimitedInputStream decodedStream;
+  private final Inflater inflater; // Nullable
+  private final boolean compressed;
+
+  /**
+   * Constructs a new response body.
+   * 
+   * @param wireStream    the counted stream of received bytes.
+   * @param decodedStream the counted and limited stream of decompressed bytes.
+   * @param inflater      the inflater to release on close (nullable).
+   * @param compressed    whether the body is compressed.
+   */
+  private ResponseBody(LimitedInputStream wireStream, LimitedInputStream decodedStream, Inflater inflater,
+      boolean compressed) {
+    this.wireStream = wireStream;
+    this.decodedStream = decodedStream;
+    this.inflater = inflater;
+    this.compressed = compressed;
+  }
+
+  /**
+   * Opens the body of the given response.
+   * 
+   * @param response the response to open the body of.
+   * @param maxBytes the maximum number of decompressed bytes that may be read.
+   * 
+   * @return the response body.
+   * 
+   * @throws IOException if the content encoding is unsupported or the body
+   *                     cannot be read.
+   */
+  static ResponseBody open(HttpResponse<InputStream> response, long maxBytes) throws IOException {
+    final String contentEncoding = response.headers().firstValue("Content-Encoding").orElse("identity")
+        .trim().toLowerCase(Locale.ROOT);
+
+    final LimitedInputStream wireStream = new LimitedInputStream(response.body(), Long.MAX_VALUE);
+
+    InputStream decompressedStream;
+    Inflater inflater = null;
+
+    switch (contentEncoding) {
+      case "gzip":
+      case "x-gzip":
+        decompressedStream = new GZIPInputStream(wireStream, 8192);
+        break;
+
+      case "deflate":
+        // Servers disagree on whether 'deflate' is zlib-wrapped, so detect it
+        final PushbackInputStream pushbackStream = new PushbackInputStream(wireStream, 2);
+        inflater = new Inflater(!ResponseBody.isZlibWrapped(pushbackStream));
+        decompressedStream = new InflaterInputStream(pushbackStream, inflater, 8192);
+        break;
+
+      case "identity":
+      case "":
+        decompressedStream = wireStream;
+        break;
+
+      default:
+        wireStream.close();
+        throw new IOException("Unsupported content encoding: " + contentEncoding);
+    }
+
+    final LimitedInputStream decodedStream = new LimitedInputStream(decompressedStream, maxBytes);
+    final boolean compressed = decompressedStream != wireStream;
+    return new ResponseBody(wireStream, decodedStream, inflater, compressed);
+  }
+
+  /**
+   * Gets the decompressed body stream.
+   * 
+   * @return the decompressed body stream.
+   */
+  InputStream stream() {
+    return this.decodedStream;
+  }
+
+  /**
+   * Checks whether the body was compressed by the server.
+   * 
+   * @return true if the body was compressed.
+   */
+  boolean isCompressed() {
+    return this.compressed;
+  }
+
+  /**
+   * Gets the number of bytes received over the wire so far.
+   * 
+   * @return the number of received bytes.
+   */
+  long getWireBytes() {
+    return this.wireStream.getBytesRead();
+  }
+
+  /**
+   * Gets the number of decompressed bytes read so far.
+   * 
+   * @return the number of decompressed bytes.
+   */
+  long getDecodedBytes() {
+    return this.decodedStream.getBytesRead();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      this.decodedStream.close();
+    } finally {
+      if (this.inflater != null) {
+        this.inflater.end();
+      }
+    }
+  }
+
+  /**
+   * Checks whether the next bytes of the stream are a zlib header, without
+   * consuming them.
+   * 
+   * @param stream the stream to check.
+   * 
+   * @return true if the stream starts with a zlib header.
+   * 
+   * @throws IOException if the stream cannot be read.
+   */
+  private static boolean isZlibWrapped(PushbackInputStream stream) throws IOException {
+    final int first = stream.read();
+
+    if (first == -1) {
+      return true;
+    }
+
+    final int second = stream.read();
+
+    if (second != -1) {
+      stream.unread(second);
+    }
+
+    stream.unread(first);
+
+    return second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+  }
+}
@@ -0,0 +1,181 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+
+/**
+ * Decides whether and when a failed idempotent request is sent again.
+ * 
+ * Delays follow decorrelated jitter: each delay is drawn at random between the
+ * base delay and three times the previous delay, capped at the maximum delay.
+ * No retry is scheduled past the deadline of the request.
+ * 
+ * Retries draw from a token budget shared by all requests of a
+ * {@link QueryClient}. Each retry costs one token and each successful response
+ * returns a fraction of a token. Once the budget falls to half, retries stop
+ * until successful responses refill it, so that retries cannot multiply the
+ * load on a server that is already failing.
+ */
+final class RetryPolicy {
+  private static final long TOKEN_SCALE = 1000;
+
+  private final int maxRetries;
+  private final long baseDelayNanos;
+  private final long maxDelayNanos;
+  private final long deadlineNanos;
+  private final long maxTokens;
+  private final long tokenRatio;
+  private final AtomicLong tokens;
+
+  /**
+   * Constructs a new retry policy from the given settings.
+   * 
+   * @param settings the transport settings.
+   */
+  RetryPolicy(ClientSettings settings) {
+    this.maxRetries = settings.getMaxRetries();
+    this.baseDelayNanos = settings.getRetryBaseDelay().toNanos();
+    this.maxDelayNanos = Math.max(settings.getRetryMaxDelay().toNanos(), this.baseDelayNanos);
+    this.deadlineNanos = settings.getRetryDeadline().toNanos();
+    this.maxTokens = settings.getRetryBudgetMaxTokens() * RetryPolicy.TOKEN_SCALE;
+    this.tokenRatio = Math.round(settings.getRetryBudgetTokenRatio() * RetryPolicy.TOKEN_SCALE);
+    this.tokens = new AtomicLong(this.maxTokens);
+  }
+
+  /**
+   * Gets whether retries are enabled.
+   * 
+   * @return true if failed requests may be retried.
+   */
+  boolean isEnabled() {
+    return this.maxRetries > 0;
+  }
+
+  /**
+   * Starts tracking the retries of one request.
+   * 
+   * @return the retry state of the request.
+   */
+  RetryPolicy.Attempts start() {
+    return new RetryPolicy.Attempts(System.nanoTime() + this.deadlineNanos);
+  }
+
+  /**
+   * Returns part of a token to the budget after a successful response.
+   */
+  void recordSuccess() {
+    if (this.tokens.get() < this.maxTokens) {
+      this.tokens.accumulateAndGet(this.tokenRatio, (current, ratio) -> Math.min(current + ratio, this.maxTokens));
+    }
+  }
+
+  /**
+   * Takes one token from the budget if the budget is above half.
+   * 
+   * @return true if a retry may be sent.
+   */
+  private boolean tryAcquireToken() {
+    while (true) {
+      final long current = this.tokens.get();
+      final long next = current - RetryPolicy.TOKEN_SCALE;
+
+      if (next < this.maxTokens / 2) {
+        return false;
+      }
+
+      if (this.tokens.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Gets whether a response status may succeed when the request is sent again.
+   * 
+   * @param statusCode the status code of the response.
+   * 
+   * @return true for 408 and the 5xx statuses that indicate a transient
+   *         failure.
+   */
+  static boolean isRetryable(int statusCode) {
+    return statusCode == 408 || statusCode == 500 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+  }
+
+  /**
+   * Gets whether a failed exchange may succeed when the request is sent again.
+   * 
+   * @param throwable the failure of the exchange.
+   * 
+   * @return true for I/O failures, including timeouts and refused connections.
+   */
+  static boolean isRetryable(Throwable throwable) {
+    Throwable cause = throwable;
+
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+
+    return cause instanceof IOException;
+  }
+
+  /**
+   * Retry state of a single request.
+   */
+  final class Attempts {
+    private final long deadline;
+    private long previousDelayNanos;
+    private int retries;
+
+    /**
+     * Constructs a new retry state.
+     * 
+     * @param deadline the deadline of the request, in {@link System#nanoTime()}
+     *                 units.
+     */
+    private Attempts(long deadline) {
+      this.deadline = deadline;
+      this.previousDelayNanos = RetryPolicy.this.baseDelayNanos;
+      this.retries = 0;
+    }
+
+    /**
+     * Schedules the next retry.
+     * 
+     * @return the delay before the retry, or null if the retries, the deadline
+     *         or the retry budget are used up.
+     */
+    Duration next() {
+      if (this.retries >= RetryPolicy.this.maxRetries) {
+        return null;
+      }
+
+      final long base = RetryPolicy.this.baseDelayNanos;
+      final long upper = Math.max(this.previousDelayNanos * 3, base + 1);
+      final long delay = Math.min(ThreadLocalRandom.current().nextLong(base, upper), RetryPolicy.this.maxDelayNanos);
+
+      if (System.nanoTime() + delay >= this.deadline || !RetryPolicy.this.tryAcquireToken()) {
+        return null;
+      }
+
+      this.previousDelayNanos = delay;
+      this.retries++;
+      return Duration.ofNanos(delay);
+    }
+
+    /**
+     * Gets the time left until the deadline.
+     * 
+     * @return the remaining time, never negative.
+     */
+    Duration remaining() {
+      return Duration.ofNanos(Math.max(this.deadline - System.nanoTime(), 0));
+    }
+  }
+}
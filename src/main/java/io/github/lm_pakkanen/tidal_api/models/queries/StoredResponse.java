@@ -0,0 +1,99 @@
+package io.github.lm_pakkanen.tidal_api.models.queries;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Successful response replayed from a stored, already decompressed body, so
+ * that response handlers can treat cached and network responses alike. Only
+ * the validator headers of the original response are kept.
+ */
+final class StoredResponse implements HttpResponse<InputStream> {
+  private final HttpRequest request;
+  private final byte[] body;
+  private final HttpHeaders headers;
+
+  /**
+   * Constructs a new stored response.
+   * 
+   * @param request      the request the response answers.
+   * @param body         the decompressed response body.
+   * @param eTag         the ETag header value (nullable).
+   * @param lastModified the Last-Modified header value (nullable).
+   */
+  StoredResponse(HttpRequest request, byte[] body, String eTag, String lastModified) {
+    final Map<String, List<String>> headerMap = new HashMap<>();
+
+    if (eTag != null) {
+      headerMap.put("ETag", List.of(eTag));
+    }
+
+    if (lastModified != null) {
+      headerMap.put("Last-Modified", List.of(lastModified));
+    }
+
+    this.request = request;
+    this.body = body;
+    this.headers = HttpHeaders.of(headerMap, (name, value) -> true);
+  }
+
+  @Override
+  public int statusCode() {
+    return 200;
+  }
+
+  @Override
+  public HttpRequest request() {
+    return this.request;
+  }
+
+  @Override
+  public Optional<HttpResponse<InputStream>> previousResponse() {
+    return Optional.empty();
+  }
+
+  @Override
+  public HttpHeaders headers() {
+    return this.headers;
+  }
+
+  @Override
+  public InputStream body() {
+    return new ByteArrayInputStream(this.body);
+  }
+
+  @Override
+  public Optional<SSLSession> sslSession() {
+    return Optional.empty();
+  }
+
+  @Override
+  public URI uri() {
+    return this.request.uri();
+  }
+
+  @Override
+  public HttpClient.Version version() {
+    return HttpClient.Version.HTTP_1_1;
+  }
+
+  /**
+   * Gets the size of the stored body.
+   * 
+   * @return the size of the body in bytes.
+   */
+  int getBodyLength() {
+    return this.body.length;
+  }
+}
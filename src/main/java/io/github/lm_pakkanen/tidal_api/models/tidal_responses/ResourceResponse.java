@@ -60,4 +60,44 @@ public class ResourceResponse {
       return data;
     }
   }
+
+  /**
+   * Represents a list response from the Tidal API for track resources that
+   * were requested with their tracks included.
+   */
+  public static class IncludedTracksListResponse implements TidalListResponse<ResourceResponse> {
+    /**
+     * Data of the list response.
+     */
+    public List<ResourceResponse> data;
+
+    /**
+     * Tracks included in the list response (nullable).
+     */
+    public List<TrackResponse> included;
+
+    /**
+     * Default constructor.
+     */
+    public IncludedTracksListResponse() {
+    }
+
+    /**
+     * Returns the data of the list response.
+     * 
+     * @return the data of the list response.
+     */
+    public List<ResourceResponse> getData() {
+      return data;
+    }
+
+    /**
+     * Returns the tracks included in the list response.
+     * 
+     * @return the included tracks, or null if the response has none.
+     */
+    public List<TrackResponse> getIncluded() {
+      return included;
+    }
+  }
 }
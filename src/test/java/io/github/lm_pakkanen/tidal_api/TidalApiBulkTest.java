@@ -0,0 +1,90 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.models.BulkResult;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+
+public final class TidalApiBulkTest {
+  private final static int KEY_COUNT = 100_000;
+  private final static int MAX_CONCURRENCY = 16;
+
+  @Test
+  void testReturnsResultsInInputOrder() {
+    final TidalApi api = new TidalApi();
+    final List<Integer> keys = IntStream.range(0, KEY_COUNT).boxed().toList();
+
+    final BulkResult<Integer, String> result = api.bulk.execute(keys, key -> "track-" + key, MAX_CONCURRENCY);
+
+    assertEquals(KEY_COUNT, result.getItems().size());
+    assertEquals(0, result.getFailureCount());
+
+    for (int i = 0; i < KEY_COUNT; i++) {
+      final BulkResult.Item<Integer, String> item = result.getItems().get(i);
+      assertEquals(i, item.getKey());
+      assertEquals("track-" + i, item.getValue());
+    }
+  }
+
+  @Test
+  void testReportsFailuresPerItem() {
+    final TidalApi api = new TidalApi();
+    final List<Integer> keys = IntStream.range(0, 1000).boxed().toList();
+
+    final BulkResult<Integer, Integer> result = api.bulk.execute(keys, key -> {
+      if (key % 10 == 0) {
+        throw new QueryException("failed " + key);
+      }
+
+      return key * 2;
+    });
+
+    assertEquals(100, result.getFailureCount());
+
+    for (BulkResult.Item<Integer, Integer> item : result.getItems()) {
+      if (item.getKey() % 10 == 0) {
+        assertEquals(BulkResult.Status.FAILURE, item.getStatus());
+        assertNull(item.getValue());
+        assertEquals("Query failure: failed " + item.getKey(), item.getException().getMessage());
+      } else {
+        assertEquals(BulkResult.Status.SUCCESS, item.getStatus());
+        assertEquals(item.getKey() * 2, item.getValue());
+      }
+    }
+  }
+
+  @Test
+  void testCapsConcurrency() {
+    final TidalApi api = new TidalApi();
+    final List<Integer> keys = IntStream.range(0, 2000).boxed().toList();
+
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+
+    api.bulk.execute(keys, key -> {
+      final int current = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(current, Math::max);
+
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException exception) {
+        throw new QueryException(exception);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+
+      return key;
+    }, MAX_CONCURRENCY);
+
+    assertTrue(maxInFlight.get() <= MAX_CONCURRENCY);
+    assertTrue(maxInFlight.get() > 1);
+  }
+}
@@ -0,0 +1,152 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.queries.CircuitBreaker;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiCircuitBreakerTest {
+  private final static byte[] BODY = "{\"resource\":{\"id\":\"345485959\"}}".getBytes(StandardCharsets.UTF_8);
+  private final static Duration OPEN_DURATION = Duration.ofMillis(200);
+
+  private static ClientSettings breakerSettings() {
+    return new ClientSettings()
+        .maxRetries(0)
+        .circuitBreakerMinimumRequests(4)
+        .circuitBreakerOpenDuration(OPEN_DURATION)
+        .circuitBreakerHalfOpenProbes(1);
+  }
+
+  private static StubServer failingServer(AtomicBoolean healthy) throws Exception {
+    final StubServer server = new StubServer();
+
+    server.route("/tracks", exchange -> {
+      if (!healthy.get()) {
+        exchange.sendResponseHeaders(500, -1);
+        return;
+      }
+
+      exchange.sendResponseHeaders(200, BODY.length);
+      exchange.getResponseBody().write(BODY);
+    });
+
+    server.route("/artists", exchange -> {
+      exchange.sendResponseHeaders(200, BODY.length);
+      exchange.getResponseBody().write(BODY);
+    });
+
+    return server;
+  }
+
+  private static CircuitBreaker find(QueryClient client, String family) {
+    return client.getCircuitBreakers().stream()
+        .filter(circuitBreaker -> circuitBreaker.getName().endsWith("/" + family))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  @Test
+  void testOpensAndFailsFast() throws Exception {
+    final AtomicBoolean healthy = new AtomicBoolean(false);
+    final List<String> transitions = new CopyOnWriteArrayList<>();
+
+    try (StubServer server = failingServer(healthy); QueryClient client = new QueryClient(breakerSettings())) {
+      client.addCircuitBreakerListener((circuitBreaker, from, to) -> transitions.add(from + "->" + to));
+
+      final String url = server.getBaseUrl() + "/tracks/345485959";
+
+      for (int i = 0; i < 4; i++) {
+        assertThrows(QueryException.class, () -> new Query(client, url).execute(ResourceResponse.class));
+      }
+
+      assertEquals(CircuitBreaker.State.OPEN, find(client, "tracks").getState());
+
+      final QueryException exception = assertThrows(QueryException.class,
+          () -> new Query(client, url).execute(ResourceResponse.class));
+
+      assertTrue(exception.getMessage().contains("is open"));
+      assertEquals(4, server.getRequestCount());
+      assertEquals(1, client.getStatistics().getCircuitBreakerRejections());
+      assertEquals(List.of("CLOSED->OPEN"), transitions);
+    }
+  }
+
+  @Test
+  void testClosesAfterSuccessfulProbe() throws Exception {
+    final AtomicBoolean healthy = new AtomicBoolean(false);
+    final List<String> transitions = new CopyOnWriteArrayList<>();
+
+    try (StubServer server = failingServer(healthy); QueryClient client = new QueryClient(breakerSettings())) {
+      client.addCircuitBreakerListener((circuitBreaker, from, to) -> transitions.add(from + "->" + to));
+
+      final String url = server.getBaseUrl() + "/tracks/345485959";
+
+      for (int i = 0; i < 4; i++) {
+        assertThrows(QueryException.class, () -> new Query(client, url).execute(ResourceResponse.class));
+      }
+
+      healthy.set(true);
+      Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+      assertEquals("345485959", new Query(client, url).execute(ResourceResponse.class).resource.id);
+      assertEquals(CircuitBreaker.State.CLOSED, find(client, "tracks").getState());
+      assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+  }
+
+  @Test
+  void testReopensAfterFailedProbe() throws Exception {
+    final AtomicBoolean healthy = new AtomicBoolean(false);
+
+    try (StubServer server = failingServer(healthy); QueryClient client = new QueryClient(breakerSettings())) {
+      final String url = server.getBaseUrl() + "/tracks/345485959";
+
+      for (int i = 0; i < 4; i++) {
+        assertThrows(QueryException.class, () -> new Query(client, url).execute(ResourceResponse.class));
+      }
+
+      Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+      assertThrows(QueryException.class, () -> new Query(client, url).execute(ResourceResponse.class));
+      assertEquals(5, server.getRequestCount());
+      assertEquals(CircuitBreaker.State.OPEN, find(client, "tracks").getState());
+
+      assertThrows(QueryException.class, () -> new Query(client, url).execute(ResourceResponse.class));
+      assertEquals(5, server.getRequestCount());
+    }
+  }
+
+  @Test
+  void testIsolatesEndpointFamilies() throws Exception {
+    final AtomicBoolean healthy = new AtomicBoolean(false);
+
+    try (StubServer server = failingServer(healthy); QueryClient client = new QueryClient(breakerSettings())) {
+      for (int i = 0; i < 4; i++) {
+        final String url = server.getBaseUrl() + "/tracks/" + i;
+        assertThrows(QueryException.class, () -> new Query(client, url).execute(ResourceResponse.class));
+      }
+
+      final ResourceResponse response = new Query(client, server.getBaseUrl() + "/artists/1")
+          .execute(ResourceResponse.class);
+
+      assertEquals("345485959", response.resource.id);
+      assertEquals(CircuitBreaker.State.OPEN, find(client, "tracks").getState());
+      assertEquals(CircuitBreaker.State.CLOSED, find(client, "artists").getState());
+    }
+  }
+}
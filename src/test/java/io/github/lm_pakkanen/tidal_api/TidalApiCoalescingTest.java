@@ -0,0 +1,83 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiCoalescingTest {
+  private final static int CALLER_COUNT = 50;
+  private final static byte[] BODY = "{\"resource\":{\"id\":\"345485959\"}}".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void testCoalescesIdenticalRequests() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+          Thread.currentThread().interrupt();
+        }
+
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      final String url = server.getBaseUrl() + "/tracks/345485959";
+      final List<CompletableFuture<ResourceResponse>> futures = new ArrayList<>();
+
+      for (int i = 0; i < CALLER_COUNT; i++) {
+        futures.add(new Query(client, url).parameter("countryCode", "US").executeAsync(ResourceResponse.class));
+      }
+
+      release.countDown();
+
+      final ResourceResponse first = futures.get(0).get(10, TimeUnit.SECONDS);
+
+      for (CompletableFuture<ResourceResponse> future : futures) {
+        assertSame(first, future.get(10, TimeUnit.SECONDS));
+      }
+
+      assertEquals("345485959", first.resource.id);
+      assertEquals(1, server.getRequestCount());
+      assertEquals(CALLER_COUNT - 1, client.getStatistics().getCoalescedRequests());
+    }
+  }
+
+  @Test
+  void testDoesNotCoalesceDifferentParameters() throws Exception {
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> {
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      final String url = server.getBaseUrl() + "/tracks/345485959";
+
+      final CompletableFuture<ResourceResponse> us = new Query(client, url).parameter("countryCode", "US")
+          .executeAsync(ResourceResponse.class);
+      final CompletableFuture<ResourceResponse> fi = new Query(client, url).parameter("countryCode", "FI")
+          .executeAsync(ResourceResponse.class);
+
+      CompletableFuture.allOf(us, fi).get(10, TimeUnit.SECONDS);
+
+      assertEquals(2, server.getRequestCount());
+      assertEquals(0, client.getStatistics().getCoalescedRequests());
+    }
+  }
+}
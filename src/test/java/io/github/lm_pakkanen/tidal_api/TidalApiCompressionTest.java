@@ -0,0 +1,136 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.ListQueryResult;
+import io.github.lm_pakkanen.tidal_api.models.queries.ListQuery;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiCompressionTest {
+  private final static int ITEM_COUNT = 500;
+  private final static byte[] BODY = TidalApiCompressionTest.createBody();
+
+  @Test
+  void testDecodesGzipResponse() throws Exception {
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> TidalApiCompressionTest.respond(exchange, "gzip"));
+
+      final ListQuery query = new ListQuery(client, server.getBaseUrl() + "/tracks");
+      final ListQueryResult<ResourceResponse> result = query.execute(ResourceResponse.class,
+          ResourceResponse.ListResponse.class, "data");
+
+      assertItemsValid(result);
+      assertEquals(BODY.length, query.getBytesDecoded());
+      assertTrue(query.getBytesReceived() < query.getBytesDecoded());
+      assertEquals(1, client.getStatistics().getCompressedResponses());
+    }
+  }
+
+  @Test
+  void testDecodesDeflateResponse() throws Exception {
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> TidalApiCompressionTest.respond(exchange, "deflate"));
+
+      final ListQuery query = new ListQuery(client, server.getBaseUrl() + "/tracks");
+      final ListQueryResult<ResourceResponse> result = query.execute(ResourceResponse.class,
+          ResourceResponse.ListResponse.class, "data");
+
+      assertItemsValid(result);
+      assertEquals(BODY.length, query.getBytesDecoded());
+      assertTrue(query.getBytesReceived() < query.getBytesDecoded());
+    }
+  }
+
+  @Test
+  void testDecodesUncompressedResponse() throws Exception {
+    final AtomicReference<String> acceptEncoding = new AtomicReference<>();
+    final ClientSettings settings = new ClientSettings().compression(false);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> {
+        acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        TidalApiCompressionTest.respond(exchange, "identity");
+      });
+
+      final Query query = new Query(client, server.getBaseUrl() + "/tracks");
+      final ResourceResponse.ListResponse response = query.execute(ResourceResponse.ListResponse.class);
+
+      assertNull(acceptEncoding.get());
+      assertEquals(ITEM_COUNT, response.getData().size());
+      assertEquals(BODY.length, query.getBytesReceived());
+      assertEquals(BODY.length, query.getBytesDecoded());
+      assertEquals(0, client.getStatistics().getCompressedResponses());
+    }
+  }
+
+  private static void assertItemsValid(ListQueryResult<ResourceResponse> result) {
+    assertEquals(ListQueryResult.Status.SUCCESS, result.getStatus());
+    assertEquals(ITEM_COUNT, result.getItems().size());
+
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      assertEquals(String.valueOf(i), result.getItems().get(i).resource.id);
+    }
+  }
+
+  /**
+   * Responds with the test body using the requested encoding, if the client
+   * accepts it.
+   */
+  private static void respond(HttpExchange exchange, String encoding) throws IOException {
+    final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    final boolean compress = !encoding.equals("identity") && acceptEncoding != null
+        && acceptEncoding.contains(encoding);
+
+    byte[] body = BODY;
+
+    if (compress) {
+      final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+      try (OutputStream outputStream = encoding.equals("gzip")
+          ? new GZIPOutputStream(compressed)
+          : new DeflaterOutputStream(compressed)) {
+        outputStream.write(BODY);
+      }
+
+      body = compressed.toByteArray();
+      exchange.getResponseHeaders().set("Content-Encoding", encoding);
+    }
+
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+    exchange.getResponseBody().write(body);
+  }
+
+  private static byte[] createBody() {
+    final StringBuilder bodyBuilder = new StringBuilder("{\"data\":[");
+
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      if (i > 0) {
+        bodyBuilder.append(",");
+      }
+
+      bodyBuilder.append("{\"resource\":{\"id\":\"").append(i).append("\"}}");
+    }
+
+    bodyBuilder.append("]}");
+    return bodyBuilder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
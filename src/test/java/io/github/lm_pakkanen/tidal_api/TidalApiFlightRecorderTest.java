@@ -0,0 +1,131 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalTrack;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.TrackResponse;
+import io.github.lm_pakkanen.tidal_api.stub.TidalStubServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public final class TidalApiFlightRecorderTest {
+  private static final String PREFIX = "io.github.lm_pakkanen.tidal_api.";
+
+  private TidalStubServer stub;
+
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  void startStub() throws Exception {
+    this.stub = new TidalStubServer(3, 250, 50);
+  }
+
+  @AfterEach
+  void stopStub() {
+    this.stub.close();
+  }
+
+  private List<RecordedEvent> record(ClientSettings settings, String name) throws Exception {
+    final Path file = this.directory.resolve(name + ".jfr");
+
+    try (Recording recording = new Recording(); TidalApi api = new TidalApi(settings)) {
+      recording.enable(PREFIX + "UrlBuild");
+      recording.enable(PREFIX + "TimeToFirstByte");
+      recording.enable(PREFIX + "BodyRead");
+      recording.enable(PREFIX + "JsonDecode");
+      recording.enable(PREFIX + "EntityMapping");
+      recording.start();
+
+      api.authorize("client-id", "client-secret");
+      api.tracks.get(TidalStubServer.trackId(0, 0), "US");
+      api.tracks.listByArtist(TidalStubServer.artistId(1), "US", 0, 10);
+
+      recording.stop();
+      recording.dump(file);
+    }
+
+    return RecordingFile.readAllEvents(file).stream()
+        .filter(event -> event.getEventType().getName().startsWith(PREFIX))
+        .collect(Collectors.toList());
+  }
+
+  private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(PREFIX + name))
+        .collect(Collectors.toList());
+  }
+
+  private static RecordedEvent single(List<RecordedEvent> events, String name, String endpoint) {
+    final List<RecordedEvent> matching = ofType(events, name).stream()
+        .filter(event -> endpoint.equals(event.getString("endpoint")))
+        .collect(Collectors.toList());
+
+    assertEquals(1, matching.size(), name + " " + endpoint);
+    return matching.get(0);
+  }
+
+  @Test
+  void testRecordsQueryLifecycle() throws Exception {
+    final List<RecordedEvent> events = this.record(this.stub.clientSettings(), "lifecycle");
+
+    final RecordedEvent build = single(events, "UrlBuild", "tracks");
+    assertTrue(build.getString("url").contains("/tracks/" + TidalStubServer.trackId(0, 0)));
+    assertEquals(0, build.getLong("bytes"));
+
+    // The authorization request sends the client credentials as its body
+    assertTrue(single(events, "UrlBuild", "auth").getLong("bytes") > 0);
+
+    for (String endpoint : List.of("auth", "tracks", "artists/tracks")) {
+      final RecordedEvent exchange = single(events, "TimeToFirstByte", endpoint);
+      assertEquals(200, exchange.getInt("statusCode"));
+      assertFalse(exchange.getDuration().isNegative());
+
+      final RecordedEvent decode = single(events, "JsonDecode", endpoint);
+      assertEquals(200, decode.getInt("statusCode"));
+      assertTrue(decode.getLong("bytes") > 0, endpoint);
+    }
+
+    assertEquals(TrackResponse.class.getName(),
+        single(events, "JsonDecode", "tracks").getClass("modelClass").getName());
+
+    final List<RecordedEvent> mappings = ofType(events, "EntityMapping");
+    assertEquals(List.of(1, 10), mappings.stream().map(event -> event.getInt("count")).sorted()
+        .collect(Collectors.toList()));
+    assertEquals(TidalTrack.class.getName(), mappings.get(0).getClass("entityType").getName());
+  }
+
+  @Test
+  void testRecordsBodyReadForResponseCache() throws Exception {
+    final ClientSettings settings = this.stub.clientSettings()
+        .responseCacheDirectory(Files.createDirectory(this.directory.resolve("cache")));
+    final List<RecordedEvent> events = this.record(settings, "cache");
+
+    final RecordedEvent read = single(events, "BodyRead", "tracks");
+    assertEquals(200, read.getInt("statusCode"));
+    assertTrue(read.getLong("bytes") > 0);
+  }
+
+  @Test
+  void testQueriesRunWithoutRecording() throws Exception {
+    try (TidalApi api = new TidalApi(this.stub.clientSettings())) {
+      api.authorize("client-id", "client-secret");
+
+      assertEquals(TidalStubServer.trackId(0, 0), api.tracks.get(TidalStubServer.trackId(0, 0), "US").getId());
+    }
+  }
+}
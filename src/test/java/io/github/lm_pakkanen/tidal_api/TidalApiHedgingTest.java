@@ -0,0 +1,206 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiHedgingTest {
+  private final static byte[] BODY = "{\"resource\":{\"id\":\"345485959\"}}".getBytes(StandardCharsets.UTF_8);
+  private final static int WARM_UP_COUNT = 40;
+
+  private static void respond(HttpExchange exchange) throws IOException {
+    exchange.sendResponseHeaders(200, BODY.length);
+    exchange.getResponseBody().write(BODY);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void warmUp(QueryClient client, StubServer server) throws Exception {
+    for (int i = 0; i < WARM_UP_COUNT; i++) {
+      new Query(client, server.getBaseUrl() + "/tracks/" + i).hedged(true).execute(ResourceResponse.class);
+    }
+  }
+
+  @Test
+  void testHedgeWinsOverSlowRequest() throws Exception {
+    final ClientSettings settings = new ClientSettings().hedging(true);
+    final String slowPath = "/tracks/345485959";
+    final AtomicInteger slowCalls = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> {
+        // Only the measured primary stalls; late warm-up hedges and losers
+        // use other paths and answer at once
+        if (slowPath.equals(exchange.getRequestURI().getPath()) && slowCalls.getAndIncrement() == 0) {
+          TidalApiHedgingTest.await(release);
+        }
+
+        TidalApiHedgingTest.respond(exchange);
+      });
+
+      try {
+        warmUp(client, server);
+
+        // Warm-up requests may have been hedged themselves
+        final long sentBefore = client.getStatistics().getHedgesSent();
+        final long wonBefore = client.getStatistics().getHedgesWon();
+
+        final ResourceResponse response = new Query(client, server.getBaseUrl() + slowPath)
+            .hedged(true)
+            .executeAsync(ResourceResponse.class)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("345485959", response.resource.id);
+        assertEquals(2, slowCalls.get());
+        assertEquals(1, client.getStatistics().getHedgesSent() - sentBefore);
+        assertEquals(1, client.getStatistics().getHedgesWon() - wonBefore);
+      } finally {
+        release.countDown();
+      }
+    }
+  }
+
+  @Test
+  void testRetryableStatusDoesNotBeatPendingHedge() throws Exception {
+    final ClientSettings settings = new ClientSettings().hedging(true).maxRetries(0);
+    final String slowPath = "/tracks/345485959";
+    final AtomicInteger slowCalls = new AtomicInteger();
+    final CountDownLatch hedgeArrived = new CountDownLatch(1);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> {
+        if (!slowPath.equals(exchange.getRequestURI().getPath())) {
+          TidalApiHedgingTest.respond(exchange);
+          return;
+        }
+
+        if (slowCalls.getAndIncrement() == 0) {
+          // The primary fails fast once the hedge is in flight
+          TidalApiHedgingTest.await(hedgeArrived);
+          exchange.sendResponseHeaders(503, -1);
+          return;
+        }
+
+        hedgeArrived.countDown();
+
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException exception) {
+          Thread.currentThread().interrupt();
+        }
+
+        TidalApiHedgingTest.respond(exchange);
+      });
+
+      try {
+        warmUp(client, server);
+
+        final long wonBefore = client.getStatistics().getHedgesWon();
+
+        final ResourceResponse response = new Query(client, server.getBaseUrl() + slowPath)
+            .hedged(true)
+            .executeAsync(ResourceResponse.class)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("345485959", response.resource.id);
+        assertEquals(2, slowCalls.get());
+        assertEquals(1, client.getStatistics().getHedgesWon() - wonBefore);
+      } finally {
+        hedgeArrived.countDown();
+      }
+    }
+  }
+
+  @Test
+  void testCapsHedgesInFlight() throws Exception {
+    final ClientSettings settings = new ClientSettings()
+        .hedging(true)
+        .hedgingMaxInFlight(1);
+    final AtomicBoolean slow = new AtomicBoolean(false);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> {
+        if (slow.get()) {
+          TidalApiHedgingTest.await(release);
+        }
+
+        TidalApiHedgingTest.respond(exchange);
+      });
+
+      final List<CompletableFuture<ResourceResponse>> futures = new ArrayList<>();
+
+      try {
+        warmUp(client, server);
+        slow.set(true);
+
+        final long sentBefore = client.getStatistics().getHedgesSent();
+
+        for (int i = 0; i < 3; i++) {
+          futures.add(new Query(client, server.getBaseUrl() + "/tracks/slow-" + i)
+              .hedged(true)
+              .executeAsync(ResourceResponse.class));
+        }
+
+        Thread.sleep(500);
+        assertEquals(1, client.getStatistics().getHedgesSent() - sentBefore);
+      } finally {
+        release.countDown();
+      }
+
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  void testDoesNotHedgeWhenDisabled() throws Exception {
+    final AtomicBoolean slow = new AtomicBoolean(false);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> {
+        if (slow.get()) {
+          try {
+            Thread.sleep(200);
+          } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+          }
+        }
+
+        TidalApiHedgingTest.respond(exchange);
+      });
+
+      warmUp(client, server);
+      slow.set(true);
+
+      new Query(client, server.getBaseUrl() + "/tracks/345485959").hedged(true).execute(ResourceResponse.class);
+
+      assertEquals(0, client.getStatistics().getHedgesSent());
+      assertEquals(WARM_UP_COUNT + 1, server.getRequestCount());
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestFactory;
+
+import io.github.lm_pakkanen.tidal_api.load.LoadBaseline;
+import io.github.lm_pakkanen.tidal_api.load.LoadGenerator;
+import io.github.lm_pakkanen.tidal_api.load.LoadReport;
+import io.github.lm_pakkanen.tidal_api.stub.TidalStubServer;
+
+/**
+ * Drives mixed traffic from 1 to 1000 concurrent callers against a local stub
+ * and fails if latency or throughput regress past the stored baselines. Only
+ * runs with the 'load' profile: mvn test -Pload
+ */
+@Tag("load")
+public final class TidalApiLoadTest {
+  private final static String BASELINES = "/load-baselines.properties";
+  private final static Path RESULTS = Path.of("target", "load-results.properties");
+  private final static int ARTIST_COUNT = 50;
+  private final static int TRACKS_PER_ARTIST = 500;
+  private final static int LIST_SIZE = 20;
+  private final static int PAGE_SIZE = 50;
+
+  private final static Properties results = new Properties();
+
+  @AfterAll
+  static void writeResults() throws Exception {
+    Files.createDirectories(RESULTS.getParent());
+
+    try (OutputStream stream = Files.newOutputStream(RESULTS)) {
+      results.store(stream, "Measured load results, in the format of " + BASELINES);
+    }
+  }
+
+  @TestFactory
+  Stream<DynamicTest> testDoesNotRegressPastBaselines() throws Exception {
+    final List<LoadBaseline> baselines = LoadBaseline.load(BASELINES);
+
+    return baselines.stream().map(baseline -> DynamicTest.dynamicTest(
+        baseline.getName() + " (" + baseline.getCallers() + " callers)", () -> this.run(baseline)));
+  }
+
+  private void run(LoadBaseline baseline) throws Exception {
+    final Duration warmup = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 5));
+    final Duration duration = Duration.ofSeconds(Long.getLong("load.durationSeconds", 10));
+    final double tolerance = Double.parseDouble(System.getProperty("load.tolerance", "1"));
+    final Duration latencyMedian = Duration.ofMillis(Long.getLong("load.latencyMedianMillis", 2));
+    final Duration latencyP99 = Duration.ofMillis(Long.getLong("load.latencyP99Millis", 20));
+
+    try (TidalStubServer stub = new TidalStubServer(ARTIST_COUNT, TRACKS_PER_ARTIST, 50)) {
+      stub.latency(TidalStubServer.Latency.logNormal(latencyMedian, latencyP99));
+
+      try (TidalApi api = new TidalApi(stub.clientSettings())) {
+        api.authorize("load-client-id", "load-client-secret");
+
+        final LoadReport report = new LoadGenerator()
+            .callers(baseline.getCallers())
+            .rate(baseline.getRate())
+            .warmup(warmup)
+            .duration(duration)
+            .operation("get", 40, random -> api.tracks.get(randomTrackId(random), "US"))
+            .operation("list", 30, random -> api.tracks.list(randomTrackIds(random), "US"))
+            .operation("listByArtist", 20, random -> api.tracks.listByArtist(
+                TidalStubServer.artistId(random.nextInt(ARTIST_COUNT)), "US",
+                random.nextInt(TRACKS_PER_ARTIST / PAGE_SIZE) * PAGE_SIZE, PAGE_SIZE))
+            .operation("listSimilar", 10, random -> api.tracks.listSimilar(randomTrackId(random), "US", LIST_SIZE))
+            .run();
+
+        report.writeTo(baseline.getName(), results);
+
+        final List<String> regressions = baseline.check(report, tolerance);
+        assertTrue(regressions.isEmpty(),
+            () -> baseline.getName() + ": " + report + "\n" + String.join("\n", regressions));
+      }
+    }
+  }
+
+  private static String randomTrackId(ThreadLocalRandom random) {
+    return TidalStubServer.trackId(random.nextInt(ARTIST_COUNT), random.nextInt(TRACKS_PER_ARTIST));
+  }
+
+  private static String[] randomTrackIds(ThreadLocalRandom random) {
+    final String[] trackIds = new String[LIST_SIZE];
+
+    for (int i = 0; i < LIST_SIZE; i++) {
+      trackIds[i] = randomTrackId(random);
+    }
+
+    return trackIds;
+  }
+}
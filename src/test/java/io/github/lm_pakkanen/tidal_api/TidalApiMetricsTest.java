@@ -0,0 +1,208 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.interfaces.MetricsSink;
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalTrack;
+import io.github.lm_pakkanen.tidal_api.models.metrics.EndpointMetrics;
+import io.github.lm_pakkanen.tidal_api.models.metrics.InMemoryMetricsSink;
+import io.github.lm_pakkanen.tidal_api.models.metrics.LogHistogram;
+import io.github.lm_pakkanen.tidal_api.stub.TidalStubServer;
+
+public final class TidalApiMetricsTest {
+  private TidalStubServer stub;
+
+  @BeforeEach
+  void startStub() throws Exception {
+    this.stub = new TidalStubServer(3, 250, 50);
+  }
+
+  @AfterEach
+  void stopStub() {
+    this.stub.close();
+  }
+
+  private TidalApi authorized(ClientSettings settings) throws Exception {
+    final TidalApi api = new TidalApi(settings);
+    api.authorize("client-id", "client-secret");
+    return api;
+  }
+
+  private static EndpointMetrics metrics(TidalApi api, String endpoint) {
+    final EndpointMetrics metrics = ((InMemoryMetricsSink) api.getMetricsSink()).getEndpointMetrics(endpoint);
+    assertNotNull(metrics, "No metrics for " + endpoint);
+    return metrics;
+  }
+
+  @Test
+  void testRecordsMetricsPerEndpoint() throws Exception {
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      api.tracks.get(TidalStubServer.trackId(0, 0), "US");
+      api.tracks.listByIsrc(TidalStubServer.isrc(3), "US");
+      api.tracks.listByArtist(TidalStubServer.artistId(1), "US", 0, 10);
+      api.tracks.listSimilar(TidalStubServer.trackId(0, 0), "US", 0, 10);
+
+      final Map<String, EndpointMetrics> endpoints = ((InMemoryMetricsSink) api.getMetricsSink())
+          .getEndpointMetrics();
+
+      assertEquals(List.of("artists/tracks", "auth", "similar", "tracks", "tracks/byIsrc"),
+          List.copyOf(endpoints.keySet()));
+      assertEquals(1, metrics(api, "auth").getResponses(200));
+      assertEquals(1, metrics(api, "tracks/byIsrc").getResponses(200));
+      assertEquals(1, metrics(api, "artists/tracks").getResponses(200));
+      assertEquals(1, metrics(api, "similar").getResponses(200));
+
+      for (EndpointMetrics metrics : endpoints.values()) {
+        assertEquals(metrics.getResponses(), metrics.getTimeToHeaders().getCount());
+        assertEquals(metrics.getResponses(), metrics.getBodies());
+        assertEquals(metrics.getBodies(), metrics.getDecodeTime().getCount());
+        assertTrue(metrics.getBytesReceived() > 0, metrics.getEndpoint());
+        assertEquals(0, metrics.getFailures());
+        assertEquals(0, metrics.getRetries());
+      }
+    }
+  }
+
+  @Test
+  void testRecordsStatusCodesAndRetries() throws Exception {
+    final ClientSettings settings = this.stub.clientSettings().retryBaseDelay(Duration.ofMillis(1));
+
+    try (TidalApi api = this.authorized(settings)) {
+      this.stub.failNext(1, 503);
+      api.tracks.get(TidalStubServer.trackId(0, 0), "US");
+
+      final EndpointMetrics tracks = metrics(api, "tracks");
+
+      assertEquals(2, tracks.getResponses());
+      assertEquals(1, tracks.getResponses(503));
+      assertEquals(1, tracks.getResponses(200));
+      assertEquals(Map.of(200, 1L, 503, 1L), tracks.getStatusCodes());
+      assertEquals(1, tracks.getRetries());
+    }
+  }
+
+  @Test
+  void testUsesCustomSink() throws Exception {
+    final List<String> events = new CopyOnWriteArrayList<>();
+    final MetricsSink sink = new MetricsSink() {
+      @Override
+      public void recordResponse(String endpoint, int statusCode, long timeToHeadersNanos) {
+        events.add("response " + endpoint + " " + statusCode);
+      }
+
+      @Override
+      public void recordFailure(String endpoint) {
+        events.add("failure " + endpoint);
+      }
+
+      @Override
+      public void recordBody(String endpoint, long bytesReceived, long decodeNanos) {
+        events.add("body " + endpoint);
+      }
+
+      @Override
+      public void recordRetry(String endpoint) {
+        events.add("retry " + endpoint);
+      }
+    };
+
+    try (TidalApi api = new TidalApi(this.stub.clientSettings())) {
+      api.setMetricsSink(sink);
+      assertSame(sink, api.getMetricsSink());
+
+      api.authorize("client-id", "client-secret");
+      api.tracks.get(TidalStubServer.trackId(0, 0), "US");
+
+      assertEquals(List.of("response auth 200", "body auth", "response tracks 200", "body tracks"), events);
+    }
+  }
+
+  @Test
+  void testFailingSinkDoesNotFailQueries() throws Exception {
+    final MetricsSink sink = new MetricsSink() {
+      @Override
+      public void recordResponse(String endpoint, int statusCode, long timeToHeadersNanos) {
+        throw new IllegalStateException("Sink down");
+      }
+
+      @Override
+      public void recordFailure(String endpoint) {
+        throw new IllegalStateException("Sink down");
+      }
+
+      @Override
+      public void recordBody(String endpoint, long bytesReceived, long decodeNanos) {
+        throw new IllegalStateException("Sink down");
+      }
+
+      @Override
+      public void recordRetry(String endpoint) {
+        throw new IllegalStateException("Sink down");
+      }
+    };
+
+    try (TidalApi api = new TidalApi(this.stub.clientSettings())) {
+      api.setMetricsSink(sink);
+      api.authorize("client-id", "client-secret");
+
+      final TidalTrack track = api.tracks.get(TidalStubServer.trackId(0, 0), "US");
+
+      assertEquals(TidalStubServer.trackId(0, 0), track.getId());
+    }
+  }
+
+  @Test
+  void testNullSinkDisablesMetrics() throws Exception {
+    try (TidalApi api = new TidalApi(this.stub.clientSettings())) {
+      api.setMetricsSink(null);
+      api.authorize("client-id", "client-secret");
+      api.tracks.get(TidalStubServer.trackId(0, 0), "US");
+
+      assertNull(api.getMetricsSink());
+    }
+  }
+
+  @Test
+  void testTenantsHaveOwnSinks() throws Exception {
+    try (TidalApi api = new TidalApi(this.stub.clientSettings())) {
+      final TidalApi tenant = new TidalApi(api.getClient().forTenant("tenant"));
+
+      assertTrue(api.getMetricsSink() != tenant.getMetricsSink());
+    }
+  }
+
+  @Test
+  void testHistogramPercentiles() {
+    final LogHistogram histogram = new LogHistogram();
+
+    for (int i = 1; i <= 1_000; i++) {
+      histogram.record(i * 1_000_000L);
+    }
+
+    assertEquals(1_000, histogram.getCount());
+    assertEquals(Duration.ofSeconds(1), histogram.getMax());
+    assertEquals(Duration.ofNanos(500_500_000_000L), histogram.getTotal());
+
+    final long median = histogram.getValueAtPercentile(50).toNanos();
+    final long p99 = histogram.getValueAtPercentile(99).toNanos();
+
+    assertTrue(median >= 500_000_000L && median <= 500_000_000L * 1.125, String.valueOf(median));
+    assertTrue(p99 >= 990_000_000L && p99 <= 1_000_000_000L, String.valueOf(p99));
+    assertEquals(Duration.ofSeconds(1), histogram.getValueAtPercentile(100));
+    assertEquals(Duration.ZERO, new LogHistogram().getValueAtPercentile(50));
+  }
+}
@@ -0,0 +1,130 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.controllers.endpoints.AuthorizationController;
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.CredentialsStore;
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.queries.BaseQuery;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.AuthorizationResponse;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiMultiTenantTest {
+  private final static byte[] BODY = "{\"resource\":{\"id\":\"345485959\"}}".getBytes(StandardCharsets.UTF_8);
+
+  private static TidalCredentials credentials(String accessToken) {
+    final AuthorizationResponse response = new AuthorizationResponse();
+    response.access_token = accessToken;
+    response.expires_in = 3600;
+    return new TidalCredentials(response);
+  }
+
+  @Test
+  void testInstancesHaveSeparateCredentials() throws Exception {
+    try (TidalApi first = new TidalApi(); TidalApi second = new TidalApi()) {
+      assertNotSame(first.getClient().getCredentialsStore(), second.getClient().getCredentialsStore());
+
+      first.getClient().getCredentialsStore().setCredentials(credentials("first"));
+
+      assertNull(second.getClient().getCredentialsStore().getCredentials());
+      assertThrows(QueryException.class, () -> second.tracks.get("345485959", "US"));
+    }
+  }
+
+  @Test
+  void testTenantsShareTransportButNotBudgetOrStatistics() throws Exception {
+    final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    try (StubServer server = new StubServer(); QueryClient shared = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> {
+        authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      // Open the shared connection first, so that its setup time does not
+      // count towards the spacing of the first tenant's requests
+      try (QueryClient warmUp = shared.forTenant("warm-up")) {
+        new Query(warmUp, server.getBaseUrl() + "/tracks/345485959").execute(ResourceResponse.class);
+      }
+
+      final QueryClient first = shared.forTenant("first",
+          new ClientSettings().rateLimitPermitsPerSecond(10).rateLimitBurst(1));
+      final QueryClient second = shared.forTenant("second");
+
+      first.getCredentialsStore().setCredentials(credentials("first"));
+      second.getCredentialsStore().setCredentials(credentials("second"));
+
+      for (int i = 0; i < 3; i++) {
+        for (QueryClient tenant : List.of(first, second)) {
+          new Query(tenant, server.getBaseUrl() + "/tracks/345485959")
+              .auth(BaseQuery.tryGetCredentialsOrQueryException(tenant.getCredentialsStore()))
+              .parameter("i", String.valueOf(i))
+              .execute(ResourceResponse.class);
+        }
+      }
+
+      assertEquals(3, authorizations.stream().filter("Bearer first"::equals).count());
+      assertEquals(3, authorizations.stream().filter("Bearer second"::equals).count());
+
+      assertEquals("first", first.getStatistics().getTenantId());
+      assertEquals("second", second.getStatistics().getTenantId());
+      assertEquals(3, first.getStatistics().getResponses());
+      assertEquals(3, second.getStatistics().getResponses());
+      assertEquals(0, shared.getStatistics().getResponses());
+
+      assertEquals(2, first.getStatistics().getThrottledRequests());
+      assertEquals(0, second.getStatistics().getThrottledRequests());
+
+      first.close();
+      second.close();
+
+      final ResourceResponse response = new Query(shared, server.getBaseUrl() + "/tracks/345485959")
+          .execute(ResourceResponse.class);
+
+      assertEquals("345485959", response.resource.id);
+    }
+  }
+
+  @Test
+  void testSharedStoreStaysTheDefaultClientStore() throws Exception {
+    final CredentialsStore shared = CredentialsStore.getInstance();
+
+    CredentialsStore.destroyInstance();
+
+    assertSame(shared, CredentialsStore.getInstance());
+    assertSame(shared, QueryClient.getDefault().getCredentialsStore());
+    assertNull(AuthorizationController.getCredentialsOrNull(shared));
+
+    // Instances on tenants of the default client keep their credentials apart
+    try (TidalApi api = new TidalApi()) {
+      api.getClient().getCredentialsStore().setCredentials(credentials("tenant"));
+
+      assertEquals("tenant",
+          AuthorizationController.getCredentialsOrNull(api.getClient().getCredentialsStore()).getAccessToken());
+      assertNull(shared.getCredentials());
+    }
+  }
+
+  @Test
+  void testRejectsEmptyTenantId() {
+    try (QueryClient shared = new QueryClient(new ClientSettings())) {
+      assertThrows(IllegalArgumentException.class, () -> shared.forTenant(""));
+    }
+  }
+}
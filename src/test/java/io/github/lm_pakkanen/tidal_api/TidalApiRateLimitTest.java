@@ -0,0 +1,205 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiRateLimitTest {
+  private final static byte[] BODY = "{\"resource\":{\"id\":\"345485959\"}}".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void testReplaysAfterRetryAfter() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> {
+        if (calls.getAndIncrement() == 0) {
+          exchange.getResponseHeaders().add("Retry-After", "1");
+          exchange.sendResponseHeaders(429, -1);
+          return;
+        }
+
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      final ResourceResponse response = new Query(client, server.getBaseUrl() + "/tracks/345485959")
+          .parameter("countryCode", "US").execute(ResourceResponse.class);
+
+      assertEquals("345485959", response.resource.id);
+      assertEquals(2, server.getRequestCount());
+      assertEquals(1, client.getStatistics().getRateLimitedResponses());
+      assertEquals(1, client.getStatistics().getThrottledRequests());
+      assertTrue(client.getStatistics().getMaxThrottleWaitTime().compareTo(Duration.ofMillis(900)) >= 0);
+    }
+  }
+
+  @Test
+  void testFailsAfterReplaysAreUsedUp() throws Exception {
+    final ClientSettings settings = new ClientSettings().rateLimitReplays(2);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> {
+        exchange.getResponseHeaders().add("Retry-After", "0");
+        exchange.sendResponseHeaders(429, -1);
+      });
+
+      final Query query = new Query(client, server.getBaseUrl() + "/tracks/345485959");
+
+      assertThrows(QueryException.class, () -> query.execute(ResourceResponse.class));
+      assertEquals(3, server.getRequestCount());
+      assertEquals(3, client.getStatistics().getRateLimitedResponses());
+    }
+  }
+
+  @Test
+  void testDoesNotThrottleByDefault() throws Exception {
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> {
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      final List<CompletableFuture<ResourceResponse>> futures = new ArrayList<>();
+
+      for (int i = 0; i < 100; i++) {
+        futures.add(new Query(client, server.getBaseUrl() + "/tracks/" + i).executeAsync(ResourceResponse.class));
+      }
+
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+      assertEquals(100, server.getRequestCount());
+      assertEquals(0, client.getStatistics().getThrottledRequests());
+    }
+  }
+
+  @Test
+  void testQueuesCallersAboveRate() throws Exception {
+    final ClientSettings settings = new ClientSettings().rateLimitPermitsPerSecond(20).rateLimitBurst(1);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> {
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      final long start = System.nanoTime();
+      final List<CompletableFuture<ResourceResponse>> futures = new ArrayList<>();
+
+      for (int i = 0; i < 10; i++) {
+        futures.add(new Query(client, server.getBaseUrl() + "/tracks/" + i).executeAsync(ResourceResponse.class));
+      }
+
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+      final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+      assertEquals(10, server.getRequestCount());
+      assertEquals(9, client.getStatistics().getThrottledRequests());
+      assertTrue(elapsed.compareTo(Duration.ofMillis(400)) >= 0);
+      assertTrue(client.getStatistics().getMaxThrottleWaitTime().compareTo(Duration.ofMillis(400)) >= 0);
+    }
+  }
+
+  @Test
+  void testAdoptsServerRate() throws Exception {
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> {
+        exchange.getResponseHeaders().add("X-RateLimit-Replenish-Rate", "5");
+        exchange.getResponseHeaders().add("X-RateLimit-Burst-Capacity", "1");
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      new Query(client, server.getBaseUrl() + "/tracks/0").execute(ResourceResponse.class);
+
+      final long start = System.nanoTime();
+      final List<CompletableFuture<ResourceResponse>> futures = new ArrayList<>();
+
+      for (int i = 1; i <= 3; i++) {
+        futures.add(new Query(client, server.getBaseUrl() + "/tracks/" + i).executeAsync(ResourceResponse.class));
+      }
+
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+      assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(350)) >= 0);
+    }
+  }
+
+  @Test
+  void testServerDoesNotRaiseConfiguredRate() throws Exception {
+    final ClientSettings settings = new ClientSettings().rateLimitPermitsPerSecond(5).rateLimitBurst(1);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> {
+        exchange.getResponseHeaders().add("X-RateLimit-Replenish-Rate", "1000");
+        exchange.getResponseHeaders().add("X-RateLimit-Burst-Capacity", "1000");
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      new Query(client, server.getBaseUrl() + "/tracks/0").execute(ResourceResponse.class);
+
+      final long start = System.nanoTime();
+      final List<CompletableFuture<ResourceResponse>> futures = new ArrayList<>();
+
+      for (int i = 1; i <= 3; i++) {
+        futures.add(new Query(client, server.getBaseUrl() + "/tracks/" + i).executeAsync(ResourceResponse.class));
+      }
+
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+      assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(350)) >= 0);
+    }
+  }
+
+  @Test
+  void testReservedRequestsWaitForPause() throws Exception {
+    final ClientSettings settings = new ClientSettings().rateLimitPermitsPerSecond(2).rateLimitBurst(1);
+    final List<Long> arrivals = new CopyOnWriteArrayList<>();
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> {
+        arrivals.add(System.nanoTime());
+
+        if (arrivals.size() == 1) {
+          exchange.getResponseHeaders().add("Retry-After", "1");
+          exchange.sendResponseHeaders(429, -1);
+          return;
+        }
+
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      // The second request's slot is reserved before the first is rejected
+      final CompletableFuture<ResourceResponse> first = new Query(client, server.getBaseUrl() + "/tracks/0")
+          .executeAsync(ResourceResponse.class);
+      final CompletableFuture<ResourceResponse> second = new Query(client, server.getBaseUrl() + "/tracks/1")
+          .executeAsync(ResourceResponse.class);
+
+      CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+
+      assertEquals(3, arrivals.size());
+      assertTrue(Duration.ofNanos(arrivals.get(1) - arrivals.get(0)).compareTo(Duration.ofMillis(900)) >= 0);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.controllers.TokenRefresher;
+import io.github.lm_pakkanen.tidal_api.interfaces.CredentialsProvider;
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.CredentialsStore;
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.UnauthorizedException;
+import io.github.lm_pakkanen.tidal_api.models.queries.BaseQuery;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.AuthorizationResponse;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiReauthorizationTest {
+  private final static byte[] BODY = "{\"resource\":{\"id\":\"345485959\"}}".getBytes(StandardCharsets.UTF_8);
+  private final static int CALLER_COUNT = 20;
+
+  private static TidalCredentials credentials(String accessToken) {
+    final AuthorizationResponse response = new AuthorizationResponse();
+    response.access_token = accessToken;
+    response.expires_in = 3600;
+    return new TidalCredentials(response);
+  }
+
+  private static StubServer acceptingOnly(String accessToken) throws Exception {
+    final StubServer server = new StubServer();
+
+    server.route("/tracks", exchange -> {
+      final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+      if (!("Bearer " + accessToken).equals(authorization)) {
+        exchange.sendResponseHeaders(401, -1);
+        return;
+      }
+
+      exchange.sendResponseHeaders(200, BODY.length);
+      exchange.getResponseBody().write(BODY);
+    });
+
+    return server;
+  }
+
+  private static TokenRefresher refresher(CredentialsProvider provider) {
+    return new TokenRefresher(provider, CredentialsStore.getInstance(), Duration.ofHours(1));
+  }
+
+  @AfterEach
+  void forgetCredentials() {
+    CredentialsStore.getInstance().setCredentials(null);
+  }
+
+  @Test
+  void testReplaysAfterSingleSharedRefresh() throws Exception {
+    final TidalCredentials revoked = credentials("revoked");
+    final AtomicInteger authorizations = new AtomicInteger();
+
+    CredentialsStore.getInstance().setCredentials(revoked);
+
+    try (StubServer server = acceptingOnly("fresh"); QueryClient client = new QueryClient(new ClientSettings())) {
+      client.setTokenRefresher(refresher(() -> {
+        authorizations.incrementAndGet();
+
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException exception) {
+          Thread.currentThread().interrupt();
+        }
+
+        return credentials("fresh");
+      }));
+
+      final List<CompletableFuture<ResourceResponse>> futures = new ArrayList<>();
+
+      for (int i = 0; i < CALLER_COUNT; i++) {
+        futures.add(new Query(client, server.getBaseUrl() + "/tracks/" + i)
+            .auth(revoked)
+            .executeAsync(ResourceResponse.class));
+      }
+
+      for (CompletableFuture<ResourceResponse> future : futures) {
+        assertEquals("345485959", future.get(10, TimeUnit.SECONDS).resource.id);
+      }
+
+      assertEquals(1, authorizations.get());
+      assertEquals(CALLER_COUNT * 2, server.getRequestCount());
+      assertEquals(CALLER_COUNT, client.getStatistics().getUnauthorizedReplays());
+      assertEquals("fresh", CredentialsStore.getInstance().getCredentials().getAccessToken());
+    }
+  }
+
+  @Test
+  void testReusesAlreadyRefreshedCredentials() throws Exception {
+    final AtomicInteger authorizations = new AtomicInteger();
+
+    CredentialsStore.getInstance().setCredentials(credentials("fresh"));
+
+    try (StubServer server = acceptingOnly("fresh"); QueryClient client = new QueryClient(new ClientSettings())) {
+      client.setTokenRefresher(refresher(() -> {
+        authorizations.incrementAndGet();
+        return credentials("other");
+      }));
+
+      final ResourceResponse response = new Query(client, server.getBaseUrl() + "/tracks/345485959")
+          .auth(credentials("revoked"))
+          .execute(ResourceResponse.class);
+
+      assertEquals("345485959", response.resource.id);
+      assertEquals(0, authorizations.get());
+      assertEquals(2, server.getRequestCount());
+    }
+  }
+
+  @Test
+  void testFailsWhenRefreshFails() throws Exception {
+    final TidalCredentials revoked = credentials("revoked");
+
+    CredentialsStore.getInstance().setCredentials(revoked);
+
+    try (StubServer server = acceptingOnly("fresh"); QueryClient client = new QueryClient(new ClientSettings())) {
+      client.setTokenRefresher(refresher(() -> {
+        throw new UnauthorizedException();
+      }));
+
+      final Query query = new Query(client, server.getBaseUrl() + "/tracks/345485959").auth(revoked);
+
+      assertThrows(QueryException.class, () -> query.execute(ResourceResponse.class));
+      assertEquals(1, server.getRequestCount());
+    }
+  }
+
+  @Test
+  void testDoesNotReplayNonIdempotentRequests() throws Exception {
+    final TidalCredentials revoked = credentials("revoked");
+    final AtomicInteger authorizations = new AtomicInteger();
+
+    CredentialsStore.getInstance().setCredentials(revoked);
+
+    try (StubServer server = acceptingOnly("fresh"); QueryClient client = new QueryClient(new ClientSettings())) {
+      client.setTokenRefresher(refresher(() -> {
+        authorizations.incrementAndGet();
+        return credentials("fresh");
+      }));
+
+      final Query query = new Query(client, server.getBaseUrl() + "/tracks/345485959")
+          .auth(revoked)
+          .method(BaseQuery.HttpMethod.POST);
+
+      assertThrows(QueryException.class, () -> query.execute(ResourceResponse.class));
+      assertEquals(0, authorizations.get());
+      assertEquals(1, server.getRequestCount());
+    }
+  }
+}
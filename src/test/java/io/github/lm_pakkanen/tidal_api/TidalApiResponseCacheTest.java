@@ -0,0 +1,169 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.cache.DiskResponseCache;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiResponseCacheTest {
+  private final static long MAXIMUM_BYTES = 2L * 1024 * 1024;
+  private final static byte[] BODY = "{\"resource\":{\"id\":\"345485959\"}}".getBytes(StandardCharsets.UTF_8);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testSurvivesReopen() throws Exception {
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      cache.put("https://example.com/tracks/1", BODY, Duration.ofHours(1));
+      assertArrayEquals(BODY, cache.get("https://example.com/tracks/1"));
+    }
+
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      assertArrayEquals(BODY, cache.get("https://example.com/tracks/1"));
+      assertNull(cache.get("https://example.com/tracks/2"));
+    }
+  }
+
+  @Test
+  void testRebuildsMissingIndex() throws Exception {
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      cache.put("https://example.com/tracks/1", BODY, Duration.ofHours(1));
+    }
+
+    Files.delete(this.directory.resolve("index.dat"));
+
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      assertArrayEquals(BODY, cache.get("https://example.com/tracks/1"));
+    }
+  }
+
+  @Test
+  void testInvalidatedEntriesStayDeletedAfterRebuild() throws Exception {
+    final byte[] newer = "{\"resource\":{\"id\":\"2\"}}".getBytes(StandardCharsets.UTF_8);
+
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      cache.put("https://example.com/tracks/1", BODY, Duration.ofHours(1));
+      cache.put("https://example.com/tracks/1", newer, Duration.ofHours(1));
+      cache.put("https://example.com/tracks/2", BODY, Duration.ofHours(1));
+      cache.invalidate("https://example.com/tracks/1");
+
+      assertNull(cache.get("https://example.com/tracks/1"));
+    }
+
+    Files.delete(this.directory.resolve("index.dat"));
+
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      // Neither the invalidated record nor the one it superseded comes back
+      assertNull(cache.get("https://example.com/tracks/1"));
+      assertArrayEquals(BODY, cache.get("https://example.com/tracks/2"));
+
+      cache.put("https://example.com/tracks/1", newer, Duration.ofHours(1));
+    }
+
+    Files.delete(this.directory.resolve("index.dat"));
+
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      assertArrayEquals(newer, cache.get("https://example.com/tracks/1"));
+    }
+  }
+
+  @Test
+  void testExpiresEntries() throws Exception {
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      cache.put("https://example.com/tracks/1", BODY, Duration.ofMillis(20));
+      Thread.sleep(50);
+      assertNull(cache.get("https://example.com/tracks/1"));
+    }
+  }
+
+  @Test
+  void testRejectsDamagedRecords() throws Exception {
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      cache.put("https://example.com/tracks/1", BODY, Duration.ofHours(1));
+    }
+
+    final Path segment;
+
+    try (Stream<Path> files = Files.list(this.directory)) {
+      segment = files.filter(path -> path.getFileName().toString().startsWith("segment-")).findFirst().get();
+    }
+
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      // Flip a byte of the body
+      channel.write(ByteBuffer.wrap(new byte[] { 'X' }), 24 + "https://example.com/tracks/1".length() + 5);
+    }
+
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      assertNull(cache.get("https://example.com/tracks/1"));
+    }
+  }
+
+  @Test
+  void testCompactsWithinMaximumSize() throws Exception {
+    final byte[] value = new byte[4096];
+
+    try (DiskResponseCache cache = new DiskResponseCache(this.directory, MAXIMUM_BYTES)) {
+      for (int i = 0; i < 5000; i++) {
+        cache.put("https://example.com/tracks/" + i, value, Duration.ofHours(1));
+      }
+
+      // Compaction runs in the background
+      for (int i = 0; i < 100 && cache.getStatistics().getWeightedSize() > MAXIMUM_BYTES; i++) {
+        Thread.sleep(20);
+      }
+
+      assertTrue(cache.getStatistics().getWeightedSize() <= MAXIMUM_BYTES);
+      assertTrue(cache.getStatistics().getEvictionCount() > 0);
+      assertArrayEquals(value, cache.get("https://example.com/tracks/4999"));
+    }
+  }
+
+  @Test
+  void testServesQueriesFromDiskAfterRestart() throws Exception {
+    final ClientSettings settings = new ClientSettings().responseCacheDirectory(this.directory);
+
+    try (StubServer server = new StubServer()) {
+      server.route("/tracks", exchange -> {
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      final String url = server.getBaseUrl() + "/tracks/345485959";
+
+      try (QueryClient client = new QueryClient(settings)) {
+        final ResourceResponse response = new Query(client, url).parameter("countryCode", "US")
+            .execute(ResourceResponse.class);
+        assertEquals("345485959", response.resource.id);
+      }
+
+      try (QueryClient client = new QueryClient(settings)) {
+        final ResourceResponse response = new Query(client, url).parameter("countryCode", "US")
+            .execute(ResourceResponse.class);
+        assertEquals("345485959", response.resource.id);
+        assertEquals(1, client.getResponseCache().getStatistics().getHitCount());
+      }
+
+      assertEquals(1, server.getRequestCount());
+    }
+  }
+}
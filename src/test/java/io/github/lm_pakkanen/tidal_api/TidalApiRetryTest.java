@@ -0,0 +1,125 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.ListQueryResult;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.queries.ListQuery;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiRetryTest {
+  private final static byte[] BODY = "{\"resource\":{\"id\":\"345485959\"}}".getBytes(StandardCharsets.UTF_8);
+  private final static byte[] LIST_BODY = "{\"data\":[{\"resource\":{\"id\":\"345485959\"}}]}"
+      .getBytes(StandardCharsets.UTF_8);
+
+  private static ClientSettings fastRetries() {
+    return new ClientSettings().retryBaseDelay(Duration.ofMillis(5)).retryMaxDelay(Duration.ofMillis(20));
+  }
+
+  @Test
+  void testRetriesTransientFailures() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(fastRetries())) {
+      server.route("/tracks", exchange -> {
+        if (calls.getAndIncrement() < 2) {
+          exchange.sendResponseHeaders(503, -1);
+          return;
+        }
+
+        exchange.sendResponseHeaders(200, BODY.length);
+        exchange.getResponseBody().write(BODY);
+      });
+
+      final Query query = new Query(client, server.getBaseUrl() + "/tracks/345485959");
+      final ResourceResponse response = query.execute(ResourceResponse.class);
+
+      assertEquals("345485959", response.resource.id);
+      assertEquals(3, server.getRequestCount());
+      assertEquals(2, query.getRetries());
+      assertEquals(2, client.getStatistics().getRetries());
+    }
+  }
+
+  @Test
+  void testReportsRetriesOnListResult() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(fastRetries())) {
+      server.route("/tracks", exchange -> {
+        if (calls.getAndIncrement() == 0) {
+          exchange.sendResponseHeaders(502, -1);
+          return;
+        }
+
+        exchange.sendResponseHeaders(200, LIST_BODY.length);
+        exchange.getResponseBody().write(LIST_BODY);
+      });
+
+      final ListQueryResult<ResourceResponse> result = new ListQuery(client, server.getBaseUrl() + "/tracks")
+          .execute(ResourceResponse.class, ResourceResponse.ListResponse.class, "data");
+
+      assertEquals(ListQueryResult.Status.SUCCESS, result.getStatus());
+      assertEquals(1, result.getItems().size());
+      assertEquals(1, result.getRetries());
+    }
+  }
+
+  @Test
+  void testDoesNotRetryClientErrors() throws Exception {
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(fastRetries())) {
+      server.route("/tracks", exchange -> exchange.sendResponseHeaders(404, -1));
+
+      final Query query = new Query(client, server.getBaseUrl() + "/tracks/345485959");
+
+      assertThrows(QueryException.class, () -> query.execute(ResourceResponse.class));
+      assertEquals(1, server.getRequestCount());
+      assertEquals(0, query.getRetries());
+    }
+  }
+
+  @Test
+  void testRetryBudgetStopsRetries() throws Exception {
+    final ClientSettings settings = fastRetries().maxRetries(5).retryBudgetMaxTokens(4);
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> exchange.sendResponseHeaders(500, -1));
+
+      final String url = server.getBaseUrl() + "/tracks/345485959";
+
+      assertThrows(QueryException.class, () -> new Query(client, url).execute(ResourceResponse.class));
+      assertEquals(3, server.getRequestCount());
+
+      assertThrows(QueryException.class, () -> new Query(client, url).execute(ResourceResponse.class));
+      assertEquals(4, server.getRequestCount());
+      assertEquals(2, client.getStatistics().getRetries());
+    }
+  }
+
+  @Test
+  void testRespectsDeadline() throws Exception {
+    final ClientSettings settings = new ClientSettings()
+        .retryBaseDelay(Duration.ofMillis(500))
+        .retryDeadline(Duration.ofMillis(200));
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> exchange.sendResponseHeaders(503, -1));
+
+      final Query query = new Query(client, server.getBaseUrl() + "/tracks/345485959");
+
+      assertThrows(QueryException.class, () -> query.execute(ResourceResponse.class));
+      assertEquals(1, server.getRequestCount());
+    }
+  }
+}
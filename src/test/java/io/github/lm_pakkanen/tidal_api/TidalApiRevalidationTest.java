@@ -0,0 +1,106 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.ConditionalResult;
+import io.github.lm_pakkanen.tidal_api.models.queries.Query;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiRevalidationTest {
+  private final static byte[] BODY = "{\"resource\":{\"id\":\"345485959\"}}".getBytes(StandardCharsets.UTF_8);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testConditionalQuery() throws Exception {
+    final AtomicReference<String> currentETag = new AtomicReference<>("\"v1\"");
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/tracks", exchange -> TidalApiRevalidationTest.respond(exchange, currentETag.get()));
+
+      final String url = server.getBaseUrl() + "/tracks/345485959";
+
+      final ConditionalResult<ResourceResponse> first = new Query(client, url)
+          .executeConditional(ResourceResponse.class);
+      assertFalse(first.isNotModified());
+      assertEquals("345485959", first.getValue().resource.id);
+      assertEquals("\"v1\"", first.getETag());
+
+      final ConditionalResult<ResourceResponse> second = new Query(client, url)
+          .validators(first.getETag(), null)
+          .executeConditional(ResourceResponse.class);
+      assertTrue(second.isNotModified());
+      assertNull(second.getValue());
+
+      currentETag.set("\"v2\"");
+
+      final ConditionalResult<ResourceResponse> third = new Query(client, url)
+          .validators(first.getETag(), null)
+          .executeConditional(ResourceResponse.class);
+      assertFalse(third.isNotModified());
+      assertEquals("\"v2\"", third.getETag());
+
+      assertEquals(1, client.getStatistics().getNotModifiedRevalidations());
+      assertEquals(1, client.getStatistics().getModifiedRevalidations());
+    }
+  }
+
+  @Test
+  void testRevalidatesExpiredStoredResponses() throws Exception {
+    final ClientSettings settings = new ClientSettings()
+        .responseCacheDirectory(this.directory)
+        .responseCacheTtl(Duration.ofMillis(50));
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(settings)) {
+      server.route("/tracks", exchange -> TidalApiRevalidationTest.respond(exchange, "\"v1\""));
+
+      final String url = server.getBaseUrl() + "/tracks/345485959";
+
+      new Query(client, url).execute(ResourceResponse.class);
+
+      Thread.sleep(100);
+
+      final Query revalidated = new Query(client, url);
+      final ResourceResponse response = revalidated.execute(ResourceResponse.class);
+
+      assertEquals("345485959", response.resource.id);
+      assertEquals(2, server.getRequestCount());
+      assertEquals(0, revalidated.getBytesReceived());
+      assertEquals(1, client.getStatistics().getNotModifiedRevalidations());
+
+      // Renewed by the 304, so served from disk without a request
+      new Query(client, url).execute(ResourceResponse.class);
+      assertEquals(2, server.getRequestCount());
+    }
+  }
+
+  private static void respond(HttpExchange exchange, String eTag) throws IOException {
+    exchange.getResponseHeaders().set("ETag", eTag);
+
+    if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+      exchange.sendResponseHeaders(304, -1);
+      return;
+    }
+
+    exchange.sendResponseHeaders(200, BODY.length);
+    exchange.getResponseBody().write(BODY);
+  }
+}
@@ -0,0 +1,76 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.models.queries.ListQuery;
+import io.github.lm_pakkanen.tidal_api.models.queries.QueryClient;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.ResourceResponse;
+import io.github.lm_pakkanen.tidal_api.stub.StubServer;
+
+public final class TidalApiStreamTest {
+
+  @Test
+  void testValidatesArgumentsBeforeStreaming() throws Exception {
+    try (TidalApi api = new TidalApi()) {
+      assertThrows(QueryException.class, () -> api.tracks.streamByArtist(null, "US"));
+      assertThrows(QueryException.class, () -> api.tracks.streamByIsrc("USSM12209515", ""));
+      assertThrows(QueryException.class, () -> api.tracks.streamSimilar("345485959", "US"));
+    }
+  }
+
+  @Test
+  void testEmitsItemsBeforeBodyEnds() throws Exception {
+    final CountDownLatch firstItemSeen = new CountDownLatch(1);
+    final List<String> ids = new CopyOnWriteArrayList<>();
+
+    try (StubServer server = new StubServer(); QueryClient client = new QueryClient(new ClientSettings())) {
+      server.route("/artists", exchange -> {
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream body = exchange.getResponseBody()) {
+          body.write("{\"meta\":{\"total\":2},\"data\":[{\"resource\":{\"id\":\"1\"}},"
+              .getBytes(StandardCharsets.UTF_8));
+          body.flush();
+
+          if (!firstItemSeen.await(5, TimeUnit.SECONDS)) {
+            return;
+          }
+
+          body.write("{\"resource\":{\"id\":\"2\"}}],\"links\":{}}".getBytes(StandardCharsets.UTF_8));
+        } catch (InterruptedException exception) {
+          Thread.currentThread().interrupt();
+        }
+      });
+
+      final CompletableFuture<Integer> count = new ListQuery(client, server.getBaseUrl() + "/artists/1566/tracks")
+          .executeEachAsync(ResourceResponse.class, "data", (ResourceResponse item) -> {
+            ids.add(item.resource.id);
+            firstItemSeen.countDown();
+          });
+
+      assertTrue(firstItemSeen.await(5, TimeUnit.SECONDS));
+      assertEquals(2, count.get(5, TimeUnit.SECONDS));
+      assertEquals(List.of("1", "2"), ids);
+    }
+  }
+
+  @Test
+  void testRejectsInvalidPagingSettings() {
+    assertThrows(IllegalArgumentException.class, () -> new ClientSettings().streamPageSize(0));
+    assertThrows(IllegalArgumentException.class, () -> new ClientSettings().streamPrefetch(-1));
+  }
+}
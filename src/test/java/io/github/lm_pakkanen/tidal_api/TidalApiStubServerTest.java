@@ -0,0 +1,311 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalTrack;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.QueryException;
+import io.github.lm_pakkanen.tidal_api.stub.TidalStubServer;
+
+public final class TidalApiStubServerTest {
+  private TidalStubServer stub;
+
+  @BeforeEach
+  void startStub() throws Exception {
+    this.stub = new TidalStubServer(3, 250, 50);
+  }
+
+  @AfterEach
+  void stopStub() {
+    this.stub.close();
+  }
+
+  private TidalApi authorized(ClientSettings settings) throws Exception {
+    final TidalApi api = new TidalApi(settings);
+    api.authorize("client-id", "client-secret");
+    return api;
+  }
+
+  private static String[] ids(TidalTrack[] tracks) {
+    return Arrays.stream(tracks).map(TidalTrack::getId).toArray(String[]::new);
+  }
+
+  @Test
+  void testGetsTrackFromConfiguredBaseUrl() throws Exception {
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      final TidalTrack track = api.tracks.get(TidalStubServer.trackId(1, 4), "US");
+
+      assertEquals("100005", track.getId());
+      assertEquals("Stub Track 100005", track.getTitle());
+      assertEquals(1, this.stub.getRequestCount("auth"));
+      assertEquals(1, this.stub.getRequestCount("tracks"));
+    }
+  }
+
+  @Test
+  void testUnknownTrackFails() throws Exception {
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      assertThrows(QueryException.class, () -> api.tracks.get("999999999", "US"));
+    }
+  }
+
+  @Test
+  void testRejectsPoolSettingsThatCannotTakeEffect() throws Exception {
+    final int jvmPoolSize = Integer.getInteger("jdk.httpclient.connectionPoolSize", 0);
+    final long jvmIdleSeconds = Long.getLong("jdk.httpclient.keepalive.timeout", 30);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> new TidalApi(this.stub.clientSettings().connectionPoolSize(jvmPoolSize + 1)));
+    assertThrows(IllegalArgumentException.class,
+        () -> new TidalApi(this.stub.clientSettings().idleConnectionTimeout(Duration.ofSeconds(jvmIdleSeconds + 1))));
+
+    // Settings matching the JVM's are accepted
+    try (TidalApi api = this.authorized(this.stub.clientSettings().connectionPoolSize(jvmPoolSize)
+        .idleConnectionTimeout(Duration.ofSeconds(jvmIdleSeconds)))) {
+      assertEquals("100005", api.tracks.get(TidalStubServer.trackId(1, 4), "US").getId());
+    }
+  }
+
+  @Test
+  void testListIsChunked() throws Exception {
+    final String[] trackIds = IntStream.range(0, 45)
+        .mapToObj(i -> TidalStubServer.trackId(0, i))
+        .toArray(String[]::new);
+
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      final TidalTrack[] tracks = api.tracks.list(trackIds, "US");
+
+      assertArrayEquals(trackIds, ids(tracks));
+      assertEquals(3, this.stub.getRequestCount("tracks"));
+    }
+  }
+
+  @Test
+  void testListPagesIdsTheSameWayForEveryPath() throws Exception {
+    // An unknown ID and duplicates, so that paging the response would select
+    // different tracks than paging the deduplicated IDs
+    final String[] trackIds = Stream.concat(Stream.of("999999999"),
+        IntStream.range(0, 10).mapToObj(i -> TidalStubServer.trackId(0, i % 8)))
+        .toArray(String[]::new);
+    final String[] page = { TidalStubServer.trackId(0, 1), TidalStubServer.trackId(0, 2),
+        TidalStubServer.trackId(0, 3) };
+
+    try (TidalApi api = this.authorized(this.stub.clientSettings());
+        TidalApi cached = this.authorized(this.stub.clientSettings().trackCacheMaximumWeight(1_000));
+        TidalApi chunked = this.authorized(this.stub.clientSettings().listChunkSize(2))) {
+      assertArrayEquals(page, ids(api.tracks.list(trackIds, "US", 2, 3)));
+      assertArrayEquals(page, ids(cached.tracks.list(trackIds, "US", 2, 3)));
+      assertArrayEquals(page, ids(chunked.tracks.list(trackIds, "US", 2, 3)));
+    }
+  }
+
+  @Test
+  void testListFailsFutureForMissingIds() throws Exception {
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      final CompletableFuture<TidalTrack[]> tracks = api.tracks.listAsync(null, "US");
+
+      assertTrue(tracks.isCompletedExceptionally());
+      assertThrows(QueryException.class, () -> api.tracks.list(null, "US"));
+    }
+  }
+
+  @Test
+  void testListsByArtistAndIsrc() throws Exception {
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      final TidalTrack[] byArtist = api.tracks.listByArtist(TidalStubServer.artistId(2), "US", 10, 5);
+      final TidalTrack[] byIsrc = api.tracks.listByIsrc(TidalStubServer.isrc(7), "US");
+
+      assertArrayEquals(new String[] { "200011", "200012", "200013", "200014", "200015" }, ids(byArtist));
+      assertArrayEquals(new String[] { "8", "100008", "200008" }, ids(byIsrc));
+    }
+  }
+
+  @Test
+  void testListSimilarAppliesPagingOnce() throws Exception {
+    final ClientSettings settings = this.stub.clientSettings().trackCacheMaximumWeight(1_000);
+
+    try (TidalApi api = this.authorized(settings)) {
+      final TidalTrack[] similar = api.tracks.listSimilar(TidalStubServer.trackId(0, 0), "US", 10, 5);
+
+      assertArrayEquals(new String[] { "12", "13", "14", "15", "16" }, ids(similar));
+      assertEquals(1, this.stub.getRequestCount("tracks/similar"));
+      assertEquals(0, this.stub.getRequestCount("tracks"));
+
+      // The included tracks are cached, but the page itself is fetched again
+      final TidalTrack[] again = api.tracks.listSimilar(TidalStubServer.trackId(0, 0), "US", 10, 5);
+
+      assertArrayEquals(ids(similar), ids(again));
+      assertEquals(2, this.stub.getRequestCount("tracks/similar"));
+      assertEquals(0, this.stub.getRequestCount("tracks"));
+    }
+  }
+
+  @Test
+  void testListSimilarFetchesTracksInOneRequest() throws Exception {
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      final TidalTrack[] similar = api.tracks.listSimilar(TidalStubServer.trackId(0, 0), "US", 0, 10);
+
+      assertArrayEquals(new String[] { "2", "3", "4", "5", "6", "7", "8", "9", "10", "11" }, ids(similar));
+      assertEquals("Stub Track 2", similar[0].getTitle());
+      assertEquals(1, this.stub.getRequestCount("tracks/similar"));
+      assertEquals(0, this.stub.getRequestCount("tracks"));
+
+      // More similar tracks than a list chunk still take a single request
+      final TidalTrack[] all = api.tracks.listSimilar(TidalStubServer.trackId(0, 0), "US", 0, 50);
+
+      assertEquals(50, all.length);
+      assertEquals(2, this.stub.getRequestCount("tracks/similar"));
+      assertEquals(0, this.stub.getRequestCount("tracks"));
+    }
+  }
+
+  @Test
+  void testListSimilarFetchesTracksMissingFromIncluded() throws Exception {
+    this.stub.includedLimit(7);
+
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      final TidalTrack[] similar = api.tracks.listSimilar(TidalStubServer.trackId(0, 0), "US", 0, 10);
+
+      assertArrayEquals(new String[] { "2", "3", "4", "5", "6", "7", "8", "9", "10", "11" }, ids(similar));
+      assertEquals(1, this.stub.getRequestCount("tracks/similar"));
+      assertEquals(1, this.stub.getRequestCount("tracks"));
+    }
+  }
+
+  @Test
+  void testStreamsAllPages() throws Exception {
+    // Without prefetch, no page past the short last one is requested
+    final ClientSettings settings = this.stub.clientSettings().streamPageSize(40).streamPrefetch(0);
+
+    try (TidalApi api = this.authorized(settings);
+        Stream<TidalTrack> tracks = api.tracks.streamByArtist(TidalStubServer.artistId(1), "US")) {
+      final List<String> trackIds = tracks.map(TidalTrack::getId).collect(Collectors.toList());
+
+      assertEquals(250, trackIds.size());
+      assertEquals("100001", trackIds.get(0));
+      assertEquals("100250", trackIds.get(249));
+      assertEquals(7, this.stub.getRequestCount("artists/tracks"));
+    }
+  }
+
+  @Test
+  void testPublisherFetchesPagesOnDemand() throws Exception {
+    final ClientSettings settings = this.stub.clientSettings().streamPageSize(10);
+    final List<String> trackIds = new CopyOnWriteArrayList<>();
+    final AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+    final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+    try (TidalApi api = this.authorized(settings)) {
+      api.tracks.publishByIsrc(TidalStubServer.isrc(3), "US").subscribe(new Flow.Subscriber<>() {
+        @Override
+        public void onSubscribe(Flow.Subscription value) {
+          subscription.set(value);
+        }
+
+        @Override
+        public void onNext(TidalTrack item) {
+          trackIds.add(item.getId());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+          completed.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+          completed.complete(null);
+        }
+      });
+
+      assertEquals(0, this.stub.getRequestCount("tracks/byIsrc"));
+
+      subscription.get().request(Long.MAX_VALUE);
+      completed.get(5, TimeUnit.SECONDS);
+
+      assertEquals(List.of("4", "100004", "200004"), trackIds);
+      assertEquals(1, this.stub.getRequestCount("tracks/byIsrc"));
+    }
+  }
+
+  @Test
+  void testRetriesInjectedServerError() throws Exception {
+    final ClientSettings settings = this.stub.clientSettings().retryBaseDelay(Duration.ofMillis(1));
+
+    try (TidalApi api = this.authorized(settings)) {
+      this.stub.failNext(1, 503);
+
+      assertEquals("3", api.tracks.get(TidalStubServer.trackId(0, 2), "US").getId());
+      assertEquals(2, this.stub.getRequestCount("tracks"));
+    }
+  }
+
+  @Test
+  void testInjectedServerErrorFailsWithoutRetries() throws Exception {
+    final ClientSettings settings = this.stub.clientSettings().maxRetries(0);
+
+    try (TidalApi api = this.authorized(settings)) {
+      this.stub.failNext(1, 500);
+
+      assertThrows(QueryException.class, () -> api.tracks.get(TidalStubServer.trackId(0, 2), "US"));
+    }
+  }
+
+  @Test
+  void testReplaysInjectedRateLimit() throws Exception {
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      this.stub.rateLimitNext(2, Duration.ZERO);
+
+      assertEquals("3", api.tracks.get(TidalStubServer.trackId(0, 2), "US").getId());
+      assertEquals(3, this.stub.getRequestCount("tracks"));
+    }
+  }
+
+  @Test
+  void testReauthorizesAfterRevokedToken() throws Exception {
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      this.stub.revokeTokens();
+
+      assertEquals("3", api.tracks.get(TidalStubServer.trackId(0, 2), "US").getId());
+      assertEquals(2, this.stub.getRequestCount("auth"));
+    }
+  }
+
+  @Test
+  void testAppliesScriptedLatency() throws Exception {
+    try (TidalApi api = this.authorized(this.stub.clientSettings())) {
+      this.stub.latency(TidalStubServer.Latency.fixed(Duration.ofMillis(50)));
+
+      final long start = System.nanoTime();
+      api.tracks.get(TidalStubServer.trackId(0, 2), "US");
+
+      assertTrue(System.nanoTime() - start >= Duration.ofMillis(50).toNanos());
+    }
+  }
+
+  @Test
+  void testRejectsRelativeUrls() {
+    assertThrows(IllegalArgumentException.class, () -> new ClientSettings().baseUrl("openapi.tidal.com"));
+    assertThrows(IllegalArgumentException.class, () -> new ClientSettings().authorizationUrl(null));
+    assertEquals("http://localhost:8080", new ClientSettings().baseUrl("http://localhost:8080/").getBaseUrl());
+  }
+}
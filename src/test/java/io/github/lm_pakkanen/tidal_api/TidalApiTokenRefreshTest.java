@@ -0,0 +1,142 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.controllers.TokenRefresher;
+import io.github.lm_pakkanen.tidal_api.models.CredentialsStore;
+import io.github.lm_pakkanen.tidal_api.models.entities.TidalCredentials;
+import io.github.lm_pakkanen.tidal_api.models.exceptions.UnauthorizedException;
+import io.github.lm_pakkanen.tidal_api.models.tidal_responses.AuthorizationResponse;
+
+public final class TidalApiTokenRefreshTest {
+  private final static Duration THRESHOLD = Duration.ofHours(1);
+
+  private static TidalCredentials credentials(String accessToken, int expiresInSeconds) {
+    final AuthorizationResponse response = new AuthorizationResponse();
+    response.access_token = accessToken;
+    response.expires_in = expiresInSeconds;
+    return new TidalCredentials(response);
+  }
+
+  private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+  }
+
+  @AfterEach
+  void forgetCredentials() {
+    CredentialsStore.getInstance().setCredentials(null);
+  }
+
+  @Test
+  void testRefreshesOnceUnderContention() throws Exception {
+    final CredentialsStore store = CredentialsStore.getInstance();
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+
+    try (TokenRefresher refresher = new TokenRefresher(() -> {
+      calls.incrementAndGet();
+
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+      }
+
+      return credentials("token", 3600);
+    }, store, THRESHOLD)) {
+      final List<CompletableFuture<TidalCredentials>> futures = new ArrayList<>();
+
+      for (int i = 0; i < 50; i++) {
+        futures.add(refresher.refreshAsync());
+      }
+
+      release.countDown();
+
+      final TidalCredentials first = futures.get(0).get(10, TimeUnit.SECONDS);
+
+      for (CompletableFuture<TidalCredentials> future : futures) {
+        assertSame(first, future.get(10, TimeUnit.SECONDS));
+      }
+
+      assertEquals(1, calls.get());
+      assertSame(first, store.getCredentials());
+    }
+  }
+
+  @Test
+  void testRefreshesBeforeExpiry() throws Exception {
+    final CredentialsStore store = CredentialsStore.getInstance();
+    final AtomicInteger calls = new AtomicInteger();
+
+    try (TokenRefresher refresher = new TokenRefresher(
+        () -> credentials("token-" + calls.incrementAndGet(), 2), store, THRESHOLD)) {
+      refresher.start();
+
+      assertEquals("token-1", store.getCredentials().getAccessToken());
+
+      awaitCondition(() -> refresher.getRefreshCount() >= 2);
+
+      assertEquals("token-2", store.getCredentials().getAccessToken());
+      assertTrue(store.getCredentials().getExpiresInMillis() > 0);
+    }
+  }
+
+  @Test
+  void testRetriesFailedRefreshWhileOldTokenIsValid() throws Exception {
+    final CredentialsStore store = CredentialsStore.getInstance();
+    final AtomicInteger calls = new AtomicInteger();
+
+    store.setCredentials(credentials("old", 2));
+
+    try (TokenRefresher refresher = new TokenRefresher(() -> {
+      if (calls.incrementAndGet() <= 2) {
+        throw new UnauthorizedException();
+      }
+
+      return credentials("new", 3600);
+    }, store, THRESHOLD)) {
+      refresher.start();
+
+      assertEquals("old", store.getCredentials().getAccessToken());
+
+      awaitCondition(() -> refresher.getRefreshCount() >= 1);
+
+      assertEquals("new", store.getCredentials().getAccessToken());
+      assertEquals(3, calls.get());
+    }
+  }
+
+  @Test
+  void testCloseStopsRefreshing() throws Exception {
+    final CredentialsStore store = CredentialsStore.getInstance();
+    final AtomicInteger calls = new AtomicInteger();
+
+    final TokenRefresher refresher = new TokenRefresher(
+        () -> credentials("token-" + calls.incrementAndGet(), 1), store, THRESHOLD);
+
+    refresher.start();
+    refresher.close();
+
+    Thread.sleep(1000);
+
+    assertEquals(1, calls.get());
+  }
+}
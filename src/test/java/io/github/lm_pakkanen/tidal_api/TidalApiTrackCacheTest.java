@@ -0,0 +1,119 @@
+package io.github.lm_pakkanen.tidal_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.lm_pakkanen.tidal_api.models.cache.CacheStatistics;
+import io.github.lm_pakkanen.tidal_api.models.cache.TinyLfuCache;
+
+public final class TidalApiTrackCacheTest {
+  private final static long MAXIMUM_WEIGHT = 1000;
+
+  @Test
+  void testCountsHitsAndMisses() {
+    final TinyLfuCache<String, String> cache = new TinyLfuCache<>(MAXIMUM_WEIGHT, Duration.ofHours(1), value -> 1);
+
+    cache.put("US/1", "one");
+
+    assertEquals("one", cache.get("US/1"));
+    assertNull(cache.get("FI/1"));
+
+    final CacheStatistics statistics = cache.getStatistics();
+    assertEquals(1, statistics.getHitCount());
+    assertEquals(1, statistics.getMissCount());
+    assertEquals(0.5, statistics.getHitRate());
+  }
+
+  @Test
+  void testExpiresEntries() throws InterruptedException {
+    final TinyLfuCache<String, String> cache = new TinyLfuCache<>(MAXIMUM_WEIGHT, Duration.ofHours(1), value -> 1);
+
+    cache.put("US/1", "one", Duration.ofMillis(20));
+    cache.put("US/2", "two");
+
+    Thread.sleep(50);
+
+    assertNull(cache.get("US/1"));
+    assertEquals("two", cache.get("US/2"));
+  }
+
+  @Test
+  void testStaysWithinMaximumWeight() {
+    final TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(MAXIMUM_WEIGHT, Duration.ofHours(1),
+        value -> value.length());
+
+    for (int i = 0; i < 10_000; i++) {
+      cache.put(i, "x".repeat(1 + i % 5));
+    }
+
+    final CacheStatistics statistics = cache.getStatistics();
+    assertTrue(statistics.getWeightedSize() <= MAXIMUM_WEIGHT);
+    assertTrue(statistics.getEvictionCount() > 0);
+  }
+
+  @Test
+  void testKeepsFrequentEntriesDuringScan() {
+    final TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(MAXIMUM_WEIGHT, Duration.ofHours(1), value -> 1);
+    final int hotCount = 100;
+
+    for (int round = 0; round < 20; round++) {
+      for (int key = 0; key < hotCount; key++) {
+        if (cache.get(key) == null) {
+          cache.put(key, key);
+        }
+      }
+    }
+
+    // A scan of one-off keys much larger than the cache
+    for (int key = 1_000_000; key < 1_020_000; key++) {
+      cache.put(key, key);
+    }
+
+    int hotHits = 0;
+
+    for (int key = 0; key < hotCount; key++) {
+      if (cache.get(key) != null) {
+        hotHits++;
+      }
+    }
+
+    assertTrue(hotHits >= hotCount * 9 / 10, "hot entries retained: " + hotHits);
+  }
+
+  @Test
+  void testConcurrentAccess() throws InterruptedException {
+    final TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(MAXIMUM_WEIGHT, Duration.ofHours(1), value -> 1);
+    final List<Thread> threads = new ArrayList<>();
+
+    for (int t = 0; t < 16; t++) {
+      threads.add(Thread.ofVirtual().start(() -> {
+        for (int i = 0; i < 20_000; i++) {
+          final int key = ThreadLocalRandom.current().nextInt(5000);
+          final Integer value = cache.get(key);
+
+          if (value == null) {
+            cache.put(key, key);
+          } else {
+            assertEquals(key, value);
+          }
+        }
+      }));
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    final CacheStatistics statistics = cache.getStatistics();
+    assertTrue(statistics.getWeightedSize() <= MAXIMUM_WEIGHT);
+    assertEquals(statistics.getEstimatedSize(), statistics.getWeightedSize());
+  }
+}
@@ -0,0 +1,148 @@
+package io.github.lm_pakkanen.tidal_api.load;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent latency histogram with log-linear buckets in the style of
+ * HdrHistogram. Values are recorded in microseconds, exactly up to 256 µs and
+ * within 1 % above that, up to about 12 days. Recording is lock-free and does
+ * not allocate.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKET_COUNT = 1 << LatencyHistogram.SUB_BUCKET_BITS;
+  private static final int MAX_VALUE_BITS = 40;
+  private static final long MAX_VALUE = (1L << LatencyHistogram.MAX_VALUE_BITS) - 1;
+
+  private final AtomicLongArray counts;
+  private final AtomicLong totalCount;
+  private final AtomicLong maxValue;
+
+  /**
+   * Constructs a new, empty histogram.
+   */
+  public LatencyHistogram() {
+    this.counts = new AtomicLongArray(
+        (LatencyHistogram.MAX_VALUE_BITS - LatencyHistogram.SUB_BUCKET_BITS + 1) * LatencyHistogram.SUB_BUCKET_COUNT);
+    this.totalCount = new AtomicLong();
+    this.maxValue = new AtomicLong();
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param latencyNanos the latency in nanoseconds.
+   */
+  public void record(long latencyNanos) {
+    final long micros = Math.min(Math.max(latencyNanos / 1_000, 0), LatencyHistogram.MAX_VALUE);
+
+    this.counts.incrementAndGet(LatencyHistogram.indexOf(micros));
+    this.totalCount.incrementAndGet();
+    this.maxValue.accumulateAndGet(micros, Math::max);
+  }
+
+  /**
+   * Adds all values recorded in the given histogram to this one.
+   *
+   * @param other the histogram to add.
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < other.counts.length(); i++) {
+      final long count = other.counts.get(i);
+
+      if (count > 0) {
+        this.counts.addAndGet(i, count);
+      }
+    }
+
+    this.totalCount.addAndGet(other.totalCount.get());
+    this.maxValue.accumulateAndGet(other.maxValue.get(), Math::max);
+  }
+
+  /**
+   * Gets the number of recorded values.
+   *
+   * @return the number of recorded values.
+   */
+  public long getCount() {
+    return this.totalCount.get();
+  }
+
+  /**
+   * Gets the largest recorded value.
+   *
+   * @return the largest recorded value.
+   */
+  public Duration getMax() {
+    return Duration.ofNanos(this.maxValue.get() * 1_000);
+  }
+
+  /**
+   * Gets the value below which the given percentage of the recorded values
+   * fall. Like HdrHistogram, the highest value equivalent to the bucket is
+   * returned, so the result never understates the latency.
+   *
+   * @param percentile the percentile, from 0 to 100.
+   *
+   * @return the value at the percentile, or zero if nothing was recorded.
+   */
+  public Duration getValueAtPercentile(double percentile) {
+    final long total = this.totalCount.get();
+
+    if (total == 0) {
+      return Duration.ZERO;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+    long seen = 0;
+
+    for (int i = 0; i < this.counts.length(); i++) {
+      seen += this.counts.get(i);
+
+      if (seen >= rank) {
+        final long micros = Math.min(LatencyHistogram.highestEquivalentValue(i), this.maxValue.get());
+        return Duration.ofNanos(micros * 1_000);
+      }
+    }
+
+    return this.getMax();
+  }
+
+  /**
+   * Gets the bucket index of a value.
+   *
+   * @param value the value in microseconds.
+   *
+   * @return the bucket index.
+   */
+  private static int indexOf(long value) {
+    if (value < 2 * LatencyHistogram.SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - LatencyHistogram.SUB_BUCKET_BITS;
+
+    return (shift + 1) * LatencyHistogram.SUB_BUCKET_COUNT
+        + (int) (value >>> shift) - LatencyHistogram.SUB_BUCKET_COUNT;
+  }
+
+  /**
+   * Gets the largest value that falls into a bucket.
+   *
+   * @param index the bucket index.
+   *
+   * @return the largest value of the bucket in microseconds.
+   */
+  private static long highestEquivalentValue(int index) {
+    if (index < 2 * LatencyHistogram.SUB_BUCKET_COUNT) {
+      return index;
+    }
+
+    final int shift = index / LatencyHistogram.SUB_BUCKET_COUNT - 1;
+    final long subBucket = index % LatencyHistogram.SUB_BUCKET_COUNT + LatencyHistogram.SUB_BUCKET_COUNT;
+
+    return (subBucket << shift) + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,184 @@
+package io.github.lm_pakkanen.tidal_api.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Load scenario with the results it must not regress past.
+ *
+ * Baselines are read from a properties file that lists the scenario names
+ * under 'scenarios' and, for each scenario, its number of callers and target
+ * rate and the largest acceptable p50, p99 and p99.9 latencies, the smallest
+ * acceptable throughput and the largest acceptable error rate, e.g.
+ * 'ten.callers=10', 'ten.rate=500', 'ten.p50Millis=5', 'ten.p99Millis=25',
+ * 'ten.p999Millis=60', 'ten.throughput=450' and 'ten.errorRate=0'.
+ *
+ * Any key can be overridden with a system property of the same name prefixed
+ * with 'load.', e.g. '-Dload.ten.rate=1000' or '-Dload.scenarios=ten'.
+ */
+public final class LoadBaseline {
+  private final String name;
+  private final int callers;
+  private final double rate;
+  private final double p50Millis;
+  private final double p99Millis;
+  private final double p999Millis;
+  private final double throughput;
+  private final double errorRate;
+
+  /**
+   * Reads a scenario from the baseline properties.
+   *
+   * @param name       the name of the scenario.
+   * @param properties the baseline properties.
+   */
+  private LoadBaseline(String name, Properties properties) {
+    this.name = name;
+    this.callers = Integer.parseInt(LoadBaseline.require(properties, name + ".callers"));
+    this.rate = Double.parseDouble(LoadBaseline.require(properties, name + ".rate"));
+    this.p50Millis = Double.parseDouble(LoadBaseline.require(properties, name + ".p50Millis"));
+    this.p99Millis = Double.parseDouble(LoadBaseline.require(properties, name + ".p99Millis"));
+    this.p999Millis = Double.parseDouble(LoadBaseline.require(properties, name + ".p999Millis"));
+    this.throughput = Double.parseDouble(LoadBaseline.require(properties, name + ".throughput"));
+    this.errorRate = Double.parseDouble(LoadBaseline.require(properties, name + ".errorRate"));
+  }
+
+  /**
+   * Reads all scenarios of a baseline file on the class path, with system
+   * property overrides applied.
+   *
+   * @param resource the name of the resource.
+   *
+   * @return the scenarios in the order they are listed.
+   *
+   * @throws IOException if the resource cannot be read.
+   */
+  public static List<LoadBaseline> load(String resource) throws IOException {
+    final Properties properties = new Properties();
+
+    try (InputStream stream = LoadBaseline.class.getResourceAsStream(resource)) {
+      if (stream == null) {
+        throw new IOException("Load baselines " + resource + " not found.");
+      }
+
+      properties.load(stream);
+    }
+
+    for (Map.Entry<Object, Object> entry : System.getProperties().entrySet()) {
+      final String key = entry.getKey().toString();
+
+      if (key.startsWith("load.")) {
+        properties.setProperty(key.substring("load.".length()), entry.getValue().toString());
+      }
+    }
+
+    final List<LoadBaseline> baselines = new ArrayList<>();
+
+    for (String name : LoadBaseline.require(properties, "scenarios").split(",")) {
+      baselines.add(new LoadBaseline(name.trim(), properties));
+    }
+
+    return baselines;
+  }
+
+  /**
+   * Gets the name of the scenario.
+   *
+   * @return the name.
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * Gets the number of concurrent callers of the scenario.
+   *
+   * @return the number of callers.
+   */
+  public int getCallers() {
+    return this.callers;
+  }
+
+  /**
+   * Gets the target rate of the scenario.
+   *
+   * @return the operations per second.
+   */
+  public double getRate() {
+    return this.rate;
+  }
+
+  /**
+   * Compares a report against this baseline. Latency may exceed the baseline
+   * by the tolerance factor, and throughput may fall short of it by the same
+   * factor.
+   *
+   * @param report    the report.
+   * @param tolerance the tolerance factor, at least 1.
+   *
+   * @return a description of each regression, empty if there are none.
+   */
+  public List<String> check(LoadReport report, double tolerance) {
+    final List<String> regressions = new ArrayList<>();
+    final LatencyHistogram latency = report.getLatency();
+
+    this.checkLatency(regressions, "p50", latency.getValueAtPercentile(50), this.p50Millis * tolerance);
+    this.checkLatency(regressions, "p99", latency.getValueAtPercentile(99), this.p99Millis * tolerance);
+    this.checkLatency(regressions, "p99.9", latency.getValueAtPercentile(99.9), this.p999Millis * tolerance);
+
+    if (report.getThroughput() < this.throughput / tolerance) {
+      regressions.add(String.format(Locale.ROOT, "%s: throughput %.1f ops/s is below %.1f ops/s", this.name,
+          report.getThroughput(), this.throughput / tolerance));
+    }
+
+    if (report.getErrorRate() > this.errorRate) {
+      regressions.add(String.format(Locale.ROOT, "%s: error rate %.4f is above %.4f", this.name,
+          report.getErrorRate(), this.errorRate));
+    }
+
+    return regressions;
+  }
+
+  /**
+   * Adds a regression if a latency exceeds its limit.
+   *
+   * @param regressions the regressions to add to.
+   * @param label       the label of the latency.
+   * @param value       the measured latency.
+   * @param limitMillis the limit in milliseconds.
+   */
+  private void checkLatency(List<String> regressions, String label, Duration value, double limitMillis) {
+    final double valueMillis = value.toNanos() / 1_000_000d;
+
+    if (valueMillis > limitMillis) {
+      regressions.add(String.format(Locale.ROOT, "%s: %s latency %.3f ms is above %.3f ms", this.name, label,
+          valueMillis, limitMillis));
+    }
+  }
+
+  /**
+   * Gets a property that must be present.
+   *
+   * @param properties the properties.
+   * @param key        the key.
+   *
+   * @return the value.
+   *
+   * @throws IllegalArgumentException if the property is missing.
+   */
+  private static String require(Properties properties, String key) throws IllegalArgumentException {
+    final String value = properties.getProperty(key);
+
+    if (value == null || value.isBlank()) {
+      throw new IllegalArgumentException("Load baseline property " + key + " is missing.");
+    }
+
+    return value.trim();
+  }
+}
@@ -0,0 +1,278 @@
+package io.github.lm_pakkanen.tidal_api.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a weighted mix of operations from many concurrent callers at a target
+ * rate, and records the latency of each operation.
+ *
+ * Each caller runs on its own virtual thread and issues one operation at a
+ * time. The target rate is shared evenly between the callers, and the callers'
+ * schedules are staggered so that they do not fire together. Latency is
+ * measured from the time an operation was scheduled to start rather than from
+ * the time it did start, so a caller held up by a slow operation does not hide
+ * the delay of the operations queued behind it (coordinated omission).
+ * Operations still queued when the warmup ends are dropped. With a rate of 0,
+ * every caller starts its next operation as soon as the previous one
+ * completes.
+ *
+ * Throughput counts the operations that complete within the measured time, so
+ * it falls short of the target rate when the callers cannot keep up.
+ */
+public final class LoadGenerator {
+  private final Map<String, WeightedOperation> operations;
+
+  private int callers;
+  private double rate;
+  private Duration warmup;
+  private Duration duration;
+
+  /**
+   * Constructs a new load generator with one caller, no rate limit, one second
+   * of warmup and five seconds of measurement.
+   */
+  public LoadGenerator() {
+    this.operations = new LinkedHashMap<>();
+    this.callers = 1;
+    this.rate = 0;
+    this.warmup = Duration.ofSeconds(1);
+    this.duration = Duration.ofSeconds(5);
+  }
+
+  /**
+   * Sets the number of concurrent callers.
+   *
+   * @param callers the number of callers.
+   *
+   * @return this instance.
+   */
+  public LoadGenerator callers(int callers) {
+    if (callers <= 0) {
+      throw new IllegalArgumentException("callers must be positive.");
+    }
+
+    this.callers = callers;
+    return this;
+  }
+
+  /**
+   * Sets the target rate of all callers together.
+   *
+   * @param rate the operations per second, or 0 to run every caller as fast as
+   *             it can.
+   *
+   * @return this instance.
+   */
+  public LoadGenerator rate(double rate) {
+    if (rate < 0) {
+      throw new IllegalArgumentException("rate must not be negative.");
+    }
+
+    this.rate = rate;
+    return this;
+  }
+
+  /**
+   * Sets the time the load runs before measurement starts.
+   *
+   * @param warmup the warmup time.
+   *
+   * @return this instance.
+   */
+  public LoadGenerator warmup(Duration warmup) {
+    this.warmup = warmup;
+    return this;
+  }
+
+  /**
+   * Sets the time the load is measured.
+   *
+   * @param duration the measurement time.
+   *
+   * @return this instance.
+   */
+  public LoadGenerator duration(Duration duration) {
+    if (duration.isZero() || duration.isNegative()) {
+      throw new IllegalArgumentException("duration must be positive.");
+    }
+
+    this.duration = duration;
+    return this;
+  }
+
+  /**
+   * Adds an operation to the mix.
+   *
+   * @param name      the name the operation is reported under.
+   * @param weight    the relative weight of the operation in the mix.
+   * @param operation the operation.
+   *
+   * @return this instance.
+   */
+  public LoadGenerator operation(String name, int weight, Operation operation) {
+    if (weight < 0) {
+      throw new IllegalArgumentException("weight must not be negative.");
+    }
+
+    if (weight > 0) {
+      this.operations.put(name, new WeightedOperation(name, weight, operation));
+    }
+
+    return this;
+  }
+
+  /**
+   * Runs the load and blocks until all callers have finished.
+   *
+   * @return the report of the measured part of the run.
+   */
+  public LoadReport run() {
+    if (this.operations.isEmpty()) {
+      throw new IllegalStateException("No operations to run.");
+    }
+
+    final List<WeightedOperation> mix = new ArrayList<>(this.operations.values());
+    final int totalWeight = mix.stream().mapToInt(operation -> operation.weight).sum();
+    final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+    final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+    final AtomicLong completed = new AtomicLong();
+
+    for (WeightedOperation operation : mix) {
+      histograms.put(operation.name, new LatencyHistogram());
+      errors.put(operation.name, new AtomicLong());
+    }
+
+    final long intervalNanos = this.rate == 0 ? 0 : (long) (this.callers * 1_000_000_000d / this.rate);
+    final long startNanos = System.nanoTime() + Duration.ofMillis(50).toNanos();
+    final long measureFromNanos = startNanos + this.warmup.toNanos();
+    final long endNanos = measureFromNanos + this.duration.toNanos();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int caller = 0; caller < this.callers; caller++) {
+        final long firstNanos = startNanos + intervalNanos * caller / this.callers;
+
+        executor.execute(() -> {
+          final ThreadLocalRandom random = ThreadLocalRandom.current();
+          long scheduledNanos = firstNanos;
+
+          while (true) {
+            if (intervalNanos > 0 && scheduledNanos < measureFromNanos && System.nanoTime() >= measureFromNanos) {
+              // Operations a cold caller fell behind on during warmup are dropped
+              scheduledNanos += (measureFromNanos - scheduledNanos + intervalNanos - 1) / intervalNanos * intervalNanos;
+            }
+
+            final long waitNanos = scheduledNanos - System.nanoTime();
+
+            if (waitNanos > 0) {
+              LockSupport.parkNanos(waitNanos);
+            }
+
+            final long nowNanos = System.nanoTime();
+            final long sentNanos = intervalNanos == 0 ? nowNanos : scheduledNanos;
+
+            if (nowNanos >= endNanos) {
+              return;
+            }
+
+            final WeightedOperation operation = LoadGenerator.pick(mix, random.nextInt(totalWeight));
+            boolean failed = false;
+
+            try {
+              operation.operation.execute(random);
+            } catch (Exception exception) {
+              failed = true;
+            }
+
+            final long completedNanos = System.nanoTime();
+
+            if (sentNanos >= measureFromNanos) {
+              if (failed) {
+                errors.get(operation.name).incrementAndGet();
+              } else {
+                histograms.get(operation.name).record(completedNanos - sentNanos);
+              }
+            }
+
+            if (!failed && completedNanos >= measureFromNanos && completedNanos < endNanos) {
+              completed.incrementAndGet();
+            }
+
+            scheduledNanos += intervalNanos;
+          }
+        });
+      }
+    }
+
+    final Map<String, Long> errorCounts = new LinkedHashMap<>();
+    errors.forEach((name, count) -> errorCounts.put(name, count.get()));
+
+    return new LoadReport(this.callers, this.rate, this.duration, completed.get(), histograms, errorCounts);
+  }
+
+  /**
+   * Picks the operation a weighted draw falls on.
+   *
+   * @param mix  the operations.
+   * @param draw the draw, from 0 to the total weight.
+   *
+   * @return the operation.
+   */
+  private static WeightedOperation pick(List<WeightedOperation> mix, int draw) {
+    for (WeightedOperation operation : mix) {
+      draw -= operation.weight;
+
+      if (draw < 0) {
+        return operation;
+      }
+    }
+
+    return mix.get(mix.size() - 1);
+  }
+
+  /**
+   * Operation driven by the load generator.
+   */
+  @FunctionalInterface
+  public interface Operation {
+
+    /**
+     * Runs the operation once. Throwing counts the run as an error.
+     *
+     * @param random the caller's random number generator.
+     *
+     * @throws Exception if the operation fails.
+     */
+    void execute(ThreadLocalRandom random) throws Exception;
+  }
+
+  /**
+   * Operation with its name and weight.
+   */
+  private static final class WeightedOperation {
+    private final String name;
+    private final int weight;
+    private final Operation operation;
+
+    /**
+     * Constructs a new weighted operation.
+     *
+     * @param name      the name of the operation.
+     * @param weight    the relative weight of the operation.
+     * @param operation the operation.
+     */
+    WeightedOperation(String name, int weight, Operation operation) {
+      this.name = name;
+      this.weight = weight;
+      this.operation = operation;
+    }
+  }
+}
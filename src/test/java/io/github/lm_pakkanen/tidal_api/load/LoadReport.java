@@ -0,0 +1,180 @@
+package io.github.lm_pakkanen.tidal_api.load;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Latency and throughput measured by a {@link LoadGenerator} run.
+ */
+public final class LoadReport {
+  private final int callers;
+  private final double rate;
+  private final Duration duration;
+  private final long completed;
+  private final Map<String, LatencyHistogram> histograms;
+  private final Map<String, Long> errors;
+  private final LatencyHistogram latency;
+
+  /**
+   * Constructs a new load report.
+   *
+   * @param callers    the number of concurrent callers.
+   * @param rate       the target operations per second.
+   * @param duration   the measured time.
+   * @param completed  the number of successful runs that completed within
+   *                   the measured time.
+   * @param histograms the latency of successful runs per operation.
+   * @param errors     the number of failed runs per operation.
+   */
+  LoadReport(int callers, double rate, Duration duration, long completed,
+      Map<String, LatencyHistogram> histograms, Map<String, Long> errors) {
+    this.callers = callers;
+    this.rate = rate;
+    this.duration = duration;
+    this.completed = completed;
+    this.histograms = Collections.unmodifiableMap(new LinkedHashMap<>(histograms));
+    this.errors = Collections.unmodifiableMap(new LinkedHashMap<>(errors));
+    this.latency = new LatencyHistogram();
+
+    for (LatencyHistogram histogram : histograms.values()) {
+      this.latency.add(histogram);
+    }
+  }
+
+  /**
+   * Gets the number of concurrent callers.
+   *
+   * @return the number of callers.
+   */
+  public int getCallers() {
+    return this.callers;
+  }
+
+  /**
+   * Gets the latency of all successful runs.
+   *
+   * @return the latency histogram.
+   */
+  public LatencyHistogram getLatency() {
+    return this.latency;
+  }
+
+  /**
+   * Gets the latency of the successful runs of each operation.
+   *
+   * @return the latency histograms by operation name.
+   */
+  public Map<String, LatencyHistogram> getLatencyByOperation() {
+    return this.histograms;
+  }
+
+  /**
+   * Gets the number of successful runs completed per second of the measured
+   * time.
+   *
+   * @return the throughput.
+   */
+  public double getThroughput() {
+    return this.completed * 1_000_000_000d / this.duration.toNanos();
+  }
+
+  /**
+   * Gets the number of failed runs.
+   *
+   * @return the number of failed runs.
+   */
+  public long getErrorCount() {
+    return this.errors.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  /**
+   * Gets the share of runs that failed.
+   *
+   * @return the error rate, from 0 to 1.
+   */
+  public double getErrorRate() {
+    final long errorCount = this.getErrorCount();
+    final long total = this.latency.getCount() + errorCount;
+
+    return total == 0 ? 0 : (double) errorCount / total;
+  }
+
+  /**
+   * Writes the results into the given properties, with keys prefixed by the
+   * given scenario name, in the format of the load baselines.
+   *
+   * @param scenario   the scenario name.
+   * @param properties the properties to write into.
+   */
+  public void writeTo(String scenario, Properties properties) {
+    properties.setProperty(scenario + ".callers", String.valueOf(this.callers));
+    properties.setProperty(scenario + ".rate", LoadReport.format(this.rate));
+    properties.setProperty(scenario + ".p50Millis", LoadReport.millis(this.latency.getValueAtPercentile(50)));
+    properties.setProperty(scenario + ".p99Millis", LoadReport.millis(this.latency.getValueAtPercentile(99)));
+    properties.setProperty(scenario + ".p999Millis", LoadReport.millis(this.latency.getValueAtPercentile(99.9)));
+    properties.setProperty(scenario + ".throughput", LoadReport.format(this.getThroughput()));
+    properties.setProperty(scenario + ".errorRate", LoadReport.format(this.getErrorRate()));
+  }
+
+  /**
+   * Formats the report as a table with a row per operation and a total row.
+   *
+   * @return the formatted report.
+   */
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+
+    builder.append(String.format(Locale.ROOT, "%d callers, target %s ops/s, %s measured: %s ops/s, %d errors%n",
+        this.callers, LoadReport.format(this.rate), this.duration, LoadReport.format(this.getThroughput()),
+        this.getErrorCount()));
+    builder.append(String.format(Locale.ROOT, "%-16s %10s %10s %10s %10s %10s%n",
+        "operation", "count", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+
+    this.histograms.forEach((name, histogram) -> LoadReport.appendRow(builder, name, histogram));
+    LoadReport.appendRow(builder, "total", this.latency);
+
+    return builder.toString();
+  }
+
+  /**
+   * Appends a table row.
+   *
+   * @param builder   the builder to append to.
+   * @param name      the name of the row.
+   * @param histogram the latency histogram of the row.
+   */
+  private static void appendRow(StringBuilder builder, String name, LatencyHistogram histogram) {
+    builder.append(String.format(Locale.ROOT, "%-16s %10d %10s %10s %10s %10s%n", name, histogram.getCount(),
+        LoadReport.millis(histogram.getValueAtPercentile(50)),
+        LoadReport.millis(histogram.getValueAtPercentile(99)),
+        LoadReport.millis(histogram.getValueAtPercentile(99.9)),
+        LoadReport.millis(histogram.getMax())));
+  }
+
+  /**
+   * Formats a duration in milliseconds with up to three decimals.
+   *
+   * @param duration the duration.
+   *
+   * @return the formatted duration.
+   */
+  private static String millis(Duration duration) {
+    return LoadReport.format(duration.toNanos() / 1_000_000d);
+  }
+
+  /**
+   * Formats a number with up to three decimals.
+   *
+   * @param value the number.
+   *
+   * @return the formatted number.
+   */
+  private static String format(double value) {
+    return String.format(Locale.ROOT, "%.3f", value).replaceAll("\\.?0+$", "");
+  }
+}
@@ -0,0 +1,83 @@
+package io.github.lm_pakkanen.tidal_api.stub;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal in-process HTTP server for offline tests. Routes are registered by
+ * path prefix and every handled request is counted.
+ */
+public final class StubServer implements AutoCloseable {
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final AtomicInteger requestCount;
+
+  static {
+    // Without TCP_NODELAY, every small response waits for a delayed ACK
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  /**
+   * Starts a new stub server on a random local port.
+   * 
+   * @throws IOException if the server cannot be started.
+   */
+  public StubServer() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    this.requestCount = new AtomicInteger();
+
+    this.server.setExecutor(this.executor);
+    this.server.start();
+  }
+
+  /**
+   * Registers a handler for all requests whose path starts with the given path.
+   * 
+   * @param path    the path prefix.
+   * @param handler the handler.
+   * 
+   * @return this instance.
+   */
+  public StubServer route(String path, HttpHandler handler) {
+    this.server.createContext(path, exchange -> {
+      this.requestCount.incrementAndGet();
+
+      try (exchange) {
+        handler.handle(exchange);
+      }
+    });
+
+    return this;
+  }
+
+  /**
+   * Gets the base URL of the server, without a trailing slash.
+   * 
+   * @return the base URL of the server.
+   */
+  public String getBaseUrl() {
+    return "http://127.0.0.1:" + this.server.getAddress().getPort();
+  }
+
+  /**
+   * Gets the number of requests handled so far.
+   * 
+   * @return the number of handled requests.
+   */
+  public int getRequestCount() {
+    return this.requestCount.get();
+  }
+
+  @Override
+  public void close() {
+    this.server.stop(0);
+    this.executor.close();
+  }
+}
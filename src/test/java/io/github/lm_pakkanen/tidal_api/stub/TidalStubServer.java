@@ -0,0 +1,750 @@
+package io.github.lm_pakkanen.tidal_api.stub;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import io.github.lm_pakkanen.tidal_api.models.ClientSettings;
+
+/**
+ * In-process stand-in for the Tidal API, serving a synthetic catalog.
+ *
+ * Implements the OAuth 2 client credentials token endpoint and the
+ * '/tracks', '/tracks/{id}', '/tracks/byIsrc', '/tracks/{id}/similar' and
+ * '/artists/{id}/tracks' endpoints. List endpoints are paginated with the
+ * 'offset' and 'limit' parameters. The similar tracks endpoint includes the
+ * tracks themselves when requested with 'include=tracks'. Latency, server errors and 429 responses
+ * can be injected while the server is running.
+ *
+ * The catalog has 'artistCount' artists with IDs "1000", "1001" and so on.
+ * Artist i has 'tracksPerArtist' tracks with IDs i * 100000 + 1, + 2 and so
+ * on. The j:th track of every artist shares the ISRC "ZZSTB" + j (zero-padded
+ * to seven digits). Every track has 'similarCount' similar tracks: the tracks
+ * that follow it in the catalog.
+ */
+public final class TidalStubServer implements AutoCloseable {
+  private static final int DEFAULT_LIMIT = 10;
+  private static final int MAX_LIMIT = 100;
+
+  private final StubServer server;
+  private final int artistCount;
+  private final int tracksPerArtist;
+  private final int similarCount;
+  private final Map<String, AtomicInteger> requestCounts;
+  private final AtomicLong issuedTokens;
+  private final AtomicInteger pendingErrors;
+  private final AtomicInteger pendingRateLimits;
+
+  private volatile Latency latency;
+  private volatile double errorRate;
+  private volatile int errorStatus;
+  private volatile double rateLimitRate;
+  private volatile Duration retryAfter;
+  private volatile long revokedTokens;
+  private volatile int includedLimit;
+
+  /**
+   * Starts a stub server with a catalog of 10 artists with 250 tracks each and
+   * 50 similar tracks per track.
+   *
+   * @throws IOException if the server cannot be started.
+   */
+  public TidalStubServer() throws IOException {
+    this(10, 250, 50);
+  }
+
+  /**
+   * Starts a stub server with the given catalog size.
+   *
+   * @param artistCount     the number of artists.
+   * @param tracksPerArtist the number of tracks per artist.
+   * @param similarCount    the number of similar tracks per track.
+   *
+   * @throws IOException if the server cannot be started.
+   */
+  public TidalStubServer(int artistCount, int tracksPerArtist, int similarCount) throws IOException {
+    this.server = new StubServer();
+    this.artistCount = artistCount;
+    this.tracksPerArtist = tracksPerArtist;
+    this.similarCount = similarCount;
+    this.requestCounts = new ConcurrentHashMap<>();
+    this.issuedTokens = new AtomicLong();
+    this.pendingErrors = new AtomicInteger();
+    this.pendingRateLimits = new AtomicInteger();
+    this.latency = Latency.none();
+    this.errorStatus = 503;
+    this.retryAfter = Duration.ZERO;
+    this.includedLimit = Integer.MAX_VALUE;
+
+    this.server.route("/v1/oauth2/token", exchange -> this.handle(exchange, "auth", false, this::token));
+    this.server.route("/tracks", exchange -> this.handle(exchange, TidalStubServer.trackEndpoint(exchange), true,
+        this::tracks));
+    this.server.route("/artists", exchange -> this.handle(exchange, "artists/tracks", true, this::artistTracks));
+  }
+
+  /**
+   * Creates default client settings that point at this server.
+   *
+   * @return the client settings.
+   */
+  public ClientSettings clientSettings() {
+    return new ClientSettings()
+        .baseUrl(this.getBaseUrl())
+        .authorizationUrl(this.getAuthorizationUrl());
+  }
+
+  /**
+   * Sets the distribution of the delay added before every response.
+   *
+   * @param latency the latency distribution.
+   *
+   * @return this instance.
+   */
+  public TidalStubServer latency(Latency latency) {
+    this.latency = latency;
+    return this;
+  }
+
+  /**
+   * Answers the given share of catalogue requests with the given status code.
+   *
+   * @param errorRate   the share of requests to fail, from 0 to 1.
+   * @param errorStatus the status code of the failed requests.
+   *
+   * @return this instance.
+   */
+  public TidalStubServer errorRate(double errorRate, int errorStatus) {
+    this.errorRate = errorRate;
+    this.errorStatus = errorStatus;
+    return this;
+  }
+
+  /**
+   * Answers the next catalogue requests with the given status code.
+   *
+   * @param count       the number of requests to fail.
+   * @param errorStatus the status code of the failed requests.
+   *
+   * @return this instance.
+   */
+  public TidalStubServer failNext(int count, int errorStatus) {
+    this.errorStatus = errorStatus;
+    this.pendingErrors.set(count);
+    return this;
+  }
+
+  /**
+   * Answers the given share of catalogue requests with 429 Too Many Requests.
+   *
+   * @param rateLimitRate the share of requests to reject, from 0 to 1.
+   * @param retryAfter    the Retry-After of the rejections.
+   *
+   * @return this instance.
+   */
+  public TidalStubServer rateLimitRate(double rateLimitRate, Duration retryAfter) {
+    this.rateLimitRate = rateLimitRate;
+    this.retryAfter = retryAfter;
+    return this;
+  }
+
+  /**
+   * Answers the next catalogue requests with 429 Too Many Requests.
+   *
+   * @param count      the number of requests to reject.
+   * @param retryAfter the Retry-After of the rejections.
+   *
+   * @return this instance.
+   */
+  public TidalStubServer rateLimitNext(int count, Duration retryAfter) {
+    this.retryAfter = retryAfter;
+    this.pendingRateLimits.set(count);
+    return this;
+  }
+
+  /**
+   * Includes at most the given number of tracks in responses that request
+   * them, leaving the rest of the listed tracks out.
+   *
+   * @param includedLimit the maximum number of included tracks.
+   *
+   * @return this instance.
+   */
+  public TidalStubServer includedLimit(int includedLimit) {
+    this.includedLimit = includedLimit;
+    return this;
+  }
+
+  /**
+   * Rejects all tokens issued so far with 401 Unauthorized. Tokens issued
+   * afterwards are accepted.
+   *
+   * @return this instance.
+   */
+  public TidalStubServer revokeTokens() {
+    this.revokedTokens = this.issuedTokens.get();
+    return this;
+  }
+
+  /**
+   * Gets the base URL of the catalogue API of this server.
+   *
+   * @return the base URL.
+   */
+  public String getBaseUrl() {
+    return this.server.getBaseUrl();
+  }
+
+  /**
+   * Gets the URL of the token endpoint of this server.
+   *
+   * @return the token endpoint URL.
+   */
+  public String getAuthorizationUrl() {
+    return this.server.getBaseUrl() + "/v1/oauth2/token";
+  }
+
+  /**
+   * Gets the number of requests handled so far.
+   *
+   * @return the number of handled requests.
+   */
+  public int getRequestCount() {
+    return this.server.getRequestCount();
+  }
+
+  /**
+   * Gets the number of requests handled so far by an endpoint: "auth",
+   * "tracks", "tracks/byIsrc", "tracks/similar" or "artists/tracks". Requests
+   * answered with an injected error are included.
+   *
+   * @param endpoint the endpoint.
+   *
+   * @return the number of handled requests.
+   */
+  public int getRequestCount(String endpoint) {
+    final AtomicInteger count = this.requestCounts.get(endpoint);
+    return count == null ? 0 : count.get();
+  }
+
+  /**
+   * Gets the ID of the artist at the given index.
+   *
+   * @param artistIndex the index of the artist.
+   *
+   * @return the artist ID.
+   */
+  public static String artistId(int artistIndex) {
+    return String.valueOf(1000 + artistIndex);
+  }
+
+  /**
+   * Gets the ID of a track.
+   *
+   * @param artistIndex the index of the artist.
+   * @param trackIndex  the index of the track within the artist's tracks.
+   *
+   * @return the track ID.
+   */
+  public static String trackId(int artistIndex, int trackIndex) {
+    return String.valueOf(artistIndex * 100_000L + trackIndex + 1);
+  }
+
+  /**
+   * Gets the ISRC shared by the tracks at the given index of every artist.
+   *
+   * @param trackIndex the index of the track within the artists' tracks.
+   *
+   * @return the ISRC.
+   */
+  public static String isrc(int trackIndex) {
+    return String.format("ZZSTB%07d", trackIndex);
+  }
+
+  @Override
+  public void close() {
+    this.server.close();
+  }
+
+  /**
+   * Counts, delays and authenticates a request, injects failures, and passes
+   * it on to the given handler.
+   *
+   * @param exchange  the exchange.
+   * @param endpoint  the endpoint name the request is counted under.
+   * @param catalogue whether the endpoint requires a bearer token and is
+   *                  subject to failure injection.
+   * @param handler   the handler that writes the response.
+   *
+   * @throws IOException if the response cannot be written.
+   */
+  private void handle(HttpExchange exchange, String endpoint, boolean catalogue, Handler handler)
+      throws IOException {
+    this.requestCounts.computeIfAbsent(endpoint, key -> new AtomicInteger()).incrementAndGet();
+
+    final Duration delay = this.latency.next();
+
+    if (!delay.isZero()) {
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    if (catalogue) {
+      final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+      if (TidalStubServer.takeOne(this.pendingRateLimits) || random.nextDouble() < this.rateLimitRate) {
+        exchange.getResponseHeaders().add("Retry-After", String.valueOf(this.retryAfter.toSeconds()));
+        exchange.sendResponseHeaders(429, -1);
+        return;
+      }
+
+      if (TidalStubServer.takeOne(this.pendingErrors) || random.nextDouble() < this.errorRate) {
+        exchange.sendResponseHeaders(this.errorStatus, -1);
+        return;
+      }
+
+      if (!this.isAuthorized(exchange)) {
+        exchange.sendResponseHeaders(401, -1);
+        return;
+      }
+    }
+
+    final String body = handler.handle(exchange, TidalStubServer.parseQuery(exchange));
+
+    if (body == null) {
+      exchange.sendResponseHeaders(404, -1);
+      return;
+    }
+
+    final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+    exchange.getResponseHeaders().add("Content-Type", "application/vnd.tidal.v1+json");
+    exchange.sendResponseHeaders(200, bytes.length);
+    exchange.getResponseBody().write(bytes);
+  }
+
+  /**
+   * Handles the token endpoint.
+   *
+   * @param exchange   the exchange.
+   * @param parameters the query parameters.
+   *
+   * @return the response body, or null if the request is invalid.
+   *
+   * @throws IOException if the request body cannot be read.
+   */
+  private String token(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+    final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    final String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+    if (!"POST".equals(exchange.getRequestMethod())
+        || authorization == null
+        || !authorization.startsWith("Basic ")
+        || !requestBody.contains("grant_type=client_credentials")) {
+      return null;
+    }
+
+    final long token = this.issuedTokens.incrementAndGet();
+
+    return "{\"access_token\":\"stub-token-" + token + "\",\"token_type\":\"Bearer\",\"expires_in\":86400}";
+  }
+
+  /**
+   * Handles the '/tracks' endpoints.
+   *
+   * @param exchange   the exchange.
+   * @param parameters the query parameters.
+   *
+   * @return the response body, or null if the resource does not exist.
+   */
+  private String tracks(HttpExchange exchange, Map<String, String> parameters) {
+    final String[] segments = exchange.getRequestURI().getPath().split("/");
+
+    if (segments.length == 2) {
+      final String ids = parameters.getOrDefault("ids", "");
+      final List<String> trackIds = new ArrayList<>();
+
+      for (String trackId : ids.split(",")) {
+        if (this.trackExists(trackId)) {
+          trackIds.add(trackId);
+        }
+      }
+
+      return this.trackList(trackIds);
+    }
+
+    if (segments.length == 3 && "byIsrc".equals(segments[2])) {
+      final List<String> trackIds = new ArrayList<>();
+      final String isrc = parameters.getOrDefault("isrc", "");
+
+      for (int j = 0; j < this.tracksPerArtist; j++) {
+        if (TidalStubServer.isrc(j).equals(isrc)) {
+          for (int i = 0; i < this.artistCount; i++) {
+            trackIds.add(TidalStubServer.trackId(i, j));
+          }
+        }
+      }
+
+      return this.trackList(TidalStubServer.page(trackIds, parameters));
+    }
+
+    if (segments.length == 3) {
+      if (!this.trackExists(segments[2])) {
+        return null;
+      }
+
+      return this.track(segments[2]);
+    }
+
+    if (segments.length == 4 && "similar".equals(segments[3])) {
+      if (!this.trackExists(segments[2])) {
+        return null;
+      }
+
+      final long trackNumber = Long.parseLong(segments[2]);
+      final int artistIndex = (int) (trackNumber / 100_000L);
+      final int trackIndex = (int) (trackNumber % 100_000L) - 1;
+      final int catalogSize = this.artistCount * this.tracksPerArtist;
+      final int position = artistIndex * this.tracksPerArtist + trackIndex;
+      final List<String> similarIds = new ArrayList<>();
+
+      for (int k = 1; k <= Math.min(this.similarCount, catalogSize - 1); k++) {
+        final int similarPosition = (position + k) % catalogSize;
+        similarIds.add(TidalStubServer.trackId(similarPosition / this.tracksPerArtist,
+            similarPosition % this.tracksPerArtist));
+      }
+
+      final StringBuilder body = new StringBuilder("{\"data\":[");
+      final List<String> page = TidalStubServer.page(similarIds, parameters);
+
+      for (int i = 0; i < page.size(); i++) {
+        if (i > 0) {
+          body.append(',');
+        }
+
+        body.append("{\"resource\":{\"id\":\"").append(page.get(i)).append("\"}}");
+      }
+
+      body.append(']');
+
+      if ("tracks".equals(parameters.get("include"))) {
+        body.append(",\"included\":[");
+
+        for (int i = 0; i < Math.min(page.size(), this.includedLimit); i++) {
+          if (i > 0) {
+            body.append(',');
+          }
+
+          body.append(this.track(page.get(i)));
+        }
+
+        body.append(']');
+      }
+
+      return body.append('}').toString();
+    }
+
+    return null;
+  }
+
+  /**
+   * Handles the '/artists/{id}/tracks' endpoint.
+   *
+   * @param exchange   the exchange.
+   * @param parameters the query parameters.
+   *
+   * @return the response body, or null if the artist does not exist.
+   */
+  private String artistTracks(HttpExchange exchange, Map<String, String> parameters) {
+    final String[] segments = exchange.getRequestURI().getPath().split("/");
+
+    if (segments.length != 4 || !"tracks".equals(segments[3])) {
+      return null;
+    }
+
+    final int artistIndex;
+
+    try {
+      artistIndex = Integer.parseInt(segments[2]) - 1000;
+    } catch (NumberFormatException exception) {
+      return null;
+    }
+
+    if (artistIndex < 0 || artistIndex >= this.artistCount) {
+      return null;
+    }
+
+    final List<String> trackIds = new ArrayList<>(this.tracksPerArtist);
+
+    for (int j = 0; j < this.tracksPerArtist; j++) {
+      trackIds.add(TidalStubServer.trackId(artistIndex, j));
+    }
+
+    return this.trackList(TidalStubServer.page(trackIds, parameters));
+  }
+
+  /**
+   * Gets whether the request carries a bearer token issued by this server that
+   * has not been revoked.
+   *
+   * @param exchange the exchange.
+   *
+   * @return true if the request is authorized.
+   */
+  private boolean isAuthorized(HttpExchange exchange) {
+    final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+    if (authorization == null || !authorization.startsWith("Bearer stub-token-")) {
+      return false;
+    }
+
+    try {
+      return Long.parseLong(authorization.substring("Bearer stub-token-".length())) > this.revokedTokens;
+    } catch (NumberFormatException exception) {
+      return false;
+    }
+  }
+
+  /**
+   * Gets whether a track with the given ID exists in the catalog.
+   *
+   * @param trackId the track ID.
+   *
+   * @return true if the track exists.
+   */
+  private boolean trackExists(String trackId) {
+    final long trackNumber;
+
+    try {
+      trackNumber = Long.parseLong(trackId);
+    } catch (NumberFormatException exception) {
+      return false;
+    }
+
+    final long artistIndex = trackNumber / 100_000L;
+    final long trackIndex = trackNumber % 100_000L - 1;
+
+    return artistIndex < this.artistCount && trackIndex >= 0 && trackIndex < this.tracksPerArtist;
+  }
+
+  /**
+   * Builds a track list response body.
+   *
+   * @param trackIds the IDs of the tracks.
+   *
+   * @return the response body.
+   */
+  private String trackList(List<String> trackIds) {
+    final StringBuilder body = new StringBuilder(trackIds.size() * 640 + 16).append("{\"data\":[");
+
+    for (int i = 0; i < trackIds.size(); i++) {
+      if (i > 0) {
+        body.append(',');
+      }
+
+      body.append(this.track(trackIds.get(i)));
+    }
+
+    return body.append("]}").toString();
+  }
+
+  /**
+   * Builds a single track resource.
+   *
+   * @param trackId the ID of the track.
+   *
+   * @return the track resource.
+   */
+  private String track(String trackId) {
+    final long trackNumber = Long.parseLong(trackId);
+    final String artistId = TidalStubServer.artistId((int) (trackNumber / 100_000L));
+    final int trackIndex = (int) (trackNumber % 100_000L) - 1;
+
+    return "{\"resource\":{\"artifactType\":\"track\",\"id\":\"" + trackId + "\","
+        + "\"title\":\"Stub Track " + trackId + "\","
+        + "\"artists\":[{\"id\":\"" + artistId + "\",\"name\":\"Stub Artist " + artistId + "\",\"main\":true,"
+        + "\"picture\":[{\"url\":\"https://resources.tidal.com/images/" + artistId + "/750x750.jpg\","
+        + "\"width\":750,\"height\":750}]}],"
+        + "\"album\":{\"id\":\"" + artistId + "0\",\"title\":\"Stub Album\",\"imageCover\":[],\"videoCover\":[]},"
+        + "\"duration\":" + (120 + trackIndex % 240) + ",\"trackNumber\":" + (trackIndex % 12 + 1)
+        + ",\"volumeNumber\":1,\"isrc\":\"" + TidalStubServer.isrc(trackIndex) + "\","
+        + "\"copyright\":\"Stub\",\"mediaMetadata\":{\"tags\":[\"LOSSLESS\"]},\"properties\":{\"content\":[]},"
+        + "\"tidalUrl\":\"https://tidal.com/browse/track/" + trackId + "\"}}";
+  }
+
+  /**
+   * Gets the endpoint name of a request to '/tracks'.
+   *
+   * @param exchange the exchange.
+   *
+   * @return the endpoint name.
+   */
+  private static String trackEndpoint(HttpExchange exchange) {
+    final String path = exchange.getRequestURI().getPath();
+
+    if (path.endsWith("/similar")) {
+      return "tracks/similar";
+    }
+
+    if (path.endsWith("/byIsrc")) {
+      return "tracks/byIsrc";
+    }
+
+    return "tracks";
+  }
+
+  /**
+   * Applies the 'offset' and 'limit' parameters to the given items.
+   *
+   * @param items      the items.
+   * @param parameters the query parameters.
+   *
+   * @return the page of items.
+   */
+  private static List<String> page(List<String> items, Map<String, String> parameters) {
+    final int offset = Integer.parseInt(parameters.getOrDefault("offset", "0"));
+    final int limit = Math.min(Integer.parseInt(parameters.getOrDefault("limit",
+        String.valueOf(TidalStubServer.DEFAULT_LIMIT))), TidalStubServer.MAX_LIMIT);
+
+    final int fromIndex = Math.min(Math.max(offset, 0), items.size());
+    final int toIndex = Math.min(fromIndex + Math.max(limit, 0), items.size());
+
+    return items.subList(fromIndex, toIndex);
+  }
+
+  /**
+   * Parses the query parameters of a request.
+   *
+   * @param exchange the exchange.
+   *
+   * @return the query parameters.
+   */
+  private static Map<String, String> parseQuery(HttpExchange exchange) {
+    final Map<String, String> parameters = new HashMap<>();
+    final String query = exchange.getRequestURI().getRawQuery();
+
+    if (query == null) {
+      return parameters;
+    }
+
+    for (String pair : query.split("&")) {
+      final int separator = pair.indexOf('=');
+
+      if (separator > 0) {
+        parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+            URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+      }
+    }
+
+    return parameters;
+  }
+
+  /**
+   * Takes one from the given counter if it is positive.
+   *
+   * @param counter the counter.
+   *
+   * @return true if one was taken.
+   */
+  private static boolean takeOne(AtomicInteger counter) {
+    return counter.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0;
+  }
+
+  /**
+   * Writes the response body of a request.
+   */
+  @FunctionalInterface
+  private interface Handler {
+
+    /**
+     * Handles a request.
+     *
+     * @param exchange   the exchange.
+     * @param parameters the query parameters.
+     *
+     * @return the response body, or null to answer 404 Not Found.
+     *
+     * @throws IOException if the request cannot be read.
+     */
+    String handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+  }
+
+  /**
+   * Distribution of the delay added before responses.
+   */
+  @FunctionalInterface
+  public interface Latency {
+
+    /**
+     * Draws the delay of the next response.
+     *
+     * @return the delay.
+     */
+    Duration next();
+
+    /**
+     * No delay.
+     *
+     * @return the latency distribution.
+     */
+    static Latency none() {
+      return () -> Duration.ZERO;
+    }
+
+    /**
+     * The same delay for every response.
+     *
+     * @param delay the delay.
+     *
+     * @return the latency distribution.
+     */
+    static Latency fixed(Duration delay) {
+      return () -> delay;
+    }
+
+    /**
+     * A delay drawn uniformly between the given bounds.
+     *
+     * @param min the smallest delay.
+     * @param max the largest delay.
+     *
+     * @return the latency distribution.
+     */
+    static Latency uniform(Duration min, Duration max) {
+      final long minNanos = min.toNanos();
+      final long maxNanos = max.toNanos();
+
+      return () -> Duration.ofNanos(ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1));
+    }
+
+    /**
+     * A log-normal delay with the given median and 99th percentile, the usual
+     * shape of server response times with a long tail.
+     *
+     * @param median the median delay.
+     * @param p99    the 99th percentile delay.
+     *
+     * @return the latency distribution.
+     */
+    static Latency logNormal(Duration median, Duration p99) {
+      final double mu = Math.log(median.toNanos());
+      final double sigma = (Math.log(p99.toNanos()) - mu) / 2.326;
+
+      return () -> Duration.ofNanos((long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+  }
+}